@@ -0,0 +1,118 @@
+package com.ippon.bankapp.domain;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Money} against {@link BigDecimal} on what the ledger does with every balance: add an amount to it,
+ * compare it and write it to, or read it from, JSON. The amounts cycle through a table of random ones, so
+ * none is a constant the compiler could fold. Serialization starts from minor units: a balance is a new value
+ * each time, and a {@code BigDecimal} written twice would reuse the string it cached the first time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MoneyBenchmark {
+
+    private static final int AMOUNTS = 1024;
+
+    private final long[] minorUnits = new long[AMOUNTS];
+    private final BigDecimal[] decimals = new BigDecimal[AMOUNTS];
+    private final Money[] monies = new Money[AMOUNTS];
+    private final String[] decimalJson = new String[AMOUNTS];
+    private final String[] moneyJson = new String[AMOUNTS];
+    private ObjectWriter decimalWriter;
+    private ObjectWriter moneyWriter;
+    private ObjectReader decimalReader;
+    private ObjectReader moneyReader;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // configured like the ObjectMapper Spring Boot builds for the controllers
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        decimalWriter = objectMapper.writerFor(BigDecimal.class);
+        moneyWriter = objectMapper.writerFor(Money.class);
+        decimalReader = objectMapper.readerFor(BigDecimal.class);
+        moneyReader = objectMapper.readerFor(Money.class);
+        Random random = new Random(42);
+        for (int i = 0; i < AMOUNTS; i++) {
+            // balances up to ten million, with cents, as read from a DECIMAL(19, 2) column
+            minorUnits[i] = (long) (random.nextDouble() * 1_000_000_000L);
+            decimals[i] = BigDecimal.valueOf(minorUnits[i], 2);
+            monies[i] = Money.ofMinor(minorUnits[i]);
+            decimalJson[i] = decimalWriter.writeValueAsString(decimals[i]);
+            moneyJson[i] = moneyWriter.writeValueAsString(monies[i]);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal addBigDecimal() {
+        int i = next();
+        return decimals[i].add(decimals[(i + 1) & (AMOUNTS - 1)]);
+    }
+
+    @Benchmark
+    public Money addMoney() {
+        int i = next();
+        return monies[i].plus(monies[(i + 1) & (AMOUNTS - 1)]);
+    }
+
+    @Benchmark
+    public int compareBigDecimal() {
+        int i = next();
+        return decimals[i].compareTo(decimals[(i + 1) & (AMOUNTS - 1)]);
+    }
+
+    @Benchmark
+    public int compareMoney() {
+        int i = next();
+        return monies[i].compareTo(monies[(i + 1) & (AMOUNTS - 1)]);
+    }
+
+    @Benchmark
+    public String serializeBigDecimal() throws IOException {
+        return decimalWriter.writeValueAsString(BigDecimal.valueOf(minorUnits[next()], 2));
+    }
+
+    @Benchmark
+    public String serializeMoney() throws IOException {
+        return moneyWriter.writeValueAsString(Money.ofMinor(minorUnits[next()]));
+    }
+
+    @Benchmark
+    public BigDecimal deserializeBigDecimal() throws IOException {
+        return decimalReader.readValue(decimalJson[next()]);
+    }
+
+    @Benchmark
+    public Money deserializeMoney() throws IOException {
+        return moneyReader.readValue(moneyJson[next()]);
+    }
+
+    private int next() {
+        next = (next + 1) & (AMOUNTS - 1);
+        return next;
+    }
+}
@@ -0,0 +1,101 @@
+package com.ippon.bankapp.jmh;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Runs the benchmarks and writes their results as JSON. When given a baseline, a result file of an
+ * earlier run, exits with status 1 if any benchmark got worse than the baseline by more than the threshold.
+ * <p>
+ * Configured with the system properties {@code jmh.include} (regular expression of the benchmarks to run),
+ * {@code jmh.result}, {@code jmh.baseline} and {@code jmh.threshold} (0.10 for 10%), set by the
+ * {@code jmh} Maven profile.
+ */
+public class BenchmarkRunner {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        String result = System.getProperty("jmh.result", "target/jmh-result.json");
+        String baseline = System.getProperty("jmh.baseline", "");
+        double threshold = Double.parseDouble(System.getProperty("jmh.threshold", "0.10"));
+
+        Options options = new OptionsBuilder()
+                .include(System.getProperty("jmh.include", ".*"))
+                .resultFormat(ResultFormatType.JSON)
+                .result(result)
+                .shouldFailOnError(true)
+                .build();
+        new Runner(options).run();
+
+        if (baseline.isEmpty()) {
+            return;
+        }
+        List<String> regressions = compare(new File(baseline), new File(result), threshold);
+        if (!regressions.isEmpty()) {
+            System.err.println("Benchmarks slower than " + baseline + " by more than " + percent(threshold) + ":");
+            regressions.forEach(regression -> System.err.println("  " + regression));
+            System.exit(1);
+        }
+        System.out.println("No benchmark slower than " + baseline + " by more than " + percent(threshold));
+    }
+
+    /**
+     * @return a description of each benchmark of {@code current} that is worse than in {@code baseline}
+     * by more than {@code threshold}; benchmarks missing from either file are ignored
+     */
+    static List<String> compare(File baseline, File current, double threshold) throws IOException {
+        Map<String, JsonNode> before = scores(baseline);
+        List<String> regressions = new ArrayList<>();
+        scores(current).forEach((name, metric) -> {
+            JsonNode previous = before.get(name);
+            if (previous == null) {
+                return;
+            }
+            double was = previous.get("score").asDouble();
+            double is = metric.get("score").asDouble();
+            // throughput modes report operations per time unit, the others time per operation
+            double change = higherIsBetter(metric) ? (was - is) / was : (is - was) / was;
+            if (change > threshold) {
+                regressions.add(String.format(Locale.ROOT, "%s: %.3f -> %.3f %s (%s worse)",
+                        name, was, is, metric.get("scoreUnit").asText(), percent(change)));
+            }
+        });
+        return regressions;
+    }
+
+    private static Map<String, JsonNode> scores(File file) throws IOException {
+        Map<String, JsonNode> scores = new LinkedHashMap<>();
+        for (JsonNode run : objectMapper.readTree(file)) {
+            StringBuilder name = new StringBuilder(run.get("benchmark").asText());
+            JsonNode params = run.get("params");
+            if (params != null) {
+                params.fields().forEachRemaining(param ->
+                        name.append(' ').append(param.getKey()).append('=').append(param.getValue().asText()));
+            }
+            scores.put(name.toString(), run.get("primaryMetric"));
+        }
+        return scores;
+    }
+
+    private static boolean higherIsBetter(JsonNode metric) {
+        return metric.get("scoreUnit").asText().startsWith("ops/");
+    }
+
+    private static String percent(double ratio) {
+        return String.format(Locale.ROOT, "%.1f%%", ratio * 100);
+    }
+}
@@ -0,0 +1,88 @@
+package com.ippon.bankapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.ippon.bankapp.domain.Account;
+import com.ippon.bankapp.domain.Money;
+import com.ippon.bankapp.service.dto.AccountDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping, JSON (de)serialization of {@link AccountDTO} and the entity's {@code equals}
+ * and {@code hashCode}: the per-request work around every database call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AccountMappingBenchmark {
+
+    private Account account;
+    private Account sameAccount;
+    private AccountDTO dto;
+    private String json;
+    private ObjectWriter writer;
+    private ObjectReader reader;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        account = account();
+        sameAccount = account();
+        dto = AccountService.mapAccountToDTO(account);
+        // configured like the ObjectMapper Spring Boot builds for the controllers
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = objectMapper.writerFor(AccountDTO.class);
+        reader = objectMapper.readerFor(AccountDTO.class);
+        json = writer.writeValueAsString(dto);
+    }
+
+    @Benchmark
+    public AccountDTO mapAccountToDTO() {
+        return AccountService.mapAccountToDTO(account);
+    }
+
+    @Benchmark
+    public String serializeAccountDTO() throws IOException {
+        return writer.writeValueAsString(dto);
+    }
+
+    @Benchmark
+    public AccountDTO deserializeAccountDTO() throws IOException {
+        return reader.readValue(json);
+    }
+
+    @Benchmark
+    public boolean accountEquals() {
+        return account.equals(sameAccount);
+    }
+
+    @Benchmark
+    public int accountHashCode() {
+        return account.hashCode();
+    }
+
+    private static Account account() {
+        Account account = new Account("Ada", "Lovelace");
+        account.setBalance(Money.of(new BigDecimal("1250.75")));
+        account.setNotificationPreference("email");
+        return account;
+    }
+}
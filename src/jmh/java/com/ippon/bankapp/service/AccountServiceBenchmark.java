@@ -0,0 +1,70 @@
+package com.ippon.bankapp.service;
+
+import com.ippon.bankapp.config.CacheConfiguration;
+import com.ippon.bankapp.jmh.BankAppState;
+import com.ippon.bankapp.service.dto.AccountDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code createAccount} and {@code getAccount} through the Spring proxies, against H2.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AccountServiceBenchmark {
+
+    private static final int ACCOUNTS = 1_000;
+
+    private AccountService accountService;
+    private Cache accountCache;
+    private long created;
+    private int read;
+
+    @Setup(Level.Trial)
+    public void setUp(BankAppState app) {
+        accountService = app.getBean(AccountService.class);
+        accountCache = app.getBean(CacheManager.class).getCache(CacheConfiguration.ACCOUNTS);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountService.createAccount(new AccountDTO().firstName("First").lastName("Read" + i));
+        }
+    }
+
+    @Benchmark
+    public AccountDTO createAccount() {
+        return accountService.createAccount(new AccountDTO().firstName("First").lastName("Created" + created++));
+    }
+
+    @Benchmark
+    public AccountDTO getAccountCached() {
+        return accountService.getAccount(nextLastName());
+    }
+
+    @Benchmark
+    public AccountDTO getAccountUncached() {
+        String lastName = nextLastName();
+        accountCache.evict(lastName);
+        return accountService.getAccount(lastName);
+    }
+
+    private String nextLastName() {
+        read = read == ACCOUNTS - 1 ? 0 : read + 1;
+        return "Read" + read;
+    }
+}
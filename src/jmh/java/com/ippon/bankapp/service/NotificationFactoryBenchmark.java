@@ -0,0 +1,42 @@
+package com.ippon.bankapp.service;
+
+import com.ippon.bankapp.jmh.BankAppState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NotificationFactoryBenchmark {
+
+    @Param({"email", "sms", "unknown"})
+    private String preference;
+
+    private NotificationFactory notificationFactory;
+
+    @Setup(Level.Trial)
+    public void setUp(BankAppState app) {
+        notificationFactory = app.getBean(NotificationFactory.class);
+    }
+
+    @Benchmark
+    public Optional<NotificationService> getPreferredService() {
+        return notificationFactory.getPreferredService(preference);
+    }
+}
@@ -0,0 +1,226 @@
+package com.ippon.bankapp.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.ippon.bankapp.load.Workload.Operation;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and outcomes of the measured requests by operation, with what the server held meanwhile, written as
+ * {@code result.json} and {@code report.html}, side by side with an earlier run when given one.
+ * <p>
+ * Latencies are recorded in microseconds from the time each request was due to be sent, not from when it was,
+ * so a server that falls behind shows in the percentiles instead of slowing the load down.
+ */
+class LoadReport {
+
+    static final double[] PERCENTILES = {50, 75, 90, 95, 99, 99.9, 99.99, 100};
+
+    private static final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final Map<Operation, Recorder> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, ConcurrentMap<String, LongAdder>> outcomes = new EnumMap<>(Operation.class);
+
+    LoadReport() {
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new Recorder(3));
+            outcomes.put(operation, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * @param outcome the response status, or the simple name of the exception the request failed with
+     */
+    void record(Operation operation, long latencyNanos, String outcome) {
+        latencies.get(operation).recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+        outcomes.get(operation).computeIfAbsent(outcome, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Writes the report of the requests recorded so far.
+     *
+     * @param settings  how the run was configured, repeated in the report
+     * @param resources the {@link ResourceSampler#summary() summary} of what the server held
+     * @param seconds   how long the measurement lasted
+     * @param baseline  the {@code result.json} of a run to compare with, or {@code null}
+     * @return the share of the recorded requests that failed
+     */
+    double write(File directory, Map<String, Object> settings, Map<String, Object> resources, double seconds,
+                 File baseline) throws IOException {
+        Map<String, Object> operations = new LinkedHashMap<>();
+        Histogram all = new Histogram(3);
+        long requests = 0;
+        long errors = 0;
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = latencies.get(operation).getIntervalHistogram();
+            Map<String, Long> counts = new TreeMap<>();
+            outcomes.get(operation).forEach((outcome, count) -> counts.put(outcome, count.sum()));
+            long failed = counts.entrySet().stream()
+                    .filter(outcome -> !isSuccess(outcome.getKey()))
+                    .mapToLong(Map.Entry::getValue)
+                    .sum();
+            operations.put(operation.name().toLowerCase(Locale.ROOT), summary(histogram, counts, failed, seconds));
+            all.add(histogram);
+            requests += histogram.getTotalCount();
+            errors += failed;
+        }
+        operations.put("all", summary(all, null, errors, seconds));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("settings", settings);
+        result.put("seconds", seconds);
+        result.put("operations", operations);
+        result.put("resources", resources);
+
+        Map<String, Object> compared = null;
+        if (baseline != null) {
+            result.put("baseline", baseline.getPath());
+            compared = objectMapper.readValue(baseline, Map.class);
+        }
+
+        Files.createDirectories(directory.toPath());
+        objectMapper.writeValue(new File(directory, "result.json"), result);
+        Files.write(new File(directory, "report.html").toPath(), html(result, compared).getBytes(StandardCharsets.UTF_8));
+        return requests == 0 ? 0 : (double) errors / requests;
+    }
+
+    private static Map<String, Object> summary(Histogram histogram, Map<String, Long> outcomes, long errors,
+                                               double seconds) {
+        long requests = histogram.getTotalCount();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", requests);
+        summary.put("throughput", round(requests / seconds));
+        summary.put("errors", errors);
+        summary.put("errorRate", requests == 0 ? 0.0 : round((double) errors / requests));
+        if (outcomes != null) {
+            summary.put("outcomes", outcomes);
+        }
+        Map<String, Double> millis = new LinkedHashMap<>();
+        millis.put("mean", round(histogram.getMean() / 1000));
+        for (double percentile : PERCENTILES) {
+            millis.put(label(percentile), round(histogram.getValueAtPercentile(percentile) / 1000.0));
+        }
+        summary.put("latencyMillis", millis);
+        return summary;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String html(Map<String, Object> result, Map<String, Object> baseline) {
+        Map<String, Object> operations = (Map<String, Object>) result.get("operations");
+        StringBuilder html = new StringBuilder()
+                .append("<!DOCTYPE html>\n<html><head><meta charset=\"utf-8\"><title>bankapp load test</title>\n")
+                .append("<style>body{font-family:sans-serif}table{border-collapse:collapse;margin-bottom:1em}")
+                .append("td,th{border:1px solid #ccc;padding:4px 8px;text-align:right}")
+                .append("th:first-child,td:first-child{text-align:left}</style></head><body>\n")
+                .append("<h1>bankapp load test</h1>\n<h2>Settings</h2>\n<table>\n");
+        ((Map<String, Object>) result.get("settings")).forEach((name, value) ->
+                html.append("<tr><td>").append(escape(name)).append("</td><td>").append(escape(value))
+                        .append("</td></tr>\n"));
+        html.append("<tr><td>measured seconds</td><td>").append(result.get("seconds")).append("</td></tr>\n")
+                .append("</table>\n<h2>Throughput and errors</h2>\n<table>\n")
+                .append("<tr><th>operation</th><th>requests</th><th>per second</th><th>errors</th>")
+                .append("<th>error rate</th><th>outcomes</th></tr>\n");
+        operations.forEach((operation, value) -> {
+            Map<String, Object> summary = (Map<String, Object>) value;
+            Object outcomes = summary.get("outcomes");
+            html.append("<tr><td>").append(operation).append("</td><td>").append(summary.get("requests"))
+                    .append("</td><td>").append(summary.get("throughput"))
+                    .append("</td><td>").append(summary.get("errors"))
+                    .append("</td><td>").append(summary.get("errorRate"))
+                    .append("</td><td>").append(outcomes == null ? "" : escape(outcomes))
+                    .append("</td></tr>\n");
+        });
+        html.append("</table>\n<h2>Latency (ms)</h2>\n<table>\n<tr><th>operation</th><th>mean</th>");
+        for (double percentile : PERCENTILES) {
+            html.append("<th>").append(label(percentile)).append("</th>");
+        }
+        html.append("</tr>\n");
+        operations.forEach((operation, value) -> {
+            html.append("<tr><td>").append(operation).append("</td>");
+            ((Map<String, Double>) ((Map<String, Object>) value).get("latencyMillis")).values()
+                    .forEach(millis -> html.append("<td>").append(millis).append("</td>"));
+            html.append("</tr>\n");
+        });
+        html.append("</table>\n<h2>Resources</h2>\n<table>\n");
+        ((Map<String, Object>) result.get("resources")).forEach((name, value) ->
+                html.append("<tr><td>").append(name).append("</td><td>").append(value).append("</td></tr>\n"));
+        html.append("</table>\n");
+        if (baseline != null) {
+            comparison(html, result, baseline);
+        }
+        return html.append("</body></html>\n").toString();
+    }
+
+    /**
+     * Puts the figures the stacks are compared on next to those of the baseline run.
+     */
+    @SuppressWarnings("unchecked")
+    private static void comparison(StringBuilder html, Map<String, Object> result, Map<String, Object> baseline) {
+        html.append("<h2>Against ").append(escape(result.get("baseline"))).append("</h2>\n<table>\n")
+                .append("<tr><th></th><th>baseline (").append(escape(stack(baseline)))
+                .append(")</th><th>this run (").append(escape(stack(result))).append(")</th></tr>\n");
+        Map<String, Object> operations = (Map<String, Object>) result.get("operations");
+        Map<String, Object> baselineOperations = (Map<String, Object>) baseline.get("operations");
+        for (String operation : operations.keySet()) {
+            Map<String, Object> summary = (Map<String, Object>) operations.get(operation);
+            Map<String, Object> other = (Map<String, Object>) baselineOperations.get(operation);
+            if (other == null) {
+                continue;
+            }
+            compare(html, operation + " per second", other.get("throughput"), summary.get("throughput"));
+            Map<String, Object> millis = (Map<String, Object>) summary.get("latencyMillis");
+            Map<String, Object> otherMillis = (Map<String, Object>) other.get("latencyMillis");
+            compare(html, operation + " p50 (ms)", otherMillis.get("p50"), millis.get("p50"));
+            compare(html, operation + " p99 (ms)", otherMillis.get("p99"), millis.get("p99"));
+        }
+        Map<String, Object> resources = (Map<String, Object>) result.get("resources");
+        Map<String, Object> otherResources = (Map<String, Object>) baseline.get("resources");
+        if (otherResources != null) {
+            resources.forEach((name, value) -> compare(html, name, otherResources.get(name), value));
+        }
+        html.append("</table>\n");
+    }
+
+    private static void compare(StringBuilder html, String name, Object baseline, Object value) {
+        html.append("<tr><td>").append(name).append("</td><td>").append(baseline == null ? "" : baseline)
+                .append("</td><td>").append(value).append("</td></tr>\n");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object stack(Map<String, Object> result) {
+        return ((Map<String, Object>) result.get("settings")).get("stack");
+    }
+
+    private static boolean isSuccess(String outcome) {
+        return outcome.length() == 3 && outcome.charAt(0) == '2';
+    }
+
+    private static String label(double percentile) {
+        return percentile == 100 ? "max" : "p" + (percentile == Math.rint(percentile)
+                ? Long.toString((long) percentile)
+                : Double.toString(percentile));
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    private static String escape(Object value) {
+        return String.valueOf(value).replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
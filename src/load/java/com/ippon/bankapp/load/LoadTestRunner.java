@@ -0,0 +1,220 @@
+package com.ippon.bankapp.load;
+
+import com.ippon.bankapp.BankappApplication;
+import com.ippon.bankapp.benchmark.SlowDatabase;
+import com.ippon.bankapp.load.Workload.Operation;
+import com.ippon.bankapp.service.AccountNameIndex;
+import com.ippon.bankapp.service.LastNameFilter;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Starts the application on a random port against the in-memory H2 database and sends it requests at a
+ * constant rate, whether the earlier ones got their response or not, then writes a {@link LoadReport}. Exits
+ * with status 1 if more of the measured requests failed than allowed.
+ * <p>
+ * Configured with the system properties {@code load.stack} ({@code servlet}, {@code virtual} for the servlet stack
+ * on virtual threads of the {@code virtual} profile, or {@code reactive} for the {@code reactive} profile),
+ * {@code load.rate} (requests per second), {@code load.warmup} and {@code load.duration} (seconds, the warmup not
+ * recorded), {@code load.read-ratio} (share of reads, the rest creates), {@code load.skew} (see {@link Workload}),
+ * {@code load.concurrency} (requests in flight at most), {@code load.scenario} ({@code warm} to start from the test
+ * fixtures of {@code sql/account_insert.sql}, {@code cold} from no account), {@code load.db-latency} (milliseconds
+ * each JDBC statement waits first, see {@link SlowDatabase}), {@code load.pool-size} (connections of the Hikari
+ * pool), {@code load.result-dir} (under which each stack writes to its own directory),
+ * {@code load.baseline} (the {@code result.json} of an earlier run, to compare with in the report) and
+ * {@code load.max-error-rate}, set by the {@code load} Maven profile. To compare the stacks:
+ * <pre>
+ * ./mvnw verify -Pload -Dload.stack=servlet
+ * ./mvnw verify -Pload -Dload.stack=reactive -Dload.baseline=target/load/servlet/result.json
+ * </pre>
+ * With ten thousand slow clients, each request waiting 20ms on every statement, and a pool large enough not to be
+ * the first limit (the clients hold that many sockets, and Tomcat as many: raise {@code ulimit -n} to match):
+ * <pre>
+ * ./mvnw verify -Pload -Dload.stack=servlet -Dload.concurrency=10000 -Dload.rate=5000 -Dload.db-latency=20 \
+ *     -Dload.pool-size=500
+ * ./mvnw verify -Pload -Dload.stack=virtual -Dload.concurrency=10000 -Dload.rate=5000 -Dload.db-latency=20 \
+ *     -Dload.pool-size=500 -Dload.baseline=target/load/servlet/result.json
+ * </pre>
+ * The servlet stack serves at most {@code server.tomcat.threads.max} (200) requests at once and queues the others
+ * in Tomcat; the virtual stack serves as many as the pool has connections and queues the others in the pool.
+ * Threads that blocked while pinned to their carrier are counted by a {@link PinningRecorder}.
+ * <p>
+ * The rate limit is off, since all the requests come from one client; the other background jobs run as they
+ * would in production.
+ */
+public class LoadTestRunner {
+
+    private static final String FIXTURES = "sql/account_insert.sql";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        double rate = Double.parseDouble(System.getProperty("load.rate", "200"));
+        int warmup = Integer.parseInt(System.getProperty("load.warmup", "10"));
+        int duration = Integer.parseInt(System.getProperty("load.duration", "60"));
+        double readRatio = Double.parseDouble(System.getProperty("load.read-ratio", "0.9"));
+        double skew = Double.parseDouble(System.getProperty("load.skew", "1.0"));
+        int concurrency = Integer.parseInt(System.getProperty("load.concurrency", "32"));
+        String scenario = System.getProperty("load.scenario", "warm");
+        long dbLatency = Long.parseLong(System.getProperty("load.db-latency", "0"));
+        int poolSize = Integer.parseInt(System.getProperty("load.pool-size", "10"));
+        String stack = System.getProperty("load.stack", "servlet");
+        File resultDir = new File(System.getProperty("load.result-dir", "target/load"), stack);
+        String baseline = System.getProperty("load.baseline", "");
+        double maxErrorRate = Double.parseDouble(System.getProperty("load.max-error-rate", "0.01"));
+        if (!scenario.equals("warm") && !scenario.equals("cold")) {
+            throw new IllegalArgumentException("load.scenario must be warm or cold, not " + scenario);
+        }
+        if (!stack.equals("servlet") && !stack.equals("virtual") && !stack.equals("reactive")) {
+            throw new IllegalArgumentException("load.stack must be servlet, virtual or reactive, not " + stack);
+        }
+        // keep a connection per worker alive between requests, instead of the default 5
+        System.setProperty("http.maxConnections", Integer.toString(concurrency));
+
+        List<String> arguments = new ArrayList<>();
+        // arguments, to win over the test configuration also on the classpath
+        Collections.addAll(arguments, "--server.port=0",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--bankapp.rate-limit.enabled=false",
+                "--bankapp.last-name-filter.enabled=true",
+                "--bankapp.outbox.relay-enabled=true",
+                "--bankapp.ledger.snapshot-enabled=true",
+                "--bankapp.query-stats.headers=false",
+                "--bankapp.query-stats.fail-over-budget=false",
+                "--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                // every client connected at once, on both servlet stacks
+                "--server.tomcat.max-connections=" + Math.max(8192, 2 * concurrency));
+        if (!stack.equals("servlet")) {
+            arguments.add("--spring.profiles.active=" + stack);
+        }
+        SpringApplicationBuilder application = new SpringApplicationBuilder(BankappApplication.class)
+                .logStartupInfo(false);
+        if (dbLatency > 0) {
+            application.initializers(initializing -> initializing.getBeanFactory()
+                    .addBeanPostProcessor(new SlowDatabase(Duration.ofMillis(dbLatency))));
+        }
+        ConfigurableApplicationContext context = application.run(arguments.toArray(new String[0]));
+        // virtual, so ten thousand clients cost the JVM no more threads than ten
+        ThreadPoolExecutor workers = (ThreadPoolExecutor) Executors.newFixedThreadPool(concurrency,
+                Thread.ofVirtual().name("load-client-", 1).factory());
+        AtomicInteger inFlight = new AtomicInteger();
+        ResourceSampler resources = new ResourceSampler(inFlight::get);
+        PinningRecorder pinning = new PinningRecorder();
+        try {
+            List<String> fixtures = scenario.equals("warm") ? loadFixtures(context) : Collections.emptyList();
+            long requests = (long) Math.ceil(rate * (warmup + duration));
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            Workload workload = new Workload("http://localhost:" + port,
+                    readRatio, skew, fixtures, (int) Math.min(Integer.MAX_VALUE - 8, fixtures.size() + requests));
+            LoadReport report = new LoadReport();
+
+            workers.prestartAllCoreThreads();
+            resources.idle();
+            pinning.start();
+
+            System.out.printf(Locale.ROOT, "Sending %.0f requests/s to the %s stack, %.0f%% reads, for %ds after %ds "
+                    + "of warmup%n", rate, stack, readRatio * 100, duration, warmup);
+            long start = System.nanoTime();
+            long measured = start + TimeUnit.SECONDS.toNanos(warmup);
+            for (long i = 0; i < requests; i++) {
+                long due = start + (long) (i * 1e9 / rate);
+                for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+                    LockSupport.parkNanos(wait);
+                }
+                resources.record(due >= measured);
+                pinning.record(due >= measured);
+                inFlight.incrementAndGet();
+                workers.execute(() -> {
+                    try {
+                        send(workload, report, due, due >= measured);
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                });
+            }
+            resources.record(false);
+            pinning.record(false);
+            workers.shutdown();
+            if (!workers.awaitTermination(Workload.TIMEOUT_MILLIS * 2, TimeUnit.MILLISECONDS)) {
+                System.err.println("Requests still running after the run, left out of the report");
+            }
+
+            Map<String, Object> settings = new LinkedHashMap<>();
+            settings.put("stack", stack);
+            settings.put("scenario", scenario);
+            settings.put("rate", rate);
+            settings.put("warmupSeconds", warmup);
+            settings.put("durationSeconds", duration);
+            settings.put("readRatio", readRatio);
+            settings.put("skew", skew);
+            settings.put("concurrency", concurrency);
+            settings.put("dbLatencyMillis", dbLatency);
+            settings.put("poolSize", poolSize);
+            Map<String, Object> summary = resources.summary();
+            summary.put("pinnedVirtualThreads", pinning.stop());
+            pinning.topSites().forEach((site, count) -> System.out.println("Pinned " + count + " times at " + site));
+            double errorRate = report.write(resultDir, settings, summary, duration,
+                    baseline.isEmpty() ? null : new File(baseline));
+            System.out.println("Report written to " + new File(resultDir, "report.html").getAbsolutePath());
+            if (errorRate > maxErrorRate) {
+                System.err.printf(Locale.ROOT, "%.2f%% of the requests failed, more than the %.2f%% allowed%n",
+                        errorRate * 100, maxErrorRate * 100);
+                context.close();
+                System.exit(1);
+            }
+        } finally {
+            resources.stop();
+            pinning.close();
+            workers.shutdownNow();
+            context.close();
+        }
+    }
+
+    /**
+     * Inserts the fixtures of the tests and tells the in-memory indexes about them, since they were inserted
+     * behind their back.
+     *
+     * @return the last names of the fixtures
+     */
+    private static List<String> loadFixtures(ConfigurableApplicationContext context) {
+        DataSource dataSource = context.getBean(DataSource.class);
+        new ResourceDatabasePopulator(new ClassPathResource(FIXTURES)).execute(dataSource);
+        context.getBean(LastNameFilter.class).rebuild();
+        context.getBean(AccountNameIndex.class).rebuild();
+        return new JdbcTemplate(dataSource)
+                .queryForList("select last_name from account order by id desc", String.class);
+    }
+
+    private static void send(Workload workload, LoadReport report, long due, boolean measured) {
+        Operation operation = workload.next();
+        String outcome;
+        try {
+            outcome = Integer.toString(workload.send(operation));
+        } catch (IOException e) {
+            outcome = e.getClass().getSimpleName();
+        }
+        if (measured) {
+            report.record(operation, System.nanoTime() - due, outcome);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.ippon.bankapp.load;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the virtual threads of the server that blocked while pinned to their carrier during the run, from the
+ * {@code jdk.VirtualThreadPinned} events of JFR with no threshold, by the first frame outside the JDK. A pinned
+ * thread keeps its carrier blocked, so under load the few carriers stall every other virtual thread. The clients,
+ * on virtual threads of this package, are left out.
+ */
+class PinningRecorder {
+
+    private static final int SITES = 5;
+    private static final String CLIENT_PACKAGE = PinningRecorder.class.getPackage().getName() + ".";
+
+    private final RecordingStream recording = new RecordingStream();
+    private final LongAdder pinned = new LongAdder();
+    private final ConcurrentMap<String, LongAdder> sites = new ConcurrentHashMap<>();
+    // events arrive in batches about a second late, so they are matched with the window by when they happened
+    private volatile Instant from = Instant.MAX;
+    private volatile Instant until = Instant.MAX;
+
+    void start() {
+        recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+        recording.onEvent("jdk.VirtualThreadPinned", this::pinned);
+        recording.startAsync();
+    }
+
+    void record(boolean recording) {
+        if (recording && from == Instant.MAX) {
+            from = Instant.now();
+        } else if (!recording && from != Instant.MAX && until == Instant.MAX) {
+            until = Instant.now();
+        }
+    }
+
+    /**
+     * @return the threads pinned while recording
+     */
+    long stop() {
+        recording.stop();
+        return pinned.sum();
+    }
+
+    void close() {
+        recording.close();
+    }
+
+    /**
+     * @return the sites that pinned the most threads, with how many each
+     */
+    Map<String, Long> topSites() {
+        Map<String, Long> top = new LinkedHashMap<>();
+        sites.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()))
+                .limit(SITES)
+                .forEach(site -> top.put(site.getKey(), site.getValue().sum()));
+        return top;
+    }
+
+    private void pinned(RecordedEvent event) {
+        Instant at = event.getStartTime();
+        String site = site(event.getStackTrace());
+        if (at.isBefore(from) || !at.isBefore(until) || site.startsWith(CLIENT_PACKAGE)) {
+            return;
+        }
+        pinned.increment();
+        sites.computeIfAbsent(site, key -> new LongAdder()).increment();
+    }
+
+    private static String site(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "unknown";
+        }
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return type + "." + frame.getMethod().getName();
+            }
+        }
+        return "JDK";
+    }
+}
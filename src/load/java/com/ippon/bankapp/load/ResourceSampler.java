@@ -0,0 +1,114 @@
+package com.ippon.bankapp.load;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * Samples what the JVM holds while the load runs, to tell what each request in flight costs the server: the
+ * heap left after the last collection of each pool, so garbage does not count, and the live threads. Compared
+ * with the same figures taken idle, before the load.
+ * <p>
+ * The load generator runs in the same JVM: its threads are virtual, which the thread count leaves out as it does
+ * those of the {@code virtual} stack, and are started before the idle sample; what it holds per request is the
+ * same whatever the stack, so two stacks compare fairly.
+ */
+class ResourceSampler {
+
+    private static final long INTERVAL_MILLIS = 100;
+
+    private final IntSupplier inFlight;
+    private final List<MemoryPoolMXBean> heapPools;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "load-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private long idleHeap;
+    private int idleThreads;
+    private volatile boolean recording;
+    private long samples;
+    private double heapSum;
+    private double inFlightSum;
+    private int maxThreads;
+    private int maxInFlight;
+
+    ResourceSampler(IntSupplier inFlight) {
+        this.inFlight = inFlight;
+        this.heapPools = new ArrayList<>(ManagementFactory.getMemoryPoolMXBeans());
+        this.heapPools.removeIf(pool -> pool.getType() != MemoryType.HEAP || pool.getCollectionUsage() == null);
+    }
+
+    /**
+     * Takes the idle sample, after a collection so it starts from the live heap.
+     */
+    void idle() {
+        System.gc();
+        idleHeap = retainedHeap();
+        idleThreads = ManagementFactory.getThreadMXBean().getThreadCount();
+        timer.scheduleAtFixedRate(this::sample, INTERVAL_MILLIS, INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    void record(boolean recording) {
+        this.recording = recording;
+    }
+
+    void stop() {
+        timer.shutdownNow();
+    }
+
+    private synchronized void sample() {
+        if (!recording) {
+            return;
+        }
+        int requests = inFlight.getAsInt();
+        samples++;
+        heapSum += retainedHeap();
+        inFlightSum += requests;
+        maxThreads = Math.max(maxThreads, ManagementFactory.getThreadMXBean().getThreadCount());
+        maxInFlight = Math.max(maxInFlight, requests);
+    }
+
+    private long retainedHeap() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            MemoryUsage afterCollection = pool.getCollectionUsage();
+            used += afterCollection.getUsed();
+        }
+        return used;
+    }
+
+    synchronized Map<String, Object> summary() {
+        double meanHeap = samples == 0 ? idleHeap : heapSum / samples;
+        double meanInFlight = samples == 0 ? 0 : inFlightSum / samples;
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("idleHeapMb", megabytes(idleHeap));
+        summary.put("meanHeapMb", megabytes(meanHeap));
+        summary.put("idleThreads", idleThreads);
+        summary.put("maxThreads", maxThreads);
+        summary.put("meanInFlight", round(meanInFlight));
+        summary.put("maxInFlight", maxInFlight);
+        summary.put("heapKbPerInFlight", meanInFlight < 1 ? 0.0 : round((meanHeap - idleHeap) / 1024 / meanInFlight));
+        summary.put("threadsPerInFlight", maxInFlight == 0 ? 0.0
+                : round((double) Math.max(0, maxThreads - idleThreads) / maxInFlight));
+        return summary;
+    }
+
+    private static double megabytes(double bytes) {
+        return round(bytes / (1024 * 1024));
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
@@ -0,0 +1,134 @@
+package com.ippon.bankapp.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The requests of a run: a share of {@code GET /api/account/{lastName}}, the rest {@code POST /api/account}.
+ * <p>
+ * Reads go to the accounts known so far, the fixtures first then those created by the run in order, picked with
+ * a Zipf distribution of exponent {@code skew} over that order: 0 reads them all alike, 1 sends about a third of
+ * the reads of a thousand accounts to the first ten. Until an account is known, reads are sent as creates.
+ */
+class Workload {
+
+    enum Operation {
+        CREATE, READ
+    }
+
+    static final int TIMEOUT_MILLIS = 10_000;
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final String baseUrl;
+    private final double readRatio;
+    private final double skew;
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+    private final AtomicReferenceArray<String> lastNames;
+    private final AtomicInteger known = new AtomicInteger();
+    private final AtomicLong created = new AtomicLong();
+
+    /**
+     * @param capacity how many accounts the run may know of, fixtures included; creates past it are not read
+     */
+    Workload(String baseUrl, double readRatio, double skew, List<String> fixtures, int capacity) {
+        this.baseUrl = baseUrl;
+        this.readRatio = readRatio;
+        this.skew = skew;
+        this.lastNames = new AtomicReferenceArray<>(capacity);
+        fixtures.forEach(this::known);
+    }
+
+    Operation next() {
+        return known.get() > 0 && ThreadLocalRandom.current().nextDouble() < readRatio
+                ? Operation.READ
+                : Operation.CREATE;
+    }
+
+    /**
+     * Sends the operation and reads its whole response, so the connection goes back to the keep-alive cache.
+     *
+     * @return the response status
+     */
+    int send(Operation operation) throws IOException {
+        if (operation == Operation.READ) {
+            return exchange("GET", "/api/account/" + pickLastName(), null);
+        }
+        String lastName = "Load" + runId + "x" + created.incrementAndGet();
+        String body = "{\"firstName\":\"Load\",\"lastName\":\"" + lastName + "\"}";
+        int status = exchange("POST", "/api/account", body.getBytes(StandardCharsets.UTF_8));
+        if (status / 100 == 2) {
+            known(lastName);
+        }
+        return status;
+    }
+
+    private String pickLastName() {
+        return lastNames.get(rank(known.get(), ThreadLocalRandom.current().nextDouble()));
+    }
+
+    /**
+     * Inverts the continuous approximation of the Zipf distribution over {@code count} ranks, so the pick costs
+     * the same however many accounts are known.
+     *
+     * @return a rank in {@code [0, count)}, 0 the most read
+     */
+    int rank(int count, double uniform) {
+        double rank;
+        if (Math.abs(skew - 1) < 1e-9) {
+            rank = Math.pow(count + 1, uniform);
+        } else {
+            double exponent = 1 - skew;
+            rank = Math.pow((Math.pow(count + 1, exponent) - 1) * uniform + 1, 1 / exponent);
+        }
+        return Math.min(count - 1, (int) rank - 1);
+    }
+
+    /**
+     * Stores the name before counting it, so a read never picks a slot still empty.
+     */
+    private synchronized void known(String lastName) {
+        int index = known.get();
+        if (index < lastNames.length()) {
+            lastNames.set(index, lastName);
+            known.set(index + 1);
+        }
+    }
+
+    private int exchange(String method, String path, byte[] body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) URI.create(baseUrl + path).toURL().openConnection();
+        connection.setRequestMethod(method);
+        connection.setConnectTimeout(TIMEOUT_MILLIS);
+        connection.setReadTimeout(TIMEOUT_MILLIS);
+        connection.setRequestProperty("Accept", "application/json");
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            connection.setFixedLengthStreamingMode(body.length);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+        }
+        int status = connection.getResponseCode();
+        InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        if (in != null) {
+            try (InputStream response = in) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                while (response.read(buffer) != -1) {
+                    // drain
+                }
+            }
+        }
+        return status;
+    }
+}
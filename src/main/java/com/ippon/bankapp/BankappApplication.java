@@ -1,16 +1,21 @@
 package com.ippon.bankapp;
 
+import com.ippon.bankapp.config.ApplicationProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.core.env.Environment;
 import org.springframework.util.StringUtils;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 
-@SpringBootApplication
+// the R2DBC connections are only for the reactive profile, see R2dbcConfiguration
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
+@EnableConfigurationProperties(ApplicationProperties.class)
 public class BankappApplication {
 
     private static final Logger log = LoggerFactory.getLogger(BankappApplication.class);
@@ -29,7 +34,7 @@ public class BankappApplication {
         }
         String serverPort = env.getProperty("server.port");
         String contextPath = env.getProperty("server.servlet.context-path");
-        if (StringUtils.isEmpty(contextPath)) {
+        if (!StringUtils.hasLength(contextPath)) {
             contextPath = "/";
         }
         String hostAddress = "localhost";
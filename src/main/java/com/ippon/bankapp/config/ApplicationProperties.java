@@ -0,0 +1,1060 @@
+package com.ippon.bankapp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Properties specific to Bankapp.
+ * <p>
+ * Properties are configured in the {@code application.yml} file under the {@code bankapp} prefix.
+ */
+@ConfigurationProperties(prefix = "bankapp", ignoreUnknownFields = false)
+public class ApplicationProperties {
+
+    private final Notification notification = new Notification();
+
+    private final Outbox outbox = new Outbox();
+
+    private final LastNameFilter lastNameFilter = new LastNameFilter();
+
+    private final Batch batch = new Batch();
+
+    private final Import importing = new Import();
+
+    private final Ledger ledger = new Ledger();
+
+    private final Journal journal = new Journal();
+
+    private final Engine engine = new Engine();
+
+    private final Idempotency idempotency = new Idempotency();
+
+    private final RateLimit rateLimit = new RateLimit();
+
+    private final Search search = new Search();
+
+    private final Lookup lookup = new Lookup();
+
+    private final Metrics metrics = new Metrics();
+
+    private final QueryStats queryStats = new QueryStats();
+
+    private final R2dbc r2dbc = new R2dbc();
+
+    private final VirtualThreads virtualThreads = new VirtualThreads();
+
+    public Notification getNotification() {
+        return notification;
+    }
+
+    public Outbox getOutbox() {
+        return outbox;
+    }
+
+    public LastNameFilter getLastNameFilter() {
+        return lastNameFilter;
+    }
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public Import getImport() {
+        return importing;
+    }
+
+    public Ledger getLedger() {
+        return ledger;
+    }
+
+    public Journal getJournal() {
+        return journal;
+    }
+
+    public Engine getEngine() {
+        return engine;
+    }
+
+    public Idempotency getIdempotency() {
+        return idempotency;
+    }
+
+    public RateLimit getRateLimit() {
+        return rateLimit;
+    }
+
+    public Search getSearch() {
+        return search;
+    }
+
+    public Lookup getLookup() {
+        return lookup;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public QueryStats getQueryStats() {
+        return queryStats;
+    }
+
+    public R2dbc getR2dbc() {
+        return r2dbc;
+    }
+
+    public VirtualThreads getVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public static class Notification {
+
+        /**
+         * Maximum number of messages waiting to be sent, per channel.
+         */
+        private int queueCapacity = 10_000;
+
+        /**
+         * Number of worker threads sending messages, per channel.
+         */
+        private int workers = 2;
+
+        /**
+         * Worker count overrides keyed by channel name (e.g. {@code sms: 1}).
+         */
+        private Map<String, Integer> channelWorkers = new HashMap<>();
+
+        /**
+         * Maximum number of messages handed to a channel in a single call.
+         */
+        private int batchSize = 100;
+
+        /**
+         * How long a caller waits for room in a full queue before sending the message itself.
+         */
+        private Duration offerTimeout = Duration.ofMillis(50);
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getWorkers() {
+            return workers;
+        }
+
+        public void setWorkers(int workers) {
+            this.workers = workers;
+        }
+
+        public Map<String, Integer> getChannelWorkers() {
+            return channelWorkers;
+        }
+
+        public void setChannelWorkers(Map<String, Integer> channelWorkers) {
+            this.channelWorkers = channelWorkers;
+        }
+
+        public int getWorkers(String channel) {
+            return channelWorkers.getOrDefault(channel, workers);
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Duration getOfferTimeout() {
+            return offerTimeout;
+        }
+
+        public void setOfferTimeout(Duration offerTimeout) {
+            this.offerTimeout = offerTimeout;
+        }
+    }
+
+    public static class Outbox {
+
+        /**
+         * Whether this instance relays outbox rows to the notification channels.
+         */
+        private boolean relayEnabled = true;
+
+        /**
+         * Number of relay threads polling the outbox in this instance.
+         */
+        private int relays = 1;
+
+        /**
+         * Maximum number of rows claimed per poll.
+         */
+        private int batchSize = 500;
+
+        /**
+         * Pause between polls when the previous poll did not fill a batch.
+         */
+        private Duration pollInterval = Duration.ofMillis(100);
+
+        /**
+         * How long a claimed row stays reserved for its relay before another relay may retry it.
+         */
+        private Duration leaseTime = Duration.ofSeconds(30);
+
+        public boolean isRelayEnabled() {
+            return relayEnabled;
+        }
+
+        public void setRelayEnabled(boolean relayEnabled) {
+            this.relayEnabled = relayEnabled;
+        }
+
+        public int getRelays() {
+            return relays;
+        }
+
+        public void setRelays(int relays) {
+            this.relays = relays;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Duration getPollInterval() {
+            return pollInterval;
+        }
+
+        public void setPollInterval(Duration pollInterval) {
+            this.pollInterval = pollInterval;
+        }
+
+        public Duration getLeaseTime() {
+            return leaseTime;
+        }
+
+        public void setLeaseTime(Duration leaseTime) {
+            this.leaseTime = leaseTime;
+        }
+    }
+
+    public static class LastNameFilter {
+
+        /**
+         * Whether account lookups consult the last name filter before querying the database. Off by default: only
+         * for a single instance creating every account, as a miss answers 404 without asking the database, and
+         * another instance's new accounts are missing from the filter until its next refresh.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Number of accounts the filter is sized for; it grows past this on rebuild.
+         */
+        private long expectedAccounts = 1_000_000;
+
+        /**
+         * Target probability that a missing last name still goes to the database.
+         */
+        private double falsePositiveProbability = 0.01;
+
+        /**
+         * How often the filter is rebuilt from the account table.
+         */
+        private Duration refreshInterval = Duration.ofMinutes(5);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getExpectedAccounts() {
+            return expectedAccounts;
+        }
+
+        public void setExpectedAccounts(long expectedAccounts) {
+            this.expectedAccounts = expectedAccounts;
+        }
+
+        public double getFalsePositiveProbability() {
+            return falsePositiveProbability;
+        }
+
+        public void setFalsePositiveProbability(double falsePositiveProbability) {
+            this.falsePositiveProbability = falsePositiveProbability;
+        }
+
+        public Duration getRefreshInterval() {
+            return refreshInterval;
+        }
+
+        public void setRefreshInterval(Duration refreshInterval) {
+            this.refreshInterval = refreshInterval;
+        }
+    }
+
+    public static class Batch {
+
+        /**
+         * Number of accounts written per transaction by the bulk creation endpoint.
+         */
+        private int chunkSize = 500;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    public static class Import {
+
+        /**
+         * Directory account files are imported from; files outside it are refused.
+         */
+        private String directory = "import";
+
+        /**
+         * Number of threads parsing and validating rows.
+         */
+        private int parserThreads = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * Number of bytes read from the file at once.
+         */
+        private DataSize readBufferSize = DataSize.ofMegabytes(1);
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public int getParserThreads() {
+            return parserThreads;
+        }
+
+        public void setParserThreads(int parserThreads) {
+            this.parserThreads = parserThreads;
+        }
+
+        public DataSize getReadBufferSize() {
+            return readBufferSize;
+        }
+
+        public void setReadBufferSize(DataSize readBufferSize) {
+            this.readBufferSize = readBufferSize;
+        }
+    }
+
+    public static class Ledger {
+
+        /**
+         * Number of in-process locks that balance changes on the same account queue on, instead of retrying
+         * against each other's ledger entries. 0 leaves all contention to the retries.
+         */
+        private int lockStripes = 1024;
+
+        /**
+         * Number of times a balance change is tried before giving up on a concurrently updated account.
+         */
+        private int maxAttempts = 10;
+
+        /**
+         * Upper bound of the random pause before a retry, multiplied by the number of attempts so far.
+         */
+        private Duration retryBackoff = Duration.ofMillis(2);
+
+        /**
+         * Whether this instance folds new ledger entries into the balance snapshots of their accounts.
+         * Balances stay correct without it, but reading one sums every entry since its last snapshot.
+         */
+        private boolean snapshotEnabled = true;
+
+        /**
+         * Pause between two passes of the snapshotter over the accounts.
+         */
+        private Duration snapshotInterval = Duration.ofSeconds(1);
+
+        /**
+         * Number of accounts whose snapshots are moved in one transaction.
+         */
+        private int snapshotBatchSize = 500;
+
+        public int getLockStripes() {
+            return lockStripes;
+        }
+
+        public void setLockStripes(int lockStripes) {
+            this.lockStripes = lockStripes;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public Duration getRetryBackoff() {
+            return retryBackoff;
+        }
+
+        public void setRetryBackoff(Duration retryBackoff) {
+            this.retryBackoff = retryBackoff;
+        }
+
+        public boolean isSnapshotEnabled() {
+            return snapshotEnabled;
+        }
+
+        public void setSnapshotEnabled(boolean snapshotEnabled) {
+            this.snapshotEnabled = snapshotEnabled;
+        }
+
+        public Duration getSnapshotInterval() {
+            return snapshotInterval;
+        }
+
+        public void setSnapshotInterval(Duration snapshotInterval) {
+            this.snapshotInterval = snapshotInterval;
+        }
+
+        public int getSnapshotBatchSize() {
+            return snapshotBatchSize;
+        }
+
+        public void setSnapshotBatchSize(int snapshotBatchSize) {
+            this.snapshotBatchSize = snapshotBatchSize;
+        }
+    }
+
+    public static class Journal {
+
+        /**
+         * Whether balance changes are acknowledged once written to a local journal, and written to the
+         * database in the background. Needs {@code bankapp.ledger.lock-stripes} above 0.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Directory of the journal segment files. It must survive restarts, and belong to a single instance.
+         */
+        private String directory = "journal";
+
+        /**
+         * Size of each journal segment file.
+         */
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+        /**
+         * How long a sync waits for more balance changes to join it before forcing the journal to disk. 0 syncs
+         * at once, with whatever changes queued up during the previous sync.
+         */
+        private Duration syncDelay = Duration.ZERO;
+
+        /**
+         * Pause between two passes writing journaled changes to the database.
+         */
+        private Duration replayInterval = Duration.ofMillis(100);
+
+        /**
+         * Number of journaled changes written to the database in one transaction.
+         */
+        private int replayBatchSize = 500;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public DataSize getSegmentSize() {
+            return segmentSize;
+        }
+
+        public void setSegmentSize(DataSize segmentSize) {
+            this.segmentSize = segmentSize;
+        }
+
+        public Duration getSyncDelay() {
+            return syncDelay;
+        }
+
+        public void setSyncDelay(Duration syncDelay) {
+            this.syncDelay = syncDelay;
+        }
+
+        public Duration getReplayInterval() {
+            return replayInterval;
+        }
+
+        public void setReplayInterval(Duration replayInterval) {
+            this.replayInterval = replayInterval;
+        }
+
+        public int getReplayBatchSize() {
+            return replayBatchSize;
+        }
+
+        public void setReplayBatchSize(int replayBatchSize) {
+            this.replayBatchSize = replayBatchSize;
+        }
+    }
+
+    public static class Engine {
+
+        /**
+         * Whether balance changes are applied one after the other by a single thread holding the balances in
+         * memory, which writes them to the ledger in batches, instead of by the request threads under the
+         * account locks. Cannot be combined with the journal.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Number of balance changes that can wait for the engine thread before requests wait to submit theirs.
+         */
+        private int ringSize = 4096;
+
+        /**
+         * Largest number of balance changes written to the ledger in one transaction.
+         */
+        private int batchSize = 500;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getRingSize() {
+            return ringSize;
+        }
+
+        public void setRingSize(int ringSize) {
+            this.ringSize = ringSize;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+    }
+
+    public static class Idempotency {
+
+        /**
+         * Whether POST requests carrying an {@code Idempotency-Key} header have their response stored and
+         * replayed for repeats with the same key.
+         */
+        private boolean enabled = true;
+
+        /**
+         * How long a stored response is replayed; the key can be used again afterwards.
+         */
+        private Duration ttl = Duration.ofHours(24);
+
+        /**
+         * Largest number of stored responses also kept in memory, the rest being read from the database.
+         */
+        private long cacheSize = 10_000;
+
+        /**
+         * How long a stored response stays in memory, at most the {@code ttl}.
+         */
+        private Duration cacheTtl = Duration.ofMinutes(5);
+
+        /**
+         * How long a repeat waits for the request it repeats to complete before being rejected as in progress.
+         */
+        private Duration waitTimeout = Duration.ofSeconds(10);
+
+        /**
+         * Pause between two deletions of the stored responses older than the {@code ttl}.
+         */
+        private Duration purgeInterval = Duration.ofMinutes(10);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public long getCacheSize() {
+            return cacheSize;
+        }
+
+        public void setCacheSize(long cacheSize) {
+            this.cacheSize = cacheSize;
+        }
+
+        public Duration getCacheTtl() {
+            return cacheTtl;
+        }
+
+        public void setCacheTtl(Duration cacheTtl) {
+            this.cacheTtl = cacheTtl;
+        }
+
+        public Duration getWaitTimeout() {
+            return waitTimeout;
+        }
+
+        public void setWaitTimeout(Duration waitTimeout) {
+            this.waitTimeout = waitTimeout;
+        }
+
+        public Duration getPurgeInterval() {
+            return purgeInterval;
+        }
+
+        public void setPurgeInterval(Duration purgeInterval) {
+            this.purgeInterval = purgeInterval;
+        }
+    }
+
+    public static class RateLimit {
+
+        /**
+         * Whether requests to the API are admitted by the client's token bucket and the adaptive concurrency
+         * limit, and rejected with a 429 or a 503 otherwise.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Header identifying the client, by one of the {@link #apiKeys}.
+         */
+        private String clientHeader = "X-API-Key";
+
+        /**
+         * API keys issued to clients. A request with another key, or none, is told apart by its address, so a
+         * client making keys up does not get a limit of its own for each.
+         */
+        private Set<String> apiKeys = new HashSet<>();
+
+        /**
+         * Largest number of client token buckets held, the least recently used being dropped first.
+         */
+        private long maxClients = 100_000;
+
+        /**
+         * Time after which the token bucket of an idle client is dropped; at least the time it takes to fill.
+         */
+        private Duration clientIdleTimeout = Duration.ofMinutes(10);
+
+        /**
+         * Requests per second each client may send to an endpoint without a limit of its own.
+         */
+        private double requestsPerSecond = 50;
+
+        /**
+         * Requests a client may send at once to an endpoint without a limit of its own.
+         */
+        private int burst = 100;
+
+        /**
+         * Limits of their own for some endpoints, by name; the first matching a request applies.
+         */
+        private Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+
+        /**
+         * Whether requests beyond the adaptive concurrency limit are rejected with a 503.
+         */
+        private boolean concurrencyEnabled = true;
+
+        /**
+         * Requests in progress allowed at first, before the limit adapts to their latency.
+         */
+        private int initialLimit = 20;
+
+        private int minLimit = 4;
+
+        /**
+         * Most requests in progress allowed, however fast they are.
+         */
+        private int maxLimit = 200;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getClientHeader() {
+            return clientHeader;
+        }
+
+        public void setClientHeader(String clientHeader) {
+            this.clientHeader = clientHeader;
+        }
+
+        public Set<String> getApiKeys() {
+            return apiKeys;
+        }
+
+        public void setApiKeys(Set<String> apiKeys) {
+            this.apiKeys = apiKeys;
+        }
+
+        public long getMaxClients() {
+            return maxClients;
+        }
+
+        public void setMaxClients(long maxClients) {
+            this.maxClients = maxClients;
+        }
+
+        public Duration getClientIdleTimeout() {
+            return clientIdleTimeout;
+        }
+
+        public void setClientIdleTimeout(Duration clientIdleTimeout) {
+            this.clientIdleTimeout = clientIdleTimeout;
+        }
+
+        public double getRequestsPerSecond() {
+            return requestsPerSecond;
+        }
+
+        public void setRequestsPerSecond(double requestsPerSecond) {
+            this.requestsPerSecond = requestsPerSecond;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+
+        public Map<String, Endpoint> getEndpoints() {
+            return endpoints;
+        }
+
+        public void setEndpoints(Map<String, Endpoint> endpoints) {
+            this.endpoints = endpoints;
+        }
+
+        public boolean isConcurrencyEnabled() {
+            return concurrencyEnabled;
+        }
+
+        public void setConcurrencyEnabled(boolean concurrencyEnabled) {
+            this.concurrencyEnabled = concurrencyEnabled;
+        }
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+        public static class Endpoint {
+
+            /**
+             * Ant-style patterns of the request paths, such as {@code /api/account/*&#47;deposit}.
+             */
+            private List<String> paths = new ArrayList<>();
+
+            /**
+             * HTTP method of the requests, any when not set.
+             */
+            private String method;
+
+            private double requestsPerSecond = 50;
+
+            private int burst = 100;
+
+            public List<String> getPaths() {
+                return paths;
+            }
+
+            public void setPaths(List<String> paths) {
+                this.paths = paths;
+            }
+
+            public String getMethod() {
+                return method;
+            }
+
+            public void setMethod(String method) {
+                this.method = method;
+            }
+
+            public double getRequestsPerSecond() {
+                return requestsPerSecond;
+            }
+
+            public void setRequestsPerSecond(double requestsPerSecond) {
+                this.requestsPerSecond = requestsPerSecond;
+            }
+
+            public int getBurst() {
+                return burst;
+            }
+
+            public void setBurst(int burst) {
+                this.burst = burst;
+            }
+        }
+    }
+
+    public static class Search {
+
+        /**
+         * Whether the names of the accounts are indexed in memory for the account search.
+         */
+        private boolean enabled = true;
+
+        /**
+         * How often the index is rebuilt from the account table, picking up the accounts created by other
+         * instances.
+         */
+        private Duration refreshInterval = Duration.ofMinutes(10);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getRefreshInterval() {
+            return refreshInterval;
+        }
+
+        public void setRefreshInterval(Duration refreshInterval) {
+            this.refreshInterval = refreshInterval;
+        }
+    }
+
+    public static class Lookup {
+
+        /**
+         * Most last names a single lookup request may ask for.
+         */
+        private int maxLastNames = 10_000;
+
+        /**
+         * Number of last names per query of a lookup, bound as one {@code in} list.
+         */
+        private int chunkSize = 500;
+
+        public int getMaxLastNames() {
+            return maxLastNames;
+        }
+
+        public void setMaxLastNames(int maxLastNames) {
+            this.maxLastNames = maxLastNames;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    public static class Metrics {
+
+        /**
+         * Whether the public methods of the services, repositories and notification channels are timed. When
+         * off, they are not proxied for it at all.
+         */
+        private boolean enabled = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+
+    public static class QueryStats {
+
+        /**
+         * Whether the statements each request sends to the database, the rows it reads and the time it spends
+         * there are counted, and recorded as metrics by endpoint.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Whether the counts are sent back as {@code X-Query-*} headers, which buffers every response.
+         */
+        private boolean headers = false;
+
+        /**
+         * Whether a request sending more statements than the {@code QueryBudget} of its endpoint gets a 500
+         * instead of its response, for the tests; otherwise it is only logged and counted.
+         */
+        private boolean failOverBudget = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public boolean isHeaders() {
+            return headers;
+        }
+
+        public void setHeaders(boolean headers) {
+            this.headers = headers;
+        }
+
+        public boolean isFailOverBudget() {
+            return failOverBudget;
+        }
+
+        public void setFailOverBudget(boolean failOverBudget) {
+            this.failOverBudget = failOverBudget;
+        }
+    }
+
+    public static class R2dbc {
+
+        /**
+         * R2DBC URL of the database the reactive stack reads and writes accounts in, the same database as
+         * {@code spring.datasource.url}, which the rest of the application still goes through.
+         */
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        /**
+         * Connections the reactive stack keeps open at most.
+         */
+        private int maxPoolSize = 10;
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public int getMaxPoolSize() {
+            return maxPoolSize;
+        }
+
+        public void setMaxPoolSize(int maxPoolSize) {
+            this.maxPoolSize = maxPoolSize;
+        }
+    }
+
+    public static class VirtualThreads {
+
+        /**
+         * Whether Tomcat serves requests, the notification channels send and the background jobs run on virtual
+         * threads. Requests then wait for a database connection without holding a platform thread, and the
+         * Hikari pool is what bounds the work in progress.
+         */
+        private boolean enabled = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.ippon.bankapp.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Caches are Caffeine caches configured through {@code spring.cache} in {@code application.yml}.
+ * Every cache used here must be listed in {@code spring.cache.cache-names} so its hit, miss and
+ * eviction metrics are registered at startup.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfiguration {
+
+    /**
+     * {@link com.ippon.bankapp.service.dto.AccountDTO} keyed by last name.
+     */
+    public static final String ACCOUNTS = "accounts";
+}
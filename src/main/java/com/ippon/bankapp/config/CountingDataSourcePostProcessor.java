@@ -0,0 +1,22 @@
+package com.ippon.bankapp.config;
+
+import com.ippon.bankapp.util.CountingDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the data sources in a {@link CountingDataSource}, for the per-request statement counts of
+ * {@link com.ippon.bankapp.rest.QueryStatsFilter}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "bankapp.query-stats", name = "enabled", matchIfMissing = true)
+public class CountingDataSourcePostProcessor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        return bean instanceof DataSource ? CountingDataSource.wrap((DataSource) bean) : bean;
+    }
+}
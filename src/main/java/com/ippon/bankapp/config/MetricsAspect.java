@@ -0,0 +1,138 @@
+package com.ippon.bankapp.config;
+
+import com.ippon.bankapp.repository.AccountRepository;
+import com.ippon.bankapp.service.NotificationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the public methods of the services, the repositories and the notification channels, the endpoints being
+ * timed by Spring Boot as {@code http.server.requests}. Each method gets a timer tagged with its class, or its
+ * repository or channel, and the exception it threw if any; their percentiles and histograms are configured
+ * under {@code management.metrics.distribution}.
+ * <p>
+ * Calls within a bean are not timed apart: only the calls coming from other beans go through the proxy. Methods
+ * returning a publisher, like those of the reactive stack, are not timed either: they return before doing the work.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(prefix = "bankapp.metrics", name = "enabled", matchIfMissing = true)
+public class MetricsAspect {
+
+    static final String SERVICE_TIMER = "service.calls";
+    static final String REPOSITORY_TIMER = "repository.calls";
+    static final String NOTIFICATION_TIMER = "notification.sends";
+
+    private static final String NO_EXCEPTION = "none";
+
+    private static final String REPOSITORY_PACKAGE = AccountRepository.class.getPackage().getName();
+
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<Key, Timer> timers = new ConcurrentHashMap<>();
+
+    public MetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * com.ippon.bankapp.service.*Service.*(..)) " +
+            "&& !execution(* com.ippon.bankapp.service.NotificationService+.*(..)) " +
+            "&& !execution(org.reactivestreams.Publisher+ *(..))")
+    public Object timeService(ProceedingJoinPoint call) throws Throwable {
+        return time(call, SERVICE_TIMER);
+    }
+
+    @Around("execution(public * org.springframework.data.repository.Repository+.*(..))")
+    public Object timeRepository(ProceedingJoinPoint call) throws Throwable {
+        return time(call, REPOSITORY_TIMER);
+    }
+
+    @Around("execution(public * com.ippon.bankapp.service.NotificationService+.send*(..))")
+    public Object timeNotification(ProceedingJoinPoint call) throws Throwable {
+        return time(call, NOTIFICATION_TIMER);
+    }
+
+    private Object time(ProceedingJoinPoint call, String name) throws Throwable {
+        long start = System.nanoTime();
+        Key key = new Key(name, call.getTarget().getClass(), ((MethodSignature) call.getSignature()).getMethod());
+        try {
+            Object result = call.proceed();
+            timers.computeIfAbsent(key, k -> timer(k, call.getTarget(), NO_EXCEPTION))
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (Throwable e) {
+            // exceptions are few, so their timers are looked up in the registry
+            timer(key, call.getTarget(), e.getClass().getSimpleName())
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private Timer timer(Key key, Object target, String exception) {
+        Timer.Builder timer = Timer.builder(key.name)
+                .tag("method", key.method.getName())
+                .tag("exception", exception);
+        switch (key.name) {
+            case REPOSITORY_TIMER:
+                timer.description("Calls to a repository, most of them a query each").tag("repository", repository(key.type));
+                break;
+            case NOTIFICATION_TIMER:
+                timer.description("Messages sent through a notification channel, one at a time or in bulk")
+                        .tag("channel", ((NotificationService) target).getName());
+                break;
+            default:
+                timer.description("Calls to a service from the other beans").tag("class", key.type.getSimpleName());
+        }
+        return timer.register(meterRegistry);
+    }
+
+    /**
+     * The repository interface implemented by a Spring Data proxy.
+     */
+    private static String repository(Class<?> proxy) {
+        for (Class<?> type : proxy.getInterfaces()) {
+            if (type.getName().startsWith(REPOSITORY_PACKAGE)) {
+                return type.getSimpleName();
+            }
+        }
+        return proxy.getSimpleName();
+    }
+
+    private static final class Key {
+
+        final String name;
+        final Class<?> type;
+        final Method method;
+
+        Key(String name, Class<?> type, Method method) {
+            this.name = name;
+            this.type = type;
+            this.method = method;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key that = (Key) o;
+            return type == that.type && method.equals(that.method) && name.equals(that.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, method);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.ippon.bankapp.config;
+
+/**
+ * Hibernate's PostgreSQL dialect, creating sequences with the standard {@code start with} and
+ * {@code increment by} that H2 2 requires, so the in-memory database runs the schema of PostgreSQL as well.
+ */
+public class PostgreSQLDialect extends org.hibernate.dialect.PostgreSQL10Dialect {
+
+    @Override
+    public String getCreateSequenceString(String sequenceName, int initialValue, int incrementSize) {
+        return "create sequence " + sequenceName + " start with " + initialValue + " increment by " + incrementSize;
+    }
+}
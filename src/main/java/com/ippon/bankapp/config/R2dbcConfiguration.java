@@ -0,0 +1,56 @@
+package com.ippon.bankapp.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import javax.annotation.PreDestroy;
+
+/**
+ * The R2DBC connections of the reactive stack, set up when the application runs as a reactive web application,
+ * as in the {@code reactive} profile. Neither the pool nor the transaction manager over it is a bean: Spring Boot
+ * would take a connection factory bean for the database of the application and leave out the JDBC data source,
+ * and the blocking services would no longer find the JPA transaction manager alone.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class R2dbcConfiguration {
+
+    private ConnectionPool connectionPool;
+
+    /**
+     * The client over the pool, which {@link DatabaseClient#getConnectionFactory()} gives for transactions.
+     */
+    @Bean
+    public DatabaseClient databaseClient(ApplicationProperties applicationProperties) {
+        ApplicationProperties.R2dbc properties = applicationProperties.getR2dbc();
+        if (properties.getUrl() == null) {
+            throw new IllegalStateException("The reactive stack needs bankapp.r2dbc.url");
+        }
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(properties.getUrl()).mutate();
+        if (properties.getUsername() != null) {
+            options.option(ConnectionFactoryOptions.USER, properties.getUsername());
+        }
+        if (properties.getPassword() != null) {
+            options.option(ConnectionFactoryOptions.PASSWORD, properties.getPassword());
+        }
+        connectionPool = new ConnectionPool(ConnectionPoolConfiguration
+                .builder(ConnectionFactories.get(options.build()))
+                .name("r2dbc")
+                .maxSize(properties.getMaxPoolSize())
+                .build());
+        return DatabaseClient.create(connectionPool);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (connectionPool != null) {
+            connectionPool.dispose();
+        }
+    }
+}
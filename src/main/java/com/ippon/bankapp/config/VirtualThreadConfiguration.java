@@ -0,0 +1,41 @@
+package com.ippon.bankapp.config;
+
+import com.ippon.bankapp.util.Threads;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves each request on a virtual thread of its own instead of Tomcat's pool of {@code server.tomcat.threads.max}
+ * platform threads, when {@code bankapp.virtual-threads.enabled} is set, as in the {@code virtual} profile. A
+ * request blocked on JDBC then only holds its connection, and requests past the Hikari pool's size wait in the
+ * pool's queue, up to {@code spring.datasource.hikari.connection-timeout}, rather than in Tomcat's.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "bankapp.virtual-threads", name = "enabled")
+public class VirtualThreadConfiguration {
+
+    private final ExecutorService requestExecutor =
+            Executors.newThreadPerTaskExecutor(Threads.numbered("http-virtual", true));
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(requestExecutor);
+    }
+
+    /**
+     * Tomcat leaves an executor it did not create running.
+     */
+    @PreDestroy
+    public void close() {
+        requestExecutor.shutdown();
+    }
+}
@@ -1,19 +1,31 @@
 package com.ippon.bankapp.domain;
 
+import org.hibernate.annotations.ColumnDefault;
+
 import javax.persistence.*;
-import java.math.BigDecimal;
 import java.util.Objects;
 
 @Entity
-@Table(name = "account")
+@Table(name = "account",
+        uniqueConstraints = @UniqueConstraint(name = Account.UNIQUE_LAST_NAME, columnNames = "last_name"))
 public class Account {
 
+    public static final String UNIQUE_LAST_NAME = "ux_account_last_name";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_seq")
+    @SequenceGenerator(name = "account_seq", sequenceName = "account_seq", allocationSize = 50)
     private int id;
 
+    /**
+     * Balance as of the ledger entry {@link #balanceSequence}: the current balance adds the entries after it.
+     */
     @Column(name = "balance")
-    private BigDecimal balance;
+    private Money balance;
+
+    @ColumnDefault("0")
+    @Column(name = "balance_sequence", nullable = false)
+    private long balanceSequence;
 
     @Column(name = "first_name")
     private String firstName;
@@ -24,23 +36,33 @@ public class Account {
     @Column(name = "notification_preference")
     private String notificationPreference;
 
+    // rows inserted behind Hibernate's back start at version 0
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private long version;
+
     public Account() {}
 
     public Account(String firstName, String lastName) {
         this.firstName = firstName;
         this.lastName = lastName;
-        this.balance = BigDecimal.ZERO;
+        this.balance = Money.ZERO;
 
     }
 
-    public BigDecimal getBalance() {
+    public Money getBalance() {
         return balance;
     }
 
-    public void setBalance(BigDecimal amount) {
+    public void setBalance(Money amount) {
         this.balance = amount;
     }
 
+    public long getBalanceSequence() {
+        return balanceSequence;
+    }
+
     public String getFirstName() {
         return firstName;
     }
@@ -69,6 +91,10 @@ public class Account {
         this.notificationPreference = notificationPreference;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
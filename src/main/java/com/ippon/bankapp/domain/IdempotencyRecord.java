@@ -0,0 +1,131 @@
+package com.ippon.bankapp.domain;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * The response to a request sent with an idempotency key, replayed for the repeats of that request. The row
+ * is inserted without a response when the request starts, and the primary key on the client and its
+ * idempotency key stops a repeat on another instance from running it as well. Keys are the client's own:
+ * two clients sending the same one are two requests.
+ */
+@Entity
+@Table(name = "idempotency_key")
+@IdClass(IdempotencyRecord.Key.class)
+public class IdempotencyRecord {
+
+    @Id
+    @Column(name = "client", length = 255)
+    private String client;
+
+    @Id
+    @Column(name = "idempotency_key", length = 255)
+    private String idempotencyKey;
+
+    /**
+     * Hash of the request, so a key sent again with another request is not mistaken for a repeat.
+     */
+    @Column(name = "fingerprint", nullable = false, length = 64)
+    private String fingerprint;
+
+    /**
+     * Status of the response; {@code null} while the request is in progress, or if it failed.
+     */
+    @Column(name = "status")
+    private Integer status;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "body")
+    private byte[] body;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public IdempotencyRecord() {}
+
+    public String getClient() {
+        return client;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public boolean isCompleted() {
+        return status != null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof IdempotencyRecord)) return false;
+        IdempotencyRecord that = (IdempotencyRecord) o;
+        return Objects.equals(client, that.client) && Objects.equals(idempotencyKey, that.idempotencyKey);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(client, idempotencyKey);
+    }
+
+    @Override
+    public String toString() {
+        return "IdempotencyRecord{" +
+                "client='" + client + '\'' +
+                ", idempotencyKey='" + idempotencyKey + '\'' +
+                ", status=" + status +
+                ", createdAt=" + createdAt +
+                '}';
+    }
+
+    public static class Key implements Serializable {
+
+        private String client;
+
+        private String idempotencyKey;
+
+        public Key() {}
+
+        public Key(String client, String idempotencyKey) {
+            this.client = client;
+            this.idempotencyKey = idempotencyKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return Objects.equals(client, key.client) && Objects.equals(idempotencyKey, key.idempotencyKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(client, idempotencyKey);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.ippon.bankapp.domain;
+
+import javax.persistence.*;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Progress of an account import, committed with each chunk of accounts so an interrupted import resumes
+ * after the last chunk it wrote.
+ */
+@Entity
+@Table(name = "account_import_checkpoint")
+public class ImportCheckpoint {
+
+    @Id
+    @Column(name = "file")
+    private String file;
+
+    /**
+     * Offset in the file just after the last line committed.
+     */
+    @Column(name = "byte_offset", nullable = false)
+    private long offset;
+
+    @Column(name = "line_number", nullable = false)
+    private long lineNumber;
+
+    /**
+     * Length of the rejected rows file matching {@link #offset}; anything past it was written by a chunk
+     * that did not commit.
+     */
+    @Column(name = "rejected_bytes", nullable = false)
+    private long rejectedBytes;
+
+    @Column(name = "imported", nullable = false)
+    private long imported;
+
+    @Column(name = "rejected", nullable = false)
+    private long rejected;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    public ImportCheckpoint() {}
+
+    public ImportCheckpoint(String file) {
+        this.file = file;
+        this.updatedAt = Instant.now();
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    public long getRejectedBytes() {
+        return rejectedBytes;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public ImportCheckpoint advance(long offset, long lineNumber, long rejectedBytes, long imported, long rejected) {
+        this.offset = offset;
+        this.lineNumber = lineNumber;
+        this.rejectedBytes = rejectedBytes;
+        this.imported += imported;
+        this.rejected += rejected;
+        this.updatedAt = Instant.now();
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ImportCheckpoint)) return false;
+        ImportCheckpoint that = (ImportCheckpoint) o;
+        return Objects.equals(file, that.file);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(file);
+    }
+
+    @Override
+    public String toString() {
+        return "ImportCheckpoint{" +
+                "file='" + file + '\'' +
+                ", offset=" + offset +
+                ", lineNumber=" + lineNumber +
+                ", imported=" + imported +
+                ", rejected=" + rejected +
+                '}';
+    }
+}
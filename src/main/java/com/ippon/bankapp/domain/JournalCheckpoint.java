@@ -0,0 +1,42 @@
+package com.ippon.bankapp.domain;
+
+import javax.persistence.*;
+
+/**
+ * The last record of a local journal written to the database, updated in the same transaction as the
+ * ledger entries it covers.
+ */
+@Entity
+@Table(name = "journal_checkpoint")
+public class JournalCheckpoint {
+
+    @Id
+    @Column(name = "journal_id", length = 36)
+    private String journalId;
+
+    @Column(name = "sequence", nullable = false)
+    private long sequence;
+
+    public JournalCheckpoint() {}
+
+    public JournalCheckpoint(String journalId, long sequence) {
+        this.journalId = journalId;
+        this.sequence = sequence;
+    }
+
+    public String getJournalId() {
+        return journalId;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    @Override
+    public String toString() {
+        return "JournalCheckpoint{" +
+                "journalId='" + journalId + '\'' +
+                ", sequence=" + sequence +
+                '}';
+    }
+}
@@ -0,0 +1,109 @@
+package com.ippon.bankapp.domain;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * One change to the balance of an account. Entries are only ever inserted: the sequence numbers of an
+ * account's entries are consecutive from 1, and the primary key on them stops two writers from both
+ * appending the next one.
+ */
+@Entity
+@Table(name = "ledger_entry")
+@IdClass(LedgerEntry.Key.class)
+public class LedgerEntry {
+
+    public enum Kind {
+        DEPOSIT, WITHDRAWAL, TRANSFER
+    }
+
+    @Id
+    @Column(name = "account_id")
+    private int accountId;
+
+    @Id
+    @Column(name = "sequence")
+    private long sequence;
+
+    /**
+     * Signed: negative for money leaving the account.
+     */
+    @Column(name = "amount", nullable = false)
+    private Money amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "kind", nullable = false, length = 16)
+    private Kind kind;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public LedgerEntry() {}
+
+    public LedgerEntry(int accountId, long sequence, Money amount, Kind kind) {
+        this.accountId = accountId;
+        this.sequence = sequence;
+        this.amount = amount;
+        this.kind = kind;
+        this.createdAt = Instant.now();
+    }
+
+    public int getAccountId() {
+        return accountId;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Money getAmount() {
+        return amount;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "LedgerEntry{" +
+                "accountId=" + accountId +
+                ", sequence=" + sequence +
+                ", amount=" + amount +
+                ", kind=" + kind +
+                '}';
+    }
+
+    public static class Key implements Serializable {
+
+        private int accountId;
+
+        private long sequence;
+
+        public Key() {}
+
+        public Key(int accountId, long sequence) {
+            this.accountId = accountId;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return accountId == key.accountId && sequence == key.sequence;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(accountId, sequence);
+        }
+    }
+}
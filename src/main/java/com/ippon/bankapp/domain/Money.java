@@ -0,0 +1,210 @@
+package com.ippon.bankapp.domain;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Currency;
+
+/**
+ * An amount of money as a whole number of minor units of its currency, such as cents: adding two allocates
+ * at most the result and comparing them nothing, where {@link BigDecimal} works on arbitrary precision values.
+ * Arithmetic throws {@link ArithmeticException} rather than overflow, or when the currencies differ.
+ * <p>
+ * The bank keeps a single currency, {@link #CURRENCY}: neither the database nor the JSON carries one, so both
+ * read amounts in it. In JSON an amount is a plain number with the currency's number of decimals.
+ */
+@JsonSerialize(using = MoneyJsonSerializer.class)
+@JsonDeserialize(using = MoneyJsonDeserializer.class)
+public final class Money implements Comparable<Money>, Serializable {
+
+    public static final Currency CURRENCY = Currency.getInstance("EUR");
+
+    public static final Money ZERO = new Money(0, CURRENCY);
+
+    /**
+     * Longest {@link #toString()}: a sign, the 19 digits of a long and a decimal point.
+     */
+    static final int MAX_LENGTH = 21;
+
+    private final long minorUnits;
+    private final Currency currency;
+
+    private Money(long minorUnits, Currency currency) {
+        this.minorUnits = minorUnits;
+        this.currency = currency;
+    }
+
+    public static Money ofMinor(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits, CURRENCY);
+    }
+
+    public static Money ofMinor(long minorUnits, Currency currency) {
+        fractionDigits(currency);
+        return new Money(minorUnits, currency);
+    }
+
+    /**
+     * @throws ArithmeticException if {@code amount} has more decimals than the currency or does not fit
+     */
+    public static Money of(BigDecimal amount) {
+        return of(amount, CURRENCY);
+    }
+
+    /**
+     * @throws ArithmeticException if {@code amount} has more decimals than {@code currency} or does not fit
+     */
+    public static Money of(BigDecimal amount, Currency currency) {
+        return new Money(amount.movePointRight(fractionDigits(currency)).longValueExact(), currency);
+    }
+
+    /**
+     * Reads a plain decimal number, such as {@code -12.3}, without going through {@link BigDecimal}.
+     *
+     * @throws NumberFormatException if the text is not a plain decimal number, an exponent included
+     * @throws ArithmeticException   if it has more decimals than {@link #CURRENCY} or does not fit
+     */
+    static Money parse(char[] text, int offset, int length) {
+        int digits = fractionDigits(CURRENCY);
+        int end = offset + length;
+        int i = offset;
+        boolean negative = i < end && text[i] == '-';
+        if (negative || (i < end && text[i] == '+')) {
+            i++;
+        }
+        // on the negative side, which has room for Long.MIN_VALUE
+        long value = 0;
+        int decimals = -1;
+        boolean empty = true;
+        for (; i < end; i++) {
+            char c = text[i];
+            if (c == '.' && decimals < 0) {
+                decimals = 0;
+                continue;
+            }
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("Not a plain decimal number: " + new String(text, offset, length));
+            }
+            empty = false;
+            if (decimals == digits) {
+                if (c != '0') {
+                    throw new ArithmeticException("More than " + digits + " decimals: " + new String(text, offset, length));
+                }
+                continue;
+            }
+            if (decimals >= 0) {
+                decimals++;
+            }
+            value = Math.subtractExact(Math.multiplyExact(value, 10), c - '0');
+        }
+        if (empty) {
+            throw new NumberFormatException("Not a plain decimal number: " + new String(text, offset, length));
+        }
+        for (int scale = Math.max(decimals, 0); scale < digits; scale++) {
+            value = Math.multiplyExact(value, 10);
+        }
+        return ofMinor(negative ? value : Math.negateExact(value));
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public Money plus(Money other) {
+        checkCurrency(other);
+        return other.minorUnits == 0 ? this : new Money(Math.addExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money minus(Money other) {
+        checkCurrency(other);
+        return other.minorUnits == 0 ? this : new Money(Math.subtractExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money negate() {
+        return minorUnits == 0 ? this : new Money(Math.negateExact(minorUnits), currency);
+    }
+
+    public int signum() {
+        return Long.signum(minorUnits);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, fractionDigits(currency));
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        checkCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Money)) return false;
+        Money money = (Money) o;
+        return minorUnits == money.minorUnits && currency.equals(money.currency);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(minorUnits) + currency.hashCode();
+    }
+
+    /**
+     * @return the amount as a plain number with the currency's number of decimals, such as {@code -12.30}
+     */
+    @Override
+    public String toString() {
+        char[] buffer = new char[MAX_LENGTH];
+        int start = format(buffer);
+        return new String(buffer, start, MAX_LENGTH - start);
+    }
+
+    /**
+     * Writes {@link #toString()} at the end of {@code buffer}, at least {@link #MAX_LENGTH} long, without
+     * building a string.
+     *
+     * @return the index of its first character
+     */
+    int format(char[] buffer) {
+        int digits = fractionDigits(currency);
+        int position = buffer.length;
+        // on the negative side, which has room for Long.MIN_VALUE
+        long rest = minorUnits < 0 ? minorUnits : -minorUnits;
+        for (int i = 0; i < digits; i++) {
+            buffer[--position] = (char) ('0' - rest % 10);
+            rest /= 10;
+        }
+        if (digits > 0) {
+            buffer[--position] = '.';
+        }
+        do {
+            buffer[--position] = (char) ('0' - rest % 10);
+            rest /= 10;
+        } while (rest != 0);
+        if (minorUnits < 0) {
+            buffer[--position] = '-';
+        }
+        return position;
+    }
+
+    private void checkCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new ArithmeticException("Cannot mix " + currency + " and " + other.currency);
+        }
+    }
+
+    private static int fractionDigits(Currency currency) {
+        int digits = currency.getDefaultFractionDigits();
+        if (digits < 0 || digits > 18) {
+            throw new IllegalArgumentException("Currency without minor units: " + currency);
+        }
+        return digits;
+    }
+}
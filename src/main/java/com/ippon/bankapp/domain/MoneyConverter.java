@@ -0,0 +1,27 @@
+package com.ippon.bankapp.domain;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Stores an amount of {@link Money#CURRENCY} as its number of minor units, in a {@code BIGINT} column.
+ */
+@Converter(autoApply = true)
+public class MoneyConverter implements AttributeConverter<Money, Long> {
+
+    @Override
+    public Long convertToDatabaseColumn(Money amount) {
+        if (amount == null) {
+            return null;
+        }
+        if (!Money.CURRENCY.equals(amount.getCurrency())) {
+            throw new IllegalArgumentException("Only " + Money.CURRENCY + " amounts are stored: " + amount.getCurrency());
+        }
+        return amount.getMinorUnits();
+    }
+
+    @Override
+    public Money convertToEntityAttribute(Long minorUnits) {
+        return minorUnits == null ? null : Money.ofMinor(minorUnits);
+    }
+}
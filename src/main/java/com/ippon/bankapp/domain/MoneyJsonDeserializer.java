@@ -0,0 +1,41 @@
+package com.ippon.bankapp.domain;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Reads an amount of {@link Money#CURRENCY} from a number, or a string holding one, as {@link BigDecimal}
+ * amounts were read. More decimals than the currency has are rejected rather than rounded.
+ */
+public class MoneyJsonDeserializer extends StdScalarDeserializer<Money> {
+
+    public MoneyJsonDeserializer() {
+        super(Money.class);
+    }
+
+    @Override
+    public Money deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token != JsonToken.VALUE_NUMBER_INT && token != JsonToken.VALUE_NUMBER_FLOAT && token != JsonToken.VALUE_STRING) {
+            return (Money) context.handleUnexpectedToken(Money.class, parser);
+        }
+        try {
+            try {
+                return Money.parse(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+            } catch (NumberFormatException e) {
+                // exponents and blanks around a string are left to BigDecimal
+                return Money.of(new BigDecimal(parser.getText().trim()));
+            }
+        } catch (NumberFormatException e) {
+            return (Money) context.handleWeirdStringValue(Money.class, parser.getText(), "not a valid amount");
+        } catch (ArithmeticException e) {
+            return (Money) context.handleWeirdStringValue(Money.class, parser.getText(), "not a valid %s amount",
+                    Money.CURRENCY);
+        }
+    }
+}
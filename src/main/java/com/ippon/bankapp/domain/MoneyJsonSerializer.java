@@ -0,0 +1,25 @@
+package com.ippon.bankapp.domain;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Writes an amount as the number {@code BigDecimal} amounts were written as, such as {@code 120.50}.
+ */
+public class MoneyJsonSerializer extends StdSerializer<Money> {
+
+    public MoneyJsonSerializer() {
+        super(Money.class);
+    }
+
+    @Override
+    public void serialize(Money value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        char[] buffer = new char[Money.MAX_LENGTH];
+        int start = value.format(buffer);
+        // written as is: the text is already a valid JSON number
+        generator.writeRawValue(buffer, start, buffer.length - start);
+    }
+}
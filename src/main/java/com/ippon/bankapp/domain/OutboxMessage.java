@@ -0,0 +1,118 @@
+package com.ippon.bankapp.domain;
+
+import javax.persistence.*;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Objects;
+
+/**
+ * A notification waiting to be relayed, written in the same transaction as the change that triggered it.
+ */
+@Entity
+@Table(name = "notification_outbox")
+public class OutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_outbox_seq")
+    @SequenceGenerator(name = "notification_outbox_seq", sequenceName = "notification_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "channel", nullable = false)
+    private String channel;
+
+    @Column(name = "source")
+    private String source;
+
+    @Column(name = "destination")
+    private String destination;
+
+    @Column(name = "subject")
+    private String subject;
+
+    @Column(name = "message")
+    private String message;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "claimed_by")
+    private String claimedBy;
+
+    @Column(name = "claimed_until")
+    private Instant claimedUntil;
+
+    public OutboxMessage() {}
+
+    public OutboxMessage(String channel, String source, String destination, String subject, String message) {
+        this.channel = channel;
+        this.source = source;
+        this.destination = destination;
+        this.subject = subject;
+        this.message = message;
+        // what the column keeps, so the message reads back equal to what was written
+        this.createdAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getClaimedBy() {
+        return claimedBy;
+    }
+
+    public Instant getClaimedUntil() {
+        return claimedUntil;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof OutboxMessage)) return false;
+        OutboxMessage that = (OutboxMessage) o;
+        return Objects.equals(id, that.id) &&
+                Objects.equals(channel, that.channel) &&
+                Objects.equals(destination, that.destination) &&
+                Objects.equals(subject, that.subject);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, channel, destination, subject);
+    }
+
+    @Override
+    public String toString() {
+        return "OutboxMessage{" +
+                "id=" + id +
+                ", channel='" + channel + '\'' +
+                ", destination='" + destination + '\'' +
+                ", subject='" + subject + '\'' +
+                ", createdAt=" + createdAt +
+                '}';
+    }
+}
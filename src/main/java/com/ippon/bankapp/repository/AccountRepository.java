@@ -2,13 +2,82 @@ package com.ippon.bankapp.repository;
 
 
 import com.ippon.bankapp.domain.Account;
-import org.springframework.data.repository.CrudRepository;
+import com.ippon.bankapp.service.dto.AccountMatchDTO;
+import com.ippon.bankapp.service.dto.AccountSummaryDTO;
+import com.ippon.bankapp.service.dto.AccountVersionDTO;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface AccountRepository  extends CrudRepository<Account, String> {
+public interface AccountRepository  extends JpaRepository<Account, String> {
+
+    /**
+     * Selects accounts as summaries, with the sum of the ledger entries after each balance snapshot.
+     */
+    String SELECT_SUMMARY = "select new com.ippon.bankapp.service.dto.AccountSummaryDTO(" +
+            "a.id, a.firstName, a.lastName, a.balance, " +
+            "(select sum(e.amount) from LedgerEntry e where e.accountId = a.id and e.sequence > a.balanceSequence), " +
+            "a.notificationPreference) from Account a ";
 
     Optional<Account> findByLastName(String lastName);
 
     Optional<Account> findById(int id);
+
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.FETCH_SIZE, value = "1000"))
+    @Query("select a.lastName from Account a")
+    Stream<String> streamAllLastNames();
+
+    /**
+     * Streams the names of every account in last name order, which lays out the name index built from them
+     * closer to the order it is walked in. Must be consumed inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.FETCH_SIZE, value = "1000"))
+    @Query("select new com.ippon.bankapp.service.dto.AccountMatchDTO(a.firstName, a.lastName) from Account a order by a.lastName")
+    Stream<AccountMatchDTO> streamAllNames();
+
+    /**
+     * Streams every account in id order. Must be consumed inside a transaction; summaries are not entities,
+     * so nothing piles up in the persistence context.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.FETCH_SIZE, value = "1000"))
+    @Query(SELECT_SUMMARY + "order by a.id")
+    Stream<AccountSummaryDTO> streamAll();
+
+    @Query("select a.id from Account a where a.id > :afterId order by a.id")
+    List<Integer> findIdsAfter(@Param("afterId") int afterId, Pageable page);
+
+    @Query("select a.lastName from Account a where a.lastName in :lastNames")
+    List<String> findExistingLastNames(@Param("lastNames") Collection<String> lastNames);
+
+    @Query(SELECT_SUMMARY + "where a.lastName in :lastNames")
+    List<AccountSummaryDTO> findSummariesByLastNameIn(@Param("lastNames") Collection<String> lastNames);
+
+    /**
+     * The version of an account without loading it, for conditional reads.
+     */
+    @Query("select new com.ippon.bankapp.service.dto.AccountVersionDTO(a.id, a.balanceSequence, " +
+            "(select max(e.sequence) from LedgerEntry e where e.accountId = a.id and e.sequence > a.balanceSequence)) " +
+            "from Account a where a.lastName = :lastName")
+    Optional<AccountVersionDTO> findVersionByLastName(@Param("lastName") String lastName);
+
+    /**
+     * Keyset pages: each page starts after the key of the previous one, so its cost does not depend on how
+     * deep it is. Only the page size of {@code page} is used.
+     */
+    @Query(SELECT_SUMMARY + "where a.id > :afterId order by a.id")
+    List<AccountSummaryDTO> findPageAfterId(@Param("afterId") int afterId, Pageable page);
+
+    @Query(SELECT_SUMMARY + "order by a.lastName")
+    List<AccountSummaryDTO> findFirstPageByLastName(Pageable page);
+
+    @Query(SELECT_SUMMARY + "where a.lastName > :afterLastName order by a.lastName")
+    List<AccountSummaryDTO> findPageAfterLastName(@Param("afterLastName") String afterLastName, Pageable page);
 }
@@ -0,0 +1,52 @@
+package com.ippon.bankapp.repository;
+
+import com.ippon.bankapp.domain.IdempotencyRecord;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+public interface IdempotencyRecordRepository extends CrudRepository<IdempotencyRecord, IdempotencyRecord.Key> {
+
+    /**
+     * Claims {@code key} of {@code client} for a request about to run, committed at once. A plain insert rather than a save,
+     * which would merge into the row of a concurrent claim: this one fails on the primary key instead.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_key (client, idempotency_key, fingerprint, created_at) " +
+            "VALUES (:client, :key, :fingerprint, :createdAt)",
+            nativeQuery = true)
+    int insertClaim(@Param("client") String client,
+                    @Param("key") String key,
+                    @Param("fingerprint") String fingerprint,
+                    @Param("createdAt") Instant createdAt);
+
+    @Transactional
+    @Modifying
+    @Query("update IdempotencyRecord r set r.status = :status, r.contentType = :contentType, r.body = :body " +
+            "where r.client = :client and r.idempotencyKey = :key and r.createdAt = :createdAt")
+    int complete(@Param("client") String client,
+                 @Param("key") String key,
+                 @Param("createdAt") Instant createdAt,
+                 @Param("status") int status,
+                 @Param("contentType") String contentType,
+                 @Param("body") byte[] body);
+
+    /**
+     * Deletes the row of {@code key} if it is still the one created at {@code createdAt}, not a newer claim.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r " +
+            "where r.client = :client and r.idempotencyKey = :key and r.createdAt = :createdAt")
+    int deleteClaim(@Param("client") String client, @Param("key") String key, @Param("createdAt") Instant createdAt);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") Instant before);
+}
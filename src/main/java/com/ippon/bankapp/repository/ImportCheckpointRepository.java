@@ -0,0 +1,7 @@
+package com.ippon.bankapp.repository;
+
+import com.ippon.bankapp.domain.ImportCheckpoint;
+import org.springframework.data.repository.CrudRepository;
+
+public interface ImportCheckpointRepository extends CrudRepository<ImportCheckpoint, String> {
+}
@@ -0,0 +1,7 @@
+package com.ippon.bankapp.repository;
+
+import com.ippon.bankapp.domain.JournalCheckpoint;
+import org.springframework.data.repository.CrudRepository;
+
+public interface JournalCheckpointRepository extends CrudRepository<JournalCheckpoint, String> {
+}
@@ -0,0 +1,47 @@
+package com.ippon.bankapp.repository;
+
+import com.ippon.bankapp.domain.LedgerEntry;
+import com.ippon.bankapp.domain.Money;
+import com.ippon.bankapp.service.dto.BalanceDeltaDTO;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface LedgerEntryRepository extends CrudRepository<LedgerEntry, LedgerEntry.Key> {
+
+    /**
+     * Sums the entries of one account after {@code afterSequence}, reading only those through the primary key.
+     * Empty when there are none. Sequences are consecutive, so the first entry read follows {@code afterSequence}.
+     */
+    @Query("select new com.ippon.bankapp.service.dto.BalanceDeltaDTO(e.accountId, min(e.sequence) - 1, sum(e.amount), max(e.sequence)) " +
+            "from LedgerEntry e where e.accountId = :accountId and e.sequence > :afterSequence group by e.accountId")
+    List<BalanceDeltaDTO> findDelta(@Param("accountId") int accountId, @Param("afterSequence") long afterSequence);
+
+    /**
+     * Sums the entries after the balance snapshot of each of {@code accountIds} that has any.
+     */
+    @Query("select new com.ippon.bankapp.service.dto.BalanceDeltaDTO(a.id, a.balanceSequence, sum(e.amount), max(e.sequence)) " +
+            "from Account a, LedgerEntry e " +
+            "where a.id in :accountIds and e.accountId = a.id and e.sequence > a.balanceSequence " +
+            "group by a.id, a.balanceSequence")
+    List<BalanceDeltaDTO> findSnapshotDeltas(@Param("accountIds") Collection<Integer> accountIds);
+
+    /**
+     * Moves the balance snapshot of an account forward by {@code delta}, unless another snapshot moved it first.
+     *
+     * @return 1 if the snapshot was moved, 0 otherwise
+     */
+    @Modifying
+    @Query("update Account a set a.balance = coalesce(a.balance, 0) + :amount, a.balanceSequence = :toSequence, " +
+            "a.version = a.version + 1 where a.id = :accountId and a.balanceSequence = :fromSequence")
+    int moveSnapshot(@Param("accountId") int accountId,
+                     @Param("fromSequence") long fromSequence,
+                     @Param("amount") Money amount,
+                     @Param("toSequence") long toSequence);
+
+    List<LedgerEntry> findByAccountIdOrderBySequence(int accountId);
+}
@@ -0,0 +1,59 @@
+package com.ippon.bankapp.repository;
+
+import com.ippon.bankapp.domain.OutboxMessage;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxRepository extends CrudRepository<OutboxMessage, Long> {
+
+    /**
+     * Claims up to {@code limit} unclaimed (or expired) rows for {@code owner}, skipping rows another relay
+     * holds a lock on. Postgres only.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE notification_outbox SET claimed_by = :owner, claimed_until = :until " +
+            "WHERE id IN (SELECT id FROM notification_outbox " +
+            "             WHERE claimed_until IS NULL OR claimed_until < :now " +
+            "             ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED)",
+            nativeQuery = true)
+    int claimBatchSkipLocked(@Param("owner") String owner,
+                             @Param("now") Instant now,
+                             @Param("until") Instant until,
+                             @Param("limit") int limit);
+
+    /**
+     * Claims up to {@code limit} unclaimed (or expired) rows for {@code owner}. The claim condition is
+     * re-checked by the outer update, so a row picked by two relays at once is only claimed by the first
+     * to commit. Used on databases without {@code SKIP LOCKED}, such as H2.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE notification_outbox SET claimed_by = :owner, claimed_until = :until " +
+            "WHERE id IN (SELECT id FROM notification_outbox " +
+            "             WHERE claimed_until IS NULL OR claimed_until < :now " +
+            "             ORDER BY id LIMIT :limit) " +
+            "AND (claimed_until IS NULL OR claimed_until < :now)",
+            nativeQuery = true)
+    int claimBatch(@Param("owner") String owner,
+                   @Param("now") Instant now,
+                   @Param("until") Instant until,
+                   @Param("limit") int limit);
+
+    List<OutboxMessage> findByClaimedByOrderById(String owner);
+
+    @Transactional
+    @Modifying
+    @Query("delete from OutboxMessage m where m.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select min(m.createdAt) from OutboxMessage m")
+    Instant findOldestCreatedAt();
+}
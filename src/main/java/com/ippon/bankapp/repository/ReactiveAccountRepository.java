@@ -0,0 +1,104 @@
+package com.ippon.bankapp.repository;
+
+import com.ippon.bankapp.domain.Account;
+import com.ippon.bankapp.domain.Money;
+import com.ippon.bankapp.service.dto.AccountStateDTO;
+import com.ippon.bankapp.service.dto.AccountSummaryDTO;
+import com.ippon.bankapp.service.dto.AccountVersionDTO;
+import io.r2dbc.spi.Row;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * The reads and writes of {@link AccountRepository} the reactive stack needs, on R2DBC. Same tables, written in
+ * SQL both H2 and Postgres run; ids come from the sequence Hibernate allocates from, one value at a time, so
+ * they never collide with the ids Hibernate hands out.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAccountRepository {
+
+    private static final String AFTER_SNAPSHOT = "from ledger_entry e where e.account_id = a.id " +
+            "and e.sequence > a.balance_sequence";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveAccountRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * The account with the sum and the last sequence of the ledger entries after its balance snapshot.
+     */
+    public Mono<AccountStateDTO> findStateByLastName(String lastName) {
+        return databaseClient.sql("select a.id, a.first_name, a.last_name, a.balance, a.notification_preference, " +
+                "a.balance_sequence, " +
+                "(select sum(e.amount) " + AFTER_SNAPSHOT + ") as delta, " +
+                "(select max(e.sequence) " + AFTER_SNAPSHOT + ") as last_sequence " +
+                "from account a where a.last_name = :lastName")
+                .bind("lastName", lastName)
+                .map((row, metadata) -> new AccountStateDTO(
+                        new AccountSummaryDTO(number(row, "id").intValue(),
+                                row.get("first_name", String.class),
+                                row.get("last_name", String.class),
+                                money(row, "balance"),
+                                longOrNull(row, "delta"),
+                                row.get("notification_preference", String.class)),
+                        version(row)))
+                .one();
+    }
+
+    /**
+     * The version of an account without loading it, for conditional reads.
+     */
+    public Mono<AccountVersionDTO> findVersionByLastName(String lastName) {
+        return databaseClient.sql("select a.id, a.balance_sequence, " +
+                "(select max(e.sequence) " + AFTER_SNAPSHOT + ") as last_sequence " +
+                "from account a where a.last_name = :lastName")
+                .bind("lastName", lastName)
+                .map((row, metadata) -> version(row))
+                .one();
+    }
+
+    /**
+     * Inserts a new account, at version 0 with no ledger entry in its balance.
+     */
+    public Mono<Void> insert(Account account) {
+        Money balance = account.getBalance() == null ? Money.ZERO : account.getBalance();
+        DatabaseClient.GenericExecuteSpec insert = databaseClient.sql("insert into account " +
+                "(id, first_name, last_name, balance, balance_sequence, notification_preference, version) " +
+                "values (nextval('account_seq'), :firstName, :lastName, :balance, 0, :notificationPreference, 0)")
+                .bind("firstName", account.getFirstName())
+                .bind("lastName", account.getLastName())
+                .bind("balance", balance.getMinorUnits());
+        insert = account.getNotificationPreference() == null
+                ? insert.bindNull("notificationPreference", String.class)
+                : insert.bind("notificationPreference", account.getNotificationPreference());
+        return insert.then();
+    }
+
+    private static AccountVersionDTO version(Row row) {
+        return new AccountVersionDTO(number(row, "id").intValue(),
+                number(row, "balance_sequence").longValue(),
+                longOrNull(row, "last_sequence"));
+    }
+
+    private static Money money(Row row, String column) {
+        Long minorUnits = longOrNull(row, column);
+        return minorUnits == null ? null : Money.ofMinor(minorUnits);
+    }
+
+    /**
+     * Sums are {@code BIGINT} in H2 and {@code NUMERIC} in Postgres: read as whatever number the driver gives.
+     */
+    private static Long longOrNull(Row row, String column) {
+        Number value = (Number) row.get(column);
+        return value == null ? null : value.longValue();
+    }
+
+    private static Number number(Row row, String column) {
+        return (Number) row.get(column);
+    }
+}
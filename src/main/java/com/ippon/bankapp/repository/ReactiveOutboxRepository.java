@@ -0,0 +1,35 @@
+package com.ippon.bankapp.repository;
+
+import com.ippon.bankapp.domain.OutboxMessage;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Writes {@link OutboxMessage}s for the reactive stack, on R2DBC; the relay reads them through
+ * {@link OutboxRepository} like any other.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveOutboxRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveOutboxRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<Void> insert(OutboxMessage message) {
+        return databaseClient.sql("insert into notification_outbox " +
+                "(id, channel, source, destination, subject, message, created_at) " +
+                "values (nextval('notification_outbox_seq'), :channel, :source, :destination, :subject, :message, " +
+                "current_timestamp)")
+                .bind("channel", message.getChannel())
+                .bind("source", message.getSource())
+                .bind("destination", message.getDestination())
+                .bind("subject", message.getSubject())
+                .bind("message", message.getMessage())
+                .then();
+    }
+}
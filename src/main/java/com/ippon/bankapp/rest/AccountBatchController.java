@@ -0,0 +1,102 @@
+package com.ippon.bankapp.rest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.ippon.bankapp.service.AccountBatchService;
+import com.ippon.bankapp.service.AccountImportService;
+import com.ippon.bankapp.service.dto.AccountBatchResultDTO;
+import com.ippon.bankapp.service.dto.AccountDTO;
+import com.ippon.bankapp.service.dto.AccountImportRequestDTO;
+import com.ippon.bankapp.service.dto.AccountImportResultDTO;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.Valid;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Bulk account creation. Takes either a JSON array, answered with an array of results, or
+ * newline-delimited JSON, answered line by line as each chunk is committed so neither side has to hold
+ * the whole batch in memory. Files too large to send are imported from the server's import directory.
+ */
+@RestController
+@RequestMapping("/api")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class AccountBatchController {
+
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    private final AccountBatchService accountBatchService;
+    private final AccountImportService accountImportService;
+    private final ObjectReader accountReader;
+    private final ObjectMapper objectMapper;
+
+    public AccountBatchController(AccountBatchService accountBatchService,
+                                  AccountImportService accountImportService,
+                                  ObjectMapper objectMapper) {
+        this.accountBatchService = accountBatchService;
+        this.accountImportService = accountImportService;
+        this.accountReader = objectMapper.readerFor(AccountDTO.class);
+        this.objectMapper = objectMapper;
+    }
+
+    @PostMapping(path = "/accounts/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<AccountBatchResultDTO> createAccounts(@RequestBody List<AccountDTO> newAccounts) {
+        return accountBatchService.createAccounts(newAccounts);
+    }
+
+    @PostMapping(path = "/accounts/batch", consumes = APPLICATION_NDJSON_VALUE)
+    public void createAccounts(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        BufferedReader lines = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+        Iterator<AccountDTO> accounts = lines.lines()
+                .filter(line -> !line.trim().isEmpty())
+                .map(this::readAccount)
+                .iterator();
+        try (SequenceWriter results = objectMapper.writer()
+                .withRootValueSeparator("\n")
+                .writeValues(response.getOutputStream())) {
+            accountBatchService.createAccounts(accounts, result -> write(results, result));
+            results.flush();
+            response.getOutputStream().write('\n');
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @PostMapping("/accounts/import")
+    public AccountImportResultDTO importAccounts(@Valid @RequestBody AccountImportRequestDTO request) throws IOException {
+        return accountImportService.importFile(request.getFile(), request.getFormat(), request.isRestart());
+    }
+
+    private AccountDTO readAccount(String line) {
+        try {
+            return accountReader.readValue(line);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private static void write(SequenceWriter results, AccountBatchResultDTO result) {
+        try {
+            results.write(result);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
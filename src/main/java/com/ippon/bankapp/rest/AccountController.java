@@ -1,31 +1,97 @@
 package com.ippon.bankapp.rest;
 
+import com.ippon.bankapp.service.AccountPageToken;
 import com.ippon.bankapp.service.AccountService;
 import com.ippon.bankapp.service.dto.AccountDTO;
+import com.ippon.bankapp.service.dto.AccountMatchDTO;
+import com.ippon.bankapp.service.dto.AccountPageDTO;
+import com.ippon.bankapp.service.dto.AmountDTO;
+import com.ippon.bankapp.service.dto.TransferDTO;
+import com.ippon.bankapp.service.dto.TransferResultDTO;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.validation.Valid;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class AccountController {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private static final int MAX_SEARCH_RESULTS = 100;
+
     private final AccountService accountService;
 
     public AccountController(AccountService accountService) {
         this.accountService = accountService;
     }
 
+    @QueryBudget(statements = 8)
     @PostMapping("/account")
     @ResponseStatus(HttpStatus.CREATED)
     public AccountDTO createAccount(@Valid @RequestBody AccountDTO newAccount) {
         return accountService.createAccount(newAccount);
     }
 
+    /**
+     * Reads an account with its version as a strong {@code ETag}. A client sending that version back in
+     * {@code If-None-Match} gets a 304 when the account has not changed, checked from the version alone.
+     */
+    @QueryBudget(statements = 3)
     @GetMapping("/account/{lastName}")
-    public AccountDTO account(@PathVariable(name = "lastName") String lastName) {
-        return accountService.getAccount(lastName);
+    public ResponseEntity<AccountDTO> account(@PathVariable(name = "lastName") String lastName, WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && request.checkNotModified(accountService.getAccountVersion(lastName))) {
+            // the response is already a 304 with the ETag
+            return null;
+        }
+        AccountDTO account = accountService.getAccount(lastName);
+        if (account.getVersion() == null) {
+            return ResponseEntity.ok(account);
+        }
+        return ResponseEntity.ok().eTag(account.getVersion()).body(account);
+    }
+
+    @QueryBudget(statements = 5)
+    @PostMapping("/account/{lastName}/deposit")
+    public AccountDTO deposit(@PathVariable(name = "lastName") String lastName,
+                              @Valid @RequestBody AmountDTO deposit) {
+        return accountService.deposit(lastName, deposit.getAmount());
+    }
+
+    @QueryBudget(statements = 5)
+    @PostMapping("/account/{lastName}/withdrawal")
+    public AccountDTO withdraw(@PathVariable(name = "lastName") String lastName,
+                               @Valid @RequestBody AmountDTO withdrawal) {
+        return accountService.withdraw(lastName, withdrawal.getAmount());
+    }
+
+    @QueryBudget(statements = 7)
+    @PostMapping("/transfer")
+    public TransferResultDTO transfer(@Valid @RequestBody TransferDTO transfer) {
+        return accountService.transfer(transfer);
+    }
+
+    @QueryBudget(statements = 0)
+    @GetMapping("/accounts/search")
+    public List<AccountMatchDTO> searchAccounts(@RequestParam(name = "q") String query,
+                                                @RequestParam(name = "limit", defaultValue = "20") int limit) {
+        return accountService.searchAccounts(query, Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS)));
+    }
+
+    @QueryBudget(statements = 1)
+    @GetMapping("/accounts")
+    public AccountPageDTO accounts(@RequestParam(name = "after", required = false) String after,
+                                   @RequestParam(name = "sort", defaultValue = "ID") AccountPageToken.Sort sort,
+                                   @RequestParam(name = "limit", defaultValue = "100") int limit) {
+        return accountService.listAccounts(after, sort, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
     }
 
 }
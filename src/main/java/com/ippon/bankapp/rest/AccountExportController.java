@@ -0,0 +1,56 @@
+package com.ippon.bankapp.rest;
+
+import com.ippon.bankapp.service.AccountExportService;
+import com.ippon.bankapp.service.AccountExportService.Format;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/api")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class AccountExportController {
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private final AccountExportService accountExportService;
+
+    public AccountExportController(AccountExportService accountExportService) {
+        this.accountExportService = accountExportService;
+    }
+
+    /**
+     * Streams every account as NDJSON (the default) or CSV, gzipped when the client accepts it.
+     */
+    @QueryBudget(statements = 1)
+    @GetMapping("/accounts/export")
+    public void export(@RequestParam(name = "format", defaultValue = "NDJSON") Format format,
+                       @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                       HttpServletResponse response) throws IOException {
+        response.setContentType(format.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"accounts." + format.getExtension() + "\"");
+
+        if (acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip")) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            try (OutputStream out = new GZIPOutputStream(response.getOutputStream(), GZIP_BUFFER_SIZE)) {
+                accountExportService.export(format, out);
+            }
+        } else {
+            accountExportService.export(format, response.getOutputStream());
+        }
+    }
+}
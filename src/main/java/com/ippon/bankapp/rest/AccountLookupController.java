@@ -0,0 +1,32 @@
+package com.ippon.bankapp.rest;
+
+import com.ippon.bankapp.service.AccountLookupService;
+import com.ippon.bankapp.service.dto.AccountLookupRequestDTO;
+import com.ippon.bankapp.service.dto.AccountLookupResultDTO;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Valid;
+
+/**
+ * Looks many accounts up in one call, for clients that would otherwise get them one by one.
+ */
+@RestController
+@RequestMapping("/api")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class AccountLookupController {
+
+    private final AccountLookupService accountLookupService;
+
+    public AccountLookupController(AccountLookupService accountLookupService) {
+        this.accountLookupService = accountLookupService;
+    }
+
+    @PostMapping("/accounts/lookup")
+    public AccountLookupResultDTO lookup(@Valid @RequestBody AccountLookupRequestDTO request) {
+        return accountLookupService.lookup(request.getLastNames());
+    }
+}
@@ -0,0 +1,27 @@
+package com.ippon.bankapp.rest;
+
+import com.ippon.bankapp.config.ApplicationProperties;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Set;
+
+/**
+ * Tells the clients of the API apart: by their API key when it is one of those issued, else by their address.
+ * The API has no authentication, so a key nobody issued identifies no one, and a client sending a new one
+ * with every request is still the same client.
+ */
+public class ClientIdentity {
+
+    private final String header;
+    private final Set<String> apiKeys;
+
+    public ClientIdentity(ApplicationProperties applicationProperties) {
+        this.header = applicationProperties.getRateLimit().getClientHeader();
+        this.apiKeys = applicationProperties.getRateLimit().getApiKeys();
+    }
+
+    public String of(HttpServletRequest request) {
+        String apiKey = request.getHeader(header);
+        return apiKey != null && apiKeys.contains(apiKey) ? "key:" + apiKey : "ip:" + request.getRemoteAddr();
+    }
+}
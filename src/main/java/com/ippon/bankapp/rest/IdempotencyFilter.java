@@ -0,0 +1,211 @@
+package com.ippon.bankapp.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ippon.bankapp.config.ApplicationProperties;
+import com.ippon.bankapp.rest.errors.ErrorDTO;
+import com.ippon.bankapp.service.IdempotencyService;
+import com.ippon.bankapp.service.exception.IdempotencyKeyReusedException;
+import com.ippon.bankapp.service.exception.IdempotentRequestInProgressException;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Honours the {@code Idempotency-Key} header on the POST endpoints of {@link AccountController}: the first
+ * response to a key is stored by {@link IdempotencyService} and replayed, with an {@code Idempotent-Replayed}
+ * header, to the requests repeating it. Keys are scoped by the {@link ClientIdentity} of the sender, so
+ * clients choosing the same key do not get each other's responses. A filter rather than the controller, so error responses written by
+ * the {@code RestErrorHandler} are replayed too.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    public static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private static final List<String> PATHS = Arrays.asList(
+            "/api/account",
+            "/api/account/*/deposit",
+            "/api/account/*/withdrawal",
+            "/api/transfer");
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+    private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
+    private final ClientIdentity clientIdentity;
+
+    public IdempotencyFilter(IdempotencyService idempotencyService, ObjectMapper objectMapper,
+                             ApplicationProperties applicationProperties) {
+        this.idempotencyService = idempotencyService;
+        this.objectMapper = objectMapper;
+        this.clientIdentity = new ClientIdentity(applicationProperties);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!idempotencyService.isEnabled()
+                || !HttpMethod.POST.matches(request.getMethod())
+                || request.getHeader(IDEMPOTENCY_KEY) == null) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return PATHS.stream().noneMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getHeader(IDEMPOTENCY_KEY);
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST, "Idempotency key must have 1 to " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        BufferedRequest buffered = new BufferedRequest(request, StreamUtils.copyToByteArray(request.getInputStream()));
+        String fingerprint = fingerprint(request, buffered.body);
+        ContentCachingResponseWrapper captured = new ContentCachingResponseWrapper(response);
+        IdempotencyService.Response[] executed = new IdempotencyService.Response[1];
+        IdempotencyService.Response result;
+        try {
+            result = idempotencyService.execute(clientIdentity.of(request), key, fingerprint, () -> {
+                chain.doFilter(buffered, captured);
+                executed[0] = new IdempotencyService.Response(fingerprint, captured.getStatus(),
+                        captured.getContentType(), captured.getContentAsByteArray());
+                return executed[0];
+            });
+        } catch (IdempotencyKeyReusedException e) {
+            writeError(response, HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency key already used for another request");
+            return;
+        } catch (IdempotentRequestInProgressException e) {
+            writeError(response, HttpStatus.CONFLICT, "A request with this idempotency key is in progress or did not complete, try again later");
+            return;
+        } catch (IOException | ServletException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ServletException(e);
+        }
+        if (result == executed[0]) {
+            captured.copyBodyToResponse();
+            return;
+        }
+        response.setStatus(result.getStatus());
+        if (result.getContentType() != null) {
+            response.setContentType(result.getContentType());
+        }
+        response.setHeader(IDEMPOTENT_REPLAYED, "true");
+        response.setContentLength(result.getBody().length);
+        response.getOutputStream().write(result.getBody());
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorDTO(message));
+    }
+
+    private static String fingerprint(HttpServletRequest request, byte[] body) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every JVM has it
+            throw new IllegalStateException(e);
+        }
+        digest.update(request.getMethod().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) ' ');
+        digest.update(request.getRequestURI().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) '\n');
+        digest.update(body);
+        byte[] hash = digest.digest();
+        char[] hex = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            hex[2 * i] = HEX[(hash[i] >> 4) & 0xF];
+            hex[2 * i + 1] = HEX[hash[i] & 0xF];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * A request whose body was read up front, to fingerprint it, and is read again by the controller.
+     */
+    private static class BufferedRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        BufferedRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    // the whole body is in memory, ready at once
+                    try {
+                        listener.onDataAvailable();
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.ippon.bankapp.rest;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Most statements a request to the endpoint should send to the database, checked by {@link QueryStatsFilter}.
+ * A request going over it usually queries once per row it handles, where a single query would do.
+ * <p>
+ * Every statement of the request counts, including the two the {@link IdempotencyFilter} adds to a request with
+ * an idempotency key, and the sequence fetches Hibernate makes once every few inserts.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+
+    int statements();
+}
@@ -0,0 +1,149 @@
+package com.ippon.bankapp.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ippon.bankapp.config.ApplicationProperties;
+import com.ippon.bankapp.rest.errors.ErrorDTO;
+import com.ippon.bankapp.util.QueryStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts the statements each request sends to the database, the rows it reads and the time it spends there,
+ * and records them by endpoint as {@code http.server.requests.statements}, {@code .rows} and {@code .db}.
+ * <p>
+ * An endpoint may declare a {@link QueryBudget}: a request going over it is logged and counted, and fails with
+ * a 500 when {@code fail-over-budget} is set, so the tests catch a query per row before production does. With
+ * {@code headers} set, as in the {@code debug} profile, the counts are also sent back as {@code X-Query-*}
+ * headers. Both need the response buffered until the counts are final, so they are off by default.
+ * <p>
+ * Runs after the rate limit, so the requests it rejects are not counted, and before the idempotency filter,
+ * whose queries are.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+public class QueryStatsFilter extends OncePerRequestFilter {
+
+    public static final String STATEMENTS_HEADER = "X-Query-Statements";
+    public static final String ROWS_HEADER = "X-Query-Rows";
+    public static final String TIME_HEADER = "X-Query-Time-Millis";
+
+    private static final Logger log = LoggerFactory.getLogger(QueryStatsFilter.class);
+
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    private final ApplicationProperties.QueryStats properties;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    public QueryStatsFilter(ApplicationProperties applicationProperties,
+                            ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry) {
+        this.properties = applicationProperties.getQueryStats();
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean buffered = properties.isHeaders() || properties.isFailOverBudget();
+        ContentCachingResponseWrapper buffer = buffered ? new ContentCachingResponseWrapper(response) : null;
+        QueryStats stats = QueryStats.open();
+        try {
+            chain.doFilter(request, buffered ? buffer : response);
+        } finally {
+            stats.close();
+        }
+
+        String uri = uri(request);
+        record(request.getMethod(), uri, stats);
+        QueryBudget budget = budget(request);
+        if (budget != null && stats.getStatements() > budget.statements()) {
+            overBudget(request.getMethod(), uri, stats, budget, buffer);
+        }
+        if (buffered) {
+            if (properties.isHeaders()) {
+                buffer.setHeader(STATEMENTS_HEADER, Integer.toString(stats.getStatements()));
+                buffer.setHeader(ROWS_HEADER, Long.toString(stats.getRows()));
+                buffer.setHeader(TIME_HEADER, String.format(Locale.ROOT, "%.3f", stats.getNanos() / 1e6));
+            }
+            buffer.copyBodyToResponse();
+        }
+    }
+
+    private void record(String method, String uri, QueryStats stats) {
+        DistributionSummary.builder("http.server.requests.statements")
+                .description("Statements a request sent to the database")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(stats.getStatements());
+        DistributionSummary.builder("http.server.requests.rows")
+                .description("Rows a request read from the database")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(stats.getRows());
+        Timer.builder("http.server.requests.db")
+                .description("Time a request spent executing statements and reading their rows")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(stats.getNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private void overBudget(String method, String uri, QueryStats stats, QueryBudget budget,
+                            ContentCachingResponseWrapper buffer) throws IOException {
+        Counter.builder("http.server.requests.over-budget")
+                .description("Requests that sent more statements than their endpoint's budget")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .increment();
+        String message = String.format(Locale.ROOT, "%s %s sent %d statements, over its budget of %d",
+                method, uri, stats.getStatements(), budget.statements());
+        log.warn(message);
+        if (properties.isFailOverBudget()) {
+            buffer.resetBuffer();
+            buffer.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            buffer.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(buffer.getOutputStream(), new ErrorDTO(message));
+        }
+    }
+
+    private static String uri(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern == null ? UNKNOWN_URI : pattern.toString();
+    }
+
+    private static QueryBudget budget(HttpServletRequest request) {
+        Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        return handler instanceof HandlerMethod ? ((HandlerMethod) handler).getMethodAnnotation(QueryBudget.class) : null;
+    }
+}
@@ -0,0 +1,202 @@
+package com.ippon.bankapp.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ippon.bankapp.config.ApplicationProperties;
+import com.ippon.bankapp.rest.errors.ErrorDTO;
+import com.ippon.bankapp.util.AdaptiveConcurrencyLimit;
+import com.ippon.bankapp.util.TokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control in front of the API, before a request reads its body or takes a database connection.
+ * <p>
+ * Each client, told apart by its {@link ClientIdentity}, has a {@link TokenBucket} per endpoint: one
+ * sending faster than its endpoint allows gets a 429 with a {@code Retry-After}, without slowing the others
+ * down. Then an {@link AdaptiveConcurrencyLimit} caps the requests in progress across all clients: when their
+ * latency says they queue, for the connection pool or otherwise, the requests beyond it get a 503 straight
+ * away instead of joining the queue. Runs first, so the requests it rejects cost next to nothing.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    static final String DEFAULT_ENDPOINT = "default";
+
+    private static final String API_PATH = "/api/";
+
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+    private final ApplicationProperties.RateLimit properties;
+    private final ClientIdentity clientIdentity;
+    private final ObjectMapper objectMapper;
+    private final List<Endpoint> endpoints = new ArrayList<>();
+    private final Endpoint defaultEndpoint;
+    private final Cache<String, TokenBucket> buckets;
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+    private final Counter shed;
+
+    public RateLimitFilter(ApplicationProperties applicationProperties,
+                           ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry) {
+        this.properties = applicationProperties.getRateLimit();
+        this.clientIdentity = new ClientIdentity(applicationProperties);
+        this.objectMapper = objectMapper;
+        for (Map.Entry<String, ApplicationProperties.RateLimit.Endpoint> endpoint : properties.getEndpoints().entrySet()) {
+            ApplicationProperties.RateLimit.Endpoint limit = endpoint.getValue();
+            endpoints.add(new Endpoint(endpoint.getKey(), limit.getPaths(), limit.getMethod(),
+                    limit.getRequestsPerSecond(), limit.getBurst(), meterRegistry));
+        }
+        this.defaultEndpoint = new Endpoint(DEFAULT_ENDPOINT, Collections.emptyList(), null,
+                properties.getRequestsPerSecond(), properties.getBurst(), meterRegistry);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxClients())
+                .expireAfterAccess(properties.getClientIdleTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+        Gauge.builder("http.admission.clients", buckets, Cache::estimatedSize)
+                .description("Token buckets held, one per client and endpoint it sent requests to recently")
+                .register(meterRegistry);
+        if (properties.isConcurrencyEnabled()) {
+            this.concurrencyLimit = new AdaptiveConcurrencyLimit(properties.getInitialLimit(),
+                    properties.getMinLimit(), properties.getMaxLimit());
+            Gauge.builder("http.admission.concurrency.limit", concurrencyLimit, AdaptiveConcurrencyLimit::getLimit)
+                    .description("Requests in progress allowed, adapted to their latency")
+                    .register(meterRegistry);
+            Gauge.builder("http.admission.concurrency.in-flight", concurrencyLimit, AdaptiveConcurrencyLimit::getInFlight)
+                    .description("Requests in progress")
+                    .register(meterRegistry);
+        } else {
+            this.concurrencyLimit = null;
+        }
+        this.shed = Counter.builder("http.admission.rejections")
+                .description("Requests rejected before reaching the controllers")
+                .tag("reason", "concurrency")
+                .tag("endpoint", "all")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled() || !path(request).startsWith(API_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        Endpoint endpoint = endpoint(request);
+        String client = clientIdentity.of(request);
+        TokenBucket bucket = buckets.get(endpoint.name + ' ' + client,
+                key -> new TokenBucket(endpoint.requestsPerSecond, endpoint.burst, start));
+        long waitNanos = bucket.tryAcquire(start);
+        if (waitNanos > 0) {
+            endpoint.rejections.increment();
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, waitNanos, "Too many requests, try again later");
+            return;
+        }
+        if (concurrencyLimit == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (!concurrencyLimit.tryAcquire()) {
+            shed.increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, 0, "Server busy, try again later");
+            return;
+        }
+        boolean dropped = true;
+        try {
+            chain.doFilter(request, response);
+            dropped = response.getStatus() >= 500;
+        } finally {
+            concurrencyLimit.release(System.nanoTime() - start, dropped);
+        }
+    }
+
+    private Endpoint endpoint(HttpServletRequest request) {
+        String path = path(request);
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.matches(request.getMethod(), path, pathMatcher)) {
+                return endpoint;
+            }
+        }
+        return defaultEndpoint;
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, long waitNanos, String message)
+            throws IOException {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(
+                waitNanos + TimeUnit.SECONDS.toNanos(1) - 1))));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorDTO(message));
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    /**
+     * The rate limit of some endpoints, with its rejections counter.
+     */
+    private static class Endpoint {
+
+        final String name;
+        final List<String> paths;
+        final String method;
+        final double requestsPerSecond;
+        final int burst;
+        final Counter rejections;
+
+        Endpoint(String name, List<String> paths, String method, double requestsPerSecond, int burst,
+                 MeterRegistry meterRegistry) {
+            this.name = name;
+            this.paths = paths;
+            this.method = method;
+            this.requestsPerSecond = requestsPerSecond;
+            this.burst = burst;
+            this.rejections = Counter.builder("http.admission.rejections")
+                    .description("Requests rejected before reaching the controllers")
+                    .tag("reason", "rate-limit")
+                    .tag("endpoint", name)
+                    .register(meterRegistry);
+            Gauge.builder("http.admission.rate-limit", this, endpoint -> endpoint.requestsPerSecond)
+                    .description("Requests per second each client may send to the endpoint")
+                    .tag("endpoint", name)
+                    .register(meterRegistry);
+        }
+
+        boolean matches(String requestMethod, String path, PathMatcher pathMatcher) {
+            if (method != null && !method.equalsIgnoreCase(requestMethod)) {
+                return false;
+            }
+            for (String pattern : paths) {
+                if (pathMatcher.match(pattern, path)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
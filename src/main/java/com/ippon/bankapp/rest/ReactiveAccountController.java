@@ -0,0 +1,98 @@
+package com.ippon.bankapp.rest;
+
+import com.ippon.bankapp.service.AccountPageToken;
+import com.ippon.bankapp.service.ReactiveAccountService;
+import com.ippon.bankapp.service.dto.AccountDTO;
+import com.ippon.bankapp.service.dto.AccountMatchDTO;
+import com.ippon.bankapp.service.dto.AccountPageDTO;
+import com.ippon.bankapp.service.dto.AmountDTO;
+import com.ippon.bankapp.service.dto.TransferDTO;
+import com.ippon.bankapp.service.dto.TransferResultDTO;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+import java.util.List;
+
+/**
+ * {@link AccountController} on WebFlux, for the {@code reactive} profile: same paths, bodies and statuses.
+ * The batch, lookup and export endpoints, and the rate limit, idempotency and query statistics filters, are
+ * servlet only.
+ */
+@RestController
+@RequestMapping("/api")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAccountController {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private static final int MAX_SEARCH_RESULTS = 100;
+
+    private final ReactiveAccountService accountService;
+
+    public ReactiveAccountController(ReactiveAccountService accountService) {
+        this.accountService = accountService;
+    }
+
+    @PostMapping("/account")
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<AccountDTO> createAccount(@Valid @RequestBody AccountDTO newAccount) {
+        return accountService.createAccount(newAccount);
+    }
+
+    /**
+     * Reads an account with its version as a strong {@code ETag}, answering a matching {@code If-None-Match}
+     * with a 304 from the version alone, like {@link AccountController#account}.
+     */
+    @GetMapping("/account/{lastName}")
+    public Mono<ResponseEntity<AccountDTO>> account(@PathVariable(name = "lastName") String lastName,
+                                                    ServerWebExchange exchange) {
+        if (exchange.getRequest().getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH) == null) {
+            return read(lastName);
+        }
+        return accountService.getAccountVersion(lastName)
+                // the response is already a 304 with the ETag when the version matches
+                .flatMap(version -> exchange.checkNotModified(version) ? Mono.empty() : read(lastName));
+    }
+
+    @PostMapping("/account/{lastName}/deposit")
+    public Mono<AccountDTO> deposit(@PathVariable(name = "lastName") String lastName,
+                                    @Valid @RequestBody AmountDTO deposit) {
+        return accountService.deposit(lastName, deposit.getAmount());
+    }
+
+    @PostMapping("/account/{lastName}/withdrawal")
+    public Mono<AccountDTO> withdraw(@PathVariable(name = "lastName") String lastName,
+                                     @Valid @RequestBody AmountDTO withdrawal) {
+        return accountService.withdraw(lastName, withdrawal.getAmount());
+    }
+
+    @PostMapping("/transfer")
+    public Mono<TransferResultDTO> transfer(@Valid @RequestBody TransferDTO transfer) {
+        return accountService.transfer(transfer);
+    }
+
+    @GetMapping("/accounts/search")
+    public Mono<List<AccountMatchDTO>> searchAccounts(@RequestParam(name = "q") String query,
+                                                      @RequestParam(name = "limit", defaultValue = "20") int limit) {
+        return accountService.searchAccounts(query, Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS)));
+    }
+
+    @GetMapping("/accounts")
+    public Mono<AccountPageDTO> accounts(@RequestParam(name = "after", required = false) String after,
+                                         @RequestParam(name = "sort", defaultValue = "ID") AccountPageToken.Sort sort,
+                                         @RequestParam(name = "limit", defaultValue = "100") int limit) {
+        return accountService.listAccounts(after, sort, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+    }
+
+    private Mono<ResponseEntity<AccountDTO>> read(String lastName) {
+        return accountService.getAccount(lastName).map(account -> account.getVersion() == null
+                ? ResponseEntity.ok(account)
+                : ResponseEntity.ok().eTag(account.getVersion()).body(account));
+    }
+}
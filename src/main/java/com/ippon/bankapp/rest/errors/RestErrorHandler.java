@@ -2,12 +2,24 @@ package com.ippon.bankapp.rest.errors;
 
 import com.ippon.bankapp.service.exception.AccountLastNameExistsException;
 import com.ippon.bankapp.service.exception.AccountNotFoundException;
+import com.ippon.bankapp.service.exception.ConcurrentBalanceUpdateException;
+import com.ippon.bankapp.service.exception.ImportInProgressException;
+import com.ippon.bankapp.service.exception.InsufficientFundsException;
+import com.ippon.bankapp.service.exception.InvalidAmountException;
+import com.ippon.bankapp.service.exception.InvalidImportFileException;
+import com.ippon.bankapp.service.exception.InvalidPageTokenException;
+import com.ippon.bankapp.service.exception.LookupTooLargeException;
+import com.ippon.bankapp.service.exception.SameAccountTransferException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
-import org.springframework.web.bind.annotation.ResponseStatus;
 
 
+/**
+ * Maps business exceptions to responses. The responses are written directly rather than through
+ * {@code sendError}, which would forward every 404 and 409 to the container's error page.
+ */
 @ControllerAdvice
 public class RestErrorHandler {
 
@@ -15,15 +27,81 @@ public class RestErrorHandler {
     private static final String VIOLATIONS_KEY = "violations";
     private static final String FIELD_ERRORS_KEY = "fieldErrors";
 
-    @ExceptionHandler(AccountNotFoundException.class)
-    @ResponseStatus(value = HttpStatus.NOT_FOUND, reason = "Account not found")
-    public void handleAccountNotFound() {
+    private static final ResponseEntity<ErrorDTO> ACCOUNT_NOT_FOUND = ResponseEntity
+            .status(HttpStatus.NOT_FOUND)
+            .body(new ErrorDTO("Account not found"));
+
+    private static final ResponseEntity<ErrorDTO> LAST_NAME_EXISTS = ResponseEntity
+            .status(HttpStatus.CONFLICT)
+            .body(new ErrorDTO("Last name already exists"));
+
+    private static final ResponseEntity<ErrorDTO> INVALID_PAGE_TOKEN = ResponseEntity
+            .status(HttpStatus.BAD_REQUEST)
+            .body(new ErrorDTO("Invalid page token"));
+
+    private static final ResponseEntity<ErrorDTO> INVALID_AMOUNT = ResponseEntity
+            .status(HttpStatus.BAD_REQUEST)
+            .body(new ErrorDTO("Amount must be positive, with at most two decimals"));
+
+    private static final ResponseEntity<ErrorDTO> SAME_ACCOUNT_TRANSFER = ResponseEntity
+            .status(HttpStatus.BAD_REQUEST)
+            .body(new ErrorDTO("Cannot transfer to the same account"));
+
+    private static final ResponseEntity<ErrorDTO> INSUFFICIENT_FUNDS = ResponseEntity
+            .status(HttpStatus.UNPROCESSABLE_ENTITY)
+            .body(new ErrorDTO("Insufficient funds"));
 
+    private static final ResponseEntity<ErrorDTO> CONCURRENT_BALANCE_UPDATE = ResponseEntity
+            .status(HttpStatus.CONFLICT)
+            .body(new ErrorDTO("Account is being updated concurrently, try again"));
+
+    @ExceptionHandler(AccountNotFoundException.class)
+    public ResponseEntity<ErrorDTO> handleAccountNotFound() {
+        return ACCOUNT_NOT_FOUND;
     }
 
     @ExceptionHandler(AccountLastNameExistsException.class)
-    @ResponseStatus(value = HttpStatus.CONFLICT, reason = "Last name already exists")
-    public void handleLastNameAlreadyExists() {
+    public ResponseEntity<ErrorDTO> handleLastNameAlreadyExists() {
+        return LAST_NAME_EXISTS;
+    }
+
+    @ExceptionHandler(InvalidPageTokenException.class)
+    public ResponseEntity<ErrorDTO> handleInvalidPageToken() {
+        return INVALID_PAGE_TOKEN;
+    }
+
+    @ExceptionHandler(InvalidAmountException.class)
+    public ResponseEntity<ErrorDTO> handleInvalidAmount() {
+        return INVALID_AMOUNT;
+    }
+
+    @ExceptionHandler(SameAccountTransferException.class)
+    public ResponseEntity<ErrorDTO> handleSameAccountTransfer() {
+        return SAME_ACCOUNT_TRANSFER;
+    }
+
+    @ExceptionHandler(InsufficientFundsException.class)
+    public ResponseEntity<ErrorDTO> handleInsufficientFunds() {
+        return INSUFFICIENT_FUNDS;
+    }
+
+    @ExceptionHandler(ConcurrentBalanceUpdateException.class)
+    public ResponseEntity<ErrorDTO> handleConcurrentBalanceUpdate() {
+        return CONCURRENT_BALANCE_UPDATE;
+    }
+
+    @ExceptionHandler(InvalidImportFileException.class)
+    public ResponseEntity<ErrorDTO> handleInvalidImportFile(InvalidImportFileException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorDTO(e.getMessage()));
+    }
+
+    @ExceptionHandler(ImportInProgressException.class)
+    public ResponseEntity<ErrorDTO> handleImportInProgress(ImportInProgressException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorDTO(e.getMessage()));
+    }
 
+    @ExceptionHandler(LookupTooLargeException.class)
+    public ResponseEntity<ErrorDTO> handleLookupTooLarge(LookupTooLargeException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorDTO(e.getMessage()));
     }
 }
@@ -0,0 +1,233 @@
+package com.ippon.bankapp.service;
+
+import com.ippon.bankapp.config.ApplicationProperties;
+import com.ippon.bankapp.config.CacheConfiguration;
+import com.ippon.bankapp.domain.Account;
+import com.ippon.bankapp.domain.OutboxMessage;
+import com.ippon.bankapp.repository.AccountRepository;
+import com.ippon.bankapp.repository.OutboxRepository;
+import com.ippon.bankapp.service.dto.AccountBatchResultDTO;
+import com.ippon.bankapp.service.dto.AccountDTO;
+import com.ippon.bankapp.service.exception.AccountLastNameExistsException;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Creates accounts in bulk.
+ * <p>
+ * Items are written in chunks, one transaction per chunk, so Hibernate can send the inserts of a chunk
+ * as JDBC batches and take ids from the pooled {@code account_seq}. Each item gets its own result:
+ * an item that fails validation, whose last name is taken or that the database rejects does not fail the
+ * rest of its chunk.
+ */
+@Service
+public class AccountBatchService {
+
+    static final String LAST_NAME_EXISTS = "Last name already exists";
+    static final String MALFORMED = "Malformed account";
+    static final String REJECTED = "Rejected by the database";
+
+    private final AccountService accountService;
+    private final AccountRepository accountRepository;
+    private final OutboxRepository outboxRepository;
+    private final EntityManager entityManager;
+    private final LastNameFilter lastNameFilter;
+    private final AccountNameIndex accountNameIndex;
+    private final Validator validator;
+    private final TransactionTemplate transaction;
+    private final Cache accountCache;
+    private final ApplicationProperties.Batch properties;
+
+    public AccountBatchService(AccountService accountService,
+                               AccountRepository accountRepository,
+                               OutboxRepository outboxRepository,
+                               EntityManager entityManager,
+                               LastNameFilter lastNameFilter,
+                               AccountNameIndex accountNameIndex,
+                               Validator validator,
+                               PlatformTransactionManager transactionManager,
+                               CacheManager cacheManager,
+                               ApplicationProperties applicationProperties) {
+        this.accountService = accountService;
+        this.accountRepository = accountRepository;
+        this.outboxRepository = outboxRepository;
+        this.entityManager = entityManager;
+        this.lastNameFilter = lastNameFilter;
+        this.accountNameIndex = accountNameIndex;
+        this.validator = validator;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.accountCache = cacheManager.getCache(CacheConfiguration.ACCOUNTS);
+        this.properties = applicationProperties.getBatch();
+    }
+
+    public List<AccountBatchResultDTO> createAccounts(List<AccountDTO> accounts) {
+        List<AccountBatchResultDTO> results = new ArrayList<>(accounts.size());
+        createAccounts(accounts.iterator(), results::add);
+        return results;
+    }
+
+    /**
+     * Creates the accounts read from {@code accounts}, handing each result to {@code results} as soon as
+     * its chunk is committed. A {@code null} item is reported as invalid, so a streaming caller can keep
+     * the position of an item it could not read.
+     */
+    public void createAccounts(Iterator<AccountDTO> accounts, Consumer<AccountBatchResultDTO> results) {
+        int chunkSize = properties.getChunkSize();
+        List<AccountDTO> chunk = new ArrayList<>(chunkSize);
+        int offset = 0;
+        while (accounts.hasNext()) {
+            chunk.add(accounts.next());
+            if (chunk.size() == chunkSize) {
+                createChunk(offset, chunk).forEach(results);
+                offset += chunk.size();
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            createChunk(offset, chunk).forEach(results);
+        }
+    }
+
+    private List<AccountBatchResultDTO> createChunk(int offset, List<AccountDTO> chunk) {
+        AccountBatchResultDTO[] results = new AccountBatchResultDTO[chunk.size()];
+        for (int i = 0; i < chunk.size(); i++) {
+            String violations = validate(chunk.get(i));
+            if (violations != null) {
+                results[i] = AccountBatchResultDTO.invalid(offset + i, violations);
+            }
+        }
+        return write(offset, chunk, results, null);
+    }
+
+    /**
+     * Writes one chunk of items that were already validated by the caller, skipping those with a result
+     * in {@code results}. {@code inTransaction}, when given, receives results inside the transaction that
+     * wrote them, so the caller can record its progress atomically with them: the complete results once, or,
+     * when the chunk is redone item by item, those from the start of the chunk up to each item created, then
+     * the complete results.
+     */
+    List<AccountBatchResultDTO> write(int offset, List<AccountDTO> chunk, AccountBatchResultDTO[] results,
+                                      Consumer<List<AccountBatchResultDTO>> inTransaction) {
+        Map<String, Integer> pending = new LinkedHashMap<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            if (results[i] == null && pending.putIfAbsent(chunk.get(i).getLastName(), i) != null) {
+                results[i] = AccountBatchResultDTO.conflict(offset + i, LAST_NAME_EXISTS);
+            }
+        }
+        List<AccountBatchResultDTO> resultList = Arrays.asList(results);
+        if (pending.isEmpty()) {
+            if (inTransaction != null) {
+                transaction.executeWithoutResult(status -> inTransaction.accept(resultList));
+            }
+            return resultList;
+        }
+
+        try {
+            List<Account> created = transaction.execute(status -> {
+                List<Account> accounts = insert(offset, chunk, pending, results);
+                if (inTransaction != null) {
+                    inTransaction.accept(resultList);
+                }
+                return accounts;
+            });
+            for (Account account : created) {
+                lastNameFilter.add(account.getLastName());
+                accountNameIndex.add(account.getFirstName(), account.getLastName());
+                accountCache.evict(account.getLastName());
+            }
+        } catch (DataIntegrityViolationException e) {
+            // another writer took one of the names since we checked: the chunk was rolled back, redo it item by item
+            pending.forEach((lastName, i) -> createOne(offset, i, chunk.get(i), results, inTransaction));
+            if (inTransaction != null) {
+                transaction.executeWithoutResult(status -> inTransaction.accept(resultList));
+            }
+        }
+        return resultList;
+    }
+
+    private List<Account> insert(int offset, List<AccountDTO> chunk, Map<String, Integer> pending,
+                                 AccountBatchResultDTO[] results) {
+        Set<String> existing = new HashSet<>(accountRepository.findExistingLastNames(pending.keySet()));
+        List<Account> accounts = new ArrayList<>(pending.size());
+        List<Integer> positions = new ArrayList<>(pending.size());
+        pending.forEach((lastName, i) -> {
+            if (existing.contains(lastName)) {
+                results[i] = AccountBatchResultDTO.conflict(offset + i, LAST_NAME_EXISTS);
+            } else {
+                accounts.add(accountService.newAccount(chunk.get(i)));
+                positions.add(i);
+            }
+        });
+        if (accounts.isEmpty()) {
+            return accounts;
+        }
+
+        accountRepository.saveAll(accounts);
+        accountRepository.flush();
+        List<OutboxMessage> messages = new ArrayList<>(accounts.size());
+        for (int j = 0; j < accounts.size(); j++) {
+            Account account = accounts.get(j);
+            int i = positions.get(j);
+            messages.add(accountService.welcomeMessage(account));
+            results[i] = AccountBatchResultDTO.created(offset + i, AccountService.mapAccountToDTO(account));
+        }
+        outboxRepository.saveAll(messages);
+        // the persistence context may outlive the chunk (open session in view), don't let every later flush dirty-check it
+        entityManager.flush();
+        entityManager.clear();
+        return accounts;
+    }
+
+    /**
+     * Creates item {@code i} in a transaction of its own, along with the progress up to it. A failed item
+     * rolls back alone and records nothing, so it fails the same way if the chunk is redone.
+     */
+    private void createOne(int offset, int i, AccountDTO item, AccountBatchResultDTO[] results,
+                           Consumer<List<AccountBatchResultDTO>> inTransaction) {
+        try {
+            transaction.executeWithoutResult(status -> {
+                results[i] = AccountBatchResultDTO.created(offset + i, accountService.createAccount(item));
+                if (inTransaction != null) {
+                    inTransaction.accept(Arrays.asList(results).subList(0, i + 1));
+                }
+            });
+        } catch (AccountLastNameExistsException e) {
+            results[i] = AccountBatchResultDTO.conflict(offset + i, LAST_NAME_EXISTS);
+        } catch (DataIntegrityViolationException e) {
+            // valid as far as the DTO says, but not for the columns, e.g. a name longer than they hold
+            results[i] = AccountBatchResultDTO.invalid(offset + i, REJECTED);
+        }
+    }
+
+    String validate(AccountDTO item) {
+        if (item == null) {
+            return MALFORMED;
+        }
+        Set<ConstraintViolation<AccountDTO>> violations = validator.validate(item);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,155 @@
+package com.ippon.bankapp.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.ippon.bankapp.domain.Money;
+import com.ippon.bankapp.repository.AccountRepository;
+import com.ippon.bankapp.service.dto.AccountDTO;
+import com.ippon.bankapp.service.dto.AccountSummaryDTO;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes the whole account book to a stream.
+ * <p>
+ * Accounts are read as summaries through a forward-only cursor, so memory use does not depend on the size
+ * of the table.
+ */
+@Service
+public class AccountExportService {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    static final String CSV_HEADER = "firstName,lastName,balance,notificationPreference";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final AccountRepository accountRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectWriter accountWriter;
+    private final ObjectMapper objectMapper;
+
+    public AccountExportService(AccountRepository accountRepository,
+                                PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper) {
+        this.accountRepository = accountRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.accountWriter = objectMapper.writerFor(AccountDTO.class);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Writes every account to {@code out} in {@code format}. The stream is flushed, not closed.
+     *
+     * @return the number of accounts written
+     */
+    public long export(Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        RowWriter rows = format == Format.CSV ? csv(writer) : ndjson(writer);
+        try {
+            long count = readOnlyTransaction.execute(status -> {
+                long written = 0;
+                try (Stream<AccountSummaryDTO> accounts = accountRepository.streamAll()) {
+                    Iterator<AccountSummaryDTO> iterator = accounts.iterator();
+                    while (iterator.hasNext()) {
+                        rows.write(AccountService.mapSummaryToDTO(iterator.next()));
+                        written++;
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return written;
+            });
+            writer.flush();
+            return count;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private RowWriter ndjson(Writer writer) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // flush hands each row to the buffered writer, which decides when to hit the socket
+        generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        generator.setRootValueSeparator(null);
+        return account -> {
+            accountWriter.writeValue(generator, account);
+            generator.writeRaw('\n');
+            generator.flush();
+        };
+    }
+
+    private static RowWriter csv(Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        return account -> {
+            writeCsvField(writer, account.getFirstName());
+            writer.write(',');
+            writeCsvField(writer, account.getLastName());
+            writer.write(',');
+            Money balance = account.getBalance();
+            if (balance != null) {
+                writer.write(balance.toString());
+            }
+            writer.write(',');
+            writeCsvField(writer, account.getNotificationPreference());
+            writer.write('\n');
+        };
+    }
+
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(AccountDTO account) throws IOException;
+    }
+}
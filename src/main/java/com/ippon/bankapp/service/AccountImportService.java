@@ -0,0 +1,447 @@
+package com.ippon.bankapp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ippon.bankapp.config.ApplicationProperties;
+import com.ippon.bankapp.domain.ImportCheckpoint;
+import com.ippon.bankapp.repository.ImportCheckpointRepository;
+import com.ippon.bankapp.service.dto.AccountBatchResultDTO;
+import com.ippon.bankapp.service.dto.AccountDTO;
+import com.ippon.bankapp.service.dto.AccountImportResultDTO;
+import com.ippon.bankapp.service.exception.ImportInProgressException;
+import com.ippon.bankapp.service.exception.InvalidImportFileException;
+import com.ippon.bankapp.util.LineChannelReader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Imports accounts from a CSV or NDJSON file in the import directory.
+ * <p>
+ * The file is read sequentially through a large buffer, one chunk of lines at a time. Lines are parsed
+ * and validated in parallel while the previous chunk is written by the {@link AccountBatchService}. The
+ * transaction writing a chunk also moves the file's {@link ImportCheckpoint} past it, so after a crash
+ * the import resumes after the last committed chunk. A chunk redone item by item moves it past each row
+ * created, so a resumed import does not take the accounts it created for conflicts. Rejected rows are appended to a side file, which is
+ * cut back to the checkpointed length on resume.
+ * <p>
+ * CSV files need a header row naming at least the {@code firstName} and {@code lastName} columns, the
+ * layout written by the export. Quoted fields may not span lines.
+ */
+@Service
+public class AccountImportService {
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    static final String REJECTED_SUFFIX = ".rejected.ndjson";
+
+    private static final Logger log = LoggerFactory.getLogger(AccountImportService.class);
+
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final AccountBatchService accountBatchService;
+    private final ImportCheckpointRepository checkpointRepository;
+    private final ObjectReader accountReader;
+    private final ObjectMapper objectMapper;
+    private final ApplicationProperties.Import properties;
+    private final int chunkSize;
+    private final ExecutorService parsers;
+    private final Set<Path> running = ConcurrentHashMap.newKeySet();
+    private final Counter importedRows;
+    private final Counter rejectedRows;
+
+    public AccountImportService(AccountBatchService accountBatchService,
+                                ImportCheckpointRepository checkpointRepository,
+                                ObjectMapper objectMapper,
+                                ApplicationProperties applicationProperties,
+                                MeterRegistry meterRegistry) {
+        this.accountBatchService = accountBatchService;
+        this.checkpointRepository = checkpointRepository;
+        this.accountReader = objectMapper.readerFor(AccountDTO.class);
+        this.objectMapper = objectMapper;
+        this.properties = applicationProperties.getImport();
+        this.chunkSize = applicationProperties.getBatch().getChunkSize();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.parsers = Executors.newFixedThreadPool(properties.getParserThreads(), r -> {
+            Thread thread = new Thread(r, "account-import-parser-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.importedRows = Counter.builder("account.import.rows")
+                .description("Rows read by file imports")
+                .tag("status", "imported")
+                .register(meterRegistry);
+        this.rejectedRows = Counter.builder("account.import.rows")
+                .description("Rows read by file imports")
+                .tag("status", "rejected")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        parsers.shutdownNow();
+    }
+
+    /**
+     * Imports {@code file}, resuming after the last committed row unless {@code restart} is set.
+     *
+     * @param file path relative to the import directory
+     * @param format format of the file, or {@code null} to guess it from the extension
+     */
+    public AccountImportResultDTO importFile(String file, Format format, boolean restart) throws IOException {
+        Path directory = Paths.get(properties.getDirectory()).toAbsolutePath().normalize();
+        Path path = resolve(directory, file);
+        Format fileFormat = format != null ? format : formatOf(path);
+        if (!running.add(path)) {
+            throw new ImportInProgressException("An import of this file is already running");
+        }
+        try {
+            return run(directory, path, fileFormat, restart);
+        } finally {
+            running.remove(path);
+        }
+    }
+
+    private AccountImportResultDTO run(Path directory, Path path, Format format, boolean restart) throws IOException {
+        String key = directory.relativize(path).toString();
+        ImportCheckpoint checkpoint = restart
+                ? new ImportCheckpoint(key)
+                : checkpointRepository.findById(key).orElseGet(() -> new ImportCheckpoint(key));
+        Path rejectedPath = path.resolveSibling(path.getFileName() + REJECTED_SUFFIX);
+        long startOffset = checkpoint.getOffset();
+        long start = System.nanoTime();
+        RunState state = new RunState(checkpoint);
+
+        try (FileChannel rejected = FileChannel.open(rejectedPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             LineChannelReader lines = new LineChannelReader(FileChannel.open(path, StandardOpenOption.READ),
+                     0, (int) properties.getReadBufferSize().toBytes())) {
+            rejected.truncate(checkpoint.getRejectedBytes());
+            rejected.position(checkpoint.getRejectedBytes());
+
+            LineParser parser = format == Format.CSV ? csvParser(lines) : this::parseJson;
+            long lineNumber = format == Format.CSV ? 1 : 0;
+            if (checkpoint.getOffset() > lines.position()) {
+                lines.seek(checkpoint.getOffset());
+                lineNumber = checkpoint.getLineNumber();
+            }
+
+            Chunk current = readChunk(lines, lineNumber);
+            CompletableFuture<Chunk> parsing = current == null ? null : parse(current, parser);
+            long lastProgress = System.nanoTime();
+            while (current != null) {
+                // read the next chunk and parse it while the current one is written
+                Chunk next = readChunk(lines, current.lastLineNumber);
+                Chunk parsed = join(parsing);
+                parsing = next == null ? null : parse(next, parser);
+                write(parsed, state, rejected);
+                current = next;
+                if (System.nanoTime() - lastProgress > PROGRESS_INTERVAL_NANOS) {
+                    lastProgress = System.nanoTime();
+                    log.info("Importing {}: {} rows imported, {} rejected, {} rows/s", key, state.imported,
+                            state.rejected, Math.round(rowsPerSecond(state, start)));
+                }
+            }
+        }
+
+        long elapsed = System.nanoTime() - start;
+        AccountImportResultDTO result = new AccountImportResultDTO()
+                .file(key)
+                .rejectedFile(directory.relativize(rejectedPath).toString())
+                .resumedFromOffset(startOffset)
+                .offset(state.checkpoint.getOffset())
+                .lines(state.lines)
+                .imported(state.imported)
+                .rejected(state.rejected)
+                .elapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsed))
+                .rowsPerSecond(rowsPerSecond(state, start));
+        log.info("Imported {}", result);
+        return result;
+    }
+
+    private Chunk readChunk(LineChannelReader reader, long lineNumber) throws IOException {
+        Chunk chunk = new Chunk(chunkSize);
+        byte[] line;
+        while (chunk.lines.size() < chunkSize && (line = reader.readLine()) != null) {
+            lineNumber++;
+            if (isBlank(line)) {
+                continue;
+            }
+            chunk.lines.add(line);
+            chunk.lineNumbers.add(lineNumber);
+            chunk.lineEnds.add(reader.position());
+        }
+        chunk.lastLineNumber = lineNumber;
+        chunk.endOffset = reader.position();
+        return chunk.lines.isEmpty() ? null : chunk;
+    }
+
+    private CompletableFuture<Chunk> parse(Chunk chunk, LineParser parser) {
+        int size = chunk.lines.size();
+        chunk.accounts = new ArrayList<>(size);
+        chunk.results = new AccountBatchResultDTO[size];
+        for (int i = 0; i < size; i++) {
+            chunk.accounts.add(null);
+        }
+        int slices = Math.max(1, Math.min(properties.getParserThreads(), size));
+        CompletableFuture<?>[] parts = new CompletableFuture<?>[slices];
+        for (int s = 0; s < slices; s++) {
+            int from = size * s / slices;
+            int to = size * (s + 1) / slices;
+            parts[s] = CompletableFuture.runAsync(() -> {
+                for (int i = from; i < to; i++) {
+                    AccountDTO account = parser.parse(new String(chunk.lines.get(i), StandardCharsets.UTF_8));
+                    String violations = accountBatchService.validate(account);
+                    if (violations == null) {
+                        chunk.accounts.set(i, account);
+                    } else {
+                        chunk.results[i] = AccountBatchResultDTO.invalid(i, violations);
+                    }
+                }
+            }, parsers);
+        }
+        return CompletableFuture.allOf(parts).thenApply(done -> chunk);
+    }
+
+    private void write(Chunk chunk, RunState state, FileChannel rejected) {
+        // rows of the chunk already counted, when its progress is recorded row by row
+        int[] recorded = new int[1];
+        accountBatchService.write(0, chunk.accounts, chunk.results, results -> {
+            long importedInChunk = 0;
+            long rejectedInChunk = 0;
+            ByteArrayOutputStream rejections = new ByteArrayOutputStream();
+            boolean complete = results.size() == chunk.lines.size();
+            try {
+                for (AccountBatchResultDTO result : results.subList(recorded[0], results.size())) {
+                    if (result.getStatus() == AccountBatchResultDTO.Status.CREATED) {
+                        importedInChunk++;
+                        continue;
+                    }
+                    rejectedInChunk++;
+                    int i = result.getIndex();
+                    ObjectNode rejection = objectMapper.createObjectNode()
+                            .put("line", chunk.lineNumbers.get(i))
+                            .put("status", result.getStatus().name())
+                            .put("message", result.getMessage())
+                            .put("row", new String(chunk.lines.get(i), StandardCharsets.UTF_8));
+                    rejections.write(objectMapper.writeValueAsBytes(rejection));
+                    rejections.write('\n');
+                }
+                if (rejections.size() > 0) {
+                    ByteBuffer buffer = ByteBuffer.wrap(rejections.toByteArray());
+                    while (buffer.hasRemaining()) {
+                        rejected.write(buffer);
+                    }
+                    // the rejects must be on disk before the checkpoint that accounts for them commits
+                    rejected.force(false);
+                }
+                int last = results.size() - 1;
+                state.checkpoint = checkpointRepository.save(state.checkpoint.advance(
+                        complete ? chunk.endOffset : chunk.lineEnds.get(last),
+                        complete ? chunk.lastLineNumber : chunk.lineNumbers.get(last),
+                        rejected.position(), importedInChunk, rejectedInChunk));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            state.lines += results.size() - recorded[0];
+            recorded[0] = results.size();
+            state.imported += importedInChunk;
+            state.rejected += rejectedInChunk;
+            importedRows.increment(importedInChunk);
+            rejectedRows.increment(rejectedInChunk);
+        });
+    }
+
+    private LineParser csvParser(LineChannelReader reader) throws IOException {
+        byte[] headerLine = reader.readLine();
+        if (headerLine == null) {
+            throw new InvalidImportFileException("The file has no header row");
+        }
+        String header = new String(headerLine, StandardCharsets.UTF_8);
+        if (header.startsWith("\uFEFF")) {
+            header = header.substring(1);
+        }
+        List<String> columns = splitCsv(header);
+        int firstName = columns == null ? -1 : columns.indexOf("firstName");
+        int lastName = columns == null ? -1 : columns.indexOf("lastName");
+        if (firstName < 0 || lastName < 0) {
+            throw new InvalidImportFileException("The header row must name the firstName and lastName columns");
+        }
+        return line -> {
+            List<String> fields = splitCsv(line);
+            if (fields == null) {
+                return null;
+            }
+            return new AccountDTO()
+                    .firstName(firstName < fields.size() ? fields.get(firstName) : null)
+                    .lastName(lastName < fields.size() ? fields.get(lastName) : null);
+        };
+    }
+
+    private AccountDTO parseJson(String line) {
+        try {
+            return accountReader.readValue(line);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Splits a CSV row as written by the export: fields holding a comma or a quote are quoted, and quotes
+     * inside them doubled. Empty fields are {@code null}.
+     *
+     * @return the fields, or {@code null} if a quoted field is not closed
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        int i = 0;
+        int length = line.length();
+        while (true) {
+            if (i < length && line.charAt(i) == '"') {
+                i++;
+                while (true) {
+                    if (i >= length) {
+                        return null;
+                    }
+                    char c = line.charAt(i++);
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < length && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+            }
+            while (i < length && line.charAt(i) != ',') {
+                field.append(line.charAt(i++));
+            }
+            fields.add(field.length() == 0 ? null : field.toString());
+            field.setLength(0);
+            if (i >= length) {
+                return fields;
+            }
+            i++;
+        }
+    }
+
+    private static Path resolve(Path directory, String file) throws IOException {
+        Path path = directory.resolve(file).normalize();
+        if (!path.startsWith(directory)) {
+            throw new InvalidImportFileException("The file must be inside the import directory");
+        }
+        if (!Files.isRegularFile(path)) {
+            throw new InvalidImportFileException("No such file in the import directory");
+        }
+        // a symbolic link could still point outside the directory
+        if (!path.toRealPath().startsWith(directory.toRealPath())) {
+            throw new InvalidImportFileException("The file must be inside the import directory");
+        }
+        return path;
+    }
+
+    private static Format formatOf(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return Format.CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return Format.NDJSON;
+        }
+        throw new InvalidImportFileException("Cannot tell the format of the file from its name");
+    }
+
+    private static boolean isBlank(byte[] line) {
+        for (byte b : line) {
+            if (b != ' ' && b != '\t') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Chunk join(CompletableFuture<Chunk> parsing) throws IOException {
+        try {
+            return parsing.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static double rowsPerSecond(RunState state, long start) {
+        double seconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+        return seconds == 0 ? 0 : state.lines / seconds;
+    }
+
+    @FunctionalInterface
+    private interface LineParser {
+        /**
+         * @return the account on the line, or {@code null} if the line cannot be read
+         */
+        AccountDTO parse(String line);
+    }
+
+    private static class Chunk {
+        final List<byte[]> lines;
+        final List<Long> lineNumbers;
+        // offset just after each line
+        final List<Long> lineEnds;
+        List<AccountDTO> accounts;
+        AccountBatchResultDTO[] results;
+        long lastLineNumber;
+        long endOffset;
+
+        Chunk(int size) {
+            this.lines = new ArrayList<>(size);
+            this.lineNumbers = new ArrayList<>(size);
+            this.lineEnds = new ArrayList<>(size);
+        }
+    }
+
+    private static class RunState {
+        ImportCheckpoint checkpoint;
+        long lines;
+        long imported;
+        long rejected;
+
+        RunState(ImportCheckpoint checkpoint) {
+            this.checkpoint = checkpoint;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.ippon.bankapp.service;
+
+import com.ippon.bankapp.config.ApplicationProperties;
+import com.ippon.bankapp.service.dto.AccountLookupResultDTO;
+import com.ippon.bankapp.service.dto.AccountSummaryDTO;
+import com.ippon.bankapp.service.exception.LookupTooLargeException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Looks many accounts up by last name at once.
+ * <p>
+ * The names the {@link LastNameFilter} rules out are missing without a query; the others are read as
+ * summaries, a chunk of names per query, so thousands of accounts take a few round trips instead of one
+ * each. A name without an account is reported in the result rather than thrown, so misses cost no more
+ * than hits.
+ */
+@Service
+public class AccountLookupService {
+
+    private final LedgerService ledgerService;
+    private final LastNameFilter lastNameFilter;
+    private final ApplicationProperties.Lookup properties;
+
+    public AccountLookupService(LedgerService ledgerService,
+                                LastNameFilter lastNameFilter,
+                                ApplicationProperties applicationProperties) {
+        this.ledgerService = ledgerService;
+        this.lastNameFilter = lastNameFilter;
+        this.properties = applicationProperties.getLookup();
+    }
+
+    public AccountLookupResultDTO lookup(Collection<String> lastNames) {
+        if (lastNames.size() > properties.getMaxLastNames()) {
+            throw new LookupTooLargeException("At most " + properties.getMaxLastNames() + " last names per lookup");
+        }
+        Set<String> wanted = new LinkedHashSet<>(lastNames);
+        wanted.remove(null);
+
+        int chunkSize = properties.getChunkSize();
+        Map<String, AccountSummaryDTO> found = new HashMap<>(wanted.size() * 2);
+        List<String> chunk = new ArrayList<>(chunkSize);
+        for (String lastName : wanted) {
+            if (!lastNameFilter.mightExist(lastName)) {
+                continue;
+            }
+            chunk.add(lastName);
+            if (chunk.size() == chunkSize) {
+                find(chunk, found);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            find(chunk, found);
+        }
+
+        List<AccountSummaryDTO> accounts = new ArrayList<>(found.size());
+        List<String> missing = new ArrayList<>(wanted.size() - found.size());
+        for (String lastName : wanted) {
+            AccountSummaryDTO account = found.get(lastName);
+            if (account != null) {
+                accounts.add(account);
+            } else {
+                missing.add(lastName);
+            }
+        }
+        return new AccountLookupResultDTO(accounts, missing);
+    }
+
+    private void find(List<String> lastNames, Map<String, AccountSummaryDTO> found) {
+        for (AccountSummaryDTO account : ledgerService.summariesOf(lastNames)) {
+            found.put(account.getLastName(), account);
+        }
+    }
+}
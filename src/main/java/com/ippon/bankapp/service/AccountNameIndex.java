@@ -0,0 +1,174 @@
+package com.ippon.bankapp.service;
+
+import com.ippon.bankapp.config.ApplicationProperties;
+import com.ippon.bankapp.repository.AccountRepository;
+import com.ippon.bankapp.service.dto.AccountMatchDTO;
+import com.ippon.bankapp.util.NameIndex;
+import com.ippon.bankapp.util.Threads;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * {@link NameIndex} over the first and last names in the {@code account} table, for the account search.
+ * <p>
+ * Like the {@link LastNameFilter}, names are added as accounts are created in this instance, and the index
+ * is rebuilt from the table at startup and then every refresh interval, which picks up accounts created by
+ * other instances or inserted directly in the database.
+ */
+@Component
+public class AccountNameIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountNameIndex.class);
+
+    private final AccountRepository accountRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ApplicationProperties.Search properties;
+    private final boolean virtualThreads;
+    private final ReentrantLock rebuilding = new ReentrantLock();
+
+    private volatile NameIndex index;
+    private volatile NameIndex building;
+    // accounts added since the last rebuild started, and before that, whose transactions may commit after a scan
+    private volatile Set<AccountMatchDTO> added = ConcurrentHashMap.newKeySet();
+    private volatile Set<AccountMatchDTO> addedBefore = ConcurrentHashMap.newKeySet();
+    private volatile long estimatedBytes;
+    private ScheduledExecutorService refresher;
+
+    public AccountNameIndex(AccountRepository accountRepository,
+                            PlatformTransactionManager transactionManager,
+                            ApplicationProperties applicationProperties,
+                            MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.properties = applicationProperties.getSearch();
+        this.virtualThreads = applicationProperties.getVirtualThreads().isEnabled();
+        Gauge.builder("account.search.index.accounts", this, AccountNameIndex::size)
+                .description("Accounts in the name index")
+                .register(meterRegistry);
+        Gauge.builder("account.search.index.bytes", this, search -> search.estimatedBytes)
+                .description("Estimated heap taken by the name index when last rebuilt")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        rebuild();
+        long refreshMillis = properties.getRefreshInterval().toMillis();
+        refresher = Executors.newSingleThreadScheduledExecutor(
+                Threads.named("account-name-index-refresh", virtualThreads));
+        refresher.scheduleWithFixedDelay(this::refresh, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    /**
+     * @return up to {@code limit} accounts with names starting with the words of {@code query}, then
+     * accounts with names a few letters away from them; none while the index is disabled
+     */
+    public List<AccountMatchDTO> search(String query, int limit) {
+        NameIndex current = index;
+        List<AccountMatchDTO> matches = new ArrayList<>();
+        if (current == null) {
+            return matches;
+        }
+        for (NameIndex.Match match : current.search(query, limit)) {
+            matches.add(new AccountMatchDTO(match.getFirstName(), match.getLastName(), match.isFuzzy()));
+        }
+        return matches;
+    }
+
+    public void add(String firstName, String lastName) {
+        added.add(new AccountMatchDTO(firstName, lastName));
+        NameIndex current = index;
+        if (current != null) {
+            current.put(firstName, lastName);
+        }
+        NameIndex next = building;
+        if (next != null) {
+            next.put(firstName, lastName);
+        }
+    }
+
+    /**
+     * Replaces the index with one built from the {@code account} table, plus the accounts added since the
+     * previous rebuild started, which the scan misses if their transaction commits after it.
+     */
+    public void rebuild() {
+        rebuilding.lock();
+        try {
+            rebuildLocked();
+        } finally {
+            rebuilding.unlock();
+        }
+    }
+
+    private void rebuildLocked() {
+        Set<AccountMatchDTO> previous = addedBefore;
+        Set<AccountMatchDTO> since = added;
+        addedBefore = since;
+        added = ConcurrentHashMap.newKeySet();
+        NameIndex next = new NameIndex();
+        building = next;
+        try {
+            // names both scanned and replayed are indexed twice, which searches do not show
+            readOnlyTransaction.execute(status -> {
+                try (Stream<AccountMatchDTO> accounts = accountRepository.streamAllNames()) {
+                    accounts.forEach(account -> next.put(account.getFirstName(), account.getLastName()));
+                }
+                return null;
+            });
+            previous.forEach(account -> next.put(account.getFirstName(), account.getLastName()));
+            since.forEach(account -> next.put(account.getFirstName(), account.getLastName()));
+            index = next;
+            estimatedBytes = next.estimateBytes();
+            log.debug("Account name index rebuilt with {} accounts and {} terms in about {} bytes",
+                    next.size(), next.termCount(), estimatedBytes);
+        } catch (RuntimeException e) {
+            // the next rebuild replays them instead
+            addedBefore.addAll(previous);
+            throw e;
+        } finally {
+            building = null;
+        }
+    }
+
+    private int size() {
+        NameIndex current = index;
+        return current == null ? 0 : current.size();
+    }
+
+    private void refresh() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("Could not refresh the account name index, keeping the previous one", e);
+        }
+    }
+}
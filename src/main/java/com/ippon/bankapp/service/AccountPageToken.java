@@ -0,0 +1,85 @@
+package com.ippon.bankapp.service;
+
+import com.ippon.bankapp.service.dto.AccountSummaryDTO;
+import com.ippon.bankapp.service.exception.InvalidPageTokenException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Continuation token of the account listing: the sort order and the key of the last account returned,
+ * base64url-encoded so clients treat it as opaque.
+ */
+public final class AccountPageToken {
+
+    public enum Sort {
+        ID("i"), LAST_NAME("n");
+
+        private final String code;
+
+        Sort(String code) {
+            this.code = code;
+        }
+    }
+
+    private static final String VERSION = "1";
+
+    private final Sort sort;
+    private final String key;
+
+    private AccountPageToken(Sort sort, String key) {
+        this.sort = sort;
+        this.key = key;
+    }
+
+    public static AccountPageToken after(Sort sort, AccountSummaryDTO last) {
+        return new AccountPageToken(sort, sort == Sort.ID ? Integer.toString(last.getId()) : last.getLastName());
+    }
+
+    /**
+     * @throws InvalidPageTokenException if the token was not issued by {@link #encode()}
+     */
+    public static AccountPageToken decode(String token) {
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw InvalidPageTokenException.INSTANCE;
+        }
+        String[] parts = decoded.split(":", 3);
+        if (parts.length != 3 || !VERSION.equals(parts[0])) {
+            throw InvalidPageTokenException.INSTANCE;
+        }
+        for (Sort sort : Sort.values()) {
+            if (sort.code.equals(parts[1])) {
+                AccountPageToken pageToken = new AccountPageToken(sort, parts[2]);
+                if (sort == Sort.ID) {
+                    pageToken.afterId();
+                }
+                return pageToken;
+            }
+        }
+        throw InvalidPageTokenException.INSTANCE;
+    }
+
+    public String encode() {
+        String token = VERSION + ":" + sort.code + ":" + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public int afterId() {
+        try {
+            return Integer.parseInt(key);
+        } catch (NumberFormatException e) {
+            throw InvalidPageTokenException.INSTANCE;
+        }
+    }
+
+    public String afterLastName() {
+        return key;
+    }
+}
@@ -1,58 +1,182 @@
 package com.ippon.bankapp.service;
 
+import com.ippon.bankapp.config.CacheConfiguration;
 import com.ippon.bankapp.domain.Account;
+import com.ippon.bankapp.domain.OutboxMessage;
 import com.ippon.bankapp.repository.AccountRepository;
+import com.ippon.bankapp.repository.OutboxRepository;
 import com.ippon.bankapp.service.dto.AccountDTO;
+import com.ippon.bankapp.service.dto.AccountMatchDTO;
+import com.ippon.bankapp.service.dto.AccountPageDTO;
+import com.ippon.bankapp.service.dto.AccountSummaryDTO;
+import com.ippon.bankapp.service.dto.TransferDTO;
+import com.ippon.bankapp.service.dto.TransferResultDTO;
 import com.ippon.bankapp.service.exception.AccountLastNameExistsException;
 import com.ippon.bankapp.service.exception.AccountNotFoundException;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Locale;
 
 @Service
 public class AccountService {
 
     private AccountRepository accountRepository;
+    private OutboxRepository outboxRepository;
     private NotificationFactory notificationFactory;
+    private LastNameFilter lastNameFilter;
+    private AccountNameIndex accountNameIndex;
+    private LedgerService ledgerService;
 
-    public AccountService(AccountRepository accountRepository, NotificationFactory notificationFactory) {
+    public AccountService(AccountRepository accountRepository,
+                          OutboxRepository outboxRepository,
+                          NotificationFactory notificationFactory,
+                          LastNameFilter lastNameFilter,
+                          AccountNameIndex accountNameIndex,
+                          LedgerService ledgerService) {
         this.accountRepository = accountRepository;
+        this.outboxRepository = outboxRepository;
         this.notificationFactory = notificationFactory;
+        this.lastNameFilter = lastNameFilter;
+        this.accountNameIndex = accountNameIndex;
+        this.ledgerService = ledgerService;
     }
 
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfiguration.ACCOUNTS, key = "#newAccount.lastName")
     public AccountDTO createAccount(AccountDTO newAccount) {
-        validateLastNameUnique(newAccount.getLastName());
-        Account account = new Account(newAccount.getFirstName(), newAccount.getLastName());
-        account.setNotificationPreference(notificationFactory
-                .getDefaultNotification()
-                .getName());
+        Account account = newAccount(newAccount);
 
-        Account save = accountRepository.save(account);
+        Account save;
+        try {
+            save = accountRepository.saveAndFlush(account);
+        } catch (DataIntegrityViolationException e) {
+            if (isLastNameConflict(e)) {
+                throw AccountLastNameExistsException.INSTANCE;
+            }
+            throw e;
+        }
+        lastNameFilter.add(save.getLastName());
+        accountNameIndex.add(save.getFirstName(), save.getLastName());
 
-        notificationFactory
-                .getPreferredService(save.getNotificationPreference())
-                .orElseGet(notificationFactory::getDefaultNotification)
-                .sendMessage("bank",
-                        account.getLastName(),
-                        "Account Created",
-                        "Welcome aboard!");
+        outboxRepository.save(welcomeMessage(save));
 
         return mapAccountToDTO(save);
     }
 
     public AccountDTO getAccount(String lastName) {
-        Account account = accountRepository
-                .findByLastName(lastName)
-                .orElseThrow(AccountNotFoundException::new);
+        if (!lastNameFilter.mightExist(lastName)) {
+            throw AccountNotFoundException.INSTANCE;
+        }
+        return ledgerService.cached(lastName, () -> {
+            Account account = accountRepository
+                    .findByLastName(lastName)
+                    .orElseThrow(() -> AccountNotFoundException.INSTANCE);
 
-        return mapAccountToDTO(account);
+            return ledgerService.stateOf(account);
+        });
     }
 
-    private void validateLastNameUnique(String lastName) {
-        accountRepository
-                .findByLastName(lastName)
-                .ifPresent(t -> {throw new AccountLastNameExistsException();});
+    /**
+     * The version {@link #getAccount} would give the account, for conditional reads, without loading it.
+     */
+    public String getAccountVersion(String lastName) {
+        if (!lastNameFilter.mightExist(lastName)) {
+            throw AccountNotFoundException.INSTANCE;
+        }
+        return ledgerService.versionOf(lastName).orElseThrow(() -> AccountNotFoundException.INSTANCE);
+    }
+
+    /**
+     * Lists accounts by keyset pagination.
+     *
+     * @param after token returned with the previous page, {@code null} for the first page
+     * @param sort  order of the listing when starting from the first page; later pages follow their token
+     */
+    @Transactional(readOnly = true)
+    public AccountPageDTO listAccounts(String after, AccountPageToken.Sort sort, int limit) {
+        AccountPageToken token = after == null ? null : AccountPageToken.decode(after);
+        AccountPageToken.Sort order = token == null ? sort : token.getSort();
+        // one extra row tells whether there is a next page
+        PageRequest page = PageRequest.of(0, limit + 1);
+        List<AccountSummaryDTO> accounts;
+        if (order == AccountPageToken.Sort.ID) {
+            accounts = accountRepository.findPageAfterId(token == null ? Integer.MIN_VALUE : token.afterId(), page);
+        } else if (token == null) {
+            accounts = accountRepository.findFirstPageByLastName(page);
+        } else {
+            accounts = accountRepository.findPageAfterLastName(token.afterLastName(), page);
+        }
+
+        if (accounts.size() <= limit) {
+            return new AccountPageDTO(accounts, null);
+        }
+        accounts = accounts.subList(0, limit);
+        return new AccountPageDTO(accounts, AccountPageToken.after(order, accounts.get(limit - 1)).encode());
+    }
+
+    /**
+     * Finds accounts by the start of their names, or by misspelled names, from the in-memory name index.
+     */
+    public List<AccountMatchDTO> searchAccounts(String query, int limit) {
+        return accountNameIndex.search(query, limit);
+    }
+
+    public AccountDTO deposit(String lastName, BigDecimal amount) {
+        return ledgerService.deposit(lastName, amount);
+    }
+
+    public AccountDTO withdraw(String lastName, BigDecimal amount) {
+        return ledgerService.withdraw(lastName, amount);
+    }
+
+    public TransferResultDTO transfer(TransferDTO transfer) {
+        return ledgerService.transfer(transfer.getFrom(), transfer.getTo(), transfer.getAmount());
+    }
+
+    Account newAccount(AccountDTO newAccount) {
+        Account account = new Account(newAccount.getFirstName(), newAccount.getLastName());
+        account.setNotificationPreference(notificationFactory
+                .getDefaultNotification()
+                .getName());
+        return account;
+    }
+
+    OutboxMessage welcomeMessage(Account account) {
+        NotificationService notificationService = notificationFactory
+                .getPreferredService(account.getNotificationPreference())
+                .orElseGet(notificationFactory::getDefaultNotification);
+        return new OutboxMessage(notificationService.getName(),
+                "bank",
+                account.getLastName(),
+                "Account Created",
+                "Welcome aboard!");
+    }
+
+    static boolean isLastNameConflict(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            String message = cause.getMessage();
+            if (message != null && message.toLowerCase(Locale.ROOT).contains(Account.UNIQUE_LAST_NAME)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static AccountDTO mapAccountToDTO(Account account) {
+        return new AccountDTO()
+                .firstName(account.getFirstName())
+                .lastName(account.getLastName())
+                .balance(account.getBalance())
+                .notificationPreference(account.getNotificationPreference());
     }
 
-    private AccountDTO mapAccountToDTO(Account account) {
+    static AccountDTO mapSummaryToDTO(AccountSummaryDTO account) {
         return new AccountDTO()
                 .firstName(account.getFirstName())
                 .lastName(account.getLastName())
@@ -0,0 +1,122 @@
+package com.ippon.bankapp.service;
+
+import com.ippon.bankapp.config.ApplicationProperties;
+import com.ippon.bankapp.repository.AccountRepository;
+import com.ippon.bankapp.repository.LedgerEntryRepository;
+import com.ippon.bankapp.service.dto.BalanceDeltaDTO;
+import com.ippon.bankapp.util.Threads;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Folds the ledger entries of each account into its balance snapshot, so reading a balance only sums the
+ * few entries appended since the last pass instead of the account's whole history.
+ * <p>
+ * A snapshot is moved with a compare-and-set on its sequence, and readers add exactly the entries after the
+ * sequence they read, so passes can run on any number of instances next to the writers.
+ */
+@Component
+public class BalanceSnapshotter {
+
+    private static final Logger log = LoggerFactory.getLogger(BalanceSnapshotter.class);
+
+    private final AccountRepository accountRepository;
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final TransactionTemplate transaction;
+    private final ApplicationProperties.Ledger properties;
+    private final boolean virtualThreads;
+    private final Counter snapshots;
+
+    private ScheduledExecutorService snapshotter;
+
+    public BalanceSnapshotter(AccountRepository accountRepository,
+                              LedgerEntryRepository ledgerEntryRepository,
+                              PlatformTransactionManager transactionManager,
+                              ApplicationProperties applicationProperties,
+                              MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.properties = applicationProperties.getLedger();
+        this.virtualThreads = applicationProperties.getVirtualThreads().isEnabled();
+        this.snapshots = Counter.builder("ledger.snapshots")
+                .description("Balance snapshots moved forward over new ledger entries")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isSnapshotEnabled()) {
+            log.info("Balance snapshots disabled");
+            return;
+        }
+        long intervalMillis = properties.getSnapshotInterval().toMillis();
+        snapshotter = Executors.newSingleThreadScheduledExecutor(Threads.named("balance-snapshotter", virtualThreads));
+        snapshotter.scheduleWithFixedDelay(this::run, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (snapshotter != null) {
+            snapshotter.shutdownNow();
+        }
+    }
+
+    /**
+     * Walks every account once, in batches, moving the snapshots of those with new ledger entries.
+     *
+     * @return the number of snapshots moved
+     */
+    public int snapshot() {
+        PageRequest page = PageRequest.of(0, properties.getSnapshotBatchSize());
+        int moved = 0;
+        int afterId = Integer.MIN_VALUE;
+        List<Integer> ids;
+        do {
+            ids = accountRepository.findIdsAfter(afterId, page);
+            if (ids.isEmpty()) {
+                break;
+            }
+            moved += snapshot(ids);
+            afterId = ids.get(ids.size() - 1);
+        } while (ids.size() == page.getPageSize());
+        return moved;
+    }
+
+    private int snapshot(List<Integer> accountIds) {
+        int moved = transaction.execute(status -> {
+            int count = 0;
+            for (BalanceDeltaDTO delta : ledgerEntryRepository.findSnapshotDeltas(accountIds)) {
+                // 0 when another pass moved this snapshot since the deltas were read, leaving it at least as recent
+                count += ledgerEntryRepository.moveSnapshot(delta.getAccountId(), delta.getFromSequence(),
+                        delta.getAmount(), delta.getToSequence());
+            }
+            return count;
+        });
+        snapshots.increment(moved);
+        return moved;
+    }
+
+    private void run() {
+        try {
+            int moved = snapshot();
+            log.debug("Moved {} balance snapshots", moved);
+        } catch (RuntimeException e) {
+            log.warn("Balance snapshot pass failed, retrying at the next one", e);
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package com.ippon.bankapp.service;
 
+import com.ippon.bankapp.service.dto.NotificationMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Service("email")
 public class EmailService implements NotificationService {
 
@@ -16,6 +19,14 @@ public class EmailService implements NotificationService {
         log.info("Sent message:\n\tfrom: {} \n\tto: {}\n\tsubject: {}\n\tmessage: {}", source, destination, subject, message);
     }
 
+    @Override
+    public void sendMessages(List<NotificationMessage> messages) {
+        // don't implement, mock only
+        log.info("Sent batch of {} messages", messages.size());
+        messages.forEach(m -> log.debug("Sent message:\n\tfrom: {} \n\tto: {}\n\tsubject: {}\n\tmessage: {}",
+                m.getSource(), m.getDestination(), m.getSubject(), m.getMessage()));
+    }
+
     @Override
     public String getName() {
         return EMAIL;
@@ -0,0 +1,300 @@
+package com.ippon.bankapp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ippon.bankapp.config.ApplicationProperties;
+import com.ippon.bankapp.domain.IdempotencyRecord;
+import com.ippon.bankapp.repository.IdempotencyRecordRepository;
+import com.ippon.bankapp.service.exception.IdempotencyKeyReusedException;
+import com.ippon.bankapp.service.exception.IdempotentRequestInProgressException;
+import com.ippon.bankapp.util.Threads;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs a request sent with an idempotency key once and replays its response for the repeats.
+ * <p>
+ * A repeat arriving while the request runs on this instance waits for it on the in-flight map, without
+ * touching the database. Completed responses are looked up in a bounded in-memory tier, then in the
+ * {@code idempotency_key} table, which also holds the claim stopping another instance from running a repeat
+ * at the same time: that one is rejected as in progress rather than waited for.
+ * <p>
+ * Only responses a repeat should get again are stored. Conflicts and throttling mean nothing was applied, so
+ * those requests release their claim and run again when repeated. A request that throws or answers a server
+ * error may have committed before it failed, so its claim is kept: until the {@code ttl} purges it, or an
+ * operator deletes its row after checking what was applied, repeats are rejected as in progress rather than
+ * applied a second time. For the same reason a claim is never taken over from an instance that stopped before
+ * completing it.
+ */
+@Component
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ApplicationProperties.Idempotency properties;
+    private final boolean virtualThreads;
+    private final Cache<IdempotencyRecord.Key, Response> completed;
+    private final ConcurrentMap<IdempotencyRecord.Key, CompletableFuture<Response>> inFlight = new ConcurrentHashMap<>();
+    private final Counter executions;
+    private final Counter inFlightReplays;
+    private final Counter memoryReplays;
+    private final Counter databaseReplays;
+
+    private ScheduledExecutorService purger;
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              ApplicationProperties applicationProperties,
+                              MeterRegistry meterRegistry) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.properties = applicationProperties.getIdempotency();
+        this.virtualThreads = applicationProperties.getVirtualThreads().isEnabled();
+        Duration cacheTtl = properties.getCacheTtl().compareTo(properties.getTtl()) < 0
+                ? properties.getCacheTtl() : properties.getTtl();
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(properties.getCacheSize())
+                .expireAfterWrite(cacheTtl.toMillis(), TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        // with the tags Spring Boot gives the caches of its cache managers, which Prometheus needs the same
+        CaffeineCacheMetrics.monitor(meterRegistry, completed, "idempotency", "cacheManager", "idempotencyService",
+                "name", "idempotency");
+        this.executions = Counter.builder("idempotency.requests")
+                .description("Requests with an idempotency key, by where their response came from")
+                .tag("source", "executed")
+                .register(meterRegistry);
+        this.inFlightReplays = replays(meterRegistry, "in-flight");
+        this.memoryReplays = replays(meterRegistry, "memory");
+        this.databaseReplays = replays(meterRegistry, "database");
+    }
+
+    private static Counter replays(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("idempotency.requests")
+                .description("Requests with an idempotency key, by where their response came from")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            log.info("Idempotency keys disabled");
+            return;
+        }
+        long intervalMillis = properties.getPurgeInterval().toMillis();
+        purger = Executors.newSingleThreadScheduledExecutor(Threads.named("idempotency-purger", virtualThreads));
+        purger.scheduleWithFixedDelay(this::run, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (purger != null) {
+            purger.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Runs {@code request} unless a request of the same client with the same key already ran, in which case
+     * its response is returned instead.
+     *
+     * @param client      who sent the request, whose keys are apart from those of the other clients
+     * @param fingerprint hash of the request, which a repeat has to match
+     * @throws IdempotencyKeyReusedException         if the key was sent with another request
+     * @throws IdempotentRequestInProgressException if the request with the key has not completed in time, or failed
+     * @throws Exception                             what {@code request} throws
+     */
+    public Response execute(String client, String idempotencyKey, String fingerprint, Callable<Response> request)
+            throws Exception {
+        IdempotencyRecord.Key key = new IdempotencyRecord.Key(client, idempotencyKey);
+        while (true) {
+            Response response = completed.getIfPresent(key);
+            if (response != null) {
+                memoryReplays.increment();
+                return replay(response, fingerprint);
+            }
+            CompletableFuture<Response> running = new CompletableFuture<>();
+            CompletableFuture<Response> first = inFlight.putIfAbsent(key, running);
+            if (first == null) {
+                try {
+                    return run(key, client, idempotencyKey, fingerprint, request, running);
+                } finally {
+                    // completed before removed, so a repeat finds the response in one or the other
+                    running.complete(null);
+                    inFlight.remove(key, running);
+                }
+            }
+            response = await(first);
+            // null when the first request stored nothing: run it again, after whoever comes first
+            if (response != null) {
+                inFlightReplays.increment();
+                return replay(response, fingerprint);
+            }
+        }
+    }
+
+    private Response run(IdempotencyRecord.Key key, String client, String idempotencyKey, String fingerprint,
+                         Callable<Response> request, CompletableFuture<Response> running) throws Exception {
+        Instant claimedAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        Response stored = claim(key, client, idempotencyKey, fingerprint, claimedAt);
+        if (stored != null) {
+            completed.put(key, stored);
+            running.complete(stored);
+            databaseReplays.increment();
+            return stored;
+        }
+        executions.increment();
+        // what request.call() throws keeps the claim: the change may have committed before it
+        Response response = request.call();
+        if (isStored(response.getStatus())) {
+            idempotencyRecordRepository.complete(client, idempotencyKey, claimedAt, response.getStatus(),
+                    response.getContentType(), response.getBody());
+            completed.put(key, response);
+            running.complete(response);
+        } else if (isRejected(response.getStatus())) {
+            idempotencyRecordRepository.deleteClaim(client, idempotencyKey, claimedAt);
+        }
+        return response;
+    }
+
+    /**
+     * Inserts the claim on {@code key}, unless a row already holds a response to replay.
+     *
+     * @return the response stored for {@code key}, {@code null} once claimed
+     */
+    private Response claim(IdempotencyRecord.Key key, String client, String idempotencyKey, String fingerprint,
+                           Instant claimedAt) {
+        while (true) {
+            try {
+                idempotencyRecordRepository.insertClaim(client, idempotencyKey, fingerprint, claimedAt);
+                return null;
+            } catch (DataIntegrityViolationException e) {
+                Optional<IdempotencyRecord> found = idempotencyRecordRepository.findById(key);
+                if (!found.isPresent()) {
+                    // released since
+                    continue;
+                }
+                IdempotencyRecord record = found.get();
+                if (Duration.between(record.getCreatedAt(), claimedAt).compareTo(properties.getTtl()) > 0) {
+                    // expired, not purged yet
+                    idempotencyRecordRepository.deleteClaim(client, idempotencyKey, record.getCreatedAt());
+                    continue;
+                }
+                if (!record.getFingerprint().equals(fingerprint)) {
+                    throw IdempotencyKeyReusedException.INSTANCE;
+                }
+                if (!record.isCompleted()) {
+                    throw IdempotentRequestInProgressException.INSTANCE;
+                }
+                return new Response(record.getFingerprint(), record.getStatus(), record.getContentType(),
+                        record.getBody());
+            }
+        }
+    }
+
+    private Response await(CompletableFuture<Response> first) throws InterruptedException {
+        try {
+            return first.get(properties.getWaitTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw IdempotentRequestInProgressException.INSTANCE;
+        } catch (ExecutionException e) {
+            // never completed exceptionally
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static Response replay(Response response, String fingerprint) {
+        if (!response.getFingerprint().equals(fingerprint)) {
+            throw IdempotencyKeyReusedException.INSTANCE;
+        }
+        return response;
+    }
+
+    private static boolean isStored(int status) {
+        return status < 500 && !isRejected(status);
+    }
+
+    /**
+     * Whether the response refuses the request without having applied anything, so that it can run again.
+     */
+    private static boolean isRejected(int status) {
+        return status == 409 || status == 429;
+    }
+
+    /**
+     * Deletes the stored responses older than the time they are replayed for.
+     *
+     * @return the number deleted
+     */
+    public int purge() {
+        return idempotencyRecordRepository.deleteCreatedBefore(Instant.now().minus(properties.getTtl()));
+    }
+
+    private void run() {
+        try {
+            int purged = purge();
+            log.debug("Purged {} idempotency keys", purged);
+        } catch (RuntimeException e) {
+            log.warn("Idempotency key purge failed, retrying at the next one", e);
+        }
+    }
+
+    /**
+     * A response as written to the client, along with the fingerprint of the request it answers.
+     */
+    public static final class Response {
+
+        private final String fingerprint;
+        private final int status;
+        private final String contentType;
+        private final byte[] body;
+
+        public Response(String fingerprint, int status, String contentType, byte[] body) {
+            this.fingerprint = fingerprint;
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+    }
+}
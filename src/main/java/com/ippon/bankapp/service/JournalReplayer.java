@@ -0,0 +1,76 @@
+package com.ippon.bankapp.service;
+
+import com.ippon.bankapp.config.ApplicationProperties;
+import com.ippon.bankapp.util.Threads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the balance changes of the {@link LedgerJournal} to the database in the background, batch after
+ * batch until it has caught up, then every {@code bankapp.journal.replay-interval}.
+ */
+@Component
+public class JournalReplayer {
+
+    private static final Logger log = LoggerFactory.getLogger(JournalReplayer.class);
+
+    private final LedgerService ledgerService;
+    private final LedgerJournal journal;
+    private final ApplicationProperties.Journal properties;
+    private final boolean virtualThreads;
+
+    private ScheduledExecutorService replayer;
+
+    public JournalReplayer(LedgerService ledgerService,
+                           LedgerJournal journal,
+                           ApplicationProperties applicationProperties) {
+        this.ledgerService = ledgerService;
+        this.journal = journal;
+        this.properties = applicationProperties.getJournal();
+        this.virtualThreads = applicationProperties.getVirtualThreads().isEnabled();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!journal.isEnabled()) {
+            return;
+        }
+        long intervalMillis = properties.getReplayInterval().toMillis();
+        replayer = Executors.newSingleThreadScheduledExecutor(Threads.named("journal-replayer", virtualThreads));
+        replayer.scheduleWithFixedDelay(this::run, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the background thread, then writes what is left while the database is still there. Whatever
+     * fails is written on the next start.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (replayer == null) {
+            return;
+        }
+        replayer.shutdownNow();
+        replayer.awaitTermination(10, TimeUnit.SECONDS);
+        run();
+    }
+
+    private void run() {
+        try {
+            while (ledgerService.replayJournal() > 0) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not write journaled balance changes to the database, retrying at the next pass", e);
+        }
+    }
+}
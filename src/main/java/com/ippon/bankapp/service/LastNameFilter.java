@@ -0,0 +1,159 @@
+package com.ippon.bankapp.service;
+
+import com.ippon.bankapp.config.ApplicationProperties;
+import com.ippon.bankapp.repository.AccountRepository;
+import com.ippon.bankapp.util.BloomFilter;
+import com.ippon.bankapp.util.Threads;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filter over the last names in the {@code account} table, used to answer "no such account"
+ * without a query.
+ * <p>
+ * Names are added as accounts are created in this instance. The filter is rebuilt from the table at
+ * startup and then every refresh interval, which picks up accounts inserted directly in the database.
+ * A miss is final, so it is meant for a single instance and off unless enabled: with several, an account
+ * created by another one is not found here until the next refresh.
+ */
+@Component
+public class LastNameFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(LastNameFilter.class);
+
+    private final AccountRepository accountRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ApplicationProperties.LastNameFilter properties;
+    private final boolean virtualThreads;
+    private final Counter skippedLookups;
+    private final ReentrantLock rebuilding = new ReentrantLock();
+
+    private volatile BloomFilter filter;
+    private volatile BloomFilter building;
+    // names added since the last rebuild started, and before that, whose transactions may commit after a scan
+    private volatile Set<String> added = ConcurrentHashMap.newKeySet();
+    private volatile Set<String> addedBefore = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService refresher;
+
+    public LastNameFilter(AccountRepository accountRepository,
+                          PlatformTransactionManager transactionManager,
+                          ApplicationProperties applicationProperties,
+                          MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.properties = applicationProperties.getLastNameFilter();
+        this.virtualThreads = applicationProperties.getVirtualThreads().isEnabled();
+        this.skippedLookups = Counter.builder("account.lastname.filter.skipped")
+                .description("Last name lookups answered by the filter without a query")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        rebuild();
+        long refreshMillis = properties.getRefreshInterval().toMillis();
+        refresher = Executors.newSingleThreadScheduledExecutor(
+                Threads.named("last-name-filter-refresh", virtualThreads));
+        refresher.scheduleWithFixedDelay(this::refresh, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    /**
+     * @return {@code false} if no account has this last name, {@code true} if one may have it
+     */
+    public boolean mightExist(String lastName) {
+        BloomFilter current = filter;
+        if (current == null || current.mightContain(lastName)) {
+            return true;
+        }
+        skippedLookups.increment();
+        return false;
+    }
+
+    public void add(String lastName) {
+        added.add(lastName);
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(lastName);
+        }
+        BloomFilter next = building;
+        if (next != null) {
+            next.put(lastName);
+        }
+    }
+
+    /**
+     * Replaces the filter with one built from the {@code account} table, plus the names added since the
+     * previous rebuild started, which the scan misses if their transaction commits after it.
+     */
+    public void rebuild() {
+        rebuilding.lock();
+        try {
+            rebuildLocked();
+        } finally {
+            rebuilding.unlock();
+        }
+    }
+
+    private void rebuildLocked() {
+        Set<String> previous = addedBefore;
+        Set<String> since = added;
+        addedBefore = since;
+        added = ConcurrentHashMap.newKeySet();
+        long count = accountRepository.count();
+        long expected = Math.max(properties.getExpectedAccounts(), count * 2);
+        BloomFilter next = BloomFilter.create(expected, properties.getFalsePositiveProbability());
+        building = next;
+        try {
+            readOnlyTransaction.execute(status -> {
+                try (Stream<String> lastNames = accountRepository.streamAllLastNames()) {
+                    lastNames.forEach(next::put);
+                }
+                return null;
+            });
+            previous.forEach(next::put);
+            since.forEach(next::put);
+            filter = next;
+            log.debug("Last name filter rebuilt with {} accounts ({} bits)", count, next.bitSize());
+        } catch (RuntimeException e) {
+            // the next rebuild replays them instead
+            addedBefore.addAll(previous);
+            throw e;
+        } finally {
+            building = null;
+        }
+    }
+
+    private void refresh() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("Could not refresh the last name filter, keeping the previous one", e);
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package com.ippon.bankapp.service;
+
+import com.ippon.bankapp.config.ApplicationProperties;
+import com.ippon.bankapp.domain.Account;
+import com.ippon.bankapp.domain.LedgerEntry;
+import com.ippon.bankapp.domain.Money;
+import com.ippon.bankapp.repository.AccountRepository;
+import com.ippon.bankapp.repository.LedgerEntryRepository;
+import com.ippon.bankapp.service.dto.BalanceDeltaDTO;
+import com.ippon.bankapp.service.exception.AccountNotFoundException;
+import com.ippon.bankapp.service.exception.ConcurrentBalanceUpdateException;
+import com.ippon.bankapp.service.exception.InsufficientFundsException;
+import com.ippon.bankapp.service.exception.InvalidAmountException;
+import com.ippon.bankapp.util.IntLongMap;
+import com.ippon.bankapp.util.RingBuffer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Applies balance changes on a single thread, which owns the balances and ledger positions of the accounts it
+ * has seen, in primitive maps keyed by account id.
+ * <p>
+ * Request threads publish their changes to a {@link RingBuffer} and wait for them to complete. The engine
+ * thread takes every change ready, checks and applies them one after the other in memory, then writes all
+ * their ledger entries in one transaction before completing them; a change is acknowledged once in the
+ * database, like on the locking path. Nothing competes for the account rows, so there is neither lock nor
+ * retry, except when another instance appended to an account first: the batch is then rolled back and
+ * applied again over balances reloaded from the database.
+ */
+@Component
+public class LedgerEngine {
+
+    static final int NO_ACCOUNT = -1;
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerEngine.class);
+
+    private static final long WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final AccountRepository accountRepository;
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transaction;
+    private final ApplicationProperties.Engine properties;
+    private final int maxAttempts;
+    private final MeterRegistry meterRegistry;
+
+    // owned by the engine thread
+    private final IntLongMap balances = new IntLongMap(1024);
+    private final IntLongMap sequences = new IntLongMap(1024);
+
+    private RingBuffer<Change> ring;
+    private Thread engine;
+    private Counter batches;
+    private volatile boolean stopping;
+    private volatile boolean stopped;
+
+    public LedgerEngine(AccountRepository accountRepository,
+                        LedgerEntryRepository ledgerEntryRepository,
+                        EntityManager entityManager,
+                        PlatformTransactionManager transactionManager,
+                        ApplicationProperties applicationProperties,
+                        MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.entityManager = entityManager;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.properties = applicationProperties.getEngine();
+        this.maxAttempts = applicationProperties.getLedger().getMaxAttempts();
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        ring = new RingBuffer<>(properties.getRingSize(), Change::new);
+        batches = Counter.builder("ledger.engine.batches")
+                .description("Transactions writing the balance changes applied by the engine to the ledger")
+                .register(meterRegistry);
+        Gauge.builder("ledger.engine.backlog", ring, RingBuffer::getBacklog)
+                .description("Balance changes submitted to the engine and not completed yet")
+                .register(meterRegistry);
+        engine = new Thread(this::run, "ledger-engine");
+        engine.setDaemon(true);
+        engine.start();
+    }
+
+    /**
+     * Completes the changes already submitted, then stops the engine thread.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (engine == null) {
+            return;
+        }
+        stopping = true;
+        LockSupport.unpark(engine);
+        engine.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    public boolean isEnabled() {
+        return engine != null;
+    }
+
+    /**
+     * Applies a change and returns once its ledger entries are in the database.
+     *
+     * @param debited  id of the account the amount leaves, {@link #NO_ACCOUNT} for a deposit
+     * @param credited id of the account the amount goes to, {@link #NO_ACCOUNT} for a withdrawal
+     * @return the balances of {@code debited} and {@code credited} after the change
+     */
+    Balances apply(LedgerEntry.Kind kind, int debited, int credited, Money amount) {
+        if (stopping) {
+            throw new IllegalStateException("Ledger engine stopped");
+        }
+        long minorUnits = amount.getMinorUnits();
+        // nothing may throw between claiming a slot and publishing it, or the engine would wait for it forever
+        long sequence = ring.next();
+        while (!ring.awaitFree(sequence, WAIT_NANOS)) {
+            if (stopped) {
+                throw new IllegalStateException("Ledger engine stopped");
+            }
+        }
+        CompletableFuture<Balances> completion = new CompletableFuture<>();
+        ring.get(sequence).set(kind, debited, credited, minorUnits, completion);
+        ring.publish(sequence);
+        return await(completion);
+    }
+
+    private Balances await(CompletableFuture<Balances> completion) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return completion.get(WAIT_NANOS, TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    // submitted while the engine was stopping, after its last batch
+                    if (stopped && !completion.isDone()) {
+                        throw new IllegalStateException("Ledger engine stopped");
+                    }
+                } catch (InterruptedException e) {
+                    // the change is published: the caller must not leave before knowing whether it was applied
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    }
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void run() {
+        List<Change> batch = new ArrayList<>(properties.getBatchSize());
+        long next = 0;
+        while (!stopping || next < ring.getClaimed()) {
+            long last = Math.min(ring.awaitPublished(next, WAIT_NANOS), next + properties.getBatchSize() - 1);
+            if (last < next) {
+                continue;
+            }
+            for (long sequence = next; sequence <= last; sequence++) {
+                batch.add(ring.get(sequence));
+            }
+            try {
+                write(batch);
+            } catch (RuntimeException e) {
+                log.warn("Could not apply {} balance changes", batch.size(), e);
+                batch.forEach(change -> change.completion.completeExceptionally(e));
+            }
+            // the slots are reused as soon as released
+            batch.forEach(Change::clear);
+            batch.clear();
+            ring.release(last);
+            next = last + 1;
+        }
+        stopped = true;
+    }
+
+    /**
+     * Applies {@code batch} in memory, writes its entries in one transaction and completes its changes.
+     */
+    private void write(List<Change> batch) {
+        for (int attempt = 1; ; attempt++) {
+            List<LedgerEntry> entries = new ArrayList<>(batch.size() * 2);
+            for (Change change : batch) {
+                apply(change, entries);
+            }
+            try {
+                if (!entries.isEmpty()) {
+                    transaction.executeWithoutResult(status -> {
+                        entries.forEach(entityManager::persist);
+                        // through the repository, so a key collision is translated like on the locking path
+                        accountRepository.flush();
+                        entityManager.clear();
+                    });
+                    batches.increment();
+                }
+                for (Change change : batch) {
+                    if (change.failure != null) {
+                        change.completion.completeExceptionally(change.failure);
+                    } else {
+                        change.completion.complete(change.result);
+                    }
+                }
+                return;
+            } catch (ConcurrencyFailureException | DataIntegrityViolationException e) {
+                // another instance appended to one of the accounts: what we hold of them is stale
+                for (LedgerEntry entry : entries) {
+                    balances.remove(entry.getAccountId());
+                    sequences.remove(entry.getAccountId());
+                }
+                if (attempt >= maxAttempts) {
+                    batch.forEach(change -> change.completion.completeExceptionally(ConcurrentBalanceUpdateException.INSTANCE));
+                    return;
+                }
+            } catch (RuntimeException e) {
+                for (LedgerEntry entry : entries) {
+                    balances.remove(entry.getAccountId());
+                    sequences.remove(entry.getAccountId());
+                }
+                throw e;
+            }
+        }
+    }
+
+    private void apply(Change change, List<LedgerEntry> entries) {
+        change.result = null;
+        change.failure = null;
+        try {
+            long debitedBalance = 0;
+            long creditedBalance = 0;
+            if (change.debited != NO_ACCOUNT) {
+                debitedBalance = load(change.debited) - change.amount;
+                if (debitedBalance < 0) {
+                    throw InsufficientFundsException.INSTANCE;
+                }
+            }
+            if (change.credited != NO_ACCOUNT) {
+                creditedBalance = Math.addExact(load(change.credited), change.amount);
+            }
+            if (change.debited != NO_ACCOUNT) {
+                entries.add(append(change.debited, debitedBalance, -change.amount, change.kind));
+            }
+            if (change.credited != NO_ACCOUNT) {
+                entries.add(append(change.credited, creditedBalance, change.amount, change.kind));
+            }
+            change.result = new Balances(Money.ofMinor(debitedBalance), Money.ofMinor(creditedBalance));
+        } catch (ArithmeticException e) {
+            change.failure = InvalidAmountException.INSTANCE;
+        } catch (RuntimeException e) {
+            change.failure = e;
+        }
+    }
+
+    private LedgerEntry append(int accountId, long balance, long amount, LedgerEntry.Kind kind) {
+        long sequence = sequences.get(accountId, 0) + 1;
+        balances.put(accountId, balance);
+        sequences.put(accountId, sequence);
+        return new LedgerEntry(accountId, sequence, Money.ofMinor(amount), kind);
+    }
+
+    /**
+     * @return the balance of the account, read from the database the first time
+     */
+    private long load(int accountId) {
+        long balance = balances.get(accountId, Long.MIN_VALUE);
+        if (balance != Long.MIN_VALUE) {
+            return balance;
+        }
+        Account account = accountRepository.findById(accountId).orElseThrow(() -> AccountNotFoundException.INSTANCE);
+        balance = account.getBalance() == null ? 0 : account.getBalance().getMinorUnits();
+        long sequence = account.getBalanceSequence();
+        List<BalanceDeltaDTO> delta = ledgerEntryRepository.findDelta(accountId, sequence);
+        if (!delta.isEmpty()) {
+            balance = Math.addExact(balance, delta.get(0).getAmount().getMinorUnits());
+            sequence = delta.get(0).getToSequence();
+        }
+        balances.put(accountId, balance);
+        sequences.put(accountId, sequence);
+        return balance;
+    }
+
+    /**
+     * The balances of the accounts of a change once applied; the one without an account is zero.
+     */
+    static class Balances {
+
+        final Money debited;
+        final Money credited;
+
+        Balances(Money debited, Money credited) {
+            this.debited = debited;
+            this.credited = credited;
+        }
+    }
+
+    /**
+     * A slot of the ring, filled by a request thread and applied by the engine thread.
+     */
+    private static class Change {
+
+        LedgerEntry.Kind kind;
+        int debited;
+        int credited;
+        long amount;
+        CompletableFuture<Balances> completion;
+        Balances result;
+        RuntimeException failure;
+
+        void set(LedgerEntry.Kind kind, int debited, int credited, long amount, CompletableFuture<Balances> completion) {
+            this.kind = kind;
+            this.debited = debited;
+            this.credited = credited;
+            this.amount = amount;
+            this.completion = completion;
+        }
+
+        void clear() {
+            completion = null;
+            result = null;
+            failure = null;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.ippon.bankapp.service;
+
+import com.ippon.bankapp.config.ApplicationProperties;
+import com.ippon.bankapp.domain.JournalCheckpoint;
+import com.ippon.bankapp.domain.LedgerEntry;
+import com.ippon.bankapp.domain.Money;
+import com.ippon.bankapp.repository.JournalCheckpointRepository;
+import com.ippon.bankapp.util.Journal;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Keeps balance changes in a local {@link Journal} until they are written to the database, so they can be
+ * acknowledged as soon as they are on disk.
+ * <p>
+ * It tracks, per account, the sum of the changes journaled but not yet in the ledger, which balances and
+ * balance checks add to what the database holds. {@link LedgerService#replayJournal()} writes the changes to
+ * the ledger in journal order and moves this journal's checkpoint in the same transaction; on startup, the
+ * records after the checkpoint are loaded back, so a change acknowledged before a crash is never lost nor
+ * written twice.
+ */
+@Component
+public class LedgerJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerJournal.class);
+
+    private static final String ID_FILE = "journal.id";
+
+    private final JournalCheckpointRepository checkpointRepository;
+    private final ApplicationProperties.Journal properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Money> pending = new ConcurrentHashMap<>();
+    private final Queue<Record> unreplayed = new ConcurrentLinkedQueue<>();
+
+    private Journal journal;
+    private String journalId;
+
+    public LedgerJournal(JournalCheckpointRepository checkpointRepository,
+                         ApplicationProperties applicationProperties,
+                         MeterRegistry meterRegistry) {
+        this.checkpointRepository = checkpointRepository;
+        this.properties = applicationProperties.getJournal();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Opens the journal and loads the records the database does not have yet.
+     */
+    @PostConstruct
+    public void open() throws IOException {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Path directory = Paths.get(properties.getDirectory());
+        journal = Journal.open(directory, (int) properties.getSegmentSize().toBytes(), properties.getSyncDelay());
+        journalId = readOrCreateId(directory);
+        long checkpoint = checkpointRepository.findById(journalId).map(JournalCheckpoint::getSequence).orElse(0L);
+        if (checkpoint > journal.getLastSequence()) {
+            throw new IllegalStateException("Journal " + directory + " ends at record " + journal.getLastSequence()
+                    + " but the database has it up to record " + checkpoint);
+        }
+        journal.read(checkpoint, (sequence, payload) -> enqueue(decode(sequence, payload)));
+        log.info("Journal {} opened with {} records to write to the database", directory.toAbsolutePath(), unreplayed.size());
+
+        FunctionCounter.builder("journal.syncs", journal, Journal::getSyncs)
+                .description("Times the journal was forced to disk, each covering any number of balance changes")
+                .register(meterRegistry);
+        Gauge.builder("journal.backlog", unreplayed, Queue::size)
+                .description("Journaled balance changes not yet written to the database")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+            pending.clear();
+            unreplayed.clear();
+        }
+    }
+
+    public boolean isEnabled() {
+        return journal != null;
+    }
+
+    /**
+     * Journals a change, without waiting for it to reach the disk. The caller holds the locks of the accounts.
+     *
+     * @param debited  last name of the account the amount leaves, {@code null} for a deposit
+     * @param credited last name of the account the amount goes to, {@code null} for a withdrawal
+     * @return the sequence number to {@link #sync(long)} before acknowledging the change
+     */
+    public long append(LedgerEntry.Kind kind, String debited, String credited, Money amount) {
+        Record record = new Record(0, kind, debited, credited, amount);
+        byte[] payload = encode(record);
+        // the queue must stay in journal order: replay moves the checkpoint to the last record of a batch
+        synchronized (unreplayed) {
+            Record appended = record.numbered(journal.append(payload));
+            enqueue(appended);
+            return appended.sequence;
+        }
+    }
+
+    public void sync(long sequence) {
+        journal.sync(sequence);
+    }
+
+    /**
+     * @return the sum of the changes of the account journaled but not yet written to the database
+     */
+    public Money pending(String lastName) {
+        return pending.getOrDefault(lastName, Money.ZERO);
+    }
+
+    /**
+     * @return the oldest records on disk but not yet written to the database, in journal order
+     */
+    List<Record> nextBatch() {
+        long durable = journal.getDurableSequence();
+        List<Record> batch = new ArrayList<>();
+        Iterator<Record> iterator = unreplayed.iterator();
+        while (iterator.hasNext() && batch.size() < properties.getReplayBatchSize()) {
+            Record record = iterator.next();
+            if (record.sequence > durable) {
+                break;
+            }
+            batch.add(record);
+        }
+        return batch;
+    }
+
+    /**
+     * Moves the checkpoint past {@code batch}, within the transaction writing it to the ledger.
+     */
+    void checkpoint(List<Record> batch) {
+        checkpointRepository.save(new JournalCheckpoint(journalId, batch.get(batch.size() - 1).sequence));
+    }
+
+    /**
+     * Forgets {@code batch} once its transaction committed. The caller holds the locks of its accounts.
+     */
+    void replayed(List<Record> batch) {
+        for (Record record : batch) {
+            unreplayed.remove();
+            addPending(record.debited, record.amount);
+            addPending(record.credited, record.amount.negate());
+        }
+        try {
+            journal.deleteBefore(batch.get(batch.size() - 1).sequence + 1);
+        } catch (IOException e) {
+            log.warn("Could not delete replayed journal segments", e);
+        }
+    }
+
+    private void enqueue(Record record) {
+        unreplayed.add(record);
+        addPending(record.debited, record.amount.negate());
+        addPending(record.credited, record.amount);
+    }
+
+    private void addPending(String lastName, Money amount) {
+        if (lastName != null) {
+            pending.merge(lastName, amount, (a, b) -> {
+                Money sum = a.plus(b);
+                return sum.signum() == 0 ? null : sum;
+            });
+        }
+    }
+
+    private static String readOrCreateId(Path directory) throws IOException {
+        Path file = directory.resolve(ID_FILE);
+        if (Files.exists(file)) {
+            return new String(Files.readAllBytes(file), StandardCharsets.US_ASCII).trim();
+        }
+        String id = UUID.randomUUID().toString();
+        Files.write(file, id.getBytes(StandardCharsets.US_ASCII), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE, StandardOpenOption.SYNC);
+        return id;
+    }
+
+    private static byte[] encode(Record record) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(record.kind.name());
+            out.writeUTF(record.debited == null ? "" : record.debited);
+            out.writeUTF(record.credited == null ? "" : record.credited);
+            out.writeLong(record.amount.getMinorUnits());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Record decode(long sequence, byte[] payload) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            LedgerEntry.Kind kind = LedgerEntry.Kind.valueOf(in.readUTF());
+            String debited = in.readUTF();
+            String credited = in.readUTF();
+            Money amount = Money.ofMinor(in.readLong());
+            return new Record(sequence, kind, debited.isEmpty() ? null : debited,
+                    credited.isEmpty() ? null : credited, amount);
+        }
+    }
+
+    /**
+     * A journaled balance change.
+     */
+    static class Record {
+
+        final long sequence;
+        final LedgerEntry.Kind kind;
+        final String debited;
+        final String credited;
+        final Money amount;
+
+        Record(long sequence, LedgerEntry.Kind kind, String debited, String credited, Money amount) {
+            this.sequence = sequence;
+            this.kind = kind;
+            this.debited = debited;
+            this.credited = credited;
+            this.amount = amount;
+        }
+
+        Record numbered(long sequence) {
+            return new Record(sequence, kind, debited, credited, amount);
+        }
+    }
+}
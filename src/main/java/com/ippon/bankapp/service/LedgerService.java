@@ -0,0 +1,531 @@
+package com.ippon.bankapp.service;
+
+import com.ippon.bankapp.config.ApplicationProperties;
+import com.ippon.bankapp.config.CacheConfiguration;
+import com.ippon.bankapp.domain.Account;
+import com.ippon.bankapp.domain.LedgerEntry;
+import com.ippon.bankapp.domain.Money;
+import com.ippon.bankapp.repository.AccountRepository;
+import com.ippon.bankapp.repository.LedgerEntryRepository;
+import com.ippon.bankapp.service.dto.AccountDTO;
+import com.ippon.bankapp.service.dto.AccountSummaryDTO;
+import com.ippon.bankapp.service.dto.BalanceDeltaDTO;
+import com.ippon.bankapp.service.dto.TransferResultDTO;
+import com.ippon.bankapp.service.exception.AccountNotFoundException;
+import com.ippon.bankapp.service.exception.ConcurrentBalanceUpdateException;
+import com.ippon.bankapp.service.exception.InsufficientFundsException;
+import com.ippon.bankapp.service.exception.InvalidAmountException;
+import com.ippon.bankapp.service.exception.SameAccountTransferException;
+import com.ippon.bankapp.util.StripedLock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Moves money in and out of accounts and between them.
+ * <p>
+ * Every change is appended to the ledger as an entry numbered after the last one of its account; the balance
+ * of an account is its snapshot plus the entries after it, which {@link BalanceSnapshotter} keeps few. Two
+ * writers appending to the same account both try to insert the same entry and the primary key lets only one
+ * through; the other is retried. Changes made in this instance first queue on an in-process lock striped by
+ * last name, so a hot account serializes its writers instead of sending them into a storm of failed commits;
+ * only writers on other instances are left to the retries. A transfer takes the locks of both accounts in a
+ * fixed order and inserts its two entries in account id order, so transfers in opposite directions cannot
+ * deadlock either here or in the database.
+ * <p>
+ * With the {@link LedgerJournal} enabled, a change is checked and journaled under the same locks, and
+ * acknowledged once the journal is on disk; {@link #replayJournal()} later appends it to the ledger. With the
+ * {@link LedgerEngine} enabled instead, changes take no lock: they are handed over to the engine thread,
+ * which applies them one at a time.
+ * <p>
+ * Accounts read through {@link #cached} are cached until a change evicts them. A change committed while an
+ * account was read may evict it before the reader caches what it read, so each eviction is counted, and a
+ * reader that sees the count of its last names move while it read drops what it cached.
+ */
+@Service
+public class LedgerService {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerService.class);
+
+    private static final int EVICTION_STRIPES = 1024;
+
+    private final AccountRepository accountRepository;
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final LedgerJournal journal;
+    private final LedgerEngine engine;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transaction;
+    private final Cache accountCache;
+    private final StripedLock locks;
+    private final AtomicLongArray evictions = new AtomicLongArray(EVICTION_STRIPES);
+    private final ApplicationProperties.Ledger properties;
+    private final Counter retries;
+    private final Counter conflicts;
+
+    public LedgerService(AccountRepository accountRepository,
+                         LedgerEntryRepository ledgerEntryRepository,
+                         LedgerJournal journal,
+                         LedgerEngine engine,
+                         EntityManager entityManager,
+                         PlatformTransactionManager transactionManager,
+                         CacheManager cacheManager,
+                         ApplicationProperties applicationProperties,
+                         MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.journal = journal;
+        this.engine = engine;
+        this.entityManager = entityManager;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.accountCache = cacheManager.getCache(CacheConfiguration.ACCOUNTS);
+        this.properties = applicationProperties.getLedger();
+        this.locks = new StripedLock(properties.getLockStripes());
+        if (journal.isEnabled() && locks.size() == 0) {
+            throw new IllegalStateException("The journal needs bankapp.ledger.lock-stripes above 0");
+        }
+        if (journal.isEnabled() && engine.isEnabled()) {
+            throw new IllegalStateException("The journal and the ledger engine cannot be enabled together");
+        }
+        this.retries = Counter.builder("account.balance.retries")
+                .description("Balance changes retried after a concurrent update of the account")
+                .register(meterRegistry);
+        this.conflicts = Counter.builder("account.balance.conflicts")
+                .description("Balance changes abandoned after running out of attempts")
+                .register(meterRegistry);
+    }
+
+    public AccountDTO deposit(String lastName, BigDecimal amount) {
+        return update(lastName, toMoney(amount), LedgerEntry.Kind.DEPOSIT);
+    }
+
+    public AccountDTO withdraw(String lastName, BigDecimal amount) {
+        return update(lastName, toMoney(amount).negate(), LedgerEntry.Kind.WITHDRAWAL);
+    }
+
+    public TransferResultDTO transfer(String from, String to, BigDecimal requested) {
+        Money amount = toMoney(requested);
+        if (from.equals(to)) {
+            throw SameAccountTransferException.INSTANCE;
+        }
+        if (engine.isEnabled()) {
+            Account debited = find(from);
+            Account credited = find(to);
+            LedgerEngine.Balances after = engine.apply(LedgerEntry.Kind.TRANSFER, debited.getId(), credited.getId(), amount);
+            evict(from);
+            evict(to);
+            return new TransferResultDTO(AccountService.mapAccountToDTO(debited).balance(after.debited),
+                    AccountService.mapAccountToDTO(credited).balance(after.credited));
+        }
+        TransferResultDTO transfer;
+        long journaled = 0;
+        try (StripedLock.Held held = locks.lock(from, to)) {
+            if (journal.isEnabled()) {
+                Account debited = find(from);
+                Account credited = find(to);
+                Position debitedAfter = journaledPosition(debited).after(amount.negate());
+                Position creditedAfter = journaledPosition(credited).after(amount);
+                journaled = journal.append(LedgerEntry.Kind.TRANSFER, from, to, amount);
+                transfer = new TransferResultDTO(AccountService.mapAccountToDTO(debited).balance(debitedAfter.balance),
+                        AccountService.mapAccountToDTO(credited).balance(creditedAfter.balance));
+            } else {
+                transfer = withRetries(() -> {
+                    Account debited = find(from);
+                    Account credited = find(to);
+                    Position debitedAfter = position(debited).after(amount.negate());
+                    Position creditedAfter = position(credited).after(amount);
+                    if (debited.getId() < credited.getId()) {
+                        append(debited, debitedAfter, amount.negate(), LedgerEntry.Kind.TRANSFER);
+                        append(credited, creditedAfter, amount, LedgerEntry.Kind.TRANSFER);
+                    } else {
+                        append(credited, creditedAfter, amount, LedgerEntry.Kind.TRANSFER);
+                        append(debited, debitedAfter, amount.negate(), LedgerEntry.Kind.TRANSFER);
+                    }
+                    accountRepository.flush();
+                    return new TransferResultDTO(AccountService.mapAccountToDTO(debited).balance(debitedAfter.balance),
+                            AccountService.mapAccountToDTO(credited).balance(creditedAfter.balance));
+                });
+            }
+        }
+        if (journaled > 0) {
+            // outside the locks, so changes to other accounts can join the same sync
+            journal.sync(journaled);
+        }
+        evict(from);
+        evict(to);
+        return transfer;
+    }
+
+    /**
+     * The current balance of {@code account}: its snapshot plus the ledger entries after it, plus the journaled
+     * changes not yet in the ledger. Entries are never removed and a snapshot only moves forward, so this needs
+     * no transaction to be consistent.
+     */
+    public Money balanceOf(Account account) {
+        return stateOf(account).getBalance();
+    }
+
+    /**
+     * {@code account} with its current balance like {@link #balanceOf}, and its version: its id, the sequence of
+     * the last ledger entry in its balance, which every change of the balance moves and a snapshot does not, and
+     * the journaled changes not yet in the ledger. Nothing else a client sees of an account changes after it is
+     * created.
+     */
+    public AccountDTO stateOf(Account account) {
+        if (!journal.isEnabled()) {
+            return state(account, position(account), Money.ZERO);
+        }
+        try (StripedLock.Held held = locks.lock(account.getLastName())) {
+            return state(account, position(account), journal.pending(account.getLastName()));
+        }
+    }
+
+    /**
+     * The account cached under {@code lastName}, else the one {@code load} reads, cached unless a change of the
+     * account was committed while it was read.
+     */
+    public AccountDTO cached(String lastName, Supplier<AccountDTO> load) {
+        AccountDTO cached = accountCache.get(lastName, AccountDTO.class);
+        if (cached != null) {
+            return cached;
+        }
+        int stripe = evictionStripe(lastName);
+        long before = evictions.get(stripe);
+        AccountDTO account = load.get();
+        cache(lastName, account, before);
+        return account;
+    }
+
+    /**
+     * The count to pass to {@link #cache} with the account read from now on.
+     */
+    public long evictionsOf(String lastName) {
+        return evictions.get(evictionStripe(lastName));
+    }
+
+    /**
+     * Caches {@code account}, read since {@link #evictionsOf} gave {@code before}, unless a change evicted it since.
+     */
+    public void cache(String lastName, AccountDTO account, long before) {
+        accountCache.put(lastName, account);
+        // counted before evicted: either the change's eviction comes after the put, or it shows here
+        if (evictions.get(evictionStripe(lastName)) != before) {
+            accountCache.evict(lastName);
+        }
+    }
+
+    private void evict(String lastName) {
+        evictions.incrementAndGet(evictionStripe(lastName));
+        accountCache.evict(lastName);
+    }
+
+    private static int evictionStripe(String lastName) {
+        return (lastName.hashCode() & 0x7fffffff) % EVICTION_STRIPES;
+    }
+
+    /**
+     * The version {@link #stateOf} would give the account, without loading it: from the cached account if there
+     * is one, else from a projection of its row and ledger position.
+     *
+     * @return empty if there is no such account
+     */
+    public Optional<String> versionOf(String lastName) {
+        Cache.ValueWrapper cached = accountCache.get(lastName);
+        if (cached != null && cached.get() instanceof AccountDTO && ((AccountDTO) cached.get()).getVersion() != null) {
+            return Optional.of(((AccountDTO) cached.get()).getVersion());
+        }
+        if (!journal.isEnabled()) {
+            return accountRepository.findVersionByLastName(lastName)
+                    .map(version -> version(version.getAccountId(), version.getSequence(), Money.ZERO));
+        }
+        try (StripedLock.Held held = locks.lock(lastName)) {
+            return accountRepository.findVersionByLastName(lastName)
+                    .map(version -> version(version.getAccountId(), version.getSequence(), journal.pending(lastName)));
+        }
+    }
+
+    /**
+     * The accounts with the given last names, as read from the ledger in one query, with the journaled changes
+     * not yet in it like {@link #balanceOf}.
+     */
+    public List<AccountSummaryDTO> summariesOf(Collection<String> lastNames) {
+        if (!journal.isEnabled()) {
+            return accountRepository.findSummariesByLastNameIn(lastNames);
+        }
+        try (StripedLock.Held held = locks.lockAll(lastNames)) {
+            List<AccountSummaryDTO> accounts = accountRepository.findSummariesByLastNameIn(lastNames);
+            List<AccountSummaryDTO> journaled = new ArrayList<>(accounts.size());
+            for (AccountSummaryDTO account : accounts) {
+                Money pending = journal.pending(account.getLastName());
+                if (pending.signum() == 0) {
+                    journaled.add(account);
+                } else {
+                    Money balance = account.getBalance() == null ? Money.ZERO : account.getBalance();
+                    journaled.add(new AccountSummaryDTO(account.getId(), account.getFirstName(), account.getLastName(),
+                            balance.plus(pending), account.getNotificationPreference()));
+                }
+            }
+            return journaled;
+        }
+    }
+
+    /**
+     * Appends the next batch of journaled changes to the ledger and moves the journal checkpoint, in one
+     * transaction. Does not check balances: the changes were checked when they were journaled.
+     *
+     * @return the number of changes appended
+     */
+    public synchronized int replayJournal() {
+        if (!journal.isEnabled()) {
+            return 0;
+        }
+        List<LedgerJournal.Record> batch = journal.nextBatch();
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        Set<String> lastNames = new HashSet<>();
+        for (LedgerJournal.Record record : batch) {
+            if (record.debited != null) {
+                lastNames.add(record.debited);
+            }
+            if (record.credited != null) {
+                lastNames.add(record.credited);
+            }
+        }
+        withRetries(() -> {
+            Map<String, Account> accounts = new HashMap<>();
+            Map<String, Position> positions = new HashMap<>();
+            for (LedgerJournal.Record record : batch) {
+                replay(record, record.debited, record.amount.negate(), accounts, positions);
+                replay(record, record.credited, record.amount, accounts, positions);
+            }
+            journal.checkpoint(batch);
+            accountRepository.flush();
+            // until the pending sums drop the batch, readers would count it twice: only the commit and the
+            // drop hold the locks of its accounts, so deposits to them do not wait for the whole transaction
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+                private StripedLock.Held held;
+
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    held = locks.lockAll(lastNames);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    try {
+                        if (status == STATUS_COMMITTED) {
+                            journal.replayed(batch);
+                        }
+                    } finally {
+                        if (held != null) {
+                            held.close();
+                        }
+                    }
+                }
+            });
+            return null;
+        });
+        return batch.size();
+    }
+
+    private void replay(LedgerJournal.Record record, String lastName, Money amount,
+                        Map<String, Account> accounts, Map<String, Position> positions) {
+        if (lastName == null) {
+            return;
+        }
+        Account account = accounts.computeIfAbsent(lastName, name -> accountRepository.findByLastName(name).orElse(null));
+        if (account == null) {
+            log.warn("Dropping journal record {}: account {} no longer exists", record.sequence, lastName);
+            return;
+        }
+        Position next = positions.computeIfAbsent(lastName, name -> position(account)).plus(amount);
+        append(account, next, amount, record.kind);
+        positions.put(lastName, next);
+    }
+
+    private AccountDTO update(String lastName, Money amount, LedgerEntry.Kind kind) {
+        if (engine.isEnabled()) {
+            Account updated = find(lastName);
+            Money balance = amount.signum() < 0
+                    ? engine.apply(kind, updated.getId(), LedgerEngine.NO_ACCOUNT, amount.negate()).debited
+                    : engine.apply(kind, LedgerEngine.NO_ACCOUNT, updated.getId(), amount).credited;
+            evict(lastName);
+            return AccountService.mapAccountToDTO(updated).balance(balance);
+        }
+        AccountDTO account;
+        long journaled = 0;
+        try (StripedLock.Held held = locks.lock(lastName)) {
+            if (journal.isEnabled()) {
+                Account updated = find(lastName);
+                Position after = journaledPosition(updated).after(amount);
+                journaled = amount.signum() < 0
+                        ? journal.append(kind, lastName, null, amount.negate())
+                        : journal.append(kind, null, lastName, amount);
+                account = AccountService.mapAccountToDTO(updated).balance(after.balance);
+            } else {
+                account = withRetries(() -> {
+                    Account updated = find(lastName);
+                    Position after = position(updated).after(amount);
+                    append(updated, after, amount, kind);
+                    accountRepository.flush();
+                    return AccountService.mapAccountToDTO(updated).balance(after.balance);
+                });
+            }
+        }
+        if (journaled > 0) {
+            journal.sync(journaled);
+        }
+        evict(lastName);
+        return account;
+    }
+
+    private void append(Account account, Position position, Money amount, LedgerEntry.Kind kind) {
+        entityManager.persist(new LedgerEntry(account.getId(), position.sequence, amount, kind));
+    }
+
+    private Position position(Account account) {
+        List<BalanceDeltaDTO> delta = ledgerEntryRepository.findDelta(account.getId(), account.getBalanceSequence());
+        if (delta.isEmpty()) {
+            return new Position(account.getBalance(), account.getBalanceSequence());
+        }
+        Money snapshot = account.getBalance() == null ? Money.ZERO : account.getBalance();
+        return new Position(snapshot.plus(delta.get(0).getAmount()), delta.get(0).getToSequence());
+    }
+
+    private static AccountDTO state(Account account, Position position, Money pending) {
+        Money balance = position.balance;
+        if (pending.signum() != 0) {
+            balance = balance == null ? pending : balance.plus(pending);
+        }
+        return AccountService.mapAccountToDTO(account)
+                .balance(balance)
+                .version(version(account.getId(), position.sequence, pending));
+    }
+
+    static String version(int accountId, long sequence, Money pending) {
+        String version = accountId + "." + sequence;
+        return pending.signum() == 0 ? version : version + "." + pending.getMinorUnits();
+    }
+
+    /**
+     * The position in the ledger plus the journaled changes not yet in it. The caller holds the account's lock.
+     */
+    private Position journaledPosition(Account account) {
+        Position position = position(account);
+        Money pending = journal.pending(account.getLastName());
+        if (pending.signum() == 0) {
+            return position;
+        }
+        Money balance = position.balance == null ? Money.ZERO : position.balance;
+        return new Position(balance.plus(pending), position.sequence);
+    }
+
+    /**
+     * Runs {@code change} in a transaction until it commits without a concurrent change of its accounts:
+     * an entry inserted first by another writer, or a lock timeout or deadlock reported by the database.
+     */
+    private <T> T withRetries(Supplier<T> change) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transaction.execute(status -> change.get());
+            } catch (ConcurrencyFailureException | DataIntegrityViolationException e) {
+                if (attempt >= properties.getMaxAttempts()) {
+                    conflicts.increment();
+                    throw ConcurrentBalanceUpdateException.INSTANCE;
+                }
+                retries.increment();
+                pause(attempt);
+            }
+        }
+    }
+
+    private void pause(int attempt) {
+        long bound = properties.getRetryBackoff().toNanos() * attempt;
+        if (bound > 0) {
+            // random, so writers that failed together do not come back together
+            LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(bound));
+        }
+    }
+
+    private Account find(String lastName) {
+        return accountRepository.findByLastName(lastName).orElseThrow(() -> AccountNotFoundException.INSTANCE);
+    }
+
+    /**
+     * Checks a requested amount once, on the way in: the ledger works on {@link Money} from there on.
+     */
+    private static Money toMoney(BigDecimal amount) {
+        if (amount == null || amount.signum() <= 0) {
+            throw InvalidAmountException.INSTANCE;
+        }
+        try {
+            return Money.of(amount);
+        } catch (ArithmeticException e) {
+            // more decimals than the currency has, or beyond what a balance can hold
+            throw InvalidAmountException.INSTANCE;
+        }
+    }
+
+    /**
+     * A balance and the sequence of the last ledger entry it includes.
+     */
+    private static class Position {
+
+        final Money balance;
+        final long sequence;
+
+        Position(Money balance, long sequence) {
+            this.balance = balance;
+            this.sequence = sequence;
+        }
+
+        /**
+         * The position once an entry of {@code amount} is appended.
+         *
+         * @throws InsufficientFundsException if that would take the balance below zero
+         * @throws InvalidAmountException if that would take the balance beyond what it can hold
+         */
+        Position after(Money amount) {
+            Position next = plus(amount);
+            if (next.balance.signum() < 0) {
+                throw InsufficientFundsException.INSTANCE;
+            }
+            return next;
+        }
+
+        Position plus(Money amount) {
+            Money current = balance == null ? Money.ZERO : balance;
+            try {
+                return new Position(current.plus(amount), sequence + 1);
+            } catch (ArithmeticException e) {
+                throw InvalidAmountException.INSTANCE;
+            }
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.ippon.bankapp.service;
+
+import com.ippon.bankapp.config.ApplicationProperties;
+import com.ippon.bankapp.service.dto.NotificationMessage;
+import com.ippon.bankapp.util.Threads;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends notifications off the request thread.
+ * <p>
+ * Each channel gets a bounded queue drained by its own worker pool. Workers hand whatever is waiting
+ * (up to the configured batch size) to {@link NotificationService#sendMessages(List)} in a single call.
+ * When a queue is full the caller waits up to the offer timeout and then sends the message itself,
+ * so a slow provider slows callers down instead of growing the heap. With virtual threads, a worker
+ * waiting on its provider holds no platform thread.
+ */
+@Component
+public class NotificationDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    private final ApplicationProperties.Notification properties;
+    private final boolean virtualThreads;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, Channel> channels = new ConcurrentHashMap<>();
+
+    private volatile boolean running = true;
+
+    public NotificationDispatcher(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.properties = applicationProperties.getNotification();
+        this.virtualThreads = applicationProperties.getVirtualThreads().isEnabled();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Queues a message for the given channel.
+     *
+     * @return a future completed once the message has been handed to the channel
+     */
+    public CompletableFuture<Void> dispatch(NotificationService service, NotificationMessage message) {
+        return channel(service).enqueue(message);
+    }
+
+    /**
+     * Queues several messages for the given channel.
+     *
+     * @return a future completed once every message has been handed to the channel
+     */
+    public CompletableFuture<Void> dispatchAll(NotificationService service, List<NotificationMessage> messages) {
+        Channel channel = channel(service);
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[messages.size()];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = channel.enqueue(messages.get(i));
+        }
+        return CompletableFuture.allOf(futures);
+    }
+
+    public int getQueueDepth(String channel) {
+        Channel c = channels.get(channel);
+        return c == null ? 0 : c.queue.size();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        for (Channel channel : channels.values()) {
+            channel.workers.shutdown();
+        }
+        for (Channel channel : channels.values()) {
+            if (!channel.workers.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("{} notifications still queued on channel {} at shutdown", channel.queue.size(), channel.name);
+            }
+        }
+    }
+
+    private Channel channel(NotificationService service) {
+        return channels.computeIfAbsent(service.getName(), name -> new Channel(name, service));
+    }
+
+    private static final class Envelope {
+        private final NotificationMessage message;
+        private final long enqueuedAt;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private Envelope(NotificationMessage message, long enqueuedAt) {
+            this.message = message;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    private final class Channel {
+
+        private final String name;
+        private final NotificationService service;
+        private final BlockingQueue<Envelope> queue;
+        private final ExecutorService workers;
+        private final DistributionSummary batchSize;
+        private final Timer latency;
+        private final Counter overflow;
+        private final Counter failures;
+
+        private Channel(String name, NotificationService service) {
+            this.name = name;
+            this.service = service;
+            this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+            this.batchSize = DistributionSummary.builder("notification.batch.size")
+                    .description("Messages handed to a channel per call")
+                    .tag("channel", name)
+                    .register(meterRegistry);
+            this.latency = Timer.builder("notification.dispatch.latency")
+                    .description("Time from enqueue to hand-off to the channel")
+                    .tag("channel", name)
+                    .register(meterRegistry);
+            this.overflow = Counter.builder("notification.dispatch.overflow")
+                    .description("Messages sent on the caller thread because the queue was full")
+                    .tag("channel", name)
+                    .register(meterRegistry);
+            this.failures = Counter.builder("notification.dispatch.failures")
+                    .tag("channel", name)
+                    .register(meterRegistry);
+            Gauge.builder("notification.queue.depth", queue, BlockingQueue::size)
+                    .description("Messages waiting to be sent")
+                    .tag("channel", name)
+                    .register(meterRegistry);
+
+            int workerCount = properties.getWorkers(name);
+            this.workers = Executors.newFixedThreadPool(workerCount,
+                    Threads.numbered("notification-" + name, virtualThreads));
+            for (int i = 0; i < workerCount; i++) {
+                workers.execute(this::drain);
+            }
+        }
+
+        private CompletableFuture<Void> enqueue(NotificationMessage message) {
+            Envelope envelope = new Envelope(message, System.nanoTime());
+            boolean queued;
+            try {
+                queued = running && queue.offer(envelope, properties.getOfferTimeout().toNanos(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queued = false;
+            }
+            if (!queued) {
+                overflow.increment();
+                List<Envelope> batch = new ArrayList<>(1);
+                batch.add(envelope);
+                send(batch);
+            }
+            return envelope.done;
+        }
+
+        private void drain() {
+            int maxBatch = properties.getBatchSize();
+            List<Envelope> batch = new ArrayList<>(maxBatch);
+            while (running || !queue.isEmpty()) {
+                try {
+                    Envelope first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, maxBatch - 1);
+                    send(batch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } finally {
+                    batch.clear();
+                }
+            }
+        }
+
+        private void send(List<Envelope> batch) {
+            List<NotificationMessage> messages = new ArrayList<>(batch.size());
+            for (Envelope envelope : batch) {
+                messages.add(envelope.message);
+            }
+            try {
+                service.sendMessages(messages);
+                long now = System.nanoTime();
+                batchSize.record(batch.size());
+                for (Envelope envelope : batch) {
+                    latency.record(now - envelope.enqueuedAt, TimeUnit.NANOSECONDS);
+                    envelope.done.complete(null);
+                }
+            } catch (RuntimeException e) {
+                log.error("Failed to send {} notifications on channel {}", batch.size(), name, e);
+                failures.increment(batch.size());
+                for (Envelope envelope : batch) {
+                    envelope.done.completeExceptionally(e);
+                }
+            }
+        }
+    }
+}
@@ -1,9 +1,23 @@
 package com.ippon.bankapp.service;
 
 
+import com.ippon.bankapp.service.dto.NotificationMessage;
+
+import java.util.List;
+
 public interface NotificationService {
 
     void sendMessage(String source, String destination, String subject, String message);
 
+    /**
+     * Sends several messages through this channel. Providers with a bulk API should override this,
+     * the default simply sends them one at a time.
+     */
+    default void sendMessages(List<NotificationMessage> messages) {
+        for (NotificationMessage message : messages) {
+            sendMessage(message.getSource(), message.getDestination(), message.getSubject(), message.getMessage());
+        }
+    }
+
     String getName();
 }
@@ -0,0 +1,208 @@
+package com.ippon.bankapp.service;
+
+import com.ippon.bankapp.config.ApplicationProperties;
+import com.ippon.bankapp.domain.OutboxMessage;
+import com.ippon.bankapp.repository.OutboxRepository;
+import com.ippon.bankapp.service.dto.NotificationMessage;
+import com.ippon.bankapp.util.Threads;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves rows from the notification outbox to the notification channels.
+ * <p>
+ * Each poll claims a batch of rows under a fresh token and a lease, sends them through the
+ * {@link NotificationDispatcher} and deletes the rows once the channel accepted them. Rows of a failed
+ * channel keep their claim until the lease expires and are then picked up again, so delivery is
+ * at-least-once. Any number of relays, in this instance or others, can poll the same table.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxRepository outboxRepository;
+    private final NotificationFactory notificationFactory;
+    private final NotificationDispatcher notificationDispatcher;
+    private final DataSource dataSource;
+    private final ApplicationProperties.Outbox properties;
+    private final boolean virtualThreads;
+    private final Counter relayed;
+    private final Timer relayLatency;
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    private volatile boolean running;
+    private volatile boolean skipLocked;
+    private ExecutorService relays;
+
+    public OutboxRelay(OutboxRepository outboxRepository,
+                       NotificationFactory notificationFactory,
+                       NotificationDispatcher notificationDispatcher,
+                       DataSource dataSource,
+                       ApplicationProperties applicationProperties,
+                       MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.notificationFactory = notificationFactory;
+        this.notificationDispatcher = notificationDispatcher;
+        this.dataSource = dataSource;
+        this.properties = applicationProperties.getOutbox();
+        this.virtualThreads = applicationProperties.getVirtualThreads().isEnabled();
+        this.relayed = Counter.builder("outbox.relayed")
+                .description("Outbox rows handed to a notification channel")
+                .register(meterRegistry);
+        this.relayLatency = Timer.builder("outbox.relay.latency")
+                .description("Time from outbox insert to hand-off to the channel")
+                .register(meterRegistry);
+        Gauge.builder("outbox.lag", lagMillis, AtomicLong::get)
+                .description("Age of the oldest row still in the outbox")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isRelayEnabled()) {
+            log.info("Outbox relay disabled");
+            return;
+        }
+        skipLocked = supportsSkipLocked();
+        running = true;
+        relays = Executors.newFixedThreadPool(properties.getRelays(), Threads.numbered("outbox-relay", virtualThreads));
+        for (int i = 0; i < properties.getRelays(); i++) {
+            relays.execute(this::run);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (relays != null) {
+            relays.shutdown();
+            relays.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Claims and relays a single batch.
+     *
+     * @return the number of rows relayed
+     */
+    public int relayBatch() {
+        String owner = UUID.randomUUID().toString();
+        Instant now = Instant.now();
+        Instant until = now.plus(properties.getLeaseTime());
+        int claimed = skipLocked
+                ? outboxRepository.claimBatchSkipLocked(owner, now, until, properties.getBatchSize())
+                : outboxRepository.claimBatch(owner, now, until, properties.getBatchSize());
+        if (claimed == 0) {
+            return 0;
+        }
+
+        Map<String, List<OutboxMessage>> byChannel = new LinkedHashMap<>();
+        for (OutboxMessage row : outboxRepository.findByClaimedByOrderById(owner)) {
+            byChannel.computeIfAbsent(row.getChannel(), c -> new ArrayList<>()).add(row);
+        }
+
+        Map<String, CompletableFuture<Void>> sends = new LinkedHashMap<>();
+        byChannel.forEach((channel, rows) -> {
+            NotificationService service = notificationFactory
+                    .getPreferredService(channel)
+                    .orElseGet(notificationFactory::getDefaultNotification);
+            List<NotificationMessage> messages = new ArrayList<>(rows.size());
+            for (OutboxMessage row : rows) {
+                messages.add(new NotificationMessage(row.getSource(), row.getDestination(), row.getSubject(), row.getMessage()));
+            }
+            sends.put(channel, notificationDispatcher.dispatchAll(service, messages));
+        });
+
+        List<Long> sent = new ArrayList<>(claimed);
+        long deadline = System.nanoTime() + properties.getLeaseTime().toNanos();
+        for (Map.Entry<String, CompletableFuture<Void>> send : sends.entrySet()) {
+            List<OutboxMessage> rows = byChannel.get(send.getKey());
+            try {
+                send.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                Instant sentAt = Instant.now();
+                for (OutboxMessage row : rows) {
+                    sent.add(row.getId());
+                    relayLatency.record(Duration.between(row.getCreatedAt(), sentAt));
+                }
+            } catch (ExecutionException | TimeoutException e) {
+                log.warn("Failed to relay {} outbox rows on channel {}, they will be retried", rows.size(), send.getKey(), e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        if (!sent.isEmpty()) {
+            outboxRepository.deleteByIdIn(sent);
+            relayed.increment(sent.size());
+        }
+        return sent.size();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                int relayedRows = relayBatch();
+                updateLag();
+                if (relayedRows < properties.getBatchSize()) {
+                    Thread.sleep(properties.getPollInterval().toMillis());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Outbox relay failed, retrying", e);
+                try {
+                    Thread.sleep(properties.getPollInterval().toMillis());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void updateLag() {
+        Instant oldest = outboxRepository.findOldestCreatedAt();
+        lagMillis.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest, Instant.now()).toMillis()));
+    }
+
+    private boolean supportsSkipLocked() {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            return "PostgreSQL".equalsIgnoreCase(product);
+        } catch (MetaDataAccessException e) {
+            log.warn("Could not determine the database product, claiming outbox rows without SKIP LOCKED", e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.ippon.bankapp.service;
+
+import com.ippon.bankapp.config.CacheConfiguration;
+import com.ippon.bankapp.domain.Account;
+import com.ippon.bankapp.domain.Money;
+import com.ippon.bankapp.domain.OutboxMessage;
+import com.ippon.bankapp.repository.ReactiveAccountRepository;
+import com.ippon.bankapp.repository.ReactiveOutboxRepository;
+import com.ippon.bankapp.service.dto.AccountDTO;
+import com.ippon.bankapp.service.dto.AccountMatchDTO;
+import com.ippon.bankapp.service.dto.AccountPageDTO;
+import com.ippon.bankapp.service.dto.AccountStateDTO;
+import com.ippon.bankapp.service.dto.AccountVersionDTO;
+import com.ippon.bankapp.service.dto.TransferDTO;
+import com.ippon.bankapp.service.dto.TransferResultDTO;
+import com.ippon.bankapp.service.exception.AccountLastNameExistsException;
+import com.ippon.bankapp.service.exception.AccountNotFoundException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * {@link AccountService} for the reactive stack. Creating and reading an account go through R2DBC and never
+ * block: the welcome notification is written to the outbox in the same transaction as the account, and sent by
+ * the relay like the ones of the servlet stack. The account cache, the last name filter and the name index are
+ * the same, in memory.
+ * <p>
+ * The ledger, the listing and the search stay on {@link AccountService}, run on the bounded elastic scheduler
+ * so their blocking does not hold an event loop. Reads take no ledger lock, so the journal, whose pending
+ * changes are only consistent under those locks, cannot be enabled with this stack.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAccountService {
+
+    private final ReactiveAccountRepository accountRepository;
+    private final ReactiveOutboxRepository outboxRepository;
+    private final AccountService accountService;
+    private final LedgerService ledgerService;
+    private final LastNameFilter lastNameFilter;
+    private final AccountNameIndex accountNameIndex;
+    private final Cache accountCache;
+    private final TransactionalOperator transaction;
+    private final Scheduler blocking = Schedulers.boundedElastic();
+
+    public ReactiveAccountService(ReactiveAccountRepository accountRepository,
+                                  ReactiveOutboxRepository outboxRepository,
+                                  AccountService accountService,
+                                  LedgerService ledgerService,
+                                  LastNameFilter lastNameFilter,
+                                  AccountNameIndex accountNameIndex,
+                                  LedgerJournal journal,
+                                  CacheManager cacheManager,
+                                  DatabaseClient databaseClient) {
+        if (journal.isEnabled()) {
+            throw new IllegalStateException("The reactive stack cannot run with bankapp.journal.enabled");
+        }
+        this.accountRepository = accountRepository;
+        this.outboxRepository = outboxRepository;
+        this.accountService = accountService;
+        this.ledgerService = ledgerService;
+        this.lastNameFilter = lastNameFilter;
+        this.accountNameIndex = accountNameIndex;
+        this.accountCache = cacheManager.getCache(CacheConfiguration.ACCOUNTS);
+        this.transaction = TransactionalOperator.create(new R2dbcTransactionManager(databaseClient.getConnectionFactory()));
+    }
+
+    public Mono<AccountDTO> createAccount(AccountDTO newAccount) {
+        return Mono.defer(() -> {
+            Account account = accountService.newAccount(newAccount);
+            OutboxMessage welcome = accountService.welcomeMessage(account);
+            return accountRepository.insert(account)
+                    .then(outboxRepository.insert(welcome))
+                    .as(transaction::transactional)
+                    .onErrorMap(DataIntegrityViolationException.class, e -> AccountService.isLastNameConflict(e)
+                            ? AccountLastNameExistsException.INSTANCE
+                            : e)
+                    .then(Mono.fromCallable(() -> {
+                        lastNameFilter.add(account.getLastName());
+                        accountNameIndex.add(account.getFirstName(), account.getLastName());
+                        accountCache.evict(account.getLastName());
+                        return AccountService.mapAccountToDTO(account);
+                    }));
+        });
+    }
+
+    /**
+     * Reads the account from the cache the servlet stack fills too, else from one query, caching it unless the
+     * account changed meanwhile, as {@link LedgerService#cached} does.
+     */
+    public Mono<AccountDTO> getAccount(String lastName) {
+        return Mono.defer(() -> {
+            if (!lastNameFilter.mightExist(lastName)) {
+                return Mono.error(AccountNotFoundException.INSTANCE);
+            }
+            AccountDTO cached = accountCache.get(lastName, AccountDTO.class);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            long evictions = ledgerService.evictionsOf(lastName);
+            return accountRepository.findStateByLastName(lastName)
+                    .switchIfEmpty(Mono.error(AccountNotFoundException.INSTANCE))
+                    .map(ReactiveAccountService::stateOf)
+                    .doOnNext(account -> ledgerService.cache(lastName, account, evictions));
+        });
+    }
+
+    /**
+     * The version {@link #getAccount} would give the account, for conditional reads, without loading it.
+     */
+    public Mono<String> getAccountVersion(String lastName) {
+        return Mono.defer(() -> {
+            if (!lastNameFilter.mightExist(lastName)) {
+                return Mono.error(AccountNotFoundException.INSTANCE);
+            }
+            AccountDTO cached = accountCache.get(lastName, AccountDTO.class);
+            if (cached != null && cached.getVersion() != null) {
+                return Mono.just(cached.getVersion());
+            }
+            return accountRepository.findVersionByLastName(lastName)
+                    .switchIfEmpty(Mono.error(AccountNotFoundException.INSTANCE))
+                    .map(ReactiveAccountService::versionOf);
+        });
+    }
+
+    public Mono<AccountPageDTO> listAccounts(String after, AccountPageToken.Sort sort, int limit) {
+        return offload(() -> accountService.listAccounts(after, sort, limit));
+    }
+
+    public Mono<List<AccountMatchDTO>> searchAccounts(String query, int limit) {
+        // in memory, nothing to offload
+        return Mono.fromCallable(() -> accountService.searchAccounts(query, limit));
+    }
+
+    public Mono<AccountDTO> deposit(String lastName, BigDecimal amount) {
+        return offload(() -> accountService.deposit(lastName, amount));
+    }
+
+    public Mono<AccountDTO> withdraw(String lastName, BigDecimal amount) {
+        return offload(() -> accountService.withdraw(lastName, amount));
+    }
+
+    public Mono<TransferResultDTO> transfer(TransferDTO transfer) {
+        return offload(() -> accountService.transfer(transfer));
+    }
+
+    private <T> Mono<T> offload(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(blocking);
+    }
+
+    private static AccountDTO stateOf(AccountStateDTO state) {
+        return AccountService.mapSummaryToDTO(state.getSummary()).version(versionOf(state.getVersion()));
+    }
+
+    private static String versionOf(AccountVersionDTO version) {
+        return LedgerService.version(version.getAccountId(), version.getSequence(), Money.ZERO);
+    }
+}
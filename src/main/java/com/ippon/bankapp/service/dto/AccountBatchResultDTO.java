@@ -0,0 +1,117 @@
+package com.ippon.bankapp.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Objects;
+
+/**
+ * Outcome of one item of a bulk account creation, in the order the items were submitted.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AccountBatchResultDTO {
+
+    public enum Status {
+        CREATED, CONFLICT, INVALID
+    }
+
+    private int index;
+
+    private Status status;
+
+    private AccountDTO account;
+
+    private String message;
+
+    public AccountBatchResultDTO() {
+    }
+
+    public static AccountBatchResultDTO created(int index, AccountDTO account) {
+        return new AccountBatchResultDTO().index(index).status(Status.CREATED).account(account);
+    }
+
+    public static AccountBatchResultDTO conflict(int index, String message) {
+        return new AccountBatchResultDTO().index(index).status(Status.CONFLICT).message(message);
+    }
+
+    public static AccountBatchResultDTO invalid(int index, String message) {
+        return new AccountBatchResultDTO().index(index).status(Status.INVALID).message(message);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public AccountBatchResultDTO index(int index) {
+        this.index = index;
+        return this;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public AccountBatchResultDTO status(Status status) {
+        this.status = status;
+        return this;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public AccountDTO getAccount() {
+        return account;
+    }
+
+    public AccountBatchResultDTO account(AccountDTO account) {
+        this.account = account;
+        return this;
+    }
+
+    public void setAccount(AccountDTO account) {
+        this.account = account;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public AccountBatchResultDTO message(String message) {
+        this.message = message;
+        return this;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof AccountBatchResultDTO)) return false;
+        AccountBatchResultDTO that = (AccountBatchResultDTO) o;
+        return index == that.index &&
+                status == that.status &&
+                Objects.equals(account, that.account) &&
+                Objects.equals(message, that.message);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(index, status, account, message);
+    }
+
+    @Override
+    public String toString() {
+        return "AccountBatchResultDTO{" +
+                "index=" + index +
+                ", status=" + status +
+                ", account=" + account +
+                ", message='" + message + '\'' +
+                '}';
+    }
+}
@@ -1,7 +1,9 @@
 package com.ippon.bankapp.service.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.ippon.bankapp.domain.Money;
+
 import javax.validation.constraints.NotEmpty;
-import java.math.BigDecimal;
 import java.util.Objects;
 
 public class AccountDTO {
@@ -12,10 +14,16 @@ public class AccountDTO {
     @NotEmpty
     private String lastName;
 
-    private BigDecimal balance;
+    private Money balance;
 
     private String notificationPreference;
 
+    /**
+     * Changes whenever the account does, for the {@code ETag} of its reads: not part of the body.
+     */
+    @JsonIgnore
+    private String version;
+
     public AccountDTO() {
     }
 
@@ -45,16 +53,16 @@ public class AccountDTO {
         this.lastName = lastName;
     }
 
-    public BigDecimal getBalance() {
+    public Money getBalance() {
         return balance;
     }
 
-    public AccountDTO balance(BigDecimal balance) {
+    public AccountDTO balance(Money balance) {
         this.balance = balance;
         return this;
     }
 
-    public void setBalance(BigDecimal balance) {
+    public void setBalance(Money balance) {
         this.balance = balance;
     }
 
@@ -71,6 +79,19 @@ public class AccountDTO {
         this.notificationPreference = notificationPreference;
     }
 
+    public String getVersion() {
+        return version;
+    }
+
+    public AccountDTO version(String version) {
+        this.version = version;
+        return this;
+    }
+
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
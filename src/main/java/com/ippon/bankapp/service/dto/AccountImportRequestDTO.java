@@ -0,0 +1,91 @@
+package com.ippon.bankapp.service.dto;
+
+import com.ippon.bankapp.service.AccountImportService;
+
+import javax.validation.constraints.NotEmpty;
+import java.util.Objects;
+
+public class AccountImportRequestDTO {
+
+    /**
+     * Path of the file, relative to the import directory.
+     */
+    @NotEmpty
+    private String file;
+
+    /**
+     * Format of the file; guessed from its extension when absent.
+     */
+    private AccountImportService.Format format;
+
+    /**
+     * Whether to start over from the beginning of the file instead of resuming after the last committed row.
+     */
+    private boolean restart;
+
+    public AccountImportRequestDTO() {
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public AccountImportRequestDTO file(String file) {
+        this.file = file;
+        return this;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    public AccountImportService.Format getFormat() {
+        return format;
+    }
+
+    public AccountImportRequestDTO format(AccountImportService.Format format) {
+        this.format = format;
+        return this;
+    }
+
+    public void setFormat(AccountImportService.Format format) {
+        this.format = format;
+    }
+
+    public boolean isRestart() {
+        return restart;
+    }
+
+    public AccountImportRequestDTO restart(boolean restart) {
+        this.restart = restart;
+        return this;
+    }
+
+    public void setRestart(boolean restart) {
+        this.restart = restart;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof AccountImportRequestDTO)) return false;
+        AccountImportRequestDTO that = (AccountImportRequestDTO) o;
+        return restart == that.restart &&
+                Objects.equals(file, that.file) &&
+                format == that.format;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(file, format, restart);
+    }
+
+    @Override
+    public String toString() {
+        return "AccountImportRequestDTO{" +
+                "file='" + file + '\'' +
+                ", format=" + format +
+                ", restart=" + restart +
+                '}';
+    }
+}
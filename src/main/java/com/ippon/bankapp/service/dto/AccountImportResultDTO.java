@@ -0,0 +1,160 @@
+package com.ippon.bankapp.service.dto;
+
+/**
+ * Outcome of one run of an account import. Counts cover this run only; a resumed import does not repeat
+ * the rows committed by earlier runs.
+ */
+public class AccountImportResultDTO {
+
+    private String file;
+
+    private String rejectedFile;
+
+    private long resumedFromOffset;
+
+    private long offset;
+
+    private long lines;
+
+    private long imported;
+
+    private long rejected;
+
+    private long elapsedMillis;
+
+    private double rowsPerSecond;
+
+    public AccountImportResultDTO() {
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public AccountImportResultDTO file(String file) {
+        this.file = file;
+        return this;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    public String getRejectedFile() {
+        return rejectedFile;
+    }
+
+    public AccountImportResultDTO rejectedFile(String rejectedFile) {
+        this.rejectedFile = rejectedFile;
+        return this;
+    }
+
+    public void setRejectedFile(String rejectedFile) {
+        this.rejectedFile = rejectedFile;
+    }
+
+    public long getResumedFromOffset() {
+        return resumedFromOffset;
+    }
+
+    public AccountImportResultDTO resumedFromOffset(long resumedFromOffset) {
+        this.resumedFromOffset = resumedFromOffset;
+        return this;
+    }
+
+    public void setResumedFromOffset(long resumedFromOffset) {
+        this.resumedFromOffset = resumedFromOffset;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public AccountImportResultDTO offset(long offset) {
+        this.offset = offset;
+        return this;
+    }
+
+    public void setOffset(long offset) {
+        this.offset = offset;
+    }
+
+    public long getLines() {
+        return lines;
+    }
+
+    public AccountImportResultDTO lines(long lines) {
+        this.lines = lines;
+        return this;
+    }
+
+    public void setLines(long lines) {
+        this.lines = lines;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public AccountImportResultDTO imported(long imported) {
+        this.imported = imported;
+        return this;
+    }
+
+    public void setImported(long imported) {
+        this.imported = imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public AccountImportResultDTO rejected(long rejected) {
+        this.rejected = rejected;
+        return this;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public AccountImportResultDTO elapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+        return this;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public AccountImportResultDTO rowsPerSecond(double rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+        return this;
+    }
+
+    public void setRowsPerSecond(double rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    @Override
+    public String toString() {
+        return "AccountImportResultDTO{" +
+                "file='" + file + '\'' +
+                ", resumedFromOffset=" + resumedFromOffset +
+                ", offset=" + offset +
+                ", lines=" + lines +
+                ", imported=" + imported +
+                ", rejected=" + rejected +
+                ", elapsedMillis=" + elapsedMillis +
+                ", rowsPerSecond=" + rowsPerSecond +
+                '}';
+    }
+}
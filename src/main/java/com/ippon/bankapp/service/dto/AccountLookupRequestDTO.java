@@ -0,0 +1,50 @@
+package com.ippon.bankapp.service.dto;
+
+import javax.validation.constraints.NotNull;
+import java.util.List;
+import java.util.Objects;
+
+public class AccountLookupRequestDTO {
+
+    /**
+     * Last names of the accounts to look up; duplicates are answered once.
+     */
+    @NotNull
+    private List<String> lastNames;
+
+    public AccountLookupRequestDTO() {
+    }
+
+    public List<String> getLastNames() {
+        return lastNames;
+    }
+
+    public AccountLookupRequestDTO lastNames(List<String> lastNames) {
+        this.lastNames = lastNames;
+        return this;
+    }
+
+    public void setLastNames(List<String> lastNames) {
+        this.lastNames = lastNames;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof AccountLookupRequestDTO)) return false;
+        AccountLookupRequestDTO that = (AccountLookupRequestDTO) o;
+        return Objects.equals(lastNames, that.lastNames);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(lastNames);
+    }
+
+    @Override
+    public String toString() {
+        return "AccountLookupRequestDTO{" +
+                "lastNames=" + (lastNames == null ? null : lastNames.size()) +
+                '}';
+    }
+}
@@ -0,0 +1,34 @@
+package com.ippon.bankapp.service.dto;
+
+import java.util.List;
+
+/**
+ * The accounts found by a lookup, and the last names that have none, both in the order they were asked for.
+ */
+public class AccountLookupResultDTO {
+
+    private final List<AccountSummaryDTO> accounts;
+
+    private final List<String> missing;
+
+    public AccountLookupResultDTO(List<AccountSummaryDTO> accounts, List<String> missing) {
+        this.accounts = accounts;
+        this.missing = missing;
+    }
+
+    public List<AccountSummaryDTO> getAccounts() {
+        return accounts;
+    }
+
+    public List<String> getMissing() {
+        return missing;
+    }
+
+    @Override
+    public String toString() {
+        return "AccountLookupResultDTO{" +
+                "accounts=" + accounts.size() +
+                ", missing=" + missing.size() +
+                '}';
+    }
+}
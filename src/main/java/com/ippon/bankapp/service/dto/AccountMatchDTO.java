@@ -0,0 +1,67 @@
+package com.ippon.bankapp.service.dto;
+
+import java.util.Objects;
+
+/**
+ * An account found by a name search, with the names only: the index answers without the database.
+ */
+public class AccountMatchDTO {
+
+    private final String firstName;
+
+    private final String lastName;
+
+    private final boolean fuzzy;
+
+    /**
+     * The names of an account as read from the table, to index them.
+     */
+    public AccountMatchDTO(String firstName, String lastName) {
+        this(firstName, lastName, false);
+    }
+
+    /**
+     * @param fuzzy whether the account was found as a misspelling of the search rather than by prefix
+     */
+    public AccountMatchDTO(String firstName, String lastName, boolean fuzzy) {
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.fuzzy = fuzzy;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public boolean isFuzzy() {
+        return fuzzy;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof AccountMatchDTO)) return false;
+        AccountMatchDTO that = (AccountMatchDTO) o;
+        return fuzzy == that.fuzzy &&
+                Objects.equals(firstName, that.firstName) &&
+                Objects.equals(lastName, that.lastName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(firstName, lastName, fuzzy);
+    }
+
+    @Override
+    public String toString() {
+        return "AccountMatchDTO{" +
+                "firstName='" + firstName + '\'' +
+                ", lastName='" + lastName + '\'' +
+                ", fuzzy=" + fuzzy +
+                '}';
+    }
+}
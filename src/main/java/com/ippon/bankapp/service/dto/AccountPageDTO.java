@@ -0,0 +1,34 @@
+package com.ippon.bankapp.service.dto;
+
+import java.util.List;
+
+/**
+ * A page of accounts, with the token to pass as {@code after} for the next page, {@code null} on the last one.
+ */
+public class AccountPageDTO {
+
+    private final List<AccountSummaryDTO> accounts;
+
+    private final String next;
+
+    public AccountPageDTO(List<AccountSummaryDTO> accounts, String next) {
+        this.accounts = accounts;
+        this.next = next;
+    }
+
+    public List<AccountSummaryDTO> getAccounts() {
+        return accounts;
+    }
+
+    public String getNext() {
+        return next;
+    }
+
+    @Override
+    public String toString() {
+        return "AccountPageDTO{" +
+                "accounts=" + accounts.size() +
+                ", next='" + next + '\'' +
+                '}';
+    }
+}
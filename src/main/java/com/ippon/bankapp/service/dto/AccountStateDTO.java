@@ -0,0 +1,24 @@
+package com.ippon.bankapp.service.dto;
+
+/**
+ * An account with its balance and what its version is made of, read in one query for the reactive stack.
+ */
+public class AccountStateDTO {
+
+    private final AccountSummaryDTO summary;
+
+    private final AccountVersionDTO version;
+
+    public AccountStateDTO(AccountSummaryDTO summary, AccountVersionDTO version) {
+        this.summary = summary;
+        this.version = version;
+    }
+
+    public AccountSummaryDTO getSummary() {
+        return summary;
+    }
+
+    public AccountVersionDTO getVersion() {
+        return version;
+    }
+}
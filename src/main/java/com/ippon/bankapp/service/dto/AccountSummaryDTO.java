@@ -0,0 +1,88 @@
+package com.ippon.bankapp.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.ippon.bankapp.domain.Money;
+
+import java.util.Objects;
+
+/**
+ * An account as listed, read straight from the query without loading the entity. The id is only kept
+ * to build the continuation token.
+ */
+public class AccountSummaryDTO {
+
+    @JsonIgnore
+    private final int id;
+
+    private final String firstName;
+
+    private final String lastName;
+
+    private final Money balance;
+
+    private final String notificationPreference;
+
+    public AccountSummaryDTO(int id, String firstName, String lastName, Money balance, String notificationPreference) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.balance = balance;
+        this.notificationPreference = notificationPreference;
+    }
+
+    /**
+     * @param balance balance snapshot of the account
+     * @param delta   sum of the ledger entries after the snapshot in minor units, {@code null} when there are none
+     */
+    public AccountSummaryDTO(int id, String firstName, String lastName, Money balance, Long delta,
+                             String notificationPreference) {
+        this(id, firstName, lastName, delta == null ? balance
+                        : (balance == null ? Money.ofMinor(delta) : balance.plus(Money.ofMinor(delta))),
+                notificationPreference);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public Money getBalance() {
+        return balance;
+    }
+
+    public String getNotificationPreference() {
+        return notificationPreference;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof AccountSummaryDTO)) return false;
+        AccountSummaryDTO that = (AccountSummaryDTO) o;
+        return id == that.id &&
+                Objects.equals(lastName, that.lastName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, lastName);
+    }
+
+    @Override
+    public String toString() {
+        return "AccountSummaryDTO{" +
+                "id=" + id +
+                ", firstName='" + firstName + '\'' +
+                ", lastName='" + lastName + '\'' +
+                ", balance=" + balance +
+                ", notificationPreference='" + notificationPreference + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,28 @@
+package com.ippon.bankapp.service.dto;
+
+/**
+ * What the version of an account is made of, read without the account itself: its id and the sequence of the
+ * last ledger entry in its balance.
+ */
+public class AccountVersionDTO {
+
+    private final int accountId;
+
+    private final long sequence;
+
+    /**
+     * @param lastSequence sequence of the last ledger entry after the balance snapshot, {@code null} if none
+     */
+    public AccountVersionDTO(int accountId, long balanceSequence, Long lastSequence) {
+        this.accountId = accountId;
+        this.sequence = lastSequence == null ? balanceSequence : lastSequence;
+    }
+
+    public int getAccountId() {
+        return accountId;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+}
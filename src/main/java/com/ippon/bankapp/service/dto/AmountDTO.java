@@ -0,0 +1,47 @@
+package com.ippon.bankapp.service.dto;
+
+import javax.validation.constraints.NotNull;
+import java.math.BigDecimal;
+import java.util.Objects;
+
+public class AmountDTO {
+
+    @NotNull
+    private BigDecimal amount;
+
+    public AmountDTO() {
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public AmountDTO amount(BigDecimal amount) {
+        this.amount = amount;
+        return this;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof AmountDTO)) return false;
+        AmountDTO that = (AmountDTO) o;
+        return Objects.equals(amount, that.amount);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(amount);
+    }
+
+    @Override
+    public String toString() {
+        return "AmountDTO{" +
+                "amount=" + amount +
+                '}';
+    }
+}
@@ -0,0 +1,54 @@
+package com.ippon.bankapp.service.dto;
+
+import com.ippon.bankapp.domain.Money;
+
+/**
+ * The ledger entries of an account after its balance snapshot, summed: the snapshot at {@code fromSequence}
+ * plus {@code amount} is the balance as of {@code toSequence}.
+ */
+public class BalanceDeltaDTO {
+
+    private final int accountId;
+
+    private final long fromSequence;
+
+    private final Money amount;
+
+    private final long toSequence;
+
+    /**
+     * @param amount sum of the entries in minor units
+     */
+    public BalanceDeltaDTO(int accountId, long fromSequence, long amount, long toSequence) {
+        this.accountId = accountId;
+        this.fromSequence = fromSequence;
+        this.amount = Money.ofMinor(amount);
+        this.toSequence = toSequence;
+    }
+
+    public int getAccountId() {
+        return accountId;
+    }
+
+    public long getFromSequence() {
+        return fromSequence;
+    }
+
+    public Money getAmount() {
+        return amount;
+    }
+
+    public long getToSequence() {
+        return toSequence;
+    }
+
+    @Override
+    public String toString() {
+        return "BalanceDeltaDTO{" +
+                "accountId=" + accountId +
+                ", fromSequence=" + fromSequence +
+                ", amount=" + amount +
+                ", toSequence=" + toSequence +
+                '}';
+    }
+}
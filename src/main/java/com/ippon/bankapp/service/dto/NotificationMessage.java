@@ -0,0 +1,63 @@
+package com.ippon.bankapp.service.dto;
+
+import java.util.Objects;
+
+public class NotificationMessage {
+
+    private final String source;
+
+    private final String destination;
+
+    private final String subject;
+
+    private final String message;
+
+    public NotificationMessage(String source, String destination, String subject, String message) {
+        this.source = source;
+        this.destination = destination;
+        this.subject = subject;
+        this.message = message;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof NotificationMessage)) return false;
+        NotificationMessage that = (NotificationMessage) o;
+        return Objects.equals(source, that.source) &&
+                Objects.equals(destination, that.destination) &&
+                Objects.equals(subject, that.subject) &&
+                Objects.equals(message, that.message);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(source, destination, subject, message);
+    }
+
+    @Override
+    public String toString() {
+        return "NotificationMessage{" +
+                "source='" + source + '\'' +
+                ", destination='" + destination + '\'' +
+                ", subject='" + subject + '\'' +
+                ", message='" + message + '\'' +
+                '}';
+    }
+}
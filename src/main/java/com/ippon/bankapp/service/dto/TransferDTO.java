@@ -0,0 +1,90 @@
+package com.ippon.bankapp.service.dto;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.math.BigDecimal;
+import java.util.Objects;
+
+public class TransferDTO {
+
+    /**
+     * Last name of the account debited.
+     */
+    @NotEmpty
+    private String from;
+
+    /**
+     * Last name of the account credited.
+     */
+    @NotEmpty
+    private String to;
+
+    @NotNull
+    private BigDecimal amount;
+
+    public TransferDTO() {
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public TransferDTO from(String from) {
+        this.from = from;
+        return this;
+    }
+
+    public void setFrom(String from) {
+        this.from = from;
+    }
+
+    public String getTo() {
+        return to;
+    }
+
+    public TransferDTO to(String to) {
+        this.to = to;
+        return this;
+    }
+
+    public void setTo(String to) {
+        this.to = to;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public TransferDTO amount(BigDecimal amount) {
+        this.amount = amount;
+        return this;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TransferDTO)) return false;
+        TransferDTO that = (TransferDTO) o;
+        return Objects.equals(from, that.from) &&
+                Objects.equals(to, that.to) &&
+                Objects.equals(amount, that.amount);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(from, to, amount);
+    }
+
+    @Override
+    public String toString() {
+        return "TransferDTO{" +
+                "from='" + from + '\'' +
+                ", to='" + to + '\'' +
+                ", amount=" + amount +
+                '}';
+    }
+}
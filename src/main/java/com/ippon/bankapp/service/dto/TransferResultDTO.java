@@ -0,0 +1,32 @@
+package com.ippon.bankapp.service.dto;
+
+/**
+ * Both accounts of a transfer, as they are once it is committed.
+ */
+public class TransferResultDTO {
+
+    private final AccountDTO from;
+
+    private final AccountDTO to;
+
+    public TransferResultDTO(AccountDTO from, AccountDTO to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    public AccountDTO getFrom() {
+        return from;
+    }
+
+    public AccountDTO getTo() {
+        return to;
+    }
+
+    @Override
+    public String toString() {
+        return "TransferResultDTO{" +
+                "from=" + from +
+                ", to=" + to +
+                '}';
+    }
+}
@@ -1,4 +1,9 @@
 package com.ippon.bankapp.service.exception;
 
 public class AccountLastNameExistsException extends BankAppException {
+
+    /**
+     * Shared instance for the create hot path; safe to rethrow as it carries no stack trace or state.
+     */
+    public static final AccountLastNameExistsException INSTANCE = new AccountLastNameExistsException();
 }
@@ -2,4 +2,9 @@ package com.ippon.bankapp.service.exception;
 
 public class AccountNotFoundException extends BankAppException {
 
+    /**
+     * Shared instance for the lookup hot path; safe to rethrow as it carries no stack trace or state.
+     */
+    public static final AccountNotFoundException INSTANCE = new AccountNotFoundException();
+
 }
@@ -1,4 +1,18 @@
 package com.ippon.bankapp.service.exception;
 
+/**
+ * Base class of the business exceptions, which are turned into HTTP statuses by the REST layer.
+ * <p>
+ * They do not capture a stack trace: they are expected outcomes, thrown often enough (a 404 on
+ * every miss) for the trace to be a measurable cost, and never logged with one.
+ */
 public class BankAppException extends RuntimeException {
+
+    public BankAppException() {
+        this(null);
+    }
+
+    public BankAppException(String message) {
+        super(message, null, false, false);
+    }
 }
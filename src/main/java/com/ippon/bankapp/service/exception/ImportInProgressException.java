@@ -0,0 +1,8 @@
+package com.ippon.bankapp.service.exception;
+
+public class ImportInProgressException extends BankAppException {
+
+    public ImportInProgressException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.ippon.bankapp.service.exception;
+
+public class InvalidImportFileException extends BankAppException {
+
+    public InvalidImportFileException(String message) {
+        super(message);
+    }
+}
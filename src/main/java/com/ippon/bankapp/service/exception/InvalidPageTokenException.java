@@ -0,0 +1,9 @@
+package com.ippon.bankapp.service.exception;
+
+public class InvalidPageTokenException extends BankAppException {
+
+    /**
+     * Shared instance; safe to rethrow as it carries no stack trace or state.
+     */
+    public static final InvalidPageTokenException INSTANCE = new InvalidPageTokenException();
+}
@@ -0,0 +1,8 @@
+package com.ippon.bankapp.service.exception;
+
+public class LookupTooLargeException extends BankAppException {
+
+    public LookupTooLargeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,127 @@
+package com.ippon.bankapp.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A limit on the number of requests in progress that follows the latency of the requests, after the gradient
+ * algorithm of Netflix's concurrency-limits: while requests take as long as they usually do, the limit grows
+ * by about its square root; when they take longer, because they queue for a database connection or the CPU,
+ * it shrinks in proportion, down to half per sample. A request failing with a server error shrinks it by a
+ * tenth. Requests beyond the limit are rejected rather than queued, so those admitted keep their latency.
+ * <p>
+ * Admission is a compare-and-set on the in-flight count. The samples replace the limit and the latencies it
+ * follows, held together in one immutable {@link Gradient}, with a compare-and-set as well, so no request
+ * takes a lock: one losing the race computes its sample again from the winner's.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private static final double SHORT_WEIGHT = 2.0 / (10 + 1);
+    private static final double LONG_WEIGHT = 2.0 / (600 + 1);
+    private static final double SMOOTHING = 0.2;
+    private static final double TOLERANCE = 1.5;
+    private static final double BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicReference<Gradient> gradient;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit <= 0 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Expected 0 < min <= initial <= max, got "
+                    + minLimit + ", " + initialLimit + ", " + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.gradient = new AtomicReference<>(new Gradient(initialLimit, 0, 0));
+    }
+
+    /**
+     * Admits a request if fewer than the limit are in progress; {@link #release} it once completed.
+     */
+    public boolean tryAcquire() {
+        int limit = gradient.get().limit;
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @param rttNanos how long the request took
+     * @param dropped  whether it failed for lack of capacity, such as a server error, rather than completed
+     */
+    public void release(long rttNanos, boolean dropped) {
+        int current = inFlight.getAndDecrement();
+        while (true) {
+            Gradient before = gradient.get();
+            if (gradient.compareAndSet(before, sample(before, rttNanos, current, dropped))) {
+                return;
+            }
+        }
+    }
+
+    public int getLimit() {
+        return gradient.get().limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private Gradient sample(Gradient before, long rttNanos, int inFlight, boolean dropped) {
+        double estimatedLimit = before.estimatedLimit;
+        if (dropped) {
+            return new Gradient(clamp(estimatedLimit * BACKOFF), before.shortRtt, before.longRtt);
+        }
+        double shortRtt;
+        double longRtt;
+        if (before.shortRtt == 0) {
+            shortRtt = rttNanos;
+            longRtt = rttNanos;
+        } else {
+            shortRtt = before.shortRtt + (rttNanos - before.shortRtt) * SHORT_WEIGHT;
+            longRtt = before.longRtt + (rttNanos - before.longRtt) * LONG_WEIGHT;
+        }
+        // latency went down for good: let the baseline catch up rather than grow the limit forever
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+        // too few requests in progress to tell whether the limit is the bottleneck
+        if (inFlight < estimatedLimit / 2) {
+            return new Gradient(estimatedLimit, shortRtt, longRtt);
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        newLimit = estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        return new Gradient(clamp(newLimit), shortRtt, longRtt);
+    }
+
+    private double clamp(double limit) {
+        return Math.max(minLimit, Math.min(maxLimit, limit));
+    }
+
+    /**
+     * The limit along with the latencies it follows, replaced as a whole by each sample.
+     */
+    private static final class Gradient {
+
+        final double estimatedLimit;
+        final int limit;
+        final double shortRtt;
+        final double longRtt;
+
+        Gradient(double estimatedLimit, double shortRtt, double longRtt) {
+            this.estimatedLimit = estimatedLimit;
+            this.limit = (int) estimatedLimit;
+            this.shortRtt = shortRtt;
+            this.longRtt = longRtt;
+        }
+    }
+}
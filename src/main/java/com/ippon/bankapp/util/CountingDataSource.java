@@ -0,0 +1,104 @@
+package com.ippon.bankapp.util;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Wraps a {@link DataSource} so the statements executed through it, and the rows read from their results, are
+ * counted in the {@link QueryStats} open on the calling thread. Executing a statement or a batch counts once; the
+ * time spent executing it and moving through its results counts as database time.
+ * <p>
+ * With no stats open, a call costs the proxy and a thread-local read. Unwrapping goes to the wrapped data source,
+ * so the pool it is stays reachable, for its metrics among others.
+ */
+public final class CountingDataSource {
+
+    private CountingDataSource() {
+    }
+
+    public static DataSource wrap(DataSource dataSource) {
+        return proxy(DataSource.class, dataSource, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            return result instanceof Connection ? connection((Connection) result) : result;
+        });
+    }
+
+    private static Connection connection(Connection connection) {
+        return proxy(Connection.class, connection, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            if (result instanceof Statement && method.getReturnType().isInterface()) {
+                return statement(method.getReturnType(), (Statement) result);
+            }
+            return result;
+        });
+    }
+
+    private static Object statement(Class<?> type, Statement statement) {
+        return proxy(type, statement, (target, method, args) -> {
+            if (!method.getName().startsWith("execute")) {
+                Object result = invoke(target, method, args);
+                return result instanceof ResultSet ? resultSet((ResultSet) result) : result;
+            }
+            QueryStats stats = QueryStats.current();
+            long start = stats == null ? 0 : System.nanoTime();
+            try {
+                Object result = invoke(target, method, args);
+                return result instanceof ResultSet ? resultSet((ResultSet) result) : result;
+            } finally {
+                if (stats != null) {
+                    stats.statement(System.nanoTime() - start);
+                }
+            }
+        });
+    }
+
+    private static ResultSet resultSet(ResultSet resultSet) {
+        return proxy(ResultSet.class, resultSet, (target, method, args) -> {
+            if (!method.getName().equals("next")) {
+                return invoke(target, method, args);
+            }
+            QueryStats stats = QueryStats.current();
+            if (stats == null) {
+                return invoke(target, method, args);
+            }
+            long start = System.nanoTime();
+            boolean row = (Boolean) invoke(target, method, args);
+            stats.fetch(row, System.nanoTime() - start);
+            return row;
+        });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<?> type, Object target, Handler handler) {
+        return (T) Proxy.newProxyInstance(CountingDataSource.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            return handler.handle(target, method, args);
+                    }
+                });
+    }
+
+    private interface Handler {
+
+        Object handle(Object target, Method method, Object[] args) throws Throwable;
+    }
+}
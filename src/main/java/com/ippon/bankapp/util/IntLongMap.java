@@ -0,0 +1,126 @@
+package com.ippon.bankapp.util;
+
+import java.util.Arrays;
+
+/**
+ * A map from {@code int} keys to {@code long} values, stored in two flat arrays with linear probing so that
+ * neither keys nor values are boxed. Not thread safe.
+ */
+public class IntLongMap {
+
+    private static final int FREE = Integer.MIN_VALUE;
+
+    private int[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+
+    /**
+     * @param expected number of keys the map holds without growing
+     */
+    public IntLongMap(int expected) {
+        int capacity = 2;
+        while (capacity < expected * 2) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    public boolean containsKey(int key) {
+        return slot(key) >= 0;
+    }
+
+    /**
+     * @return the value of {@code key}, {@code missing} if it has none
+     */
+    public long get(int key, long missing) {
+        int slot = slot(key);
+        return slot < 0 ? missing : values[slot];
+    }
+
+    /**
+     * @throws IllegalArgumentException for {@link Integer#MIN_VALUE}, which marks free slots
+     */
+    public void put(int key, long value) {
+        if (key == FREE) {
+            throw new IllegalArgumentException("Unsupported key: " + key);
+        }
+        int i = index(key);
+        while (keys[i] != FREE) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    public boolean remove(int key) {
+        int gap = slot(key);
+        if (gap < 0) {
+            return false;
+        }
+        // shift back the keys of the cluster that probed past the removed one, so lookups need no tombstones
+        for (int i = (gap + 1) & mask; keys[i] != FREE; i = (i + 1) & mask) {
+            if (((i - index(keys[i])) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+        }
+        keys[gap] = FREE;
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        size = 0;
+    }
+
+    private int slot(int key) {
+        if (key == FREE) {
+            return -1;
+        }
+        for (int i = index(key); keys[i] != FREE; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int index(int key) {
+        // Fibonacci hashing: consecutive ids land far apart instead of forming one long cluster
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        Arrays.fill(keys, FREE);
+    }
+}
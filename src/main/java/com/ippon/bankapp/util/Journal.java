@@ -0,0 +1,370 @@
+package com.ippon.bankapp.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of records in memory-mapped segment files of a fixed size, named after the sequence
+ * number of their first record.
+ * <p>
+ * A record is its payload length, a CRC32 of its sequence number and payload, the sequence number and the
+ * payload. The length is stored last, so a process killed mid-append leaves at most one record without a
+ * length, which reads as the end of the journal; a write torn by a power loss fails its checksum instead.
+ * Opening the journal drops everything from the first invalid record of the last segment on.
+ * <p>
+ * An append only reaches the page cache. {@link #sync(long)} forces it to disk, and callers waiting at the
+ * same time share a single force: while one thread forces the journal, the others wait for it to finish,
+ * then those whose records it did not cover elect the next one, which forces all of them at once.
+ */
+public class Journal implements Closeable {
+
+    public static final int MAX_PAYLOAD = 64 * 1024;
+
+    private static final int HEADER = 16;
+    private static final String SUFFIX = ".journal";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long syncDelayNanos;
+    private final Object appendLock = new Object();
+    private final Object syncLock = new Object();
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+
+    private MappedByteBuffer current;
+    private long nextSequence;
+    private volatile long appended;
+    private volatile long durable;
+    private volatile long syncs;
+    private boolean closed;
+    private boolean syncing;
+
+    private Journal(Path directory, int segmentSize, Duration syncDelay) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.syncDelayNanos = syncDelay.toNanos();
+    }
+
+    /**
+     * Opens the journal in {@code directory}, creating it if needed, and positions it after its last valid
+     * record.
+     *
+     * @param segmentSize size of each segment file; a record must fit in one
+     * @param syncDelay   how long a sync waits for more appends to join it before forcing them to disk
+     */
+    public static Journal open(Path directory, int segmentSize, Duration syncDelay) throws IOException {
+        if (segmentSize < HEADER + MAX_PAYLOAD) {
+            throw new IllegalArgumentException("Segment size too small: " + segmentSize);
+        }
+        Files.createDirectories(directory);
+        Journal journal = new Journal(directory, segmentSize, syncDelay);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                journal.segments.put(Long.parseLong(name.substring(0, name.length() - SUFFIX.length())), file);
+            }
+        }
+        journal.recover();
+        return journal;
+    }
+
+    /**
+     * Appends a record, without waiting for it to reach the disk.
+     *
+     * @return the sequence number of the record, to pass to {@link #sync(long)}
+     */
+    public long append(byte[] payload) {
+        if (payload.length == 0 || payload.length > MAX_PAYLOAD) {
+            throw new IllegalArgumentException("Payload of " + payload.length + " bytes");
+        }
+        synchronized (appendLock) {
+            if (closed) {
+                throw new IllegalStateException("Journal closed");
+            }
+            if (current.remaining() < HEADER + payload.length) {
+                roll();
+            }
+            int position = current.position();
+            long sequence = nextSequence++;
+            current.putLong(position + 8, sequence);
+            current.position(position + HEADER);
+            current.put(payload);
+            current.putInt(position + 4, checksum(sequence, payload));
+            // keeps the length from being written ahead of the rest, by the JIT or the processor
+            VarHandle.storeStoreFence();
+            current.putInt(position, payload.length);
+            appended = sequence;
+            return sequence;
+        }
+    }
+
+    /**
+     * Returns once the record {@code sequence} and all those before it are on disk.
+     */
+    public void sync(long sequence) {
+        if (sequence <= durable) {
+            return;
+        }
+        boolean interrupted = false;
+        synchronized (syncLock) {
+            try {
+                while (syncing) {
+                    if (sequence <= durable) {
+                        return;
+                    }
+                    try {
+                        syncLock.wait();
+                    } catch (InterruptedException e) {
+                        // the caller's record is already appended: it must not leave before it is durable
+                        interrupted = true;
+                    }
+                }
+                if (sequence <= durable) {
+                    return;
+                }
+                syncing = true;
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        long forced = 0;
+        try {
+            if (syncDelayNanos > 0) {
+                LockSupport.parkNanos(syncDelayNanos);
+            }
+            long target;
+            MappedByteBuffer buffer;
+            synchronized (appendLock) {
+                target = appended;
+                buffer = current;
+            }
+            // earlier segments were forced when the journal rolled over them
+            buffer.force();
+            forced = target;
+        } finally {
+            synchronized (syncLock) {
+                if (forced > durable) {
+                    durable = forced;
+                    syncs++;
+                }
+                syncing = false;
+                syncLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Reads every record after {@code afterSequence}, in order. Appends wait until it returns.
+     */
+    public void read(long afterSequence, RecordConsumer consumer) throws IOException {
+        synchronized (appendLock) {
+            Long first = segments.floorKey(afterSequence + 1);
+            for (Map.Entry<Long, Path> segment : segments.tailMap(first == null ? 0L : first).entrySet()) {
+                MappedByteBuffer buffer = map(segment.getValue(), FileChannel.MapMode.READ_ONLY);
+                long sequence = segment.getKey();
+                int position = 0;
+                int length;
+                while ((length = validLength(buffer, position, sequence)) > 0) {
+                    if (sequence > afterSequence) {
+                        byte[] payload = new byte[length];
+                        buffer.position(position + HEADER);
+                        buffer.get(payload);
+                        consumer.accept(sequence, payload);
+                    }
+                    position += HEADER + length;
+                    sequence++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes the segments holding only records before {@code sequence}. The current segment is kept.
+     */
+    public void deleteBefore(long sequence) throws IOException {
+        synchronized (appendLock) {
+            Iterator<Map.Entry<Long, Path>> iterator = segments.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Long, Path> segment = iterator.next();
+                Long next = segments.higherKey(segment.getKey());
+                if (next == null || next > sequence) {
+                    return;
+                }
+                Files.deleteIfExists(segment.getValue());
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * @return the sequence number of the last record appended, 0 if there is none
+     */
+    public long getLastSequence() {
+        return appended;
+    }
+
+    /**
+     * @return the sequence number of the last record known to be on disk
+     */
+    public long getDurableSequence() {
+        return durable;
+    }
+
+    /**
+     * @return the number of times the journal was forced to disk by {@link #sync(long)}
+     */
+    public long getSyncs() {
+        return syncs;
+    }
+
+    public int getSegmentCount() {
+        synchronized (appendLock) {
+            return segments.size();
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (appendLock) {
+            if (!closed) {
+                closed = true;
+                current.force();
+            }
+        }
+    }
+
+    /**
+     * Checks every segment and positions the journal after the last valid record, clearing whatever follows
+     * it so that a later append cannot run into the remains of a torn one.
+     */
+    private void recover() throws IOException {
+        if (segments.isEmpty()) {
+            nextSequence = 1;
+            current = create(nextSequence);
+            return;
+        }
+        long sequence = segments.firstKey();
+        for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+            if (segment.getKey() != sequence) {
+                throw new IOException("Journal segment " + segment.getValue() + " should start at record " + sequence);
+            }
+            boolean last = segment.getKey().equals(segments.lastKey());
+            MappedByteBuffer buffer = map(segment.getValue(), last ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY);
+            int position = 0;
+            int length;
+            while ((length = validLength(buffer, position, sequence)) > 0) {
+                position += HEADER + length;
+                sequence++;
+            }
+            if (last) {
+                boolean torn = false;
+                for (int i = position; i < buffer.limit(); i++) {
+                    if (buffer.get(i) != 0) {
+                        buffer.put(i, (byte) 0);
+                        torn = true;
+                    }
+                }
+                if (torn) {
+                    buffer.force();
+                }
+                buffer.position(position);
+                current = buffer;
+            }
+        }
+        nextSequence = sequence;
+        appended = sequence - 1;
+        durable = appended;
+    }
+
+    /**
+     * @return the payload length of the record at {@code position} if it is complete and numbered
+     * {@code sequence}, 0 otherwise
+     */
+    private int validLength(MappedByteBuffer buffer, int position, long sequence) {
+        if (position + HEADER > buffer.limit()) {
+            return 0;
+        }
+        int length = buffer.getInt(position);
+        if (length <= 0 || length > MAX_PAYLOAD || position + HEADER + length > buffer.limit()
+                || buffer.getLong(position + 8) != sequence) {
+            return 0;
+        }
+        byte[] payload = new byte[length];
+        ByteBuffer record = buffer.duplicate();
+        record.position(position + HEADER);
+        record.get(payload);
+        return buffer.getInt(position + 4) == checksum(sequence, payload) ? length : 0;
+    }
+
+    private void roll() {
+        current.force();
+        try {
+            current = create(nextSequence);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private MappedByteBuffer create(long firstSequence) throws IOException {
+        Path file = directory.resolve(String.format("%020d%s", firstSequence, SUFFIX));
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+        syncDirectory();
+        segments.put(firstSequence, file);
+        return buffer;
+    }
+
+    private MappedByteBuffer map(Path file, FileChannel.MapMode mode) throws IOException {
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+                ? new StandardOpenOption[]{StandardOpenOption.READ}
+                : new StandardOpenOption[]{StandardOpenOption.READ, StandardOpenOption.WRITE};
+        // the mapping stays valid once the channel is closed
+        try (FileChannel channel = FileChannel.open(file, options)) {
+            return channel.map(mode, 0, Math.min(channel.size(), segmentSize));
+        }
+    }
+
+    /**
+     * Makes the creation of a segment file itself durable. Not every platform can open a directory.
+     */
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // best effort
+        }
+    }
+
+    private static int checksum(long sequence, byte[] payload) {
+        CRC32 crc = new CRC32();
+        for (int i = 56; i >= 0; i -= 8) {
+            crc.update((int) (sequence >>> i));
+        }
+        crc.update(payload, 0, payload.length);
+        return (int) crc.getValue();
+    }
+
+    @FunctionalInterface
+    public interface RecordConsumer {
+        void accept(long sequence, byte[] payload) throws IOException;
+    }
+}
@@ -0,0 +1,113 @@
+package com.ippon.bankapp.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Reads a file line by line through a large buffer, keeping track of the byte offset reached so a reader
+ * can later be reopened exactly after the last line processed.
+ * <p>
+ * Lines are returned as raw bytes, without their {@code \n} or {@code \r\n} terminator, leaving decoding
+ * to the caller. Not thread-safe.
+ */
+public class LineChannelReader implements Closeable {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private byte[] partial = new byte[256];
+    private int partialLength;
+    private long position;
+    private boolean endOfFile;
+
+    /**
+     * @param channel the file to read, positioned by this reader
+     * @param position offset of the first line to read
+     * @param bufferSize number of bytes read from the channel at once
+     */
+    public LineChannelReader(FileChannel channel, long position, int bufferSize) throws IOException {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+        seek(position);
+    }
+
+    /**
+     * @return the next line, or {@code null} at the end of the file
+     */
+    public byte[] readLine() throws IOException {
+        while (true) {
+            byte[] array = buffer.array();
+            int start = buffer.position();
+            int limit = buffer.limit();
+            for (int i = start; i < limit; i++) {
+                if (array[i] == '\n') {
+                    buffer.position(i + 1);
+                    position += i + 1 - start;
+                    append(array, start, i - start);
+                    return takeLine();
+                }
+            }
+            append(array, start, limit - start);
+            position += limit - start;
+            buffer.position(limit);
+
+            if (endOfFile || !fill()) {
+                endOfFile = true;
+                return partialLength == 0 ? null : takeLine();
+            }
+        }
+    }
+
+    /**
+     * Moves to {@code position}, which should be the start of a line.
+     */
+    public void seek(long position) throws IOException {
+        channel.position(position);
+        buffer.clear();
+        buffer.flip();
+        partialLength = 0;
+        endOfFile = false;
+        this.position = position;
+    }
+
+    /**
+     * @return the offset just after the last line returned
+     */
+    public long position() {
+        return position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private boolean fill() throws IOException {
+        buffer.clear();
+        int read;
+        do {
+            read = channel.read(buffer);
+        } while (read == 0);
+        buffer.flip();
+        return read > 0;
+    }
+
+    private void append(byte[] bytes, int offset, int length) {
+        if (partialLength + length > partial.length) {
+            partial = Arrays.copyOf(partial, Math.max(partial.length * 2, partialLength + length));
+        }
+        System.arraycopy(bytes, offset, partial, partialLength, length);
+        partialLength += length;
+    }
+
+    private byte[] takeLine() {
+        int length = partialLength;
+        if (length > 0 && partial[length - 1] == '\r') {
+            length--;
+        }
+        partialLength = 0;
+        return Arrays.copyOf(partial, length);
+    }
+}
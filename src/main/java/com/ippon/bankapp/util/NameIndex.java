@@ -0,0 +1,561 @@
+package com.ippon.bankapp.util;
+
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * An in-memory index of people's names for prefix and misspelled searches.
+ * <p>
+ * Each name is split into terms, lower case and without accents. A radix trie over the distinct terms
+ * answers prefix searches by walking down to the prefix and collecting its subtree in order; every term
+ * points to the entries using it. Misspellings are found by walking the same trie with a row of the edit
+ * distance table per char, leaving a branch as soon as its row is over the edits allowed: one for terms of
+ * up to five letters, two beyond, a swap of adjacent letters counting as one. As in Lucene's fuzzy query,
+ * the first letter has to be right and only the closest few terms are looked up, which keeps the walk to a
+ * small part of the trie. In a search of several words, the longest may be misspelled, the others have to
+ * start the entry's other terms.
+ * <p>
+ * The names themselves are kept as UTF-8 in one byte array, and terms are stored once however many
+ * entries use them; the index is smallest, and its trie walked fastest, when entries are put in last name
+ * order. Entries are only added; one put twice is found once, as searches skip the last names they already returned. Searches share
+ * a read lock, additions take the write lock.
+ */
+public class NameIndex {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final char[] NO_CHARS = new char[0];
+    private static final Node[] NO_NODES = new Node[0];
+    private static final int HEAD_CHARS = 4;
+    // the most terms a misspelled search looks up entries for, as in Lucene's fuzzy query
+    private static final int MAX_EXPANSIONS = 50;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // entries: the first name then the last name of each, in UTF-8
+    private byte[] names = new byte[1024];
+    private int namesSize;
+    private int[] firstNameStarts = new int[64];
+    private int[] lastNameStarts = new int[64];
+    private int entries;
+
+    // the terms of each entry, by id
+    private int[] entryTerms = new int[128];
+    private int entryTermsSize;
+    private int[] entryTermStarts = new int[64];
+
+    // terms, by id, with the entries using each
+    private String[] terms = new String[64];
+    private int[][] postings = new int[64][];
+    private int[] postingSizes = new int[64];
+    // the first chars of each term, to check prefixes without reaching for the term
+    private long[] termHeads = new long[64];
+    private int termCount;
+
+    private int longestTerm;
+
+    private final Node root = new Node(NO_CHARS);
+
+    /**
+     * Adds an entry; {@code null} names are indexed as empty.
+     */
+    public void put(String firstName, String lastName) {
+        byte[] first = firstName == null ? new byte[0] : firstName.getBytes(StandardCharsets.UTF_8);
+        byte[] last = lastName == null ? new byte[0] : lastName.getBytes(StandardCharsets.UTF_8);
+        List<String> nameTerms = terms(firstName, lastName);
+        lock.writeLock().lock();
+        try {
+            int entry = entries++;
+            if (entry == firstNameStarts.length) {
+                firstNameStarts = Arrays.copyOf(firstNameStarts, entry + (entry >> 1));
+                lastNameStarts = Arrays.copyOf(lastNameStarts, entry + (entry >> 1));
+                entryTermStarts = Arrays.copyOf(entryTermStarts, entry + (entry >> 1));
+            }
+            if (entryTermsSize + nameTerms.size() > entryTerms.length) {
+                entryTerms = Arrays.copyOf(entryTerms, Math.max(entryTerms.length + (entryTerms.length >> 1),
+                        entryTermsSize + nameTerms.size()));
+            }
+            entryTermStarts[entry] = entryTermsSize;
+            if (namesSize + first.length + last.length > names.length) {
+                names = Arrays.copyOf(names, Math.max(names.length + (names.length >> 1),
+                        namesSize + first.length + last.length));
+            }
+            firstNameStarts[entry] = namesSize;
+            System.arraycopy(first, 0, names, namesSize, first.length);
+            namesSize += first.length;
+            lastNameStarts[entry] = namesSize;
+            System.arraycopy(last, 0, names, namesSize, last.length);
+            namesSize += last.length;
+            for (String term : nameTerms) {
+                int id = termId(term);
+                entryTerms[entryTermsSize++] = id;
+                int size = postingSizes[id];
+                // the same term twice in one entry's names
+                if (size > 0 && postings[id][size - 1] == entry) {
+                    continue;
+                }
+                if (size == postings[id].length) {
+                    postings[id] = Arrays.copyOf(postings[id], size * 2);
+                }
+                postings[id][size] = entry;
+                postingSizes[id] = size + 1;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the entries with a term starting with each term of {@code query}, in the order of their terms,
+     * then, if fewer than {@code limit}, those within a few edits of them.
+     */
+    public List<Match> search(String query, int limit) {
+        List<String> queryTerms = terms(query, null);
+        List<Match> matches = new ArrayList<>();
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return matches;
+        }
+        // the longest term has the fewest entries starting with it, the others are checked on those
+        String driver = queryTerms.get(0);
+        for (String term : queryTerms) {
+            if (term.length() > driver.length()) {
+                driver = term;
+            }
+        }
+        List<Prefix> others = new ArrayList<>();
+        for (String term : queryTerms) {
+            if (term != driver) {
+                others.add(new Prefix(term));
+            }
+        }
+        Set<String> found = new HashSet<>();
+        lock.readLock().lock();
+        try {
+            Node node = find(driver);
+            if (node != null) {
+                collect(node, others, found, matches, limit);
+            }
+            if (matches.size() < limit) {
+                for (int term : similarTerms(driver)) {
+                    if (!addEntries(term, others, true, found, matches, limit)) {
+                        break;
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return matches;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return termCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return an estimate of the heap taken by the index, in bytes, for a 64-bit JVM with compressed
+     * references; walks the whole index
+     */
+    public long estimateBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = array(names.length) + 3 * array(4L * firstNameStarts.length) + array(4L * entryTerms.length);
+            bytes += array(4L * terms.length) + array(4L * postings.length) + array(4L * postingSizes.length)
+                    + array(8L * termHeads.length);
+            for (int id = 0; id < termCount; id++) {
+                // the String and its char array
+                bytes += 24 + array(2L * terms[id].length());
+                bytes += array(4L * postings[id].length);
+            }
+            return bytes + nodeBytes(root);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lower-cases {@code text} and strips its accents.
+     */
+    public static String normalize(String text) {
+        boolean ascii = true;
+        for (int i = 0; i < text.length() && ascii; i++) {
+            ascii = text.charAt(i) < 0x80;
+        }
+        if (!ascii) {
+            text = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        }
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    private static List<String> terms(String first, String second) {
+        List<String> terms = new ArrayList<>(4);
+        split(first, terms);
+        split(second, terms);
+        return terms;
+    }
+
+    private static void split(String name, List<String> terms) {
+        if (name == null) {
+            return;
+        }
+        String normalized = normalize(name);
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean letter = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                terms.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+    }
+
+    private int termId(String term) {
+        Node node = root;
+        int i = 0;
+        while (i < term.length()) {
+            int c = Arrays.binarySearch(node.firsts, term.charAt(i));
+            if (c < 0) {
+                Node leaf = new Node(term.substring(i).toCharArray());
+                node.insert(-c - 1, leaf);
+                node = leaf;
+                break;
+            }
+            Node child = node.children[c];
+            int common = commonPrefix(child.label, term, i);
+            if (common < child.label.length) {
+                // the term ends or departs within the child's label: split it
+                Node middle = new Node(Arrays.copyOf(child.label, common));
+                child.label = Arrays.copyOfRange(child.label, common, child.label.length);
+                middle.firsts = new char[]{child.label[0]};
+                middle.children = new Node[]{child};
+                node.children[c] = middle;
+                child = middle;
+            }
+            node = child;
+            i += common;
+        }
+        if (node.term < 0) {
+            node.term = newTerm(term);
+        }
+        return node.term;
+    }
+
+    private int newTerm(String term) {
+        int id = termCount++;
+        if (id == terms.length) {
+            terms = Arrays.copyOf(terms, id * 2);
+            postings = Arrays.copyOf(postings, id * 2);
+            postingSizes = Arrays.copyOf(postingSizes, id * 2);
+            termHeads = Arrays.copyOf(termHeads, id * 2);
+        }
+        terms[id] = term;
+        termHeads[id] = head(term);
+        postings[id] = new int[1];
+        longestTerm = Math.max(longestTerm, term.length());
+        return id;
+    }
+
+    /**
+     * @return the node under which every term starts with {@code prefix}, {@code null} if there is none
+     */
+    private Node find(String prefix) {
+        Node node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            int c = Arrays.binarySearch(node.firsts, prefix.charAt(i));
+            if (c < 0) {
+                return null;
+            }
+            Node child = node.children[c];
+            int common = commonPrefix(child.label, prefix, i);
+            if (i + common == prefix.length()) {
+                return child;
+            }
+            if (common < child.label.length) {
+                return null;
+            }
+            node = child;
+            i += common;
+        }
+        return node;
+    }
+
+    /**
+     * Adds the entries of the terms under {@code node}, in term order.
+     *
+     * @return whether to go on
+     */
+    private boolean collect(Node node, List<Prefix> others, Set<String> found, List<Match> matches, int limit) {
+        if (node.term >= 0 && !addEntries(node.term, others, false, found, matches, limit)) {
+            return false;
+        }
+        for (Node child : node.children) {
+            if (!collect(child, others, found, matches, limit)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return whether to go on
+     */
+    private boolean addEntries(int term, List<Prefix> others, boolean fuzzy, Set<String> found,
+                               List<Match> matches, int limit) {
+        int[] entryIds = postings[term];
+        for (int i = 0; i < postingSizes[term]; i++) {
+            int entry = entryIds[i];
+            if (!others.isEmpty() && !startsAll(entry, others)) {
+                continue;
+            }
+            String lastName = lastName(entry);
+            if (found.add(lastName)) {
+                String firstName = firstName(entry);
+                matches.add(new Match(firstName.isEmpty() ? null : firstName, lastName, fuzzy));
+                if (matches.size() == limit) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return whether each of {@code prefixes} starts one of the terms of {@code entry}
+     */
+    private boolean startsAll(int entry, List<Prefix> prefixes) {
+        int end = entry + 1 < entries ? entryTermStarts[entry + 1] : entryTermsSize;
+        for (Prefix prefix : prefixes) {
+            boolean matched = false;
+            for (int i = entryTermStarts[entry]; i < end && !matched; i++) {
+                int term = entryTerms[i];
+                matched = (termHeads[term] & prefix.mask) == prefix.head
+                        && (prefix.text.length() <= HEAD_CHARS || terms[term].startsWith(prefix.text));
+            }
+            if (!matched) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the ids of the terms within {@link #maxEdits} of {@code term} but not equal to it, closest
+     * first, then in term order, up to {@link #MAX_EXPANSIONS}
+     */
+    private List<Integer> similarTerms(String term) {
+        int maxEdits = maxEdits(term);
+        List<Integer> similar = new ArrayList<>();
+        if (maxEdits == 0) {
+            return similar;
+        }
+        // a row of the distance table per char of the trie path, the first for the empty path
+        int[][] rows = new int[longestTerm + 1][term.length() + 1];
+        // only the cells at most maxEdits off the diagonal can end up within maxEdits: each row holds those,
+        // with one over maxEdits on both sides of them
+        for (int j = 0; j <= Math.min(term.length(), maxEdits + 1); j++) {
+            rows[0][j] = j;
+        }
+        List<List<Integer>> byDistance = new ArrayList<>();
+        for (int distance = 0; distance <= maxEdits; distance++) {
+            byDistance.add(new ArrayList<>());
+        }
+        int first = Arrays.binarySearch(root.firsts, term.charAt(0));
+        if (first >= 0) {
+            walk(root.children[first], term, maxEdits, 0, rows, new char[longestTerm + 1], byDistance);
+        }
+        for (int distance = 1; distance <= maxEdits && similar.size() < MAX_EXPANSIONS; distance++) {
+            List<Integer> terms = byDistance.get(distance);
+            similar.addAll(terms.subList(0, Math.min(terms.size(), MAX_EXPANSIONS - similar.size())));
+        }
+        return similar;
+    }
+
+    /**
+     * Fills the rows of the chars of {@code node}'s label, following those of its parent's path, then
+     * adds its term by distance and walks down its children, unless a row is over {@code maxEdits}.
+     */
+    private static void walk(Node node, String term, int maxEdits, int depth, int[][] rows, char[] path,
+                             List<List<Integer>> byDistance) {
+        int n = term.length();
+        for (char c : node.label) {
+            int[] previous = rows[depth];
+            int[] current = rows[++depth];
+            path[depth] = c;
+            int from = Math.max(1, depth - maxEdits);
+            int to = Math.min(n, depth + maxEdits);
+            current[from - 1] = from == 1 ? depth : maxEdits + 1;
+            int rowMin = current[from - 1];
+            for (int j = from; j <= to; j++) {
+                int cost = term.charAt(j - 1) == c ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (depth > 1 && j > 1 && term.charAt(j - 2) == c && term.charAt(j - 1) == path[depth - 1]) {
+                    value = Math.min(value, rows[depth - 2][j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (to < n) {
+                current[to + 1] = maxEdits + 1;
+            }
+            if (rowMin > maxEdits) {
+                return;
+            }
+        }
+        int distance = Math.abs(depth - n) <= maxEdits ? rows[depth][n] : maxEdits + 1;
+        if (node.term >= 0 && distance <= maxEdits) {
+            byDistance.get(distance).add(node.term);
+        }
+        for (Node child : node.children) {
+            walk(child, term, maxEdits, depth, rows, path, byDistance);
+        }
+    }
+
+    /**
+     * @return the first {@link #HEAD_CHARS} chars of {@code text} packed in a long, the first in the highest
+     * bits, and zeros for the chars it does not have
+     */
+    private static long head(String text) {
+        long head = 0;
+        for (int i = 0; i < HEAD_CHARS; i++) {
+            head = head << 16 | (i < text.length() ? text.charAt(i) : 0);
+        }
+        return head;
+    }
+
+    private static int maxEdits(String term) {
+        return term.length() < 3 ? 0 : term.length() <= 5 ? 1 : 2;
+    }
+
+    private String firstName(int entry) {
+        return new String(names, firstNameStarts[entry], lastNameStarts[entry] - firstNameStarts[entry],
+                StandardCharsets.UTF_8);
+    }
+
+    private String lastName(int entry) {
+        int end = entry + 1 < entries ? firstNameStarts[entry + 1] : namesSize;
+        return new String(names, lastNameStarts[entry], end - lastNameStarts[entry], StandardCharsets.UTF_8);
+    }
+
+    private static int commonPrefix(char[] label, String text, int offset) {
+        int max = Math.min(label.length, text.length() - offset);
+        int i = 0;
+        while (i < max && label[i] == text.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static long nodeBytes(Node node) {
+        long bytes = 32 + array(2L * node.label.length) + array(2L * node.firsts.length) + array(4L * node.children.length);
+        for (Node child : node.children) {
+            bytes += nodeBytes(child);
+        }
+        return bytes;
+    }
+
+    private static long array(long contentBytes) {
+        return (16 + contentBytes + 7) & ~7L;
+    }
+
+    /**
+     * A node of the radix trie, reached from its parent through the chars of its label.
+     */
+    private static final class Node {
+
+        char[] label;
+        // the first char of each child's label, in order, to binary search
+        char[] firsts = NO_CHARS;
+        Node[] children = NO_NODES;
+        int term = -1;
+
+        Node(char[] label) {
+            this.label = label;
+        }
+
+        void insert(int index, Node child) {
+            char[] newFirsts = new char[firsts.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(firsts, 0, newFirsts, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            newFirsts[index] = child.label[0];
+            newChildren[index] = child;
+            System.arraycopy(firsts, index, newFirsts, index + 1, firsts.length - index);
+            System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+            firsts = newFirsts;
+            children = newChildren;
+        }
+    }
+
+    /**
+     * A term of a search that has to start one of an entry's terms, with its {@link #head}.
+     */
+    private static final class Prefix {
+
+        final String text;
+        final long head;
+        // the bits of the head that the prefix sets
+        final long mask;
+
+        Prefix(String text) {
+            this.text = text;
+            this.head = head(text);
+            this.mask = -1L << 16 * Math.max(0, HEAD_CHARS - text.length());
+        }
+    }
+
+    /**
+     * An entry found by a search.
+     */
+    public static final class Match {
+
+        private final String firstName;
+        private final String lastName;
+        private final boolean fuzzy;
+
+        Match(String firstName, String lastName, boolean fuzzy) {
+            this.firstName = firstName;
+            this.lastName = lastName;
+            this.fuzzy = fuzzy;
+        }
+
+        public String getFirstName() {
+            return firstName;
+        }
+
+        public String getLastName() {
+            return lastName;
+        }
+
+        /**
+         * @return whether the entry was found as a misspelling rather than by prefix
+         */
+        public boolean isFuzzy() {
+            return fuzzy;
+        }
+    }
+}
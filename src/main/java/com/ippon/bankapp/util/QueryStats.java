@@ -0,0 +1,72 @@
+package com.ippon.bankapp.util;
+
+/**
+ * What the current thread sent to the database since {@link #open()}: statements executed, rows read and time
+ * spent in the driver, as recorded by a {@link CountingDataSource}. Statements run by other threads on behalf of
+ * the same work, like the ledger engine's or the notification workers', are not counted.
+ * <p>
+ * Not thread-safe: only the thread that opened it records into it.
+ */
+public final class QueryStats implements AutoCloseable {
+
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    private final QueryStats previous;
+    private int statements;
+    private long rows;
+    private long nanos;
+
+    private QueryStats(QueryStats previous) {
+        this.previous = previous;
+    }
+
+    /**
+     * Starts counting for the current thread until {@link #close()}, which goes back to counting for the stats
+     * opened before if any.
+     */
+    public static QueryStats open() {
+        QueryStats stats = new QueryStats(CURRENT.get());
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    /**
+     * @return the stats open on the current thread, {@code null} if none
+     */
+    static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    @Override
+    public void close() {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    void statement(long nanos) {
+        statements++;
+        this.nanos += nanos;
+    }
+
+    void fetch(boolean row, long nanos) {
+        if (row) {
+            rows++;
+        }
+        this.nanos += nanos;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+}
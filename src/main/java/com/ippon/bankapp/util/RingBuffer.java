@@ -0,0 +1,146 @@
+package com.ippon.bankapp.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * A bounded queue of preallocated slots between any number of producers and a single consumer, after the
+ * LMAX disruptor. A producer claims a sequence number with one atomic increment, fills the slot it maps to
+ * and publishes it; the consumer takes the published slots in sequence order, as many at a time as are
+ * ready, and releases them for reuse once done with them. Neither side takes a lock: a producer waits while
+ * the ring is full, the consumer while it is empty.
+ */
+public class RingBuffer<E> {
+
+    private static final long FULL_PAUSE_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+
+    private final E[] slots;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLongArray published;
+    private volatile long released = -1;
+    private volatile Thread waitingConsumer;
+
+    /**
+     * @param size    number of slots, rounded up to a power of two
+     * @param factory creates the object of each slot, reused for every sequence number mapped to it
+     */
+    @SuppressWarnings("unchecked")
+    public RingBuffer(int size, Supplier<E> factory) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Ring size must be positive: " + size);
+        }
+        int capacity = 1;
+        while (capacity < size) {
+            capacity <<= 1;
+        }
+        this.slots = (E[]) new Object[capacity];
+        this.mask = capacity - 1;
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = factory.get();
+            published.set(i, -1);
+        }
+    }
+
+    /**
+     * Claims the next sequence number. Its slot may still be in use: {@link #awaitFree(long, long)} it
+     * before filling it.
+     */
+    public long next() {
+        return claimed.getAndIncrement();
+    }
+
+    /**
+     * Waits until the consumer released what the slot of {@code sequence} held before.
+     *
+     * @return whether it did within {@code timeoutNanos}
+     */
+    public boolean awaitFree(long sequence, long timeoutNanos) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (sequence - slots.length > released) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            LockSupport.parkNanos(FULL_PAUSE_NANOS);
+        }
+        return true;
+    }
+
+    public E get(long sequence) {
+        return slots[(int) sequence & mask];
+    }
+
+    /**
+     * Hands the filled slot of {@code sequence} over to the consumer.
+     */
+    public void publish(long sequence) {
+        published.set((int) sequence & mask, sequence);
+        Thread consumer = waitingConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * Waits for the slot of {@code next} to be published, for the consumer.
+     *
+     * @return the last sequence number published with no gap from {@code next}, {@code next - 1} if none was
+     * within {@code timeoutNanos}
+     */
+    public long awaitPublished(long next, long timeoutNanos) {
+        long last = lastPublished(next);
+        if (last >= next) {
+            return last;
+        }
+        waitingConsumer = Thread.currentThread();
+        try {
+            // checked again once registered: a producer publishing in between would not have unparked us
+            last = lastPublished(next);
+            if (last < next) {
+                LockSupport.parkNanos(this, timeoutNanos);
+                last = lastPublished(next);
+            }
+            return last;
+        } finally {
+            waitingConsumer = null;
+        }
+    }
+
+    /**
+     * Hands the slots up to {@code sequence} back to the producers, for the consumer.
+     */
+    public void release(long sequence) {
+        released = sequence;
+    }
+
+    /**
+     * @return the number of sequence numbers claimed so far, which is the next one to be
+     */
+    public long getClaimed() {
+        return claimed.get();
+    }
+
+    /**
+     * @return the number of claimed sequence numbers the consumer has not released yet
+     */
+    public long getBacklog() {
+        return claimed.get() - released - 1;
+    }
+
+    public int size() {
+        return slots.length;
+    }
+
+    private long lastPublished(long next) {
+        long sequence = next;
+        long bound = next + slots.length;
+        while (sequence < bound && published.get((int) sequence & mask) == sequence) {
+            sequence++;
+        }
+        return sequence - 1;
+    }
+}
@@ -0,0 +1,119 @@
+package com.ippon.bankapp.util;
+
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of locks shared by any number of keys: each key maps to one stripe, so threads working on the
+ * same key queue on the same lock while memory stays bounded. Two keys may share a stripe, which only costs
+ * some needless waiting.
+ * <p>
+ * Locks taken together are always taken in stripe order, so two threads locking the same pair of keys in
+ * opposite orders cannot deadlock. The locks are fair: a hot key serves its waiters in arrival order rather
+ * than letting the thread that just released it barge back in, which bounds the tail latency.
+ */
+public class StripedLock {
+
+    private static final Held NOT_LOCKED = () -> {
+    };
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    /**
+     * @param stripes number of locks, rounded up to a power of two; 0 makes every {@code lock} a no-op
+     */
+    public StripedLock(int stripes) {
+        if (stripes < 0) {
+            throw new IllegalArgumentException("Negative number of stripes: " + stripes);
+        }
+        int size = stripes == 0 ? 0 : 1;
+        while (size < stripes) {
+            size <<= 1;
+        }
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock(true);
+        }
+        this.mask = size - 1;
+    }
+
+    public Held lock(Object key) {
+        if (stripes.length == 0) {
+            return NOT_LOCKED;
+        }
+        ReentrantLock lock = stripes[stripe(key)];
+        lock.lock();
+        return lock::unlock;
+    }
+
+    public Held lock(Object first, Object second) {
+        if (stripes.length == 0) {
+            return NOT_LOCKED;
+        }
+        int a = stripe(first);
+        int b = stripe(second);
+        if (a == b) {
+            return lock(first);
+        }
+        ReentrantLock lower = stripes[Math.min(a, b)];
+        ReentrantLock upper = stripes[Math.max(a, b)];
+        lower.lock();
+        try {
+            upper.lock();
+        } catch (RuntimeException | Error e) {
+            lower.unlock();
+            throw e;
+        }
+        return () -> {
+            upper.unlock();
+            lower.unlock();
+        };
+    }
+
+    /**
+     * Locks the stripes of all {@code keys}, in stripe order like pairs, so this never deadlocks with them.
+     */
+    public Held lockAll(Collection<?> keys) {
+        if (stripes.length == 0) {
+            return NOT_LOCKED;
+        }
+        int[] indexes = keys.stream().mapToInt(this::stripe).distinct().sorted().toArray();
+        int locked = 0;
+        try {
+            for (; locked < indexes.length; locked++) {
+                stripes[indexes[locked]].lock();
+            }
+        } catch (RuntimeException | Error e) {
+            unlock(indexes, locked);
+            throw e;
+        }
+        return () -> unlock(indexes, indexes.length);
+    }
+
+    public int size() {
+        return stripes.length;
+    }
+
+    private void unlock(int[] indexes, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            stripes[indexes[i]].unlock();
+        }
+    }
+
+    int stripe(Object key) {
+        int h = key.hashCode();
+        // spread the high bits, as HashMap does, so keys differing only there do not all share a stripe
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Locks held by the caller, released by {@link #close()}.
+     */
+    @FunctionalInterface
+    public interface Held extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,32 @@
+package com.ippon.bankapp.util;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Thread factories for the application's own threads: daemon platform threads, or virtual threads when
+ * {@code bankapp.virtual-threads.enabled} is set. A virtual thread blocked on a socket, a lock or the connection
+ * pool gives its carrier back, so workers that mostly wait on the database or a provider cost no platform thread.
+ */
+public final class Threads {
+
+    private Threads() {
+    }
+
+    /**
+     * @return a factory of threads all called {@code name}, for single-threaded executors
+     */
+    public static ThreadFactory named(String name, boolean virtual) {
+        return builder(virtual).name(name).factory();
+    }
+
+    /**
+     * @return a factory of threads called {@code prefix-1}, {@code prefix-2}...
+     */
+    public static ThreadFactory numbered(String prefix, boolean virtual) {
+        return builder(virtual).name(prefix + "-", 1).factory();
+    }
+
+    private static Thread.Builder builder(boolean virtual) {
+        return virtual ? Thread.ofVirtual() : Thread.ofPlatform().daemon();
+    }
+}
@@ -0,0 +1,52 @@
+package com.ippon.bankapp.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A token bucket held in a single atomic long, after the generic cell rate algorithm: rather than a token
+ * count refilled over time, it keeps the time at which the bucket would be full again, and taking a token
+ * pushes that time one emission interval further. A request is admitted while that time is at most
+ * {@code burst} intervals ahead of now, with one compare-and-set and no lock.
+ * <p>
+ * Times are {@link System#nanoTime()} values, passed in so callers read the clock once per request.
+ */
+public class TokenBucket {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong fullAt;
+
+    /**
+     * @param ratePerSecond tokens added per second
+     * @param burst         tokens the bucket holds, taken at once by a client idle for long enough
+     * @param nowNanos      creation time, at which the bucket is full
+     */
+    public TokenBucket(double ratePerSecond, int burst, long nowNanos) {
+        if (ratePerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("Rate and burst must be positive: " + ratePerSecond + ", " + burst);
+        }
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000 / ratePerSecond));
+        this.toleranceNanos = intervalNanos * burst;
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes a token if there is one.
+     *
+     * @return 0 if taken, otherwise how long until there is one, in nanoseconds
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = fullAt.get();
+            // a bucket idle for longer than it takes to fill is full, not fuller
+            long next = (current - nowNanos < 0 ? nowNanos : current) + intervalNanos;
+            long ahead = next - nowNanos;
+            if (ahead > toleranceNanos) {
+                return ahead - toleranceNanos;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
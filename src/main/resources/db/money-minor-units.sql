@@ -0,0 +1,14 @@
+-- Moves a database created when amounts were DECIMAL(19, 2) to amounts in minor units (cents) as BIGINT, in
+-- place. Two decimals convert exactly. Run it once, with every instance stopped; journal records hold minor units
+-- already and need nothing. Written for H2 and PostgreSQL.
+
+ALTER TABLE account ADD COLUMN balance_minor BIGINT;
+UPDATE account SET balance_minor = CAST(balance * 100 AS BIGINT);
+ALTER TABLE account DROP COLUMN balance;
+ALTER TABLE account RENAME COLUMN balance_minor TO balance;
+
+ALTER TABLE ledger_entry ADD COLUMN amount_minor BIGINT;
+UPDATE ledger_entry SET amount_minor = CAST(amount * 100 AS BIGINT);
+ALTER TABLE ledger_entry DROP COLUMN amount;
+ALTER TABLE ledger_entry RENAME COLUMN amount_minor TO amount;
+ALTER TABLE ledger_entry ALTER COLUMN amount SET NOT NULL;
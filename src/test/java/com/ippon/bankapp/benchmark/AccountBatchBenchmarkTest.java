@@ -0,0 +1,125 @@
+package com.ippon.bankapp.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ippon.bankapp.repository.AccountRepository;
+import com.ippon.bankapp.repository.OutboxRepository;
+import com.ippon.bankapp.rest.AccountBatchController;
+import com.ippon.bankapp.service.dto.AccountDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Compares rows per second of the bulk creation endpoint with a loop over the single-create endpoint,
+ * both through the full MVC stack against H2. Run with {@code ./mvnw test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "logging.level.org.hibernate.SQL=OFF"})
+public class AccountBatchBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountBatchBenchmarkTest.class);
+
+    private static final int ACCOUNTS = 5_000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @AfterEach
+    public void tearDown() {
+        accountRepository.deleteAll();
+        outboxRepository.deleteAll();
+    }
+
+    @Test
+    public void batchVersusSingleCreates() throws Exception {
+        // warm up both paths
+        single("warmup-a", 1_000);
+        batch("warmup-b", 1_000);
+        ndjson("warmup-c", 1_000);
+        tearDown();
+
+        long single = single("single", ACCOUNTS);
+        long batch = batch("batch", ACCOUNTS);
+        long ndjson = ndjson("ndjson", ACCOUNTS);
+
+        log.info(String.format(Locale.ROOT, "%nsingle creates: %8.0f rows/s" +
+                        "%nJSON batch:     %8.0f rows/s" +
+                        "%nNDJSON batch:   %8.0f rows/s",
+                rowsPerSecond(single), rowsPerSecond(batch), rowsPerSecond(ndjson)));
+        assertThat(accountRepository.count(), is(3L * ACCOUNTS));
+        assertThat(rowsPerSecond(batch) / rowsPerSecond(single), greaterThanOrEqualTo(10.0));
+    }
+
+    private long single(String prefix, int count) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            mockMvc.perform(post("/api/account")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(account(prefix, i))))
+                    .andExpect(status().isCreated());
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long batch(String prefix, int count) throws Exception {
+        long start = System.nanoTime();
+        List<AccountDTO> accounts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            accounts.add(account(prefix, i));
+        }
+        mockMvc.perform(post("/api/accounts/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(accounts)))
+                .andExpect(status().isOk());
+        return System.nanoTime() - start;
+    }
+
+    private long ndjson(String prefix, int count) throws Exception {
+        long start = System.nanoTime();
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            body.append(objectMapper.writeValueAsString(account(prefix, i))).append('\n');
+        }
+        mockMvc.perform(post("/api/accounts/batch")
+                .contentType(AccountBatchController.APPLICATION_NDJSON_VALUE)
+                .content(body.toString()))
+                .andExpect(status().isOk());
+        return System.nanoTime() - start;
+    }
+
+    private static AccountDTO account(String prefix, int i) {
+        return new AccountDTO().firstName("First").lastName(prefix + i);
+    }
+
+    private static double rowsPerSecond(long nanos) {
+        return ACCOUNTS / (nanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,97 @@
+package com.ippon.bankapp.benchmark;
+
+import com.ippon.bankapp.repository.AccountRepository;
+import com.ippon.bankapp.repository.OutboxRepository;
+import com.ippon.bankapp.service.AccountService;
+import com.ippon.bankapp.service.dto.AccountDTO;
+import com.ippon.bankapp.service.exception.AccountLastNameExistsException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares account creation relying on the unique index with the former check-then-insert flow, which
+ * looked the last name up before every insert. Run with {@code ./mvnw test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "logging.level.org.hibernate.engine.jdbc.spi.SqlExceptionHelper=OFF"})
+public class AccountCreateBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountCreateBenchmarkTest.class);
+
+    private static final int ACCOUNTS = 5_000;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @AfterEach
+    public void tearDown() {
+        accountRepository.deleteAll();
+        outboxRepository.deleteAll();
+    }
+
+    @Test
+    public void uniqueIndexVersusCheckThenInsert() {
+        // warm up both paths
+        run("warmup-a", false);
+        run("warmup-b", true);
+        tearDown();
+
+        long checkThenInsert = run("checked", true);
+        long uniqueIndex = run("indexed", false);
+        long conflictsChecked = conflicts("checked", true);
+        long conflictsIndexed = conflicts("indexed", false);
+
+        log.info(String.format(Locale.ROOT, "%ncreate, check then insert:   %8.0f ops/s" +
+                        "%ncreate, unique index:        %8.0f ops/s" +
+                        "%nconflict, check then insert: %8.0f ops/s" +
+                        "%nconflict, unique index:      %8.0f ops/s",
+                opsPerSecond(checkThenInsert), opsPerSecond(uniqueIndex),
+                opsPerSecond(conflictsChecked), opsPerSecond(conflictsIndexed)));
+    }
+
+    private long run(String prefix, boolean checkFirst) {
+        long start = System.nanoTime();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            String lastName = prefix + i;
+            if (checkFirst && accountRepository.findByLastName(lastName).isPresent()) {
+                throw new IllegalStateException(lastName);
+            }
+            accountService.createAccount(new AccountDTO().firstName("First").lastName(lastName));
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long conflicts(String prefix, boolean checkFirst) {
+        long start = System.nanoTime();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            String lastName = prefix + i;
+            if (checkFirst && accountRepository.findByLastName(lastName).isPresent()) {
+                continue;
+            }
+            try {
+                accountService.createAccount(new AccountDTO().firstName("First").lastName(lastName));
+            } catch (AccountLastNameExistsException expected) {
+                // the name was taken by run()
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static double opsPerSecond(long nanos) {
+        return ACCOUNTS / (nanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,115 @@
+package com.ippon.bankapp.benchmark;
+
+import com.ippon.bankapp.repository.AccountRepository;
+import com.ippon.bankapp.service.AccountExportService;
+import com.ippon.bankapp.service.AccountExportService.Format;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ * Exports a few million accounts and checks the heap retained during the export stays flat once the
+ * cursor is open. Run with {@code ./mvnw test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {"spring.jpa.show-sql=false"})
+public class AccountExportMemoryTest {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountExportMemoryTest.class);
+
+    private static final int ACCOUNTS = 2_000_000;
+    private static final int SAMPLE_EVERY_BYTES = 16 * 1024 * 1024;
+    private static final long MAX_RETAINED_GROWTH = 16L * 1024 * 1024;
+    private static final double MB = 1024.0 * 1024;
+
+    @Autowired
+    private AccountExportService accountExportService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.execute("TRUNCATE TABLE account");
+    }
+
+    @Test
+    public void exportKeepsHeapFlat() throws Exception {
+        jdbcTemplate.update("INSERT INTO account (id, first_name, last_name, balance, notification_preference) " +
+                "SELECT x, 'First', CONCAT('Last', x), 10000, 'email' FROM SYSTEM_RANGE(1, ?)", ACCOUNTS);
+
+        for (Format format : Format.values()) {
+            long baseline = retainedHeap();
+            HeapSamplingOutputStream out = new HeapSamplingOutputStream();
+            long start = System.nanoTime();
+
+            long exported = accountExportService.export(format, out);
+
+            long elapsed = System.nanoTime() - start;
+            // the cursor and buffers cost a fixed amount up front; after that the heap must not follow the row count
+            long setup = out.firstRetained - baseline;
+            long growth = out.maxRetained - out.firstRetained;
+            log.info(String.format(Locale.ROOT, "%n%s export: %d rows, %d MB, %.0f rows/s, " +
+                            "retained heap: %.1f MB at first sample, then +%.1f MB",
+                    format, exported, out.bytes >> 20, exported / (elapsed / (double) TimeUnit.SECONDS.toNanos(1)),
+                    setup / MB, growth / MB));
+            assertThat(exported, is((long) ACCOUNTS));
+            assertThat(growth, lessThan(MAX_RETAINED_GROWTH));
+        }
+    }
+
+    private static long retainedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Discards the export, measuring the heap left after a full collection every few megabytes written.
+     */
+    private static class HeapSamplingOutputStream extends OutputStream {
+
+        private long bytes;
+        private long nextSample = SAMPLE_EVERY_BYTES;
+        private long firstRetained;
+        private long maxRetained;
+
+        @Override
+        public void write(int b) {
+            count(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count(len);
+        }
+
+        private void count(int len) {
+            bytes += len;
+            if (bytes >= nextSample) {
+                nextSample += SAMPLE_EVERY_BYTES;
+                long retained = retainedHeap();
+                if (firstRetained == 0) {
+                    firstRetained = retained;
+                }
+                maxRetained = Math.max(maxRetained, retained);
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.ippon.bankapp.benchmark;
+
+import com.ippon.bankapp.repository.AccountRepository;
+import com.ippon.bankapp.repository.ImportCheckpointRepository;
+import com.ippon.bankapp.repository.OutboxRepository;
+import com.ippon.bankapp.service.AccountImportService;
+import com.ippon.bankapp.service.dto.AccountImportResultDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Imports a generated CSV file with a rejected row every thousand rows and reports rows per second. Run with
+ * {@code ./mvnw test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "bankapp.import.directory=target/import-benchmark"})
+public class AccountImportBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountImportBenchmarkTest.class);
+
+    private static final int ROWS = 500_000;
+    private static final Path DIRECTORY = Paths.get("target/import-benchmark");
+
+    @Autowired
+    private AccountImportService accountImportService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private ImportCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        jdbcTemplate.execute("TRUNCATE TABLE account");
+        outboxRepository.deleteAll();
+        checkpointRepository.deleteAll();
+        FileSystemUtils.deleteRecursively(DIRECTORY);
+    }
+
+    @Test
+    public void importCsv() throws Exception {
+        Files.createDirectories(DIRECTORY);
+        try (BufferedWriter writer = Files.newBufferedWriter(DIRECTORY.resolve("accounts.csv"), StandardCharsets.UTF_8)) {
+            writer.write("firstName,lastName,balance,notificationPreference\n");
+            for (int i = 0; i < ROWS; i++) {
+                writer.write(i % 1000 == 0 ? ",Missing" + i + ",0.00,email\n" : "First,Last" + i + ",0.00,email\n");
+            }
+        }
+        long size = Files.size(DIRECTORY.resolve("accounts.csv"));
+
+        AccountImportResultDTO result = accountImportService.importFile("accounts.csv", null, false);
+
+        log.info(String.format(Locale.ROOT, "%nimported %d rows, rejected %d, %.1f MB in %d ms: %.0f rows/s",
+                result.getImported(), result.getRejected(), size / (1024.0 * 1024), result.getElapsedMillis(),
+                result.getRowsPerSecond()));
+        assertThat(result.getImported(), is((long) ROWS - ROWS / 1000));
+        assertThat(accountRepository.count(), is((long) ROWS - ROWS / 1000));
+    }
+}
@@ -0,0 +1,138 @@
+package com.ippon.bankapp.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ippon.bankapp.config.CacheConfiguration;
+import com.ippon.bankapp.repository.AccountRepository;
+import com.ippon.bankapp.repository.OutboxRepository;
+import com.ippon.bankapp.service.AccountBatchService;
+import com.ippon.bankapp.service.dto.AccountDTO;
+import com.ippon.bankapp.service.dto.AccountLookupRequestDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Compares looking up 10k accounts, a tenth of them missing, with one GET each against a single call to
+ * the lookup endpoint, both through the full MVC stack against H2 and with a cold account cache, as a
+ * reconciliation run would find it. Run with {@code ./mvnw test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "logging.level.org.hibernate.SQL=OFF",
+        "bankapp.last-name-filter.enabled=true"})
+public class AccountLookupBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountLookupBenchmarkTest.class);
+
+    private static final int LOOKUPS = 10_000;
+    // one name in MISSING_EVERY has no account
+    private static final int MISSING_EVERY = 10;
+    private static final int RUNS = 3;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AccountBatchService accountBatchService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private final List<String> lastNames = new ArrayList<>(LOOKUPS);
+
+    @BeforeEach
+    public void before() {
+        List<AccountDTO> accounts = new ArrayList<>(LOOKUPS);
+        for (int i = 0; i < LOOKUPS; i++) {
+            String lastName = "Last" + i;
+            lastNames.add(i % MISSING_EVERY == 0 ? "Missing" + i : lastName);
+            accounts.add(new AccountDTO().firstName("First").lastName(lastName));
+        }
+        accountBatchService.createAccounts(accounts);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        accountRepository.deleteAll();
+        outboxRepository.deleteAll();
+        cacheManager.getCache(CacheConfiguration.ACCOUNTS).clear();
+    }
+
+    @Test
+    public void batchedVersusSingleLookups() throws Exception {
+        // the first run of each warms up its path
+        long single = Long.MAX_VALUE;
+        long batched = Long.MAX_VALUE;
+        for (int run = 0; run <= RUNS; run++) {
+            long singleRun = single();
+            long batchedRun = batched();
+            if (run > 0) {
+                single = Math.min(single, singleRun);
+                batched = Math.min(batched, batchedRun);
+            }
+        }
+
+        log.info(String.format(Locale.ROOT, "%n%d lookups, 1 in %d missing, best of %d runs" +
+                        "%nsingle GETs:    %8.1f ms  %8.0f lookups/s" +
+                        "%nbatched lookup: %8.1f ms  %8.0f lookups/s",
+                LOOKUPS, MISSING_EVERY, RUNS,
+                single / 1e6, perSecond(single), batched / 1e6, perSecond(batched)));
+        assertThat((double) single / batched, greaterThanOrEqualTo(10.0));
+    }
+
+    private long single() throws Exception {
+        cacheManager.getCache(CacheConfiguration.ACCOUNTS).clear();
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            mockMvc.perform(get("/api/account/" + lastNames.get(i)))
+                    .andExpect(i % MISSING_EVERY == 0 ? status().isNotFound() : status().isOk());
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long batched() throws Exception {
+        long start = System.nanoTime();
+        mockMvc.perform(post("/api/accounts/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new AccountLookupRequestDTO().lastNames(lastNames))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accounts", hasSize(LOOKUPS - LOOKUPS / MISSING_EVERY)))
+                .andExpect(jsonPath("$.missing", hasSize(LOOKUPS / MISSING_EVERY)));
+        return System.nanoTime() - start;
+    }
+
+    private static double perSecond(long nanos) {
+        return LOOKUPS / (nanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+}
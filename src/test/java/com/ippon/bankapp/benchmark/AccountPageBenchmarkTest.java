@@ -0,0 +1,103 @@
+package com.ippon.bankapp.benchmark;
+
+import com.ippon.bankapp.repository.AccountRepository;
+import com.ippon.bankapp.service.AccountPageToken;
+import com.ippon.bankapp.service.AccountService;
+import com.ippon.bankapp.service.dto.AccountPageDTO;
+import com.ippon.bankapp.service.dto.AccountSummaryDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ * Compares the latency of pages 1 to 10,000 of the keyset listing with the same query paged by OFFSET.
+ * Run with {@code ./mvnw test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        // H2 would otherwise answer a repeated query from its result cache
+        "spring.datasource.url=jdbc:h2:mem:paging;DB_CLOSE_ON_EXIT=FALSE;OPTIMIZE_REUSE_RESULTS=0"})
+public class AccountPageBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountPageBenchmarkTest.class);
+
+    private static final int PAGE_SIZE = 100;
+    private static final int PAGES = 10_000;
+    private static final int[] SAMPLED_PAGES = {1, 10, 100, 1_000, 10_000};
+    private static final int KEYSET_READS = 500;
+    private static final int OFFSET_READS = 20;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.execute("TRUNCATE TABLE account");
+    }
+
+    @Test
+    public void keysetPagesStayFlat() {
+        jdbcTemplate.update("INSERT INTO account (id, first_name, last_name, balance, notification_preference) " +
+                "SELECT x, 'First', CONCAT('Last', x), 10000, 'email' FROM SYSTEM_RANGE(1, ?)", PAGE_SIZE * PAGES);
+
+        StringBuilder report = new StringBuilder();
+        LatencyRecorder firstPage = null;
+        LatencyRecorder lastPage = null;
+        for (int page : SAMPLED_PAGES) {
+            LatencyRecorder keyset = keyset(page);
+            LatencyRecorder offset = offset(page);
+            report.append('\n').append(keyset.summary()).append('\n').append(offset.summary());
+            if (firstPage == null) {
+                firstPage = keyset;
+            }
+            lastPage = keyset;
+        }
+
+        log.info(report.toString());
+        assertThat(lastPage.percentile(50), lessThan(firstPage.percentile(50) * 2));
+    }
+
+    private LatencyRecorder keyset(int page) {
+        String token = page == 1 ? null : AccountPageToken.after(AccountPageToken.Sort.ID,
+                new AccountSummaryDTO((page - 1) * PAGE_SIZE, null, null, null, null)).encode();
+        for (int i = 0; i < KEYSET_READS; i++) {
+            accountService.listAccounts(token, AccountPageToken.Sort.ID, PAGE_SIZE);
+        }
+        LatencyRecorder recorder = new LatencyRecorder("keyset page " + page, KEYSET_READS);
+        for (int i = 0; i < KEYSET_READS; i++) {
+            long start = System.nanoTime();
+            AccountPageDTO result = accountService.listAccounts(token, AccountPageToken.Sort.ID, PAGE_SIZE);
+            recorder.record(System.nanoTime() - start);
+            assertThat(result.getAccounts().get(0).getId(), is((page - 1) * PAGE_SIZE + 1));
+        }
+        return recorder;
+    }
+
+    private LatencyRecorder offset(int page) {
+        PageRequest request = PageRequest.of(page - 1, PAGE_SIZE);
+        LatencyRecorder recorder = new LatencyRecorder("offset page " + page, OFFSET_READS);
+        for (int i = 0; i < OFFSET_READS; i++) {
+            long start = System.nanoTime();
+            accountRepository.findPageAfterId(Integer.MIN_VALUE, request);
+            recorder.record(System.nanoTime() - start);
+        }
+        return recorder;
+    }
+}
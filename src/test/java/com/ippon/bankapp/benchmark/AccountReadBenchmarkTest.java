@@ -0,0 +1,95 @@
+package com.ippon.bankapp.benchmark;
+
+import com.ippon.bankapp.config.CacheConfiguration;
+import com.ippon.bankapp.repository.AccountRepository;
+import com.ippon.bankapp.repository.OutboxRepository;
+import com.ippon.bankapp.service.AccountService;
+import com.ippon.bankapp.service.dto.AccountDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ * Compares the cached and uncached {@code getAccount} read path. Run with {@code ./mvnw test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+public class AccountReadBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountReadBenchmarkTest.class);
+
+    private static final int ACCOUNTS = 1_000;
+    private static final int WARMUP = 20_000;
+    private static final int READS = 50_000;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Cache cache;
+
+    @BeforeEach
+    public void before() {
+        cache = cacheManager.getCache(CacheConfiguration.ACCOUNTS);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountService.createAccount(new AccountDTO().firstName("First").lastName("Last" + i));
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        accountRepository.deleteAll();
+        outboxRepository.deleteAll();
+        cache.clear();
+    }
+
+    @Test
+    public void cachedVersusUncachedReads() {
+        LatencyRecorder uncached = run("getAccount (uncached)", true);
+        LatencyRecorder cached = run("getAccount (cached)", false);
+
+        log.info("\n{}\n{}", uncached.summary(), cached.summary());
+        assertThat(cached.percentile(50), lessThan(uncached.percentile(50)));
+    }
+
+    private LatencyRecorder run(String name, boolean evictFirst) {
+        for (int i = 0; i < WARMUP; i++) {
+            read(evictFirst);
+        }
+        LatencyRecorder recorder = new LatencyRecorder(name, READS);
+        for (int i = 0; i < READS; i++) {
+            recorder.record(read(evictFirst));
+        }
+        return recorder;
+    }
+
+    private long read(boolean evictFirst) {
+        String lastName = "Last" + ThreadLocalRandom.current().nextInt(ACCOUNTS);
+        if (evictFirst) {
+            cache.evict(lastName);
+        }
+        long start = System.nanoTime();
+        accountService.getAccount(lastName);
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,141 @@
+package com.ippon.bankapp.benchmark;
+
+import com.ippon.bankapp.util.NameIndex;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ * Search latency and memory footprint of the account name index over a few million accounts, with
+ * generated names: a few thousand first names and unique last names of two to four syllables. Run with
+ * {@code ./mvnw test -Pbenchmark}.
+ */
+@Tag("benchmark")
+public class AccountSearchBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountSearchBenchmarkTest.class);
+
+    private static final int ACCOUNTS = 2_000_000;
+    private static final int FIRST_NAMES = 5_000;
+    private static final int WARMUP = 20_000;
+    private static final int SEARCHES = 50_000;
+    private static final int LIMIT = 20;
+
+    private static final String[] SYLLABLES = {
+            "an", "ber", "cal", "dor", "el", "fin", "gar", "hol", "is", "jen", "kar", "lin", "mar", "nor", "ol",
+            "per", "quin", "ros", "sal", "tor", "ul", "ven", "wes", "xan", "yor", "zel", "ba", "co", "de", "fa",
+            "go", "hu", "ki", "lo", "mu", "ne", "po", "ri", "su", "ta", "vo", "wi", "ch", "sh", "th", "br", "st",
+            "gr", "ley", "son", "ton", "ham", "ford", "wood", "field", "man", "berg", "stein", "ez", "ski"};
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void searchLatencyAndFootprint() {
+        String[] firstNames = new String[FIRST_NAMES];
+        for (int i = 0; i < FIRST_NAMES; i++) {
+            firstNames[i] = capitalize(name(2 + random.nextInt(2)));
+        }
+        String[] lastNames = new String[ACCOUNTS];
+        Set<String> unique = new HashSet<>(ACCOUNTS * 2);
+        for (int i = 0; i < ACCOUNTS; ) {
+            String lastName = capitalize(name(2 + random.nextInt(3)));
+            if (random.nextInt(20) == 0) {
+                lastName += "-" + capitalize(name(2));
+            }
+            if (unique.add(lastName)) {
+                lastNames[i++] = lastName;
+            }
+        }
+        unique = null;
+        // in the order AccountRepository.streamAllNames rebuilds the index in
+        String[] byLastName = lastNames.clone();
+        Arrays.sort(byLastName);
+
+        System.gc();
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        NameIndex index = new NameIndex();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            index.put(firstNames[random.nextInt(FIRST_NAMES)], byLastName[i]);
+        }
+        long buildMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        System.gc();
+        long heapAfter = usedHeap();
+        long estimated = index.estimateBytes();
+
+        LatencyRecorder prefix = run("prefix", index, i -> {
+            String lastName = lastNames[random.nextInt(ACCOUNTS)];
+            return lastName.substring(0, Math.min(lastName.length(), 2 + random.nextInt(5)));
+        });
+        LatencyRecorder fullName = run("first name + last prefix", index, i -> {
+            String lastName = lastNames[random.nextInt(ACCOUNTS)];
+            return firstNames[random.nextInt(FIRST_NAMES)] + " " + lastName.substring(0, 3);
+        });
+        LatencyRecorder misspelled = run("misspelled last name", index, i -> swapTwoLetters(lastNames[random.nextInt(ACCOUNTS)]));
+        LatencyRecorder missing = run("no match", index, i -> name(2) + "qq");
+
+        log.info(String.format(Locale.ROOT, "%n%d accounts, %d terms, built in %d ms" +
+                        "%nestimated footprint: %6.1f MB (%.0f bytes/account)" +
+                        "%nmeasured heap growth: %6.1f MB" +
+                        "%n%s%n%s%n%s%n%s",
+                index.size(), index.termCount(), buildMillis,
+                estimated / 1e6, estimated / (double) ACCOUNTS, (heapAfter - heapBefore) / 1e6,
+                prefix.summary(), fullName.summary(), misspelled.summary(), missing.summary()));
+        assertThat(prefix.percentile(99), lessThan(TimeUnit.MILLISECONDS.toNanos(1)));
+        assertThat(fullName.percentile(99), lessThan(TimeUnit.MILLISECONDS.toNanos(1)));
+        assertThat(misspelled.percentile(99), lessThan(TimeUnit.MILLISECONDS.toNanos(1)));
+        assertThat(missing.percentile(99), lessThan(TimeUnit.MILLISECONDS.toNanos(1)));
+    }
+
+    private LatencyRecorder run(String name, NameIndex index, IntFunction<String> queries) {
+        for (int i = 0; i < WARMUP; i++) {
+            index.search(queries.apply(i), LIMIT);
+        }
+        LatencyRecorder recorder = new LatencyRecorder(name, SEARCHES);
+        for (int i = 0; i < SEARCHES; i++) {
+            String query = queries.apply(i);
+            long start = System.nanoTime();
+            index.search(query, LIMIT);
+            recorder.record(System.nanoTime() - start);
+        }
+        return recorder;
+    }
+
+    private String name(int syllables) {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < syllables; i++) {
+            name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return name.toString();
+    }
+
+    private String swapTwoLetters(String name) {
+        char[] chars = name.toCharArray();
+        int i = 1 + random.nextInt(chars.length - 2);
+        char swapped = chars[i];
+        chars[i] = chars[i + 1];
+        chars[i + 1] = swapped;
+        return new String(chars);
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
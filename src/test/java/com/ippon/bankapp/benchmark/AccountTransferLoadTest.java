@@ -0,0 +1,207 @@
+package com.ippon.bankapp.benchmark;
+
+import com.ippon.bankapp.config.ApplicationProperties;
+import com.ippon.bankapp.config.CacheConfiguration;
+import com.ippon.bankapp.repository.AccountRepository;
+import com.ippon.bankapp.repository.LedgerEntryRepository;
+import com.ippon.bankapp.repository.OutboxRepository;
+import com.ippon.bankapp.service.AccountService;
+import com.ippon.bankapp.service.LedgerEngine;
+import com.ippon.bankapp.service.LedgerJournal;
+import com.ippon.bankapp.service.LedgerService;
+import com.ippon.bankapp.service.dto.AccountDTO;
+import com.ippon.bankapp.service.exception.ConcurrentBalanceUpdateException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.comparesEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ * Hammers a few hot accounts with concurrent transfers, with the striped locks and with optimistic retries
+ * alone, and checks that no money is created or lost. Run with {@code ./mvnw test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "bankapp.ledger.snapshot-enabled=true",
+        "bankapp.ledger.snapshot-interval=100ms",
+        "logging.level.org.hibernate.engine.jdbc.batch.internal.BatchingBatch=OFF",
+        "logging.level.org.hibernate.engine.jdbc.spi.SqlExceptionHelper=OFF"})
+public class AccountTransferLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountTransferLoadTest.class);
+
+    private static final int HOT_ACCOUNTS = 4;
+    private static final int THREADS = Integer.getInteger("threads", 16);
+    private static final int TRANSFERS_PER_THREAD = 500;
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal("1000000.00");
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private LedgerJournal ledgerJournal;
+
+    @Autowired
+    private LedgerEngine ledgerEngine;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    public void tearDown() {
+        ledgerEntryRepository.deleteAll();
+        accountRepository.deleteAll();
+        outboxRepository.deleteAll();
+        cacheManager.getCache(CacheConfiguration.ACCOUNTS).clear();
+    }
+
+    @Test
+    public void hotAccounts_stripedLocksVersusRetriesAlone() throws Exception {
+        ApplicationProperties retriesOnly = new ApplicationProperties();
+        retriesOnly.getLedger().setLockStripes(0);
+        retriesOnly.getLedger().setMaxAttempts(1_000);
+        MeterRegistry retriesOnlyMeters = new SimpleMeterRegistry();
+        LedgerService unlocked = new LedgerService(accountRepository, ledgerEntryRepository, ledgerJournal,
+                ledgerEngine, entityManager, transactionManager, cacheManager, retriesOnly, retriesOnlyMeters);
+
+        // warm up both paths
+        run("warmup-a", ledgerService, meterRegistry);
+        run("warmup-b", unlocked, retriesOnlyMeters);
+
+        Result striped = run("striped", ledgerService, meterRegistry);
+        Result optimistic = run("optimistic", unlocked, retriesOnlyMeters);
+
+        log.info("\n{}\n{}", striped, optimistic);
+        assertThat(striped.total, comparesEqualTo(OPENING_BALANCE.multiply(BigDecimal.valueOf(HOT_ACCOUNTS))));
+        assertThat(optimistic.total, comparesEqualTo(OPENING_BALANCE.multiply(BigDecimal.valueOf(HOT_ACCOUNTS))));
+        assertThat(striped.failures, is(0L));
+        assertThat(striped.retries, lessThan(Math.max(1, optimistic.retries)));
+    }
+
+    private Result run(String prefix, LedgerService ledger, MeterRegistry meters) throws Exception {
+        List<String> lastNames = new ArrayList<>();
+        for (int i = 0; i < HOT_ACCOUNTS; i++) {
+            String lastName = prefix + i;
+            accountService.createAccount(new AccountDTO().firstName("Hot").lastName(lastName));
+            ledger.deposit(lastName, OPENING_BALANCE);
+            lastNames.add(lastName);
+        }
+        double retriesBefore = meters.counter("account.balance.retries").count();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicLong failures = new AtomicLong();
+        LatencyRecorder latencies = new LatencyRecorder(prefix, THREADS * TRANSFERS_PER_THREAD);
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    int from = random.nextInt(HOT_ACCOUNTS);
+                    int to = (from + 1 + random.nextInt(HOT_ACCOUNTS - 1)) % HOT_ACCOUNTS;
+                    long begin = System.nanoTime();
+                    try {
+                        ledger.transfer(lastNames.get(from), lastNames.get(to), BigDecimal.valueOf(random.nextInt(1, 100)));
+                    } catch (ConcurrentBalanceUpdateException e) {
+                        failures.incrementAndGet();
+                    }
+                    long elapsed = System.nanoTime() - begin;
+                    synchronized (latencies) {
+                        latencies.record(elapsed);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(10, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (String lastName : lastNames) {
+            total = total.add(accountRepository.findByLastName(lastName).map(ledger::balanceOf).get().toBigDecimal());
+        }
+
+        return new Result(latencies, THREADS * TRANSFERS_PER_THREAD / (elapsed / (double) TimeUnit.SECONDS.toNanos(1)),
+                (long) (meters.counter("account.balance.retries").count() - retriesBefore), failures.get(), total);
+    }
+
+    private static class Result {
+
+        final LatencyRecorder latencies;
+        final double throughput;
+        final long retries;
+        final long failures;
+        final BigDecimal total;
+
+        Result(LatencyRecorder latencies, double throughput, long retries, long failures, BigDecimal total) {
+            this.latencies = latencies;
+            this.throughput = throughput;
+            this.retries = retries;
+            this.failures = failures;
+            this.total = total;
+        }
+
+        @Override
+        public String toString() {
+            BigDecimal expected = OPENING_BALANCE.multiply(BigDecimal.valueOf(HOT_ACCOUNTS));
+            return String.format(Locale.ROOT, "%s %8.0f transfers/s retries=%d failures=%d total=%s (%s)",
+                    latencies.summary(), throughput, retries, failures, total.toPlainString(),
+                    total.compareTo(expected) == 0 ? "conserved" : "off by " + total.subtract(expected).toPlainString());
+        }
+    }
+}
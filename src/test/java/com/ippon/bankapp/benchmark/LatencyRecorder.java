@@ -0,0 +1,50 @@
+package com.ippon.bankapp.benchmark;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects per-call latencies for the benchmark tests and reports percentiles.
+ */
+public class LatencyRecorder {
+
+    private final String name;
+    private long[] samples;
+    private int count;
+
+    public LatencyRecorder(String name, int expectedSamples) {
+        this.name = name;
+        this.samples = new long[expectedSamples];
+    }
+
+    public void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+    }
+
+    public long percentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+        return sorted[Math.max(0, Math.min(index, count - 1))];
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public String summary() {
+        return String.format(Locale.ROOT, "%-28s n=%-8d p50=%8.1fus p99=%8.1fus p99.9=%8.1fus",
+                name, count, micros(percentile(50)), micros(percentile(99)), micros(percentile(99.9)));
+    }
+
+    private static double micros(long nanos) {
+        return nanos / (double) TimeUnit.MICROSECONDS.toNanos(1);
+    }
+}
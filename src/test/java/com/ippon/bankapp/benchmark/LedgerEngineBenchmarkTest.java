@@ -0,0 +1,176 @@
+package com.ippon.bankapp.benchmark;
+
+import com.ippon.bankapp.config.ApplicationProperties;
+import com.ippon.bankapp.config.CacheConfiguration;
+import com.ippon.bankapp.domain.Money;
+import com.ippon.bankapp.repository.AccountRepository;
+import com.ippon.bankapp.repository.LedgerEntryRepository;
+import com.ippon.bankapp.service.LedgerEngine;
+import com.ippon.bankapp.service.LedgerJournal;
+import com.ippon.bankapp.service.LedgerService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.comparesEqualTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+/**
+ * Measures transfers between a small set of accounts at 1, 8 and 64 concurrent clients, on the single-writer
+ * engine and on the locking path, and checks that neither creates nor loses money. Each path has its own
+ * accounts: the engine trusts the balances it holds until a write of its own collides. Run with
+ * {@code ./mvnw test -Pbenchmark}; the number of accounts can be changed with {@code -Daccounts=1000}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "bankapp.engine.enabled=true",
+        "logging.level.org.hibernate.engine.jdbc.batch.internal.BatchingBatch=OFF",
+        "logging.level.org.hibernate.engine.jdbc.spi.SqlExceptionHelper=OFF"})
+public class LedgerEngineBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerEngineBenchmarkTest.class);
+
+    private static final int ACCOUNTS = Integer.getInteger("accounts", 100);
+    private static final int TRANSFERS = 6_400;
+    private static final int[] CLIENTS = {1, 8, 64};
+    private static final long OPENING_BALANCE = 1_000_000;
+    private static final int ENGINE_IDS = 1_000_000;
+    private static final int LOCKING_IDS = 2_000_000;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private LedgerJournal ledgerJournal;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.execute("TRUNCATE TABLE ledger_entry");
+        jdbcTemplate.execute("TRUNCATE TABLE account");
+        cacheManager.getCache(CacheConfiguration.ACCOUNTS).clear();
+    }
+
+    @Test
+    public void engineVersusLocking() throws Exception {
+        ApplicationProperties locking = new ApplicationProperties();
+        LedgerEngine disabled = new LedgerEngine(accountRepository, ledgerEntryRepository, entityManager,
+                transactionManager, locking, new SimpleMeterRegistry());
+        LedgerService lockingService = new LedgerService(accountRepository, ledgerEntryRepository, ledgerJournal,
+                disabled, entityManager, transactionManager, cacheManager, locking, new SimpleMeterRegistry());
+        insertAccounts("Engine", ENGINE_IDS);
+        insertAccounts("Locking", LOCKING_IDS);
+
+        run("warmup-a", ledgerService, "Engine", ENGINE_IDS, 8);
+        run("warmup-b", lockingService, "Locking", LOCKING_IDS, 8);
+
+        StringBuilder report = new StringBuilder();
+        double engineAtMost = 0;
+        double lockingAtMost = 0;
+        for (int clients : CLIENTS) {
+            double engine = run("engine, " + clients + " clients", ledgerService, "Engine", ENGINE_IDS, clients);
+            double lock = run("locking, " + clients + " clients", lockingService, "Locking", LOCKING_IDS, clients);
+            report.append(String.format(Locale.ROOT, "%n%2d clients: engine %8.0f transfers/s, locking %8.0f transfers/s",
+                    clients, engine, lock));
+            engineAtMost = engine;
+            lockingAtMost = lock;
+        }
+
+        log.info(report.toString());
+        assertTotal("Engine", ENGINE_IDS);
+        assertTotal("Locking", LOCKING_IDS);
+        assertThat(engineAtMost, greaterThan(lockingAtMost));
+    }
+
+    private void insertAccounts(String prefix, int firstId) {
+        jdbcTemplate.update("INSERT INTO account (id, first_name, last_name, balance, notification_preference) " +
+                "SELECT x, 'First', CONCAT(?, x), ?, 'email' FROM SYSTEM_RANGE(?, ?)",
+                prefix, OPENING_BALANCE * 100, firstId, firstId + ACCOUNTS - 1);
+    }
+
+    private void assertTotal(String prefix, int firstId) {
+        Money total = Money.ZERO;
+        for (int i = 0; i < ACCOUNTS; i++) {
+            total = total.plus(ledgerService.balanceOf(accountRepository.findByLastName(prefix + (firstId + i)).get()));
+        }
+        assertThat(total, comparesEqualTo(Money.of(BigDecimal.valueOf(OPENING_BALANCE * ACCOUNTS))));
+    }
+
+    /**
+     * @return the throughput, in transfers per second
+     */
+    private double run(String name, LedgerService ledger, String prefix, int firstId, int clients) throws Exception {
+        int perClient = Math.max(1, TRANSFERS / clients);
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        CountDownLatch start = new CountDownLatch(1);
+        LatencyRecorder latencies = new LatencyRecorder(name, clients * perClient);
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < clients; t++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < perClient; i++) {
+                    int from = random.nextInt(ACCOUNTS);
+                    int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                    long begin = System.nanoTime();
+                    ledger.transfer(prefix + (firstId + from), prefix + (firstId + to), BigDecimal.valueOf(random.nextInt(1, 100)));
+                    long elapsed = System.nanoTime() - begin;
+                    synchronized (latencies) {
+                        latencies.record(elapsed);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(10, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+        log.info(latencies.summary());
+        return clients * perClient / (elapsed / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,175 @@
+package com.ippon.bankapp.benchmark;
+
+import com.ippon.bankapp.config.CacheConfiguration;
+import com.ippon.bankapp.domain.Money;
+import com.ippon.bankapp.service.AccountService;
+import com.ippon.bankapp.service.BalanceSnapshotter;
+import com.ippon.bankapp.service.LedgerService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.comparesEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ * Grows the ledger to millions of entries and measures, at each size, the latency of reading a balance with
+ * and without snapshots, and the throughput of deposits. Run with {@code ./mvnw test -Pbenchmark}; the sizes
+ * can be changed with {@code -Dhistory=1000000,10000000}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.datasource.url=jdbc:h2:mem:ledger;DB_CLOSE_ON_EXIT=FALSE;OPTIMIZE_REUSE_RESULTS=0"})
+public class LedgerHistoryBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerHistoryBenchmarkTest.class);
+
+    private static final int ACCOUNTS = 1_000;
+    private static final int FIRST_ID = 1_000_000;
+    private static final int READS = 2_000;
+    private static final int WRITERS = 8;
+    private static final int WRITES_PER_WRITER = 500;
+    private static final String HISTORY = System.getProperty("history", "100000,1000000,10000000");
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private BalanceSnapshotter balanceSnapshotter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.execute("TRUNCATE TABLE ledger_entry");
+        jdbcTemplate.execute("TRUNCATE TABLE account");
+        cacheManager.getCache(CacheConfiguration.ACCOUNTS).clear();
+    }
+
+    @Test
+    public void snapshotReadsStayFlat() throws Exception {
+        jdbcTemplate.update("INSERT INTO account (id, first_name, last_name, balance, notification_preference) " +
+                "SELECT x, 'First', CONCAT('Ledger', x), 0, 'email' FROM SYSTEM_RANGE(?, ?)",
+                FIRST_ID, FIRST_ID + ACCOUNTS - 1);
+
+        StringBuilder report = new StringBuilder();
+        LatencyRecorder firstSnapshotRead = null;
+        LatencyRecorder lastSnapshotRead = null;
+        LatencyRecorder lastFullRead = null;
+        for (String size : HISTORY.split(",")) {
+            long entries = Long.parseLong(size.trim());
+            grow(entries);
+
+            // forget the snapshots: every read sums the whole history of its account
+            jdbcTemplate.update("UPDATE account SET balance = 0, balance_sequence = 0");
+            Money fullBalance = accountService.getAccount(lastName(0)).getBalance();
+            LatencyRecorder fullRead = read("full sum, " + entries + " entries");
+
+            long begin = System.nanoTime();
+            balanceSnapshotter.snapshot();
+            long snapshotMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+            cacheManager.getCache(CacheConfiguration.ACCOUNTS).clear();
+            assertThat(accountService.getAccount(lastName(0)).getBalance(), comparesEqualTo(fullBalance));
+            LatencyRecorder snapshotRead = read("snapshot, " + entries + " entries");
+
+            double deposits = write();
+
+            report.append('\n').append(fullRead.summary())
+                    .append('\n').append(snapshotRead.summary())
+                    .append(String.format(Locale.ROOT, "%n  snapshot pass %d ms, %.0f deposits/s", snapshotMillis, deposits));
+            if (firstSnapshotRead == null) {
+                firstSnapshotRead = snapshotRead;
+            }
+            lastSnapshotRead = snapshotRead;
+            lastFullRead = fullRead;
+        }
+
+        log.info(report.toString());
+        assertThat(lastSnapshotRead.percentile(50), lessThan(firstSnapshotRead.percentile(50) * 2));
+        assertThat(lastSnapshotRead.percentile(50), lessThan(lastFullRead.percentile(50)));
+    }
+
+    /**
+     * Appends deposits of 0.01 to every account until the ledger holds about {@code entries}.
+     */
+    private void grow(long entries) {
+        long current = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ledger_entry", Long.class);
+        long perAccount = (entries - current) / ACCOUNTS;
+        if (perAccount <= 0) {
+            return;
+        }
+        Map<Integer, Long> last = new HashMap<>();
+        jdbcTemplate.query("SELECT a.id, COALESCE(MAX(e.sequence), 0) FROM account a " +
+                "LEFT JOIN ledger_entry e ON e.account_id = a.id GROUP BY a.id",
+                row -> { last.put(row.getInt(1), row.getLong(2)); });
+        last.forEach((id, sequence) -> jdbcTemplate.update(
+                "INSERT INTO ledger_entry (account_id, sequence, amount, kind, created_at) " +
+                        "SELECT ?, ? + x, 0.01, 'DEPOSIT', CURRENT_TIMESTAMP() FROM SYSTEM_RANGE(1, ?)",
+                id, sequence, perAccount));
+    }
+
+    private LatencyRecorder read(String name) {
+        Cache cache = cacheManager.getCache(CacheConfiguration.ACCOUNTS);
+        LatencyRecorder latencies = new LatencyRecorder(name, READS);
+        for (int i = 0; i < READS; i++) {
+            String lastName = lastName(ThreadLocalRandom.current().nextInt(ACCOUNTS));
+            cache.evict(lastName);
+            long begin = System.nanoTime();
+            accountService.getAccount(lastName);
+            latencies.record(System.nanoTime() - begin);
+        }
+        return latencies;
+    }
+
+    private double write() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        List<Future<?>> results = new ArrayList<>();
+        long begin = System.nanoTime();
+        for (int t = 0; t < WRITERS; t++) {
+            results.add(executor.submit(() -> {
+                for (int i = 0; i < WRITES_PER_WRITER; i++) {
+                    ledgerService.deposit(lastName(ThreadLocalRandom.current().nextInt(ACCOUNTS)), BigDecimal.ONE);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get(5, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+        return WRITERS * WRITES_PER_WRITER / (elapsed / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private static String lastName(int account) {
+        return "Ledger" + (FIRST_ID + account);
+    }
+}
@@ -0,0 +1,235 @@
+package com.ippon.bankapp.benchmark;
+
+import com.ippon.bankapp.config.ApplicationProperties;
+import com.ippon.bankapp.config.CacheConfiguration;
+import com.ippon.bankapp.repository.AccountRepository;
+import com.ippon.bankapp.repository.JournalCheckpointRepository;
+import com.ippon.bankapp.repository.LedgerEntryRepository;
+import com.ippon.bankapp.service.LedgerEngine;
+import com.ippon.bankapp.service.LedgerJournal;
+import com.ippon.bankapp.service.LedgerService;
+import com.ippon.bankapp.util.Journal;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.FileSystemUtils;
+
+import javax.persistence.EntityManager;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.comparesEqualTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ * Measures concurrent deposits acknowledged once written to the database against deposits acknowledged once
+ * journaled, with the journal replayed into the database in the background, and checks that the replay loses
+ * nothing; then how many synced appends the journal alone sustains as clients share their forces. The test
+ * database lives in memory and never forces anything, so only the journaled deposits are durable here. Run with {@code ./mvnw test -Pbenchmark}; the number of clients can be changed with
+ * {@code -Dthreads=64}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "bankapp.journal.enabled=true",
+        "bankapp.journal.directory=" + LedgerJournalBenchmarkTest.DIRECTORY,
+        "bankapp.journal.replay-interval=10ms"})
+public class LedgerJournalBenchmarkTest {
+
+    static final String DIRECTORY = "target/journal-benchmark";
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerJournalBenchmarkTest.class);
+
+    private static final int ACCOUNTS = 1_000;
+    private static final int FIRST_ID = 1_000_000;
+    private static final int THREADS = Integer.getInteger("threads", 16);
+    private static final int DEPOSITS_PER_THREAD = 1_000;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private JournalCheckpointRepository journalCheckpointRepository;
+
+    @Autowired
+    private LedgerEngine ledgerEngine;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    public static void clearJournal() throws IOException {
+        FileSystemUtils.deleteRecursively(Paths.get(DIRECTORY));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.execute("TRUNCATE TABLE ledger_entry");
+        jdbcTemplate.execute("TRUNCATE TABLE account");
+        cacheManager.getCache(CacheConfiguration.ACCOUNTS).clear();
+    }
+
+    @Test
+    public void journaledDepositsVersusDatabaseDeposits() throws Exception {
+        jdbcTemplate.update("INSERT INTO account (id, first_name, last_name, balance, notification_preference) " +
+                "SELECT x, 'First', CONCAT('Journal', x), 0, 'email' FROM SYSTEM_RANGE(?, ?)",
+                FIRST_ID, FIRST_ID + ACCOUNTS - 1);
+        LedgerJournal disabled = new LedgerJournal(journalCheckpointRepository, new ApplicationProperties(),
+                new SimpleMeterRegistry());
+        LedgerService database = new LedgerService(accountRepository, ledgerEntryRepository, disabled,
+                ledgerEngine, entityManager, transactionManager, cacheManager, new ApplicationProperties(), new SimpleMeterRegistry());
+
+        // the two services do not share their locks: the database one must not run while the journal replays
+        run("warmup-a", database);
+        run("warmup-b", ledgerService);
+        drainJournal();
+
+        Result direct = run("database", database);
+        double syncsBefore = meterRegistry.get("journal.syncs").functionCounter().count();
+        Result journaled = run("journaled", ledgerService);
+        double syncs = meterRegistry.get("journal.syncs").functionCounter().count() - syncsBefore;
+        long drainMillis = drainJournal();
+
+        log.info("\n{}\n{}\n  {} deposits per sync, backlog written to the database {} ms after the last deposit",
+                direct, journaled, String.format(Locale.ROOT, "%.1f", THREADS * DEPOSITS_PER_THREAD / syncs), drainMillis);
+        BigDecimal expected = BigDecimal.valueOf(4L * THREADS * DEPOSITS_PER_THREAD);
+        assertThat(jdbcTemplate.queryForObject("SELECT SUM(amount) FROM ledger_entry", BigDecimal.class),
+                comparesEqualTo(expected));
+        assertThat(syncs, lessThan((double) THREADS * DEPOSITS_PER_THREAD));
+    }
+
+    @Test
+    public void groupCommit_scalesWithClients() throws Exception {
+        StringBuilder report = new StringBuilder();
+        double single = 0;
+        double most = 0;
+        for (int clients : new int[]{1, 16, 64}) {
+            Path directory = Files.createTempDirectory(Paths.get("target"), "journal-group-commit");
+            try (Journal journal = Journal.open(directory, 64 * 1024 * 1024, Duration.ZERO)) {
+                int appends = clients == 1 ? 2_000 : 500;
+                byte[] payload = new byte[48];
+                ExecutorService executor = Executors.newFixedThreadPool(clients);
+                List<Future<?>> results = new ArrayList<>();
+                long begin = System.nanoTime();
+                for (int t = 0; t < clients; t++) {
+                    results.add(executor.submit(() -> {
+                        for (int i = 0; i < appends; i++) {
+                            journal.sync(journal.append(payload));
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> result : results) {
+                    result.get(5, TimeUnit.MINUTES);
+                }
+                double throughput = clients * appends / ((System.nanoTime() - begin) / (double) TimeUnit.SECONDS.toNanos(1));
+                executor.shutdown();
+                report.append(String.format(Locale.ROOT, "%n%3d clients %8.0f synced appends/s, %.1f per sync",
+                        clients, throughput, clients * appends / (double) journal.getSyncs()));
+                single = clients == 1 ? throughput : single;
+                most = throughput;
+            } finally {
+                FileSystemUtils.deleteRecursively(directory);
+            }
+        }
+        log.info(report.toString());
+        assertThat(most, greaterThan(single));
+    }
+
+    /**
+     * @return how long the background replay took to write the journal backlog to the database, in ms
+     */
+    private long drainJournal() throws InterruptedException {
+        long begin = System.nanoTime();
+        while (meterRegistry.get("journal.backlog").gauge().value() > 0) {
+            Thread.sleep(10);
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+    }
+
+    private Result run(String name, LedgerService ledger) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        LatencyRecorder latencies = new LatencyRecorder(name, THREADS * DEPOSITS_PER_THREAD);
+        List<Future<?>> results = new ArrayList<>();
+        long begin = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            results.add(executor.submit(() -> {
+                for (int i = 0; i < DEPOSITS_PER_THREAD; i++) {
+                    String lastName = "Journal" + (FIRST_ID + ThreadLocalRandom.current().nextInt(ACCOUNTS));
+                    long start = System.nanoTime();
+                    ledger.deposit(lastName, BigDecimal.ONE);
+                    long elapsed = System.nanoTime() - start;
+                    synchronized (latencies) {
+                        latencies.record(elapsed);
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get(5, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+        return new Result(latencies, THREADS * DEPOSITS_PER_THREAD / (elapsed / (double) TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    private static class Result {
+
+        final LatencyRecorder latencies;
+        final double throughput;
+
+        Result(LatencyRecorder latencies, double throughput) {
+            this.latencies = latencies;
+            this.throughput = throughput;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s %8.0f deposits/s", latencies.summary(), throughput);
+        }
+    }
+}
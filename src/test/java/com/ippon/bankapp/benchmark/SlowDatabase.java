@@ -0,0 +1,87 @@
+package com.ippon.bankapp.benchmark;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Makes the in-memory database answer like one across the network: each statement executed sleeps for the given
+ * round trip first. A request then spends most of its time waiting on the database, as it would in production,
+ * which is what holds a platform thread and what a virtual thread gives back its carrier for, unless a monitor
+ * held around the statement pins it. A bean post-processor, for the tests to declare as a bean and the load runner
+ * to add to the context before it starts.
+ * <p>
+ * Unwrapping goes to the wrapped data source, so the Hikari pool and its metrics stay reachable.
+ */
+public class SlowDatabase implements BeanPostProcessor {
+
+    private final long latencyNanos;
+
+    public SlowDatabase(Duration latency) {
+        this.latencyNanos = latency.toNanos();
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource)) {
+            return bean;
+        }
+        return proxy(DataSource.class, bean, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            return result instanceof Connection ? connection((Connection) result) : result;
+        });
+    }
+
+    private Connection connection(Connection connection) {
+        return proxy(Connection.class, connection, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            if (result instanceof Statement && method.getReturnType().isInterface()) {
+                return statement(method.getReturnType(), result);
+            }
+            return result;
+        });
+    }
+
+    private Object statement(Class<?> type, Object statement) {
+        return proxy(type, statement, (target, method, args) -> {
+            if (method.getName().startsWith("execute")) {
+                Thread.sleep(latencyNanos / 1_000_000, (int) (latencyNanos % 1_000_000));
+            }
+            return invoke(target, method, args);
+        });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<?> type, Object target, Handler handler) {
+        return (T) Proxy.newProxyInstance(SlowDatabase.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            return handler.handle(target, method, args);
+                    }
+                });
+    }
+
+    private interface Handler {
+
+        Object handle(Object target, Method method, Object[] args) throws Throwable;
+    }
+}
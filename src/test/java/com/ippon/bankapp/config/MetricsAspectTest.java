@@ -0,0 +1,121 @@
+package com.ippon.bankapp.config;
+
+import com.ippon.bankapp.service.AccountLookupService;
+import com.ippon.bankapp.service.LastNameFilter;
+import com.ippon.bankapp.service.LedgerService;
+import com.ippon.bankapp.service.exception.LookupTooLargeException;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+class MetricsAspectTest {
+
+    /**
+     * A request goes through about four timed calls: its service, and a few repository queries or a
+     * notification channel.
+     */
+    private static final int TIMED_CALLS_PER_REQUEST = 4;
+
+    private static final long BUDGET_PER_REQUEST_NANOS = TimeUnit.MICROSECONDS.toNanos(20);
+
+    private static final int ROUNDS = 20;
+
+    private static final int CALLS_PER_ROUND = 20_000;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final AccountLookupService service = new AccountLookupService(mock(LedgerService.class),
+            mock(LastNameFilter.class), lookupOfAtMost(1));
+
+    @Test
+    public void serviceCall_timedByClassMethodAndException() {
+        AccountLookupService timed = timed(service);
+
+        timed.lookup(Collections.emptyList());
+        assertThrows(LookupTooLargeException.class, () -> timed.lookup(Collections.nCopies(2, "Scott")));
+
+        assertThat(calls("none"), is(1L));
+        assertThat(calls("LookupTooLargeException"), is(1L));
+    }
+
+    @Test
+    public void timing_withinBudget() {
+        AccountLookupService timed = timed(service);
+        List<String> nothing = Collections.emptyList();
+        long direct = Long.MAX_VALUE;
+        long proxied = Long.MAX_VALUE;
+        // the fastest round of each, so the pauses of a shared machine do not count
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < CALLS_PER_ROUND; i++) {
+                service.lookup(nothing);
+            }
+            direct = Math.min(direct, (System.nanoTime() - start) / CALLS_PER_ROUND);
+            start = System.nanoTime();
+            for (int i = 0; i < CALLS_PER_ROUND; i++) {
+                timed.lookup(nothing);
+            }
+            proxied = Math.min(proxied, (System.nanoTime() - start) / CALLS_PER_ROUND);
+        }
+
+        assertThat((proxied - direct) * TIMED_CALLS_PER_REQUEST, lessThan(BUDGET_PER_REQUEST_NANOS));
+    }
+
+    @Test
+    public void disabled_noAspect() {
+        new ApplicationContextRunner()
+                .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+                .withUserConfiguration(MetricsAspect.class)
+                .withPropertyValues("bankapp.metrics.enabled=false")
+                .run(context -> assertThat(context.getBeansOfType(MetricsAspect.class).isEmpty(), is(true)));
+    }
+
+    /**
+     * Proxies {@code target} like Spring does, with timers distributed like in {@code application.yml}.
+     */
+    private <T> T timed(T target) {
+        meterRegistry.config().meterFilter(new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                return DistributionStatisticConfig.builder()
+                        .percentiles(0.5, 0.95, 0.99)
+                        .percentilesHistogram(true)
+                        .build()
+                        .merge(config);
+            }
+        });
+        AspectJProxyFactory proxy = new AspectJProxyFactory(target);
+        proxy.setProxyTargetClass(true);
+        proxy.addAspect(new MetricsAspect(meterRegistry));
+        return proxy.getProxy();
+    }
+
+    private long calls(String exception) {
+        return meterRegistry.get(MetricsAspect.SERVICE_TIMER)
+                .tag("class", "AccountLookupService")
+                .tag("method", "lookup")
+                .tag("exception", exception)
+                .timer().count();
+    }
+
+    private static ApplicationProperties lookupOfAtMost(int lastNames) {
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getLookup().setMaxLastNames(lastNames);
+        return properties;
+    }
+}
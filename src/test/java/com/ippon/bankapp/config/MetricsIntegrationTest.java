@@ -0,0 +1,85 @@
+package com.ippon.bankapp.config;
+
+import com.ippon.bankapp.repository.AccountRepository;
+import com.ippon.bankapp.service.NotificationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMetrics
+@AutoConfigureMockMvc
+@SpringBootTest
+public class MetricsIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    @Qualifier("email")
+    private NotificationService email;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @AfterEach
+    public void tearDown() {
+        accountRepository.deleteAll();
+        cacheManager.getCache(CacheConfiguration.ACCOUNTS).clear();
+    }
+
+    @Test
+    @Sql("classpath:sql/account_insert.sql")
+    public void prometheus_endpointsServicesRepositoriesChannelsAndPool() throws Exception {
+        mockMvc.perform(get("/api/account/Scott")).andExpect(status().isOk());
+        mockMvc.perform(post("/api/accounts/lookup").contentType(APPLICATION_JSON).content("{\"lastNames\":[\"Doe\"]}"))
+                .andExpect(status().isOk());
+        email.sendMessage("bank", "Scott", "Hello", "Hello");
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertSeries(scrape, "http_server_requests_seconds_count", "uri=\"/api/account/{lastName}\"", "status=\"200\"");
+        assertSeries(scrape, "http_server_requests_seconds", "uri=\"/api/account/{lastName}\"", "quantile=\"0.99\"");
+        assertSeries(scrape, "service_calls_seconds_count", "class=\"AccountService\"", "method=\"getAccount\"",
+                "exception=\"none\"");
+        assertSeries(scrape, "service_calls_seconds", "class=\"AccountLookupService\"", "method=\"lookup\"",
+                "quantile=\"0.95\"");
+        assertSeries(scrape, "service_calls_seconds_bucket", "class=\"AccountService\"", "le=");
+        assertSeries(scrape, "repository_calls_seconds_count", "repository=\"AccountRepository\"",
+                "method=\"findByLastName\"");
+        assertSeries(scrape, "repository_calls_seconds_count", "repository=\"AccountRepository\"",
+                "method=\"findSummariesByLastNameIn\"");
+        assertSeries(scrape, "notification_sends_seconds_count", "channel=\"email\"", "method=\"sendMessage\"");
+        assertSeries(scrape, "hikaricp_connections_acquire_seconds", "quantile=\"0.99\"");
+        assertSeries(scrape, "hikaricp_connections_usage_seconds_count");
+        assertSeries(scrape, "hikaricp_connections_active");
+        assertSeries(scrape, "hikaricp_connections_pending");
+    }
+
+    private static void assertSeries(String scrape, String name, String... labels) {
+        boolean found = Arrays.stream(scrape.split("\n"))
+                .filter(line -> line.startsWith(name + "{"))
+                .anyMatch(line -> Arrays.stream(labels).allMatch(line::contains));
+        assertThat(name + " " + Arrays.toString(labels), found, is(true));
+    }
+}
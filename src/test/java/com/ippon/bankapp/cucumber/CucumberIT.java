@@ -5,6 +5,6 @@ import io.cucumber.junit.CucumberOptions;
 import org.junit.runner.RunWith;
 
 @RunWith(Cucumber.class)
-@CucumberOptions(plugin = "pretty", features = "src/test/features")
+@CucumberOptions(plugin = "pretty", features = "src/test/features", glue = "com.ippon.bankapp.cucumber.stepdef")
 public class CucumberIT {
 }
@@ -0,0 +1,13 @@
+package com.ippon.bankapp.cucumber;
+
+import io.cucumber.junit.Cucumber;
+import io.cucumber.junit.CucumberOptions;
+import org.junit.runner.RunWith;
+
+/**
+ * The same features as {@link CucumberIT}, against the {@code reactive} profile.
+ */
+@RunWith(Cucumber.class)
+@CucumberOptions(plugin = "pretty", features = "src/test/features", glue = "com.ippon.bankapp.cucumber.reactive")
+public class ReactiveCucumberIT {
+}
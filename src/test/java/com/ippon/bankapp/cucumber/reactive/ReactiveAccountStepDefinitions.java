@@ -0,0 +1,51 @@
+package com.ippon.bankapp.cucumber.reactive;
+
+import com.ippon.bankapp.domain.Money;
+import com.ippon.bankapp.service.dto.AccountDTO;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class ReactiveAccountStepDefinitions {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    private AccountDTO currentAccount;
+
+    @When("A Person {string} {string} creates an account")
+    public void thatAPersonIsCreated(String first, String last) {
+        AccountDTO accountDTO = webTestClient
+                .post().uri("/api/account")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{" +
+                        "\"firstName\" : \"" + first + "\"," +
+                        "\"lastName\" : \"" + last + "\"" +
+                        "}")
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(AccountDTO.class)
+                .returnResult()
+                .getResponseBody();
+        currentAccount = accountDTO;
+
+        assertThat(accountDTO.getFirstName(), is(first));
+        assertThat(accountDTO.getLastName(), is(last));
+        assertThat(accountDTO.getBalance(), is(Money.ZERO));
+        assertThat(accountDTO.getNotificationPreference(), is("email"));
+    }
+
+    @Then("the account has {double} balance")
+    public void theAccountHasBalance(double balance) {
+        webTestClient
+                .get().uri("/api/account/" + currentAccount.getLastName())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.balance").isEqualTo(balance);
+    }
+}
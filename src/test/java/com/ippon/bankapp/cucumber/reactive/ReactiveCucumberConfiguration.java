@@ -0,0 +1,16 @@
+package com.ippon.bankapp.cucumber.reactive;
+
+import com.ippon.bankapp.BankappApplication;
+import io.cucumber.spring.CucumberContextConfiguration;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+
+@SpringBootTest(properties = "spring.main.web-application-type=reactive")
+@ActiveProfiles("reactive")
+@AutoConfigureWebTestClient
+@CucumberContextConfiguration
+@ContextConfiguration(classes = BankappApplication.class)
+public class ReactiveCucumberConfiguration {
+}
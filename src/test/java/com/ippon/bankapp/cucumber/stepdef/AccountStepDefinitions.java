@@ -1,7 +1,9 @@
 package com.ippon.bankapp.cucumber.stepdef;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ippon.bankapp.domain.Money;
 import com.ippon.bankapp.rest.AccountController;
+import com.ippon.bankapp.rest.QueryStatsFilter;
 import com.ippon.bankapp.service.dto.AccountDTO;
 import io.cucumber.java.Before;
 import io.cucumber.java.en.Then;
@@ -9,12 +11,13 @@ import io.cucumber.java.en.When;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
-import java.math.BigDecimal;
 
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
-import static org.junit.Assert.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -27,12 +30,16 @@ public class AccountStepDefinitions {
     @Autowired
     private AccountController accountController;
 
+    @Autowired
+    private QueryStatsFilter queryStatsFilter;
+
     private AccountDTO currentAccount;
 
     @Before
     public void before() {
         mockMvc = MockMvcBuilders
                 .standaloneSetup(accountController)
+                .addFilters(queryStatsFilter)
                 .build();
     }
 
@@ -55,7 +62,7 @@ public class AccountStepDefinitions {
 
         assertThat(accountDTO.getFirstName(), is(first));
         assertThat(accountDTO.getLastName(), is(last));
-        assertThat(accountDTO.getBalance(), is(BigDecimal.ZERO));
+        assertThat(accountDTO.getBalance(), is(Money.ZERO));
         assertThat(accountDTO.getNotificationPreference(), is("email"));
     }
 
@@ -64,8 +71,17 @@ public class AccountStepDefinitions {
         mockMvc
                 .perform(get("/api/account/" + currentAccount.getLastName()))
                 .andExpect(status().isOk())
-            .andExpect(jsonPath("$.balance").value(balance));
+            .andExpect(jsonPath("$.balance").value(balance))
+            .andExpect(statementsAtMost(2));
 
     }
 
+    /**
+     * Checks the statements counted by the {@link QueryStatsFilter}, on top of the endpoint's own budget.
+     */
+    private static ResultMatcher statementsAtMost(int statements) {
+        return result -> assertThat(
+                Integer.parseInt(result.getResponse().getHeader(QueryStatsFilter.STATEMENTS_HEADER)),
+                lessThanOrEqualTo(statements));
+    }
 }
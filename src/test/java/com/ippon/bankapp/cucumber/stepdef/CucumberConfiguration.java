@@ -1,4 +1,4 @@
-package com.ippon.bankapp.cucumber;
+package com.ippon.bankapp.cucumber.stepdef;
 
 import com.ippon.bankapp.BankappApplication;
 import io.cucumber.java.Before;
@@ -0,0 +1,120 @@
+package com.ippon.bankapp.domain;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.ippon.bankapp.service.dto.AccountDTO;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MoneyTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void of_readsMinorUnits() {
+        assertThat(Money.of(new BigDecimal("120.5")).getMinorUnits(), is(12050L));
+        assertThat(Money.of(new BigDecimal("1E+3")).getMinorUnits(), is(100000L));
+        assertThat(Money.of(new BigDecimal("-0.07")).getMinorUnits(), is(-7L));
+        assertThat(Money.of(new BigDecimal("3"), Currency.getInstance("JPY")).getMinorUnits(), is(3L));
+    }
+
+    @Test
+    public void of_moreDecimalsThanTheCurrencyOrOutOfRange_rejected() {
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("0.001")));
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("0.5"), Currency.getInstance("JPY")));
+        assertThrows(ArithmeticException.class, () -> Money.of(BigDecimal.valueOf(Long.MAX_VALUE, 1)));
+    }
+
+    @Test
+    public void parse_sameAsBigDecimal() {
+        for (String text : new String[]{"0", "-0.07", "+3", "007.10", "1.230", "120.", ".5", "-92233720368547758.08"}) {
+            assertThat(text, parse(text), is(Money.of(new BigDecimal(text))));
+        }
+        assertThrows(ArithmeticException.class, () -> parse("1.231"));
+        assertThrows(ArithmeticException.class, () -> parse("92233720368547758.08"));
+        assertThrows(NumberFormatException.class, () -> parse("1E+3"));
+        assertThrows(NumberFormatException.class, () -> parse("."));
+        assertThrows(NumberFormatException.class, () -> parse("-"));
+        assertThrows(NumberFormatException.class, () -> parse("1.2.3"));
+    }
+
+    @Test
+    public void arithmetic_overflow_rejected() {
+        Money max = Money.ofMinor(Long.MAX_VALUE);
+        Money min = Money.ofMinor(Long.MIN_VALUE);
+
+        assertThrows(ArithmeticException.class, () -> max.plus(Money.ofMinor(1)));
+        assertThrows(ArithmeticException.class, () -> min.minus(Money.ofMinor(1)));
+        assertThrows(ArithmeticException.class, min::negate);
+        assertThat(max.plus(Money.ofMinor(-1)).getMinorUnits(), is(Long.MAX_VALUE - 1));
+    }
+
+    @Test
+    public void arithmetic_otherCurrency_rejected() {
+        Money dollar = Money.ofMinor(100, Currency.getInstance("USD"));
+
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(100).plus(dollar));
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(100).compareTo(dollar));
+    }
+
+    @Test
+    public void compareAndEquals_byAmount() {
+        assertThat(Money.ofMinor(-5).compareTo(Money.ZERO), lessThan(0));
+        assertThat(Money.of(new BigDecimal("7.5")), is(Money.of(new BigDecimal("7.50"))));
+        assertThat(Money.ofMinor(0).signum(), is(0));
+    }
+
+    @Test
+    public void toString_plainWithTheCurrencyDecimals() {
+        assertThat(Money.ZERO.toString(), is("0.00"));
+        assertThat(Money.ofMinor(5).toString(), is("0.05"));
+        assertThat(Money.ofMinor(-12030).toString(), is("-120.30"));
+        assertThat(Money.ofMinor(Long.MIN_VALUE).toString(), is("-92233720368547758.08"));
+        assertThat(Money.ofMinor(Long.MIN_VALUE).toBigDecimal(), is(new BigDecimal("-92233720368547758.08")));
+        assertThat(Money.ofMinor(3, Currency.getInstance("JPY")).toString(), is("3"));
+        assertThat(Money.ofMinor(5, Currency.getInstance("BHD")).toString(), is("0.005"));
+    }
+
+    @Test
+    public void json_sameAsBigDecimal() throws Exception {
+        AccountDTO account = new AccountDTO().lastName("Scott").balance(Money.of(new BigDecimal("120.50")));
+
+        String json = objectMapper.writeValueAsString(account);
+
+        assertThat(json, is("{\"firstName\":null,\"lastName\":\"Scott\",\"balance\":120.50,\"notificationPreference\":null}"));
+        assertThat(objectMapper.readValue(json, AccountDTO.class).getBalance(), is(Money.ofMinor(12050)));
+        assertThat(objectMapper.readValue("{\"balance\":7}", AccountDTO.class).getBalance(), is(Money.ofMinor(700)));
+        assertThat(objectMapper.readValue("{\"balance\":\" 0.5\"}", AccountDTO.class).getBalance(), is(Money.ofMinor(50)));
+        assertThat(objectMapper.readValue("{\"balance\":1E+3}", AccountDTO.class).getBalance(), is(Money.ofMinor(100000)));
+        assertThat(objectMapper.readValue("{\"balance\":null}", AccountDTO.class).getBalance(), is((Money) null));
+    }
+
+    @Test
+    public void json_moreDecimalsThanTheCurrency_rejected() {
+        assertThrows(InvalidFormatException.class, () -> objectMapper.readValue("{\"balance\":0.001}", AccountDTO.class));
+        assertThrows(InvalidFormatException.class, () -> objectMapper.readValue("{\"balance\":\"ten\"}", AccountDTO.class));
+    }
+
+    @Test
+    public void converter_storesMinorUnits() {
+        MoneyConverter converter = new MoneyConverter();
+
+        assertThat(converter.convertToDatabaseColumn(Money.ofMinor(-250)), is(-250L));
+        assertThat(converter.convertToEntityAttribute(14532L), is(Money.of(new BigDecimal("145.32"))));
+        assertThat(converter.convertToEntityAttribute(null), is((Money) null));
+        assertThrows(IllegalArgumentException.class,
+                () -> converter.convertToDatabaseColumn(Money.ofMinor(1, Currency.getInstance("USD"))));
+    }
+
+    private static Money parse(String text) {
+        char[] padded = (" " + text + " ").toCharArray();
+        return Money.parse(padded, 1, text.length());
+    }
+}
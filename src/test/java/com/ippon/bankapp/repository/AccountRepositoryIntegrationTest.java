@@ -1,6 +1,7 @@
 package com.ippon.bankapp.repository;
 
 import com.ippon.bankapp.domain.Account;
+import com.ippon.bankapp.domain.Money;
 import com.ippon.bankapp.service.exception.AccountNotFoundException;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
@@ -8,11 +9,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.jdbc.Sql;
 
-import java.math.BigDecimal;
 import java.util.Optional;
 
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
-import static org.junit.Assert.assertThat;
 
 @SpringBootTest
 public class AccountRepositoryIntegrationTest {
@@ -54,7 +54,7 @@ public class AccountRepositoryIntegrationTest {
                 .orElseThrow(AccountNotFoundException::new);
 
         assertThat(result.getId(), is(-10));
-        assertThat(result.getBalance(), is(BigDecimal.valueOf(145.32)));
+        assertThat(result.getBalance(), is(Money.ofMinor(14532)));
         assertThat(result.getFirstName(), is("Ben"));
         assertThat(result.getLastName(), is("Scott"));
         assertThat(result.getNotificationPreference(), is("email"));
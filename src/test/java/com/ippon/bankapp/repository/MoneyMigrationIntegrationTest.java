@@ -0,0 +1,43 @@
+package com.ippon.bankapp.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Runs the migration to amounts in minor units on tables as they were created before it.
+ */
+class MoneyMigrationIntegrationTest {
+
+    @Test
+    public void migrate_convertsBalancesAndEntries() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:money-migration;DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE account (id INT PRIMARY KEY, balance DECIMAL(19, 2), " +
+                "balance_sequence BIGINT DEFAULT 0 NOT NULL, last_name VARCHAR(255))");
+        jdbcTemplate.execute("CREATE TABLE ledger_entry (account_id INT NOT NULL, sequence BIGINT NOT NULL, " +
+                "amount DECIMAL(19, 2) NOT NULL, kind VARCHAR(16) NOT NULL, PRIMARY KEY (account_id, sequence))");
+        jdbcTemplate.update("INSERT INTO account (id, balance, balance_sequence, last_name) " +
+                "VALUES (1, 145.32, 2, 'Scott'), (2, NULL, 0, 'Doe'), (3, 0.07, 0, 'Bayern')");
+        jdbcTemplate.update("INSERT INTO ledger_entry VALUES (1, 1, 150.00, 'DEPOSIT'), (1, 2, -4.68, 'WITHDRAWAL'), " +
+                "(1, 3, -0.01, 'TRANSFER')");
+
+        new ResourceDatabasePopulator(new ClassPathResource("db/money-minor-units.sql")).execute(dataSource);
+
+        assertThat(jdbcTemplate.queryForList("SELECT balance FROM account ORDER BY id", Long.class),
+                contains(14532L, null, 7L));
+        assertThat(jdbcTemplate.queryForList("SELECT amount FROM ledger_entry ORDER BY sequence", Long.class),
+                contains(15000L, -468L, -1L));
+        assertThat(jdbcTemplate.queryForObject("SELECT data_type FROM information_schema.columns " +
+                "WHERE table_name = 'LEDGER_ENTRY' AND column_name = 'AMOUNT'", String.class), is("BIGINT"));
+        assertThat(jdbcTemplate.queryForObject("SELECT is_nullable FROM information_schema.columns " +
+                "WHERE table_name = 'LEDGER_ENTRY' AND column_name = 'AMOUNT'", String.class), is("NO"));
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+}
@@ -0,0 +1,79 @@
+package com.ippon.bankapp.repository;
+
+import com.ippon.bankapp.domain.OutboxMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+@SpringBootTest
+public class OutboxRepositoryIntegrationTest {
+
+    @Autowired
+    private OutboxRepository subject;
+
+    @AfterEach
+    public void tearDown() {
+        subject.deleteAll();
+    }
+
+    @Test
+    public void claimBatch_claimsEachRowOnce() {
+        for (int i = 0; i < 10; i++) {
+            subject.save(new OutboxMessage("email", "bank", "user" + i, "subject", "message"));
+        }
+        Instant now = Instant.now();
+        Instant until = now.plusSeconds(30);
+
+        int first = subject.claimBatch("first", now, until, 4);
+        int second = subject.claimBatch("second", now, until, 10);
+
+        assertThat(first, is(4));
+        assertThat(second, is(6));
+        Set<Long> firstIds = ids(subject.findByClaimedByOrderById("first"));
+        Set<Long> secondIds = ids(subject.findByClaimedByOrderById("second"));
+        assertThat(firstIds.size(), is(4));
+        assertThat(secondIds.size(), is(6));
+        assertThat(Collections.disjoint(firstIds, secondIds), is(true));
+    }
+
+    @Test
+    public void claimBatch_reclaimsExpiredLeases() {
+        subject.save(new OutboxMessage("sms", "bank", "user", "subject", "message"));
+        Instant now = Instant.now();
+        subject.claimBatch("crashed", now, now.plusSeconds(30), 10);
+
+        int whileLeased = subject.claimBatch("other", now.plusSeconds(1), now.plusSeconds(31), 10);
+        int afterExpiry = subject.claimBatch("other", now.plusSeconds(60), now.plusSeconds(90), 10);
+
+        assertThat(whileLeased, is(0));
+        assertThat(afterExpiry, is(1));
+        assertThat(subject.findByClaimedByOrderById("other").size(), is(1));
+    }
+
+    @Test
+    public void deleteByIdIn_removesRelayedRows() {
+        OutboxMessage sent = subject.save(new OutboxMessage("email", "bank", "sent", "subject", "message"));
+        OutboxMessage pending = subject.save(new OutboxMessage("email", "bank", "pending", "subject", "message"));
+
+        subject.deleteByIdIn(Collections.singletonList(sent.getId()));
+
+        assertThat(subject.findById(sent.getId()).isPresent(), is(false));
+        assertThat(subject.findById(pending.getId()).isPresent(), is(true));
+        assertThat(subject.findOldestCreatedAt(), is(pending.getCreatedAt()));
+    }
+
+    private static Set<Long> ids(List<OutboxMessage> rows) {
+        return rows.stream().map(OutboxMessage::getId).collect(Collectors.toCollection(HashSet::new));
+    }
+}
@@ -0,0 +1,137 @@
+package com.ippon.bankapp.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ippon.bankapp.rest.errors.RestErrorHandler;
+import com.ippon.bankapp.service.AccountBatchService;
+import com.ippon.bankapp.service.AccountImportService;
+import com.ippon.bankapp.service.dto.AccountBatchResultDTO;
+import com.ippon.bankapp.service.dto.AccountDTO;
+import com.ippon.bankapp.service.dto.AccountImportRequestDTO;
+import com.ippon.bankapp.service.dto.AccountImportResultDTO;
+import com.ippon.bankapp.service.exception.InvalidImportFileException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = {AccountBatchController.class, RestErrorHandler.class, JacksonAutoConfiguration.class})
+class AccountBatchControllerTest {
+
+    @MockBean
+    private AccountBatchService accountBatchService;
+
+    @MockBean
+    private AccountImportService accountImportService;
+
+    @Autowired
+    private RestErrorHandler restErrorHandler;
+
+    private MockMvc mockMvc;
+
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    public void before() {
+        AccountBatchController subject = new AccountBatchController(accountBatchService, accountImportService, objectMapper);
+        this.mockMvc = MockMvcBuilders
+                .standaloneSetup(subject)
+                .setControllerAdvice(restErrorHandler)
+                .build();
+    }
+
+    @Test
+    public void testCreateAccounts_jsonArray() throws Exception {
+        AccountDTO ben = new AccountDTO().firstName("Ben").lastName("Scott");
+        AccountDTO erin = new AccountDTO().firstName("Erin").lastName("Geoghan");
+        given(accountBatchService.createAccounts(Arrays.asList(ben, erin)))
+                .willReturn(Arrays.asList(
+                        AccountBatchResultDTO.created(0, ben),
+                        AccountBatchResultDTO.conflict(1, "Last name already exists")));
+
+        mockMvc
+                .perform(post("/api/accounts/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Arrays.asList(ben, erin))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].index").value(0))
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[0].account.lastName").value("Scott"))
+                .andExpect(jsonPath("$[1].status").value("CONFLICT"))
+                .andExpect(jsonPath("$[1].message").value("Last name already exists"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCreateAccounts_ndjson_malformedLineReportedInPlace() throws Exception {
+        willAnswer(invocation -> {
+            Iterator<AccountDTO> accounts = invocation.getArgument(0);
+            Consumer<AccountBatchResultDTO> results = invocation.getArgument(1);
+            for (int i = 0; accounts.hasNext(); i++) {
+                AccountDTO account = accounts.next();
+                results.accept(account == null
+                        ? AccountBatchResultDTO.invalid(i, "Malformed account")
+                        : AccountBatchResultDTO.created(i, account));
+            }
+            return null;
+        }).given(accountBatchService).createAccounts(any(Iterator.class), any(Consumer.class));
+
+        mockMvc
+                .perform(post("/api/accounts/batch")
+                        .contentType(AccountBatchController.APPLICATION_NDJSON_VALUE)
+                        .content("{\"firstName\":\"Ben\",\"lastName\":\"Scott\"}\n" +
+                                "{\"firstName\":\n" +
+                                "\n" +
+                                "{\"firstName\":\"Erin\",\"lastName\":\"Geoghan\"}\n"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(AccountBatchController.APPLICATION_NDJSON_VALUE))
+                .andExpect(content().string(
+                        "{\"index\":0,\"status\":\"CREATED\",\"account\":{\"firstName\":\"Ben\",\"lastName\":\"Scott\",\"balance\":null,\"notificationPreference\":null}}\n" +
+                        "{\"index\":1,\"status\":\"INVALID\",\"message\":\"Malformed account\"}\n" +
+                        "{\"index\":2,\"status\":\"CREATED\",\"account\":{\"firstName\":\"Erin\",\"lastName\":\"Geoghan\",\"balance\":null,\"notificationPreference\":null}}\n"));
+    }
+
+    @Test
+    public void testImportAccounts() throws Exception {
+        given(accountImportService.importFile("accounts.csv", null, true))
+                .willReturn(new AccountImportResultDTO().file("accounts.csv").imported(2).rejected(1));
+
+        mockMvc
+                .perform(post("/api/accounts/import")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new AccountImportRequestDTO().file("accounts.csv").restart(true))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.file").value("accounts.csv"))
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.rejected").value(1));
+    }
+
+    @Test
+    public void testImportAccounts_fileOutsideImportDirectory() throws Exception {
+        given(accountImportService.importFile("../secrets.csv", null, false))
+                .willThrow(new InvalidImportFileException("The file must be inside the import directory"));
+
+        mockMvc
+                .perform(post("/api/accounts/import")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new AccountImportRequestDTO().file("../secrets.csv"))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("The file must be inside the import directory"));
+    }
+}
@@ -1,28 +1,45 @@
 package com.ippon.bankapp.rest;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ippon.bankapp.config.ApplicationProperties;
+import com.ippon.bankapp.domain.Money;
 import com.ippon.bankapp.rest.errors.RestErrorHandler;
+import com.ippon.bankapp.service.AccountPageToken;
 import com.ippon.bankapp.service.AccountService;
 import com.ippon.bankapp.service.dto.AccountDTO;
+import com.ippon.bankapp.service.dto.AccountMatchDTO;
+import com.ippon.bankapp.service.dto.AccountPageDTO;
+import com.ippon.bankapp.service.dto.AccountSummaryDTO;
+import com.ippon.bankapp.service.dto.AmountDTO;
+import com.ippon.bankapp.service.dto.TransferDTO;
+import com.ippon.bankapp.service.dto.TransferResultDTO;
 import com.ippon.bankapp.service.exception.AccountLastNameExistsException;
 import com.ippon.bankapp.service.exception.AccountNotFoundException;
+import com.ippon.bankapp.service.exception.ConcurrentBalanceUpdateException;
+import com.ippon.bankapp.service.exception.InsufficientFundsException;
+import com.ippon.bankapp.service.exception.InvalidPageTokenException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.math.BigDecimal;
+import java.util.Collections;
 
-import static org.hamcrest.MatcherAssert.assertThat;
-import static org.hamcrest.core.Is.is;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -42,9 +59,13 @@ class AccountControllerTest {
     @BeforeEach
     public void before() {
         AccountController subject = new AccountController(accountService);
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getQueryStats().setHeaders(true);
+        properties.getQueryStats().setFailOverBudget(true);
         this.mockMvc = MockMvcBuilders
                 .standaloneSetup(subject)
                 .setControllerAdvice(restErrorHandler)
+                .addFilters(new QueryStatsFilter(properties, objectMapper, new SimpleMeterRegistry()))
                 .build();
     }
 
@@ -67,14 +88,67 @@ class AccountControllerTest {
         given(accountService.getAccount("Scott"))
                 .willThrow(new AccountNotFoundException());
 
-        String errorMessage = mockMvc
+        mockMvc
                 .perform(get("/api/account/Scott"))
                 .andExpect(status().isNotFound())
-                .andReturn()
-                .getResponse()
-                .getErrorMessage();
+                .andExpect(jsonPath("$.message").value("Account not found"));
+    }
+
+    @Test
+    public void testAccountRetrieval_noQueriesOutsideTheService() throws Exception {
+        given(accountService.getAccount("Scott")).willReturn(new AccountDTO().lastName("Scott").firstName("Ben"));
+
+        mockMvc
+                .perform(get("/api/account/Scott"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(QueryStatsFilter.STATEMENTS_HEADER, "0"));
+    }
+
+    @Test
+    public void testAccountRetrieval_versionAsETag() throws Exception {
+        given(accountService.getAccount("Scott"))
+                .willReturn(new AccountDTO().lastName("Scott").firstName("Ben").version("3.7"));
 
-        assertThat(errorMessage, is("Account not found"));
+        mockMvc
+                .perform(get("/api/account/Scott"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3.7\""))
+                .andExpect(jsonPath("$.version").doesNotExist());
+    }
+
+    @Test
+    public void testAccountRetrieval_versionUnchanged_notModified() throws Exception {
+        given(accountService.getAccountVersion("Scott")).willReturn("3.7");
+
+        mockMvc
+                .perform(get("/api/account/Scott").header(HttpHeaders.IF_NONE_MATCH, "\"3.7\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3.7\""))
+                .andExpect(content().string(""));
+
+        verify(accountService, never()).getAccount("Scott");
+    }
+
+    @Test
+    public void testAccountRetrieval_versionChanged_readsTheAccount() throws Exception {
+        given(accountService.getAccountVersion("Scott")).willReturn("3.8");
+        given(accountService.getAccount("Scott"))
+                .willReturn(new AccountDTO().lastName("Scott").firstName("Ben").version("3.8"));
+
+        mockMvc
+                .perform(get("/api/account/Scott").header(HttpHeaders.IF_NONE_MATCH, "\"3.7\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3.8\""))
+                .andExpect(jsonPath("$.firstName").value("Ben"));
+    }
+
+    @Test
+    public void testAccountRetrieval_conditional_accountDoesNotExist() throws Exception {
+        given(accountService.getAccountVersion("Scott")).willThrow(new AccountNotFoundException());
+
+        mockMvc
+                .perform(get("/api/account/Scott").header(HttpHeaders.IF_NONE_MATCH, "\"3.7\""))
+                .andExpect(status().isNotFound());
     }
 
     @Test
@@ -87,7 +161,7 @@ class AccountControllerTest {
                 .willReturn(new AccountDTO()
                         .lastName("Scott")
                         .firstName("Ben")
-                        .balance(BigDecimal.ZERO)
+                        .balance(Money.ZERO)
                         .notificationPreference("email"));
 
         mockMvc
@@ -140,6 +214,116 @@ class AccountControllerTest {
                 .perform(post("/api/account/")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(newAccount)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("Last name already exists"));
+    }
+
+    @Test
+    public void testListAccounts() throws Exception {
+        given(accountService.listAccounts("token", AccountPageToken.Sort.LAST_NAME, 1000))
+                .willReturn(new AccountPageDTO(Collections.singletonList(
+                        new AccountSummaryDTO(7, "Ben", "Scott", Money.ZERO, "email")), "next"));
+
+        mockMvc
+                .perform(get("/api/accounts")
+                        .param("after", "token")
+                        .param("sort", "LAST_NAME")
+                        .param("limit", "5000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accounts[0].lastName").value("Scott"))
+                .andExpect(jsonPath("$.accounts[0].id").doesNotExist())
+                .andExpect(jsonPath("$.next").value("next"));
+    }
+
+    @Test
+    public void testListAccounts_invalidToken() throws Exception {
+        given(accountService.listAccounts("bad", AccountPageToken.Sort.ID, 100))
+                .willThrow(InvalidPageTokenException.INSTANCE);
+
+        mockMvc
+                .perform(get("/api/accounts").param("after", "bad"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid page token"));
+    }
+
+    @Test
+    public void testDeposit() throws Exception {
+        given(accountService.deposit("Scott", new BigDecimal("20.50")))
+                .willReturn(new AccountDTO()
+                        .lastName("Scott")
+                        .firstName("Ben")
+                        .balance(Money.of(new BigDecimal("120.50"))));
+
+        mockMvc
+                .perform(post("/api/account/Scott/deposit")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new AmountDTO().amount(new BigDecimal("20.50")))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(120.5));
+    }
+
+    @Test
+    public void testDeposit_missingAmount() throws Exception {
+        mockMvc
+                .perform(post("/api/account/Scott/deposit")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testWithdraw_insufficientFunds() throws Exception {
+        given(accountService.withdraw("Scott", BigDecimal.TEN))
+                .willThrow(InsufficientFundsException.INSTANCE);
+
+        mockMvc
+                .perform(post("/api/account/Scott/withdrawal")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new AmountDTO().amount(BigDecimal.TEN))))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.message").value("Insufficient funds"));
+    }
+
+    @Test
+    public void testTransfer() throws Exception {
+        TransferDTO transfer = new TransferDTO().from("Scott").to("Doe").amount(BigDecimal.TEN);
+        given(accountService.transfer(transfer))
+                .willReturn(new TransferResultDTO(
+                        new AccountDTO().lastName("Scott").balance(Money.of(new BigDecimal("90"))),
+                        new AccountDTO().lastName("Doe").balance(Money.of(BigDecimal.TEN))));
+
+        mockMvc
+                .perform(post("/api/transfer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(transfer)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.from.balance").value(90))
+                .andExpect(jsonPath("$.to.balance").value(10));
+    }
+
+    @Test
+    public void testTransfer_concurrentUpdate() throws Exception {
+        TransferDTO transfer = new TransferDTO().from("Scott").to("Doe").amount(BigDecimal.TEN);
+        given(accountService.transfer(transfer))
+                .willThrow(ConcurrentBalanceUpdateException.INSTANCE);
+
+        mockMvc
+                .perform(post("/api/transfer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(transfer)))
                 .andExpect(status().isConflict());
     }
+
+    @Test
+    public void testSearchAccounts() throws Exception {
+        given(accountService.searchAccounts("sco", 100))
+                .willReturn(Collections.singletonList(new AccountMatchDTO("Ben", "Scott")));
+
+        mockMvc
+                .perform(get("/api/accounts/search").param("q", "sco").param("limit", "5000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].firstName").value("Ben"))
+                .andExpect(jsonPath("$[0].lastName").value("Scott"))
+                .andExpect(jsonPath("$[0].fuzzy").value(false));
+    }
 }
@@ -0,0 +1,90 @@
+package com.ippon.bankapp.rest;
+
+import com.ippon.bankapp.rest.errors.RestErrorHandler;
+import com.ippon.bankapp.service.AccountExportService;
+import com.ippon.bankapp.service.AccountExportService.Format;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = {AccountExportController.class, RestErrorHandler.class})
+class AccountExportControllerTest {
+
+    private static final String CSV = "firstName,lastName,balance,notificationPreference\nBen,Scott,0.00,email\n";
+
+    @MockBean
+    private AccountExportService accountExportService;
+
+    @Autowired
+    private RestErrorHandler restErrorHandler;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void before() throws Exception {
+        AccountExportController subject = new AccountExportController(accountExportService);
+        this.mockMvc = MockMvcBuilders
+                .standaloneSetup(subject)
+                .setControllerAdvice(restErrorHandler)
+                .build();
+        willAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write(CSV.getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).given(accountExportService).export(eq(Format.CSV), any(OutputStream.class));
+    }
+
+    @Test
+    public void testExport_csv() throws Exception {
+        mockMvc
+                .perform(get("/api/accounts/export").param("format", "CSV"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"accounts.csv\""))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(content().string(CSV));
+    }
+
+    @Test
+    public void testExport_gzipWhenAccepted() throws Exception {
+        MvcResult result = mockMvc
+                .perform(get("/api/accounts/export").param("format", "CSV")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn();
+
+        byte[] body = result.getResponse().getContentAsByteArray();
+        String unzipped = StreamUtils.copyToString(new GZIPInputStream(new ByteArrayInputStream(body)), StandardCharsets.UTF_8);
+        assertThat(unzipped, is(CSV));
+    }
+
+    @Test
+    public void testExport_unknownFormat() throws Exception {
+        mockMvc
+                .perform(get("/api/accounts/export").param("format", "XML"))
+                .andExpect(status().isBadRequest());
+    }
+}
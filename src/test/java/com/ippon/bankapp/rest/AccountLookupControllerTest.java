@@ -0,0 +1,85 @@
+package com.ippon.bankapp.rest;
+
+import com.ippon.bankapp.domain.Money;
+import com.ippon.bankapp.rest.errors.RestErrorHandler;
+import com.ippon.bankapp.service.AccountLookupService;
+import com.ippon.bankapp.service.dto.AccountLookupResultDTO;
+import com.ippon.bankapp.service.dto.AccountSummaryDTO;
+import com.ippon.bankapp.service.exception.LookupTooLargeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = {AccountLookupController.class, RestErrorHandler.class})
+class AccountLookupControllerTest {
+
+    @MockBean
+    private AccountLookupService accountLookupService;
+
+    @Autowired
+    private RestErrorHandler restErrorHandler;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void before() {
+        this.mockMvc = MockMvcBuilders
+                .standaloneSetup(new AccountLookupController(accountLookupService))
+                .setControllerAdvice(restErrorHandler)
+                .build();
+    }
+
+    @Test
+    public void testLookup() throws Exception {
+        AccountSummaryDTO scott = new AccountSummaryDTO(1, "Ben", "Scott", Money.of(new BigDecimal("10.00")), "email");
+        given(accountLookupService.lookup(Arrays.asList("Scott", "Nobody")))
+                .willReturn(new AccountLookupResultDTO(Collections.singletonList(scott),
+                        Collections.singletonList("Nobody")));
+
+        mockMvc
+                .perform(post("/api/accounts/lookup")
+                        .contentType(APPLICATION_JSON)
+                        .content("{\"lastNames\":[\"Scott\",\"Nobody\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accounts[0].lastName").value("Scott"))
+                .andExpect(jsonPath("$.accounts[0].balance").value(10.00))
+                .andExpect(jsonPath("$.accounts[0].id").doesNotExist())
+                .andExpect(jsonPath("$.missing[0]").value("Nobody"));
+    }
+
+    @Test
+    public void testLookup_withoutLastNames_badRequest() throws Exception {
+        mockMvc
+                .perform(post("/api/accounts/lookup")
+                        .contentType(APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testLookup_tooLarge_badRequest() throws Exception {
+        given(accountLookupService.lookup(anyList())).willThrow(new LookupTooLargeException("At most 1 last names per lookup"));
+
+        mockMvc
+                .perform(post("/api/accounts/lookup")
+                        .contentType(APPLICATION_JSON)
+                        .content("{\"lastNames\":[\"Scott\",\"Doe\"]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("At most 1 last names per lookup"));
+    }
+}
@@ -0,0 +1,319 @@
+package com.ippon.bankapp.rest;
+
+import com.ippon.bankapp.config.ApplicationProperties;
+import com.ippon.bankapp.config.CacheConfiguration;
+import com.ippon.bankapp.domain.IdempotencyRecord;
+import com.ippon.bankapp.domain.Money;
+import com.ippon.bankapp.repository.AccountRepository;
+import com.ippon.bankapp.repository.IdempotencyRecordRepository;
+import com.ippon.bankapp.repository.LedgerEntryRepository;
+import com.ippon.bankapp.repository.OutboxRepository;
+import com.ippon.bankapp.service.IdempotencyService;
+import com.ippon.bankapp.service.LedgerService;
+import com.ippon.bankapp.service.exception.IdempotentRequestInProgressException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.comparesEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+@SpringBootTest
+public class IdempotencyFilterIntegrationTest {
+
+    private static final String SCOTT = "{\"firstName\":\"Ben\",\"lastName\":\"Scott\"}";
+
+    // the address of MockMvc's requests
+    private static final String LOCAL_CLIENT = "ip:127.0.0.1";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private IdempotencyFilter idempotencyFilter;
+
+    @AfterEach
+    public void tearDown() {
+        idempotencyRecordRepository.deleteAll();
+        ledgerEntryRepository.deleteAll();
+        accountRepository.deleteAll();
+        outboxRepository.deleteAll();
+        cacheManager.getCache(CacheConfiguration.ACCOUNTS).clear();
+    }
+
+    @Test
+    public void createAccount_repeated_replaysTheFirstResponse() throws Exception {
+        MvcResult first = mockMvc.perform(create("create-1", SCOTT))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist(IdempotencyFilter.IDEMPOTENT_REPLAYED))
+                .andReturn();
+
+        MvcResult repeat = mockMvc.perform(create("create-1", SCOTT))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyFilter.IDEMPOTENT_REPLAYED, "true"))
+                .andReturn();
+
+        assertThat(repeat.getResponse().getContentAsString(), is(first.getResponse().getContentAsString()));
+        assertThat(accountRepository.count(), is(1L));
+    }
+
+    @Test
+    public void createAccount_withoutKey_runsEveryTime() throws Exception {
+        mockMvc.perform(create(null, SCOTT)).andExpect(status().isCreated());
+        mockMvc.perform(create(null, SCOTT)).andExpect(status().isConflict());
+
+        assertThat(idempotencyRecordRepository.count(), is(0L));
+    }
+
+    @Test
+    public void createAccount_conflict_notStored() throws Exception {
+        mockMvc.perform(create(null, SCOTT)).andExpect(status().isCreated());
+
+        mockMvc.perform(create("create-2", SCOTT))
+                .andExpect(status().isConflict())
+                .andExpect(header().doesNotExist(IdempotencyFilter.IDEMPOTENT_REPLAYED));
+
+        assertThat(idempotencyRecordRepository.findById(key("create-2")).isPresent(), is(false));
+    }
+
+    @Test
+    public void keyReusedForAnotherRequest_rejected() throws Exception {
+        mockMvc.perform(create("create-3", SCOTT)).andExpect(status().isCreated());
+
+        mockMvc.perform(create("create-3", "{\"firstName\":\"John\",\"lastName\":\"Doe\"}"))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.message").value("Idempotency key already used for another request"));
+
+        assertThat(accountRepository.findByLastName("Doe").isPresent(), is(false));
+    }
+
+    @Test
+    public void deposit_concurrentRepeats_appliedOnce() throws Exception {
+        mockMvc.perform(create(null, SCOTT)).andExpect(status().isCreated());
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<MvcResult>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return mockMvc.perform(post("/api/account/Scott/deposit")
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY, "deposit-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\":10}"))
+                        .andReturn();
+            }));
+        }
+
+        start.countDown();
+        for (Future<MvcResult> result : results) {
+            MvcResult response = result.get(60, TimeUnit.SECONDS);
+            assertThat(response.getResponse().getStatus(), is(200));
+            assertThat(response.getResponse().getContentAsString().contains("\"balance\":10.00"), is(true));
+        }
+        executor.shutdown();
+
+        assertThat(ledgerService.balanceOf(accountRepository.findByLastName("Scott").get()),
+                comparesEqualTo(Money.of(new BigDecimal("10"))));
+    }
+
+    @Test
+    public void sameKeyFromAnotherClient_runsAgain() throws Exception {
+        mockMvc.perform(create(null, SCOTT)).andExpect(status().isCreated());
+
+        mockMvc.perform(deposit("1").with(from("10.0.0.1")))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(IdempotencyFilter.IDEMPOTENT_REPLAYED));
+        mockMvc.perform(deposit("1").with(from("10.0.0.2")))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(IdempotencyFilter.IDEMPOTENT_REPLAYED))
+                .andExpect(jsonPath("$.balance").value(20.0));
+        mockMvc.perform(deposit("1").with(from("10.0.0.2")))
+                .andExpect(header().string(IdempotencyFilter.IDEMPOTENT_REPLAYED, "true"));
+
+        assertThat(ledgerService.balanceOf(accountRepository.findByLastName("Scott").get()),
+                comparesEqualTo(Money.of(new BigDecimal("20"))));
+        assertThat(idempotencyRecordRepository.count(), is(2L));
+    }
+
+    @Test
+    public void failedAfterCommit_notAppliedAgain() throws Exception {
+        mockMvc.perform(create(null, SCOTT)).andExpect(status().isCreated());
+        IdempotencyService subject = new IdempotencyService(idempotencyRecordRepository, applicationProperties,
+                new SimpleMeterRegistry());
+
+        assertThrows(IllegalStateException.class, () -> subject.execute(LOCAL_CLIENT, "deposit-2", "deposit", () -> {
+            ledgerService.deposit("Scott", BigDecimal.TEN);
+            throw new IllegalStateException("Failed after the deposit committed");
+        }));
+        assertThrows(IdempotentRequestInProgressException.class, () -> subject.execute(LOCAL_CLIENT, "deposit-2",
+                "deposit", () -> {
+                    ledgerService.deposit("Scott", BigDecimal.TEN);
+                    return new IdempotencyService.Response("deposit", 200, null, new byte[0]);
+                }));
+
+        assertThat(ledgerService.balanceOf(accountRepository.findByLastName("Scott").get()),
+                comparesEqualTo(Money.of(BigDecimal.TEN)));
+    }
+
+    @Test
+    public void serverErrorAfterCommit_repeatRejected() throws Exception {
+        mockMvc.perform(create(null, SCOTT)).andExpect(status().isCreated());
+        IdempotencyService subject = new IdempotencyService(idempotencyRecordRepository, applicationProperties,
+                new SimpleMeterRegistry());
+        subject.execute(LOCAL_CLIENT, "deposit-3", "deposit", () -> {
+            ledgerService.deposit("Scott", BigDecimal.TEN);
+            return new IdempotencyService.Response("deposit", 500, null, new byte[0]);
+        });
+
+        assertThrows(IdempotentRequestInProgressException.class, () -> subject.execute(LOCAL_CLIENT, "deposit-3",
+                "deposit", () -> {
+                    throw new AssertionError("Ran again");
+                }));
+
+        assertThat(ledgerService.balanceOf(accountRepository.findByLastName("Scott").get()),
+                comparesEqualTo(Money.of(BigDecimal.TEN)));
+    }
+
+    @Test
+    public void body_readWithReadListener() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/account");
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY, "create-6");
+        request.setContent(SCOTT.getBytes(StandardCharsets.UTF_8));
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        boolean[] allRead = new boolean[1];
+
+        idempotencyFilter.doFilter(request, new MockHttpServletResponse(), (filtered, response) -> {
+            ServletInputStream input = filtered.getInputStream();
+            input.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    while (input.isReady() && !input.isFinished()) {
+                        read.write(input.read());
+                    }
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    allRead[0] = true;
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    throw new AssertionError(t);
+                }
+            });
+        });
+
+        assertThat(read.toString(StandardCharsets.UTF_8.name()), is(SCOTT));
+        assertThat(allRead[0], is(true));
+    }
+
+    @Test
+    public void storedResponse_replayedByAnotherInstance() throws Exception {
+        mockMvc.perform(create("create-4", SCOTT)).andExpect(status().isCreated());
+        // a second instance: nothing in memory, the response comes from the table
+        IdempotencyService other = new IdempotencyService(idempotencyRecordRepository, applicationProperties,
+                new SimpleMeterRegistry());
+
+        IdempotencyService.Response response = other.execute(LOCAL_CLIENT, "create-4",
+                idempotencyRecordRepository.findById(key("create-4")).get().getFingerprint(),
+                () -> {
+                    throw new AssertionError("Ran again");
+                });
+
+        assertThat(response.getStatus(), is(201));
+        assertThat(new String(response.getBody(), StandardCharsets.UTF_8).contains("\"lastName\":\"Scott\""), is(true));
+    }
+
+    @Test
+    public void purge_deletesExpiredKeys() throws Exception {
+        mockMvc.perform(create("create-5", SCOTT)).andExpect(status().isCreated());
+        ApplicationProperties expired = new ApplicationProperties();
+        expired.getIdempotency().setTtl(Duration.ZERO);
+
+        new IdempotencyService(idempotencyRecordRepository, expired, new SimpleMeterRegistry()).purge();
+
+        assertThat(idempotencyRecordRepository.findById(key("create-5")).orElse(null), nullValue());
+    }
+
+    private static MockHttpServletRequestBuilder deposit(String key) {
+        return post("/api/account/Scott/deposit")
+                .header(IdempotencyFilter.IDEMPOTENCY_KEY, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"amount\":10}");
+    }
+
+    private static RequestPostProcessor from(String address) {
+        return request -> {
+            request.setRemoteAddr(address);
+            return request;
+        };
+    }
+
+    private static IdempotencyRecord.Key key(String idempotencyKey) {
+        return new IdempotencyRecord.Key(LOCAL_CLIENT, idempotencyKey);
+    }
+
+    private static MockHttpServletRequestBuilder create(String key, String account) {
+        MockHttpServletRequestBuilder request = post("/api/account")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(account);
+        return key == null ? request : request.header(IdempotencyFilter.IDEMPOTENCY_KEY, key);
+    }
+}
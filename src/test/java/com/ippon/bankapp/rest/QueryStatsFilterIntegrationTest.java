@@ -0,0 +1,98 @@
+package com.ippon.bankapp.rest;
+
+import com.ippon.bankapp.config.CacheConfiguration;
+import com.ippon.bankapp.repository.AccountRepository;
+import com.ippon.bankapp.repository.LedgerEntryRepository;
+import com.ippon.bankapp.repository.OutboxRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The statements of the main endpoints, as counted through the application's own data source: the tests'
+ * {@code application.yml} turns the headers and the budgets on.
+ */
+@AutoConfigureMockMvc
+@SpringBootTest
+public class QueryStatsFilterIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @AfterEach
+    public void tearDown() {
+        ledgerEntryRepository.deleteAll();
+        accountRepository.deleteAll();
+        outboxRepository.deleteAll();
+        cacheManager.getCache(CacheConfiguration.ACCOUNTS).clear();
+    }
+
+    @Test
+    @Sql("classpath:sql/account_insert.sql")
+    public void accountRead_accountAndLedgerThenCache() throws Exception {
+        mockMvc.perform(get("/api/account/Scott"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(QueryStatsFilter.STATEMENTS_HEADER, "2"))
+                .andExpect(header().exists(QueryStatsFilter.TIME_HEADER));
+        mockMvc.perform(get("/api/account/Scott"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(QueryStatsFilter.STATEMENTS_HEADER, "0"));
+
+        assertThat(meterRegistry.get("http.server.requests.statements").tag("uri", "/api/account/{lastName}")
+                .summary().count(), greaterThanOrEqualTo(2L));
+    }
+
+    @Test
+    @Sql("classpath:sql/account_insert.sql")
+    public void deposit_readsThenAppends() throws Exception {
+        mockMvc.perform(post("/api/account/Scott/deposit").contentType(APPLICATION_JSON).content("{\"amount\":10}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(QueryStatsFilter.STATEMENTS_HEADER, "3"));
+    }
+
+    @Test
+    @Sql("classpath:sql/account_insert.sql")
+    public void accountPage_oneQueryWhateverItsSize() throws Exception {
+        mockMvc.perform(get("/api/accounts?limit=5"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(QueryStatsFilter.STATEMENTS_HEADER, "1"))
+                .andExpect(header().string(QueryStatsFilter.ROWS_HEADER, "6"));
+    }
+
+    @Test
+    @Sql("classpath:sql/account_insert.sql")
+    public void unknownAccount_noLedgerQuery() throws Exception {
+        mockMvc.perform(get("/api/account/Nobody"))
+                .andExpect(status().isNotFound())
+                .andExpect(header().string(QueryStatsFilter.STATEMENTS_HEADER, "1"));
+    }
+}
@@ -0,0 +1,96 @@
+package com.ippon.bankapp.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ippon.bankapp.config.ApplicationProperties;
+import com.ippon.bankapp.util.CountingDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class QueryStatsFilterTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ApplicationProperties properties = new ApplicationProperties();
+
+    @Test
+    public void withinBudget_countsInHeadersAndMetrics() throws Exception {
+        properties.getQueryStats().setHeaders(true);
+
+        mockMvc().perform(get("/queries/2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(QueryStatsFilter.STATEMENTS_HEADER, "2"))
+                .andExpect(header().string(QueryStatsFilter.ROWS_HEADER, "2"));
+
+        assertThat(meterRegistry.get("http.server.requests.statements").tag("uri", "/queries/{count}")
+                .summary().totalAmount(), is(2.0));
+        assertThat(meterRegistry.get("http.server.requests.db").tag("uri", "/queries/{count}").timer().count(), is(1L));
+    }
+
+    @Test
+    public void overBudget_failsWhenAsked() throws Exception {
+        properties.getQueryStats().setFailOverBudget(true);
+
+        mockMvc().perform(get("/queries/4"))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.message").value("GET /queries/{count} sent 4 statements, over its budget of 3"));
+
+        assertThat(overBudget(), is(1.0));
+    }
+
+    @Test
+    public void overBudget_onlyCountedByDefault() throws Exception {
+        mockMvc().perform(get("/queries/4"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(QueryStatsFilter.STATEMENTS_HEADER));
+
+        assertThat(overBudget(), is(1.0));
+    }
+
+    private MockMvc mockMvc() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:query-stats");
+        return MockMvcBuilders
+                .standaloneSetup(new QueriesController(new JdbcTemplate(CountingDataSource.wrap(h2))))
+                .addFilters(new QueryStatsFilter(properties, new ObjectMapper(), meterRegistry))
+                .build();
+    }
+
+    private double overBudget() {
+        return meterRegistry.get("http.server.requests.over-budget").tag("uri", "/queries/{count}").counter().count();
+    }
+
+    @RestController
+    static class QueriesController {
+
+        private final JdbcTemplate jdbcTemplate;
+
+        QueriesController(JdbcTemplate jdbcTemplate) {
+            this.jdbcTemplate = jdbcTemplate;
+        }
+
+        @QueryBudget(statements = 3)
+        @GetMapping("/queries/{count}")
+        public int queries(@PathVariable("count") int count) {
+            int sum = 0;
+            for (int i = 0; i < count; i++) {
+                sum += jdbcTemplate.queryForObject("select 1", Integer.class);
+            }
+            return sum;
+        }
+    }
+}
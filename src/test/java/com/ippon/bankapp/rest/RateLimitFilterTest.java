@@ -0,0 +1,179 @@
+package com.ippon.bankapp.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ippon.bankapp.config.ApplicationProperties;
+import com.ippon.bankapp.service.AccountService;
+import com.ippon.bankapp.service.dto.AccountDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class RateLimitFilterTest {
+
+    private final AccountService accountService = mock(AccountService.class);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void clientOverItsRate_tooManyRequests() throws Exception {
+        MockMvc mockMvc = mockMvc(limits(2));
+        given(accountService.getAccount("Scott")).willReturn(new AccountDTO().lastName("Scott"));
+
+        mockMvc.perform(get("/api/account/Scott")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/account/Scott")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/account/Scott"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "100"))
+                .andExpect(jsonPath("$.message").value("Too many requests, try again later"));
+
+        assertThat(rejections("rate-limit", RateLimitFilter.DEFAULT_ENDPOINT), is(1.0));
+    }
+
+    @Test
+    public void otherClients_notLimited() throws Exception {
+        ApplicationProperties properties = limits(1);
+        properties.getRateLimit().getApiKeys().add("other");
+        MockMvc mockMvc = mockMvc(properties);
+        given(accountService.getAccount("Scott")).willReturn(new AccountDTO().lastName("Scott"));
+
+        mockMvc.perform(get("/api/account/Scott")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/account/Scott")).andExpect(status().isTooManyRequests());
+
+        mockMvc.perform(get("/api/account/Scott").header("X-API-Key", "other")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/account/Scott").with(request -> {
+            request.setRemoteAddr("10.0.0.2");
+            return request;
+        })).andExpect(status().isOk());
+    }
+
+    @Test
+    public void keysNotIssued_limitedByAddress() throws Exception {
+        MockMvc mockMvc = mockMvc(limits(2));
+        given(accountService.getAccount("Scott")).willReturn(new AccountDTO().lastName("Scott"));
+
+        mockMvc.perform(get("/api/account/Scott").header("X-API-Key", "made-up-1")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/account/Scott").header("X-API-Key", "made-up-2")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/account/Scott").header("X-API-Key", "made-up-3"))
+                .andExpect(status().isTooManyRequests());
+
+        assertThat(meterRegistry.get("http.admission.clients").gauge().value(), is(1.0));
+    }
+
+    @Test
+    public void endpointLimit_appliesToItsRequestsOnly() throws Exception {
+        ApplicationProperties properties = limits(100);
+        ApplicationProperties.RateLimit.Endpoint money = new ApplicationProperties.RateLimit.Endpoint();
+        money.setPaths(Collections.singletonList("/api/account/*/deposit"));
+        money.setMethod("POST");
+        money.setRequestsPerSecond(0.1);
+        money.setBurst(1);
+        properties.getRateLimit().getEndpoints().put("money", money);
+        MockMvc mockMvc = mockMvc(properties);
+        given(accountService.deposit(anyString(), any(BigDecimal.class))).willReturn(new AccountDTO().lastName("Scott"));
+        given(accountService.getAccount("Scott")).willReturn(new AccountDTO().lastName("Scott"));
+
+        mockMvc.perform(deposit()).andExpect(status().isOk());
+        mockMvc.perform(deposit())
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "10"));
+        mockMvc.perform(get("/api/account/Scott")).andExpect(status().isOk());
+
+        assertThat(rejections("rate-limit", "money"), is(1.0));
+        assertThat(meterRegistry.get("http.admission.rate-limit").tag("endpoint", "money").gauge().value(), is(0.1));
+    }
+
+    @Test
+    public void beyondTheConcurrencyLimit_serviceUnavailable() throws Exception {
+        ApplicationProperties properties = limits(100);
+        properties.getRateLimit().setInitialLimit(1);
+        properties.getRateLimit().setMinLimit(1);
+        properties.getRateLimit().setMaxLimit(1);
+        MockMvc mockMvc = mockMvc(properties);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        given(accountService.getAccount("Scott")).willAnswer(invocation -> {
+            entered.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return new AccountDTO().lastName("Scott");
+        });
+        given(accountService.getAccount("Doe")).willReturn(new AccountDTO().lastName("Doe"));
+
+        CompletableFuture<MvcResult> slow = CompletableFuture.supplyAsync(() -> {
+            try {
+                return mockMvc.perform(get("/api/account/Scott")).andReturn();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThat(entered.await(10, TimeUnit.SECONDS), is(true));
+
+        mockMvc.perform(get("/api/account/Doe"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+        release.countDown();
+        assertThat(slow.get(10, TimeUnit.SECONDS).getResponse().getStatus(), is(200));
+        mockMvc.perform(get("/api/account/Doe")).andExpect(status().isOk());
+
+        assertThat(rejections("concurrency", "all"), is(1.0));
+        assertThat(meterRegistry.get("http.admission.concurrency.in-flight").gauge().value(), is(0.0));
+    }
+
+    @Test
+    public void disabled_admitsEverything() throws Exception {
+        ApplicationProperties properties = limits(1);
+        properties.getRateLimit().setEnabled(false);
+        MockMvc mockMvc = mockMvc(properties);
+        given(accountService.getAccount("Scott")).willReturn(new AccountDTO().lastName("Scott"));
+
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(get("/api/account/Scott")).andExpect(status().isOk());
+        }
+    }
+
+    private MockMvc mockMvc(ApplicationProperties properties) {
+        return MockMvcBuilders
+                .standaloneSetup(new AccountController(accountService))
+                .addFilters(new RateLimitFilter(properties, new ObjectMapper(), meterRegistry))
+                .build();
+    }
+
+    private static ApplicationProperties limits(int burst) {
+        ApplicationProperties properties = new ApplicationProperties();
+        // a token every 100 seconds: none comes back during a test
+        properties.getRateLimit().setRequestsPerSecond(0.01);
+        properties.getRateLimit().setBurst(burst);
+        return properties;
+    }
+
+    private static RequestBuilder deposit() {
+        return post("/api/account/Scott/deposit").contentType(APPLICATION_JSON).content("{\"amount\":10}");
+    }
+
+    private double rejections(String reason, String endpoint) {
+        return meterRegistry.get("http.admission.rejections").tag("reason", reason).tag("endpoint", endpoint)
+                .counter().count();
+    }
+}
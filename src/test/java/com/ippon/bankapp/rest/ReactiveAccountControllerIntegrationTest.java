@@ -0,0 +1,154 @@
+package com.ippon.bankapp.rest;
+
+import com.ippon.bankapp.config.CacheConfiguration;
+import com.ippon.bankapp.domain.OutboxMessage;
+import com.ippon.bankapp.repository.AccountRepository;
+import com.ippon.bankapp.repository.LedgerEntryRepository;
+import com.ippon.bankapp.repository.OutboxRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+/**
+ * The account endpoints of the {@code reactive} profile, on R2DBC against the same H2 database as the rest. The
+ * test context picks its web application type before reading the profile, so it is also given here.
+ */
+@AutoConfigureWebTestClient
+@SpringBootTest(properties = "spring.main.web-application-type=reactive")
+@ActiveProfiles("reactive")
+public class ReactiveAccountControllerIntegrationTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @AfterEach
+    public void tearDown() {
+        ledgerEntryRepository.deleteAll();
+        accountRepository.deleteAll();
+        outboxRepository.deleteAll();
+        cacheManager.getCache(CacheConfiguration.ACCOUNTS).clear();
+    }
+
+    @Test
+    public void createAccount_readableWithWelcomeQueued() {
+        create("Ada", "Lovelace")
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.lastName").isEqualTo("Lovelace")
+                .jsonPath("$.balance").isEqualTo(0.0)
+                .jsonPath("$.notificationPreference").isEqualTo("email");
+
+        webTestClient.get().uri("/api/account/Lovelace")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"" + accountRepository.findByLastName("Lovelace").get().getId() + ".0\"")
+                .expectBody()
+                .jsonPath("$.firstName").isEqualTo("Ada")
+                .jsonPath("$.balance").isEqualTo(0.0);
+
+        List<String> welcomed = StreamSupport.stream(outboxRepository.findAll().spliterator(), false)
+                .map(OutboxMessage::getDestination)
+                .collect(Collectors.toList());
+        assertThat(welcomed, contains("Lovelace"));
+        assertThat(accountRepository.findByLastName("Lovelace").isPresent(), is(true));
+    }
+
+    @Test
+    public void createAccount_lastNameTaken_conflict() {
+        create("Ada", "Lovelace").expectStatus().isCreated();
+
+        create("Augusta", "Lovelace")
+                .expectStatus().isEqualTo(409)
+                .expectBody().jsonPath("$.message").isEqualTo("Last name already exists");
+    }
+
+    @Test
+    public void createAccount_invalid_badRequest() {
+        create("Ada", "").expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void account_unknown_notFound() {
+        webTestClient.get().uri("/api/account/Nobody")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.message").isEqualTo("Account not found");
+    }
+
+    @Test
+    @Sql("classpath:sql/account_insert.sql")
+    public void deposit_movesBalanceAndVersion() {
+        String before = webTestClient.get().uri("/api/account/Scott")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.balance").isEqualTo(145.32)
+                .returnResult().getResponseHeaders().getETag();
+
+        webTestClient.post().uri("/api/account/Scott/deposit")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"amount\":10}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.balance").isEqualTo(155.32);
+
+        String after = webTestClient.get().uri("/api/account/Scott")
+                .header(HttpHeaders.IF_NONE_MATCH, before)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.balance").isEqualTo(155.32)
+                .returnResult().getResponseHeaders().getETag();
+        assertThat(after, not(before));
+    }
+
+    @Test
+    @Sql("classpath:sql/account_insert.sql")
+    public void account_versionMatches_notModified() {
+        String etag = webTestClient.get().uri("/api/account/Doe")
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class).getResponseHeaders().getETag();
+
+        webTestClient.get().uri("/api/account/Doe")
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, etag)
+                .expectBody().isEmpty();
+    }
+
+    private WebTestClient.ResponseSpec create(String firstName, String lastName) {
+        return webTestClient.post().uri("/api/account")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"firstName\":\"" + firstName + "\",\"lastName\":\"" + lastName + "\"}")
+                .exchange();
+    }
+}
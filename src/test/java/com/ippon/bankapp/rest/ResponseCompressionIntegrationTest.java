@@ -0,0 +1,135 @@
+package com.ippon.bankapp.rest;
+
+import com.ippon.bankapp.domain.Account;
+import com.ippon.bankapp.repository.AccountRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Compression happens in the servlet container, so these go through a real port, with a client that does not
+ * decompress on its own and shows the bytes sent.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class ResponseCompressionIntegrationTest {
+
+    private static final int ACCOUNTS = 300;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @BeforeEach
+    public void before() {
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accounts.add(new Account("First" + i, "Last" + i));
+        }
+        accountRepository.saveAll(accounts);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        accountRepository.deleteAll();
+    }
+
+    @Test
+    public void accountPage_gzipped() throws IOException {
+        Response identity = get("/api/accounts?limit=" + ACCOUNTS, null);
+        Response gzipped = get("/api/accounts?limit=" + ACCOUNTS, "gzip");
+
+        assertThat(identity.encoding, nullValue());
+        assertThat(gzipped.encoding, is("gzip"));
+        assertThat(gzipped.body.length, lessThan(identity.body.length / 5));
+        assertThat(gunzip(gzipped.body), is(identity.body));
+    }
+
+    @Test
+    public void lookup_gzipped() throws IOException {
+        StringBuilder lastNames = new StringBuilder();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            lastNames.append(i == 0 ? "" : ",").append("\"Last").append(i).append('"');
+        }
+        String request = "{\"lastNames\":[" + lastNames + "]}";
+
+        Response identity = post("/api/accounts/lookup", request, null);
+        Response gzipped = post("/api/accounts/lookup", request, "gzip");
+
+        assertThat(gzipped.encoding, is("gzip"));
+        assertThat(gzipped.body.length, lessThan(identity.body.length / 5));
+        assertThat(gunzip(gzipped.body), is(identity.body));
+    }
+
+    private Response get(String path, String acceptEncoding) throws IOException {
+        return send(open(path, "GET", acceptEncoding));
+    }
+
+    private Response post(String path, String body, String acceptEncoding) throws IOException {
+        HttpURLConnection connection = open(path, "POST", acceptEncoding);
+        connection.setDoOutput(true);
+        connection.setRequestProperty(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        return send(connection);
+    }
+
+    private HttpURLConnection open(String path, String method, String acceptEncoding) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) URI.create("http://localhost:" + port + path).toURL().openConnection();
+        connection.setRequestMethod(method);
+        if (acceptEncoding != null) {
+            connection.setRequestProperty(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return connection;
+    }
+
+    private static Response send(HttpURLConnection connection) throws IOException {
+        try (InputStream in = connection.getInputStream()) {
+            return new Response(connection.getContentEncoding(),
+                    StreamUtils.copyToByteArray(in));
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static byte[] gunzip(byte[] body) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return StreamUtils.copyToByteArray(in);
+        }
+    }
+
+    private static class Response {
+
+        final String encoding;
+        final byte[] body;
+
+        Response(String encoding, byte[] body) {
+            this.encoding = encoding;
+            this.body = body;
+        }
+    }
+}
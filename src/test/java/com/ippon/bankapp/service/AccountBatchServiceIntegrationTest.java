@@ -0,0 +1,128 @@
+package com.ippon.bankapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ippon.bankapp.config.CacheConfiguration;
+import com.ippon.bankapp.repository.AccountRepository;
+import com.ippon.bankapp.repository.OutboxRepository;
+import com.ippon.bankapp.rest.AccountBatchController;
+import com.ippon.bankapp.service.dto.AccountBatchResultDTO;
+import com.ippon.bankapp.service.dto.AccountBatchResultDTO.Status;
+import com.ippon.bankapp.service.dto.AccountDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "bankapp.batch.chunk-size=3")
+public class AccountBatchServiceIntegrationTest {
+
+    @Autowired
+    private AccountBatchService subject;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterEach
+    public void tearDown() {
+        accountRepository.deleteAll();
+        outboxRepository.deleteAll();
+        cacheManager.getCache(CacheConfiguration.ACCOUNTS).clear();
+    }
+
+    @Test
+    public void createAccounts_reportsEachItem() {
+        accountService.createAccount(new AccountDTO().firstName("Ben").lastName("Scott"));
+
+        List<AccountBatchResultDTO> results = subject.createAccounts(Arrays.asList(
+                new AccountDTO().firstName("Erin").lastName("Geoghan"),
+                new AccountDTO().lastName("Ortega"),
+                new AccountDTO().firstName("Ben").lastName("Scott"),
+                new AccountDTO().firstName("Jane").lastName("Doe"),
+                new AccountDTO().firstName("John").lastName("Doe"),
+                null,
+                new AccountDTO().firstName("Katie").lastName("Smith")));
+
+        assertThat(statuses(results), contains(Status.CREATED, Status.INVALID, Status.CONFLICT,
+                Status.CREATED, Status.CONFLICT, Status.INVALID, Status.CREATED));
+        for (int i = 0; i < results.size(); i++) {
+            assertThat(results.get(i).getIndex(), is(i));
+        }
+        assertThat(results.get(1).getMessage(), is("firstName must not be empty"));
+        assertThat(results.get(3).getAccount().getFirstName(), is("Jane"));
+        assertThat(results.get(3).getAccount().getNotificationPreference(), is("email"));
+        assertThat(accountRepository.count(), is(4L));
+        assertThat(outboxRepository.count(), is(4L));
+    }
+
+    @Test
+    public void createAccounts_evictsStaleEntries() {
+        Cache cache = cacheManager.getCache(CacheConfiguration.ACCOUNTS);
+        cache.put("Scott", new AccountDTO().firstName("Stale").lastName("Scott"));
+
+        subject.createAccounts(Arrays.asList(new AccountDTO().firstName("Ben").lastName("Scott")));
+
+        assertThat(cache.get("Scott"), nullValue());
+        assertThat(accountService.getAccount("Scott").getFirstName(), is("Ben"));
+    }
+
+    @Test
+    public void createAccounts_ndjson_nameTooLongForColumnReportedInPlace() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+        String tooLong = new String(new char[300]).replace('\0', 'x');
+
+        String body = mockMvc.perform(post("/api/accounts/batch")
+                        .contentType(AccountBatchController.APPLICATION_NDJSON_VALUE)
+                        .content("{\"firstName\":\"Ben\",\"lastName\":\"Scott\"}\n"
+                                + "{\"firstName\":\"Erin\",\"lastName\":\"" + tooLong + "\"}\n"
+                                + "{\"firstName\":\"Jane\",\"lastName\":\"Doe\"}\n"
+                                + "{\"firstName\":\"Katie\",\"lastName\":\"Smith\"}\n"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<AccountBatchResultDTO> results = new ArrayList<>();
+        for (String line : body.trim().split("\n")) {
+            results.add(objectMapper.readValue(line, AccountBatchResultDTO.class));
+        }
+        assertThat(statuses(results), contains(Status.CREATED, Status.INVALID, Status.CREATED, Status.CREATED));
+        assertThat(results.get(1).getIndex(), is(1));
+        assertThat(results.get(1).getMessage(), is("Rejected by the database"));
+        assertThat(accountRepository.count(), is(3L));
+    }
+
+    private static List<Status> statuses(List<AccountBatchResultDTO> results) {
+        List<Status> statuses = new ArrayList<>();
+        results.forEach(result -> statuses.add(result.getStatus()));
+        return statuses;
+    }
+}
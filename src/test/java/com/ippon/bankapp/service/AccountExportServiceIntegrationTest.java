@@ -0,0 +1,65 @@
+package com.ippon.bankapp.service;
+
+import com.ippon.bankapp.domain.Account;
+import com.ippon.bankapp.domain.Money;
+import com.ippon.bankapp.repository.AccountRepository;
+import com.ippon.bankapp.service.AccountExportService.Format;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.is;
+
+@SpringBootTest
+public class AccountExportServiceIntegrationTest {
+
+    @Autowired
+    private AccountExportService subject;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @AfterEach
+    public void tearDown() {
+        accountRepository.deleteAll();
+    }
+
+    @Test
+    @Sql(scripts = "classpath:sql/account_insert.sql")
+    public void export_ndjson_oneLinePerAccountInIdOrder() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = subject.export(Format.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8.name()).split("\n");
+        assertThat(count, is(6L));
+        assertThat(lines.length, is(6));
+        assertThat(lines[0], is("{\"firstName\":\"Julie\",\"lastName\":\"Bayern\",\"balance\":0.02,\"notificationPreference\":\"sms\"}"));
+        assertThat(lines[5], is("{\"firstName\":\"Ben\",\"lastName\":\"Scott\",\"balance\":145.32,\"notificationPreference\":\"email\"}"));
+    }
+
+    @Test
+    public void export_csv_quotesFieldsThatNeedIt() throws Exception {
+        Account plain = new Account("Ben", "Scott");
+        plain.setBalance(Money.of(new BigDecimal("1E+3")));
+        plain.setNotificationPreference("email");
+        accountRepository.save(plain);
+        accountRepository.save(new Account("Erin, Jr", "O\"Geoghan"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        subject.export(Format.CSV, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8.name()).split("\n"), arrayContaining(
+                "firstName,lastName,balance,notificationPreference",
+                "Ben,Scott,1000.00,email",
+                "\"Erin, Jr\",\"O\"\"Geoghan\",0.00,"));
+    }
+}
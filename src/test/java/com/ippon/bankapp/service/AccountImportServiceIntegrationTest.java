@@ -0,0 +1,180 @@
+package com.ippon.bankapp.service;
+
+import com.ippon.bankapp.domain.ImportCheckpoint;
+import com.ippon.bankapp.repository.AccountRepository;
+import com.ippon.bankapp.repository.ImportCheckpointRepository;
+import com.ippon.bankapp.repository.OutboxRepository;
+import com.ippon.bankapp.service.dto.AccountDTO;
+import com.ippon.bankapp.service.dto.AccountImportResultDTO;
+import com.ippon.bankapp.service.exception.InvalidImportFileException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.reset;
+
+@SpringBootTest(properties = {"bankapp.import.directory=target/import-test", "bankapp.batch.chunk-size=2"})
+public class AccountImportServiceIntegrationTest {
+
+    private static final Path DIRECTORY = Paths.get("target/import-test");
+
+    @Autowired
+    private AccountImportService subject;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @SpyBean
+    private ImportCheckpointRepository checkpointRepository;
+
+    @BeforeEach
+    public void before() throws Exception {
+        Files.createDirectories(DIRECTORY);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        accountRepository.deleteAll();
+        outboxRepository.deleteAll();
+        checkpointRepository.deleteAll();
+        FileSystemUtils.deleteRecursively(DIRECTORY);
+    }
+
+    @Test
+    public void importFile_csv_importsValidRowsAndRejectsTheRest() throws Exception {
+        accountService.createAccount(new AccountDTO().firstName("Ben").lastName("Scott"));
+        write("accounts.csv",
+                "firstName,lastName,balance,notificationPreference",
+                "Erin,Geoghan,0.00,email",
+                ",Ortega,0.00,email",
+                "Ben,Scott,0.00,email",
+                "",
+                "\"Doe, Jane\",\"O\"\"Doe\",0.00,sms",
+                "\"Broken,Row",
+                "Katie,Smith,,");
+
+        AccountImportResultDTO result = subject.importFile("accounts.csv", null, false);
+
+        assertThat(result.getImported(), is(3L));
+        assertThat(result.getRejected(), is(3L));
+        assertThat(result.getLines(), is(6L));
+        assertThat(result.getRejectedFile(), is("accounts.csv.rejected.ndjson"));
+        assertThat(accountService.getAccount("O\"Doe").getFirstName(), is("Doe, Jane"));
+        assertThat(accountRepository.count(), is(4L));
+        assertThat(read("accounts.csv.rejected.ndjson"), contains(
+                "{\"line\":3,\"status\":\"INVALID\",\"message\":\"firstName must not be empty\",\"row\":\",Ortega,0.00,email\"}",
+                "{\"line\":4,\"status\":\"CONFLICT\",\"message\":\"Last name already exists\",\"row\":\"Ben,Scott,0.00,email\"}",
+                "{\"line\":7,\"status\":\"INVALID\",\"message\":\"Malformed account\",\"row\":\"\\\"Broken,Row\"}"));
+        ImportCheckpoint checkpoint = checkpointRepository.findById("accounts.csv").get();
+        assertThat(checkpoint.getOffset(), is(Files.size(DIRECTORY.resolve("accounts.csv"))));
+        assertThat(checkpoint.getImported(), is(3L));
+        assertThat(checkpoint.getRejected(), is(3L));
+    }
+
+    @Test
+    public void importFile_resumesAfterLastCommittedRow() throws Exception {
+        write("accounts.ndjson",
+                "{\"firstName\":\"Ben\",\"lastName\":\"Scott\"}",
+                "{\"firstName\":\"Erin\",\"lastName\":\"Geoghan\"}",
+                "{\"firstName\":\"Hayley\",\"lastName\":\"Ortega\"}");
+        long afterFirstChunk = "{\"firstName\":\"Ben\",\"lastName\":\"Scott\"}\n{\"firstName\":\"Erin\",\"lastName\":\"Geoghan\"}\n".length();
+        // a run that crashed after committing the first chunk, and after appending rejects it never committed
+        checkpointRepository.save(new ImportCheckpoint("accounts.ndjson").advance(afterFirstChunk, 2, 0, 2, 0));
+        Files.write(DIRECTORY.resolve("accounts.ndjson.rejected.ndjson"), "uncommitted\n".getBytes(StandardCharsets.UTF_8));
+
+        AccountImportResultDTO result = subject.importFile("accounts.ndjson", null, false);
+
+        assertThat(result.getResumedFromOffset(), is(afterFirstChunk));
+        assertThat(result.getLines(), is(1L));
+        assertThat(result.getImported(), is(1L));
+        assertThat(accountRepository.findByLastName("Scott").isPresent(), is(false));
+        assertThat(accountRepository.findByLastName("Ortega").isPresent(), is(true));
+        assertThat(Files.size(DIRECTORY.resolve("accounts.ndjson.rejected.ndjson")), is(0L));
+        assertThat(checkpointRepository.findById("accounts.ndjson").get().getImported(), is(3L));
+
+        write("accounts.ndjson", "{\"firstName\":\"Jane\",\"lastName\":\"Doe\"}");
+        AccountImportResultDTO appended = subject.importFile("accounts.ndjson", null, false);
+
+        assertThat(appended.getImported(), is(1L));
+        assertThat(accountRepository.findByLastName("Doe").isPresent(), is(true));
+    }
+
+    @Test
+    public void importFile_chunkRedoneRowByRow_resumesAfterLastCreatedRow() throws Exception {
+        String tooLong = new String(new char[300]).replace('\0', 'x');
+        write("accounts.ndjson",
+                "{\"firstName\":\"Ben\",\"lastName\":\"Scott\"}",
+                "{\"firstName\":\"Erin\",\"lastName\":\"" + tooLong + "\"}",
+                "{\"firstName\":\"Hayley\",\"lastName\":\"Ortega\"}");
+        // the name the database rejects fails the first chunk, which is redone row by row; then the run
+        // crashes before the checkpoint of the whole chunk commits
+        long afterFirstChunk = Files.size(DIRECTORY.resolve("accounts.ndjson"))
+                - "{\"firstName\":\"Hayley\",\"lastName\":\"Ortega\"}\n".length();
+        doThrow(new IllegalStateException("Crashed")).when(checkpointRepository)
+                .save(argThat(checkpoint -> checkpoint.getOffset() == afterFirstChunk));
+        assertThrows(IllegalStateException.class, () -> subject.importFile("accounts.ndjson", null, false));
+        reset(checkpointRepository);
+
+        AccountImportResultDTO result = subject.importFile("accounts.ndjson", null, false);
+
+        assertThat(result.getLines(), is(2L));
+        assertThat(result.getImported(), is(1L));
+        assertThat(result.getRejected(), is(1L));
+        assertThat(read("accounts.ndjson.rejected.ndjson").size(), is(1));
+        assertThat(read("accounts.ndjson.rejected.ndjson").get(0).startsWith(
+                "{\"line\":2,\"status\":\"INVALID\",\"message\":\"Rejected by the database\""), is(true));
+        ImportCheckpoint checkpoint = checkpointRepository.findById("accounts.ndjson").get();
+        assertThat(checkpoint.getImported(), is(2L));
+        assertThat(checkpoint.getRejected(), is(1L));
+        assertThat(accountRepository.count(), is(2L));
+    }
+
+    @Test
+    public void importFile_refusesFilesOutsideTheImportDirectory() throws Exception {
+        write("accounts.csv", "firstName,lastName");
+
+        assertThrows(InvalidImportFileException.class, () -> subject.importFile("../pom.xml", AccountImportService.Format.CSV, false));
+        assertThrows(InvalidImportFileException.class, () -> subject.importFile("missing.csv", null, false));
+        assertThrows(InvalidImportFileException.class, () -> subject.importFile("accounts.txt", null, false));
+    }
+
+    @Test
+    public void splitCsv_handlesQuotedFields() {
+        assertThat(AccountImportService.splitCsv("a,\"b,c\",,\"d\"\"e\""), is(Arrays.asList("a", "b,c", null, "d\"e")));
+        assertThat(AccountImportService.splitCsv("\"open"), nullValue());
+    }
+
+    private void write(String file, String... lines) throws Exception {
+        Files.write(DIRECTORY.resolve(file), Arrays.asList(lines), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private List<String> read(String file) throws Exception {
+        return Files.readAllLines(DIRECTORY.resolve(file), StandardCharsets.UTF_8);
+    }
+}
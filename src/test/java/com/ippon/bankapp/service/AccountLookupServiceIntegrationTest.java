@@ -0,0 +1,88 @@
+package com.ippon.bankapp.service;
+
+import com.ippon.bankapp.repository.AccountRepository;
+import com.ippon.bankapp.repository.LedgerEntryRepository;
+import com.ippon.bankapp.service.dto.AccountLookupResultDTO;
+import com.ippon.bankapp.service.dto.AccountSummaryDTO;
+import com.ippon.bankapp.service.exception.LookupTooLargeException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = {"bankapp.lookup.chunk-size=2", "bankapp.lookup.max-last-names=10"})
+public class AccountLookupServiceIntegrationTest {
+
+    @Autowired
+    private AccountLookupService subject;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @AfterEach
+    public void tearDown() {
+        ledgerEntryRepository.deleteAll();
+        accountRepository.deleteAll();
+    }
+
+    @Test
+    @Sql(scripts = "classpath:sql/account_insert.sql")
+    public void lookup_foundAndMissing_inTheOrderAsked() {
+        AccountLookupResultDTO result = subject.lookup(Arrays.asList(
+                "Smith", "Nobody", "Scott", "Doe", "Smith", null, "Bayern", "Somebody"));
+
+        assertThat(lastNames(result.getAccounts()), contains("Smith", "Scott", "Doe", "Bayern"));
+        assertThat(result.getMissing(), contains("Nobody", "Somebody"));
+        AccountSummaryDTO scott = result.getAccounts().get(1);
+        assertThat(scott.getFirstName(), is("Ben"));
+        assertThat(scott.getBalance().toBigDecimal(), is(new BigDecimal("145.32")));
+        assertThat(scott.getNotificationPreference(), is("email"));
+    }
+
+    @Test
+    @Sql(scripts = "classpath:sql/account_insert.sql")
+    public void lookup_balanceIncludesTheLedger() {
+        ledgerService.deposit("Scott", new BigDecimal("10.00"));
+
+        AccountLookupResultDTO result = subject.lookup(Collections.singletonList("Scott"));
+
+        assertThat(result.getAccounts().get(0).getBalance().toBigDecimal(), is(new BigDecimal("155.32")));
+    }
+
+    @Test
+    public void lookup_nothingToFind() {
+        AccountLookupResultDTO result = subject.lookup(Collections.emptyList());
+
+        assertThat(result.getAccounts().isEmpty(), is(true));
+        assertThat(result.getMissing().isEmpty(), is(true));
+    }
+
+    @Test
+    public void lookup_tooManyLastNames() {
+        List<String> lastNames = Collections.nCopies(11, "Scott");
+
+        assertThrows(LookupTooLargeException.class, () -> subject.lookup(lastNames));
+    }
+
+    private static List<String> lastNames(List<AccountSummaryDTO> accounts) {
+        return accounts.stream().map(AccountSummaryDTO::getLastName).collect(Collectors.toList());
+    }
+}
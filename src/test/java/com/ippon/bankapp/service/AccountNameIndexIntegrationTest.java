@@ -0,0 +1,91 @@
+package com.ippon.bankapp.service;
+
+import com.ippon.bankapp.domain.Account;
+import com.ippon.bankapp.repository.AccountRepository;
+import com.ippon.bankapp.repository.OutboxRepository;
+import com.ippon.bankapp.service.dto.AccountDTO;
+import com.ippon.bankapp.service.dto.AccountMatchDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+@SpringBootTest
+public class AccountNameIndexIntegrationTest {
+
+    @Autowired
+    private AccountNameIndex subject;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountBatchService accountBatchService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void before() {
+        // other tests delete the accounts they created behind the index's back
+        subject.rebuild();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        accountRepository.deleteAll();
+        outboxRepository.deleteAll();
+    }
+
+    @Test
+    @Sql(scripts = "classpath:sql/account_insert.sql")
+    public void rebuild_loadsNamesFromTable() {
+        subject.rebuild();
+
+        assertThat(subject.search("geo", 10), contains(new AccountMatchDTO("Erin", "Geoghan")));
+        assertThat(subject.search("hayley", 10), contains(new AccountMatchDTO("Hayley", "Ortega")));
+        assertThat(subject.search("bayren", 10), contains(new AccountMatchDTO("Julie", "Bayern", true)));
+    }
+
+    @Test
+    public void createdAccounts_searchableBeforeNextRebuild() {
+        accountService.createAccount(new AccountDTO().firstName("Ben").lastName("Scott"));
+        accountBatchService.createAccounts(Arrays.asList(
+                new AccountDTO().firstName("Anna").lastName("Scotland"),
+                new AccountDTO().firstName("John").lastName("Doe")));
+
+        assertThat(accountService.searchAccounts("scot", 10), contains(
+                new AccountMatchDTO("Anna", "Scotland"),
+                new AccountMatchDTO("Ben", "Scott")));
+        assertThat(accountService.searchAccounts("john", 10).size(), is(1));
+    }
+
+    @Test
+    public void rebuild_keepsAccountAddedByTransactionCommittingAfterScan() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            accountRepository.saveAndFlush(new Account("Ben", "Pending"));
+            subject.add("Ben", "Pending");
+            // on another thread, so the scan does not see the uncommitted row
+            CompletableFuture.runAsync(subject::rebuild).join();
+        });
+
+        assertThat(subject.search("pending", 10), contains(new AccountMatchDTO("Ben", "Pending")));
+    }
+}
@@ -0,0 +1,147 @@
+package com.ippon.bankapp.service;
+
+import com.ippon.bankapp.config.CacheConfiguration;
+import com.ippon.bankapp.repository.AccountRepository;
+import com.ippon.bankapp.repository.OutboxRepository;
+import com.ippon.bankapp.service.dto.AccountDTO;
+import com.ippon.bankapp.service.dto.AccountPageDTO;
+import com.ippon.bankapp.service.dto.AccountSummaryDTO;
+import com.ippon.bankapp.service.exception.AccountLastNameExistsException;
+import com.ippon.bankapp.service.exception.InvalidPageTokenException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+public class AccountServiceIntegrationTest {
+
+    @Autowired
+    private AccountService subject;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @AfterEach
+    public void tearDown() {
+        accountRepository.deleteAll();
+        outboxRepository.deleteAll();
+        cacheManager.getCache(CacheConfiguration.ACCOUNTS).clear();
+    }
+
+    @Test
+    public void getAccount_repeatedReads_servedFromCache() {
+        subject.createAccount(new AccountDTO().firstName("Ben").lastName("Scott"));
+
+        AccountDTO first = subject.getAccount("Scott");
+        AccountDTO second = subject.getAccount("Scott");
+
+        assertThat(second, is(sameInstance(first)));
+        assertThat(cacheManager.getCache(CacheConfiguration.ACCOUNTS).get("Scott").get(), is(sameInstance(first)));
+    }
+
+    @Test
+    public void createAccount_evictsStaleEntry() {
+        Cache cache = cacheManager.getCache(CacheConfiguration.ACCOUNTS);
+        cache.put("Scott", new AccountDTO().firstName("Stale").lastName("Scott"));
+
+        subject.createAccount(new AccountDTO().firstName("Ben").lastName("Scott"));
+
+        assertThat(cache.get("Scott"), nullValue());
+        assertThat(subject.getAccount("Scott").getFirstName(), is("Ben"));
+    }
+
+    @Test
+    public void createAccount_concurrentSameLastName_exactlyOneWins() throws Exception {
+        int attempts = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(attempts);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<AccountDTO>> results = new ArrayList<>();
+        for (int i = 0; i < attempts; i++) {
+            String firstName = "Ben" + i;
+            results.add(executor.submit(() -> {
+                start.await();
+                return subject.createAccount(new AccountDTO().firstName(firstName).lastName("Scott"));
+            }));
+        }
+
+        start.countDown();
+        int created = 0;
+        int conflicts = 0;
+        for (Future<AccountDTO> result : results) {
+            try {
+                result.get(30, TimeUnit.SECONDS);
+                created++;
+            } catch (ExecutionException e) {
+                assertThat(e.getCause(), instanceOf(AccountLastNameExistsException.class));
+                conflicts++;
+            }
+        }
+        executor.shutdown();
+
+        assertThat(created, is(1));
+        assertThat(conflicts, is(attempts - 1));
+        assertThat(accountRepository.count(), is(1L));
+        assertThat(outboxRepository.count(), is(1L));
+    }
+
+    @Test
+    @Sql(scripts = "classpath:sql/account_insert.sql")
+    public void listAccounts_byId_followsTokensToTheLastPage() {
+        AccountPageDTO first = subject.listAccounts(null, AccountPageToken.Sort.ID, 4);
+        AccountPageDTO second = subject.listAccounts(first.getNext(), AccountPageToken.Sort.ID, 4);
+
+        assertThat(lastNames(first), contains("Bayern", "Smith", "Doe", "Ortega"));
+        assertThat(lastNames(second), contains("Geoghan", "Scott"));
+        assertThat(second.getNext(), nullValue());
+    }
+
+    @Test
+    @Sql(scripts = "classpath:sql/account_insert.sql")
+    public void listAccounts_byLastName_tokenKeepsTheOrder() {
+        AccountPageDTO first = subject.listAccounts(null, AccountPageToken.Sort.LAST_NAME, 3);
+        // the token carries its order, the sort parameter only applies to the first page
+        AccountPageDTO second = subject.listAccounts(first.getNext(), AccountPageToken.Sort.ID, 3);
+
+        assertThat(lastNames(first), contains("Bayern", "Doe", "Geoghan"));
+        assertThat(lastNames(second), contains("Ortega", "Scott", "Smith"));
+        assertThat(second.getNext(), nullValue());
+    }
+
+    @Test
+    public void listAccounts_invalidToken() {
+        assertThrows(InvalidPageTokenException.class, () -> subject.listAccounts("not a token", AccountPageToken.Sort.ID, 10));
+        assertThrows(InvalidPageTokenException.class, () -> subject.listAccounts("MTppOng", AccountPageToken.Sort.ID, 10));
+    }
+
+    private static List<String> lastNames(AccountPageDTO page) {
+        return page.getAccounts().stream().map(AccountSummaryDTO::getLastName).collect(Collectors.toList());
+    }
+}
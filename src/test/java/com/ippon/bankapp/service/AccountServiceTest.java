@@ -1,23 +1,34 @@
 package com.ippon.bankapp.service;
 
 import com.ippon.bankapp.domain.Account;
+import com.ippon.bankapp.domain.Money;
+import com.ippon.bankapp.domain.OutboxMessage;
 import com.ippon.bankapp.repository.AccountRepository;
+import com.ippon.bankapp.repository.OutboxRepository;
 import com.ippon.bankapp.service.dto.AccountDTO;
+import com.ippon.bankapp.service.exception.AccountLastNameExistsException;
+import com.ippon.bankapp.service.exception.AccountNotFoundException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import java.math.BigDecimal;
 import java.util.Optional;
+import java.util.function.Supplier;
 
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
-import static org.junit.Assert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 @ExtendWith(MockitoExtension.class)
 public class AccountServiceTest {
@@ -28,9 +39,21 @@ public class AccountServiceTest {
     @Mock
     private NotificationFactory notificationFactory;
 
+    @Mock
+    private OutboxRepository outboxRepository;
+
+    @Mock
+    private LastNameFilter lastNameFilter;
+
+    @Mock
+    private AccountNameIndex accountNameIndex;
+
     @Mock
     private EmailService emailService;
 
+    @Mock
+    private LedgerService ledgerService;
+
     @InjectMocks
     public AccountService subject;
 
@@ -53,25 +76,101 @@ public class AccountServiceTest {
         Account account = new Account(accountDto.getFirstName(), accountDto.getLastName());
         account.setNotificationPreference("email");
 
-        given(accountRepository.save(account)).willReturn(account);
+        given(accountRepository.saveAndFlush(account)).willReturn(account);
 
-        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<OutboxMessage> message = ArgumentCaptor.forClass(OutboxMessage.class);
 
         //act
         AccountDTO accountResult = subject.createAccount(accountDto);
 
         //assert
-        assertThat(accountResult.getBalance(), is(BigDecimal.ZERO));
+        assertThat(accountResult.getBalance(), is(Money.ZERO));
         assertThat(accountResult.getNotificationPreference(), is("email"));
         assertThat(accountResult.getFirstName(), is("Ben"));
         assertThat(accountResult.getLastName(), is("Scott"));
 
-        verify(emailService, times(1))
-                .sendMessage(message.capture(), message.capture(), message.capture(), message.capture());
-        assertThat(message.getAllValues().get(0), is("bank"));
-        assertThat(message.getAllValues().get(1), is(accountDto.getLastName()));
-        assertThat(message.getAllValues().get(2), is("Account Created"));
-        assertThat(message.getAllValues().get(3), is("Welcome aboard!"));
+        verify(outboxRepository, times(1))
+                .save(message.capture());
+        assertThat(message.getValue().getChannel(), is("email"));
+        assertThat(message.getValue().getSource(), is("bank"));
+        assertThat(message.getValue().getDestination(), is(accountDto.getLastName()));
+        assertThat(message.getValue().getSubject(), is("Account Created"));
+        assertThat(message.getValue().getMessage(), is("Welcome aboard!"));
     }
 
+    @Test
+    public void getAccount_lastNameFilteredOut_skipsRepository() {
+        given(lastNameFilter.mightExist("Scott")).willReturn(false);
+
+        assertThrows(AccountNotFoundException.class, () -> subject.getAccount("Scott"));
+
+        verifyNoInteractions(accountRepository);
+    }
+
+    @Test
+    public void getAccount_lastNameMightExist_queriesRepository() {
+        given(lastNameFilter.mightExist("Scott")).willReturn(true);
+        readThroughCache();
+        given(accountRepository.findByLastName("Scott")).willReturn(Optional.empty());
+
+        assertThrows(AccountNotFoundException.class, () -> subject.getAccount("Scott"));
+    }
+
+    @Test
+    public void getAccount_balanceFromLedger() {
+        Account account = new Account("Ben", "Scott");
+        given(lastNameFilter.mightExist("Scott")).willReturn(true);
+        readThroughCache();
+        given(accountRepository.findByLastName("Scott")).willReturn(Optional.of(account));
+        given(ledgerService.stateOf(account))
+                .willReturn(new AccountDTO().lastName("Scott").balance(Money.of(new BigDecimal("42.00"))));
+
+        assertThat(subject.getAccount("Scott").getBalance(), is(Money.of(new BigDecimal("42.00"))));
+    }
+
+    @Test
+    public void getAccountVersion_lastNameFilteredOut_skipsLedger() {
+        given(lastNameFilter.mightExist("Scott")).willReturn(false);
+
+        assertThrows(AccountNotFoundException.class, () -> subject.getAccountVersion("Scott"));
+
+        verifyNoInteractions(ledgerService);
+    }
+
+    @Test
+    public void getAccountVersion_noAccount_throwsNotFound() {
+        given(lastNameFilter.mightExist("Scott")).willReturn(true);
+        given(ledgerService.versionOf("Scott")).willReturn(Optional.empty());
+
+        assertThrows(AccountNotFoundException.class, () -> subject.getAccountVersion("Scott"));
+    }
+
+    @Test
+    public void createAccount_lastNameTaken_throwsConflict() {
+        given(notificationFactory.getDefaultNotification()).willReturn(emailService);
+        given(emailService.getName()).willReturn("email");
+        given(accountRepository.saveAndFlush(any(Account.class)))
+                .willThrow(new DataIntegrityViolationException("Unique index or primary key violation: \"UX_ACCOUNT_LAST_NAME_INDEX_E ON PUBLIC.ACCOUNT(LAST_NAME)\""));
+
+        assertThrows(AccountLastNameExistsException.class,
+                () -> subject.createAccount(new AccountDTO().firstName("Ben").lastName("Scott")));
+
+        verifyNoInteractions(outboxRepository);
+    }
+
+    @Test
+    public void createAccount_otherIntegrityViolation_isNotAConflict() {
+        given(notificationFactory.getDefaultNotification()).willReturn(emailService);
+        given(emailService.getName()).willReturn("email");
+        given(accountRepository.saveAndFlush(any(Account.class)))
+                .willThrow(new DataIntegrityViolationException("NULL not allowed for column \"FIRST_NAME\""));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> subject.createAccount(new AccountDTO().lastName("Scott")));
+    }
+
+    private void readThroughCache() {
+        given(ledgerService.cached(eq("Scott"), any()))
+                .willAnswer(invocation -> invocation.<Supplier<AccountDTO>>getArgument(1).get());
+    }
 }
@@ -0,0 +1,108 @@
+package com.ippon.bankapp.service;
+
+import com.ippon.bankapp.config.CacheConfiguration;
+import com.ippon.bankapp.domain.Account;
+import com.ippon.bankapp.domain.Money;
+import com.ippon.bankapp.repository.AccountRepository;
+import com.ippon.bankapp.repository.LedgerEntryRepository;
+import com.ippon.bankapp.repository.OutboxRepository;
+import com.ippon.bankapp.service.dto.AccountDTO;
+import com.ippon.bankapp.service.dto.AccountSummaryDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.comparesEqualTo;
+import static org.hamcrest.Matchers.is;
+
+@SpringBootTest(properties = "bankapp.ledger.snapshot-batch-size=2")
+public class BalanceSnapshotterIntegrationTest {
+
+    @Autowired
+    private BalanceSnapshotter subject;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    public void before() {
+        for (String lastName : new String[]{"Scott", "Doe", "Bayern"}) {
+            accountService.createAccount(new AccountDTO().firstName("Ben").lastName(lastName));
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ledgerEntryRepository.deleteAll();
+        accountRepository.deleteAll();
+        outboxRepository.deleteAll();
+        cacheManager.getCache(CacheConfiguration.ACCOUNTS).clear();
+    }
+
+    @Test
+    public void snapshot_foldsNewEntriesIntoTheBalance() {
+        ledgerService.deposit("Scott", new BigDecimal("100.00"));
+        ledgerService.transfer("Scott", "Doe", new BigDecimal("40.00"));
+        ledgerService.deposit("Bayern", new BigDecimal("1.50"));
+
+        assertThat(subject.snapshot(), is(3));
+
+        assertSnapshot("Scott", "60.00", 2);
+        assertSnapshot("Doe", "40.00", 1);
+        assertSnapshot("Bayern", "1.50", 1);
+    }
+
+    @Test
+    public void snapshot_nothingNew_movesNothing() {
+        ledgerService.deposit("Scott", BigDecimal.TEN);
+        subject.snapshot();
+
+        assertThat(subject.snapshot(), is(0));
+        assertSnapshot("Scott", "10.00", 1);
+    }
+
+    @Test
+    public void snapshot_thenMoreEntries_balanceAddsOnlyTheNewOnes() {
+        ledgerService.deposit("Scott", BigDecimal.TEN);
+        subject.snapshot();
+        ledgerService.withdraw("Scott", new BigDecimal("2.50"));
+
+        assertSnapshot("Scott", "10.00", 1);
+        assertThat(accountService.getAccount("Scott").getBalance(), comparesEqualTo(Money.of(new BigDecimal("7.50"))));
+        List<AccountSummaryDTO> listed = accountRepository.findFirstPageByLastName(PageRequest.of(0, 10));
+        assertThat(listed.get(2).getLastName(), is("Scott"));
+        assertThat(listed.get(2).getBalance(), comparesEqualTo(Money.of(new BigDecimal("7.50"))));
+
+        subject.snapshot();
+        assertSnapshot("Scott", "7.50", 2);
+    }
+
+    private void assertSnapshot(String lastName, String balance, long sequence) {
+        Account account = accountRepository.findByLastName(lastName).get();
+        assertThat(account.getBalance(), comparesEqualTo(Money.of(new BigDecimal(balance))));
+        assertThat(account.getBalanceSequence(), is(sequence));
+    }
+}
@@ -0,0 +1,70 @@
+package com.ippon.bankapp.service;
+
+import com.ippon.bankapp.domain.Account;
+import com.ippon.bankapp.repository.AccountRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+// sized by the row count, so each rebuild after a new account makes a filter of another size
+@SpringBootTest(properties = {"bankapp.last-name-filter.enabled=true", "bankapp.last-name-filter.expected-accounts=1"})
+public class LastNameFilterIntegrationTest {
+
+    @Autowired
+    private LastNameFilter subject;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    public void tearDown() {
+        accountRepository.deleteAll();
+    }
+
+    @Test
+    @Sql(scripts = "classpath:sql/account_insert.sql")
+    public void rebuild_loadsLastNamesFromTable() {
+        subject.rebuild();
+
+        assertThat(subject.mightExist("Scott"), is(true));
+        assertThat(subject.mightExist("Geoghan"), is(true));
+        assertThat(subject.mightExist("Nobody"), is(false));
+    }
+
+    @Test
+    public void add_makesNameVisibleBeforeNextRebuild() {
+        subject.rebuild();
+        accountRepository.save(new Account("Ben", "Added"));
+
+        subject.add("Added");
+
+        assertThat(subject.mightExist("Added"), is(true));
+    }
+
+    @Test
+    public void rebuild_keepsNameAddedByTransactionCommittingAfterScan() {
+        subject.rebuild();
+        accountRepository.save(new Account("Ben", "Other"));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            accountRepository.saveAndFlush(new Account("Ben", "Pending"));
+            subject.add("Pending");
+            // on another thread, so the scan does not see the uncommitted row
+            CompletableFuture.runAsync(subject::rebuild).join();
+        });
+
+        assertThat(subject.mightExist("Pending"), is(true));
+    }
+}
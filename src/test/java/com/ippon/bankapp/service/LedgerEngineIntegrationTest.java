@@ -0,0 +1,149 @@
+package com.ippon.bankapp.service;
+
+import com.ippon.bankapp.config.CacheConfiguration;
+import com.ippon.bankapp.domain.Account;
+import com.ippon.bankapp.domain.LedgerEntry;
+import com.ippon.bankapp.domain.Money;
+import com.ippon.bankapp.repository.AccountRepository;
+import com.ippon.bankapp.repository.LedgerEntryRepository;
+import com.ippon.bankapp.repository.OutboxRepository;
+import com.ippon.bankapp.service.dto.AccountDTO;
+import com.ippon.bankapp.service.dto.TransferResultDTO;
+import com.ippon.bankapp.service.exception.AccountNotFoundException;
+import com.ippon.bankapp.service.exception.InsufficientFundsException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.comparesEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = "bankapp.engine.enabled=true")
+public class LedgerEngineIntegrationTest {
+
+    @Autowired
+    private LedgerService subject;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    public void before() {
+        accountService.createAccount(new AccountDTO().firstName("Ben").lastName("Scott"));
+        accountService.createAccount(new AccountDTO().firstName("John").lastName("Doe"));
+        subject.deposit("Scott", new BigDecimal("100.00"));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ledgerEntryRepository.deleteAll();
+        accountRepository.deleteAll();
+        outboxRepository.deleteAll();
+        cacheManager.getCache(CacheConfiguration.ACCOUNTS).clear();
+    }
+
+    @Test
+    public void transfer_writtenToTheLedgerBeforeReturning() {
+        TransferResultDTO transfer = subject.transfer("Scott", "Doe", new BigDecimal("30.25"));
+
+        assertThat(transfer.getFrom().getBalance(), comparesEqualTo(Money.of(new BigDecimal("69.75"))));
+        assertThat(transfer.getTo().getBalance(), comparesEqualTo(Money.of(new BigDecimal("30.25"))));
+        assertThat(balance("Scott"), comparesEqualTo(Money.of(new BigDecimal("69.75"))));
+        assertThat(balance("Doe"), comparesEqualTo(Money.of(new BigDecimal("30.25"))));
+        assertThat(entries("Scott").get(1).getKind(), is(LedgerEntry.Kind.TRANSFER));
+    }
+
+    @Test
+    public void withdraw_insufficientFunds_leavesTheBalance() {
+        assertThrows(InsufficientFundsException.class, () -> subject.withdraw("Scott", new BigDecimal("100.01")));
+
+        assertThat(subject.withdraw("Scott", new BigDecimal("100.00")).getBalance(), comparesEqualTo(Money.ZERO));
+        assertThat(balance("Scott"), comparesEqualTo(Money.ZERO));
+    }
+
+    @Test
+    public void deposit_unknownAccount() {
+        assertThrows(AccountNotFoundException.class, () -> subject.deposit("Nobody", BigDecimal.ONE));
+    }
+
+    @Test
+    public void deposit_afterAnotherWriterAppended_reloadsTheAccount() {
+        // another instance appends behind the engine's back
+        Account scott = accountRepository.findByLastName("Scott").get();
+        ledgerEntryRepository.save(new LedgerEntry(scott.getId(), 2, Money.of(new BigDecimal("5.00")), LedgerEntry.Kind.DEPOSIT));
+
+        assertThat(subject.deposit("Scott", BigDecimal.ONE).getBalance(), comparesEqualTo(Money.of(new BigDecimal("106.00"))));
+        assertThat(entries("Scott").size(), is(3));
+    }
+
+    @Test
+    public void transfer_concurrentBothWays_conservesTheTotal() throws Exception {
+        subject.deposit("Doe", new BigDecimal("100.00"));
+        int threads = 8;
+        int transfers = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String from = t % 2 == 0 ? "Scott" : "Doe";
+            String to = t % 2 == 0 ? "Doe" : "Scott";
+            results.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < transfers; i++) {
+                    try {
+                        subject.transfer(from, to, BigDecimal.ONE);
+                    } catch (InsufficientFundsException e) {
+                        // the other side drained it for now
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(balance("Scott").plus(balance("Doe")), comparesEqualTo(Money.of(new BigDecimal("200.00"))));
+        List<LedgerEntry> entries = entries("Scott");
+        for (int i = 0; i < entries.size(); i++) {
+            assertThat(entries.get(i).getSequence(), is(i + 1L));
+        }
+    }
+
+    private List<LedgerEntry> entries(String lastName) {
+        return ledgerEntryRepository.findByAccountIdOrderBySequence(accountRepository.findByLastName(lastName).get().getId());
+    }
+
+    private Money balance(String lastName) {
+        return subject.balanceOf(accountRepository.findByLastName(lastName).get());
+    }
+}
@@ -0,0 +1,131 @@
+package com.ippon.bankapp.service;
+
+import com.ippon.bankapp.config.CacheConfiguration;
+import com.ippon.bankapp.domain.Money;
+import com.ippon.bankapp.repository.AccountRepository;
+import com.ippon.bankapp.repository.LedgerEntryRepository;
+import com.ippon.bankapp.repository.OutboxRepository;
+import com.ippon.bankapp.service.dto.AccountDTO;
+import com.ippon.bankapp.service.exception.InsufficientFundsException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Paths;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.comparesEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = {
+        "bankapp.journal.enabled=true",
+        "bankapp.journal.directory=" + LedgerJournalIntegrationTest.DIRECTORY,
+        "bankapp.journal.replay-interval=1h"})
+public class LedgerJournalIntegrationTest {
+
+    static final String DIRECTORY = "target/journal-it";
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private LedgerJournal ledgerJournal;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeAll
+    public static void clearJournal() throws IOException {
+        FileSystemUtils.deleteRecursively(Paths.get(DIRECTORY));
+    }
+
+    @BeforeEach
+    public void before() {
+        accountService.createAccount(new AccountDTO().firstName("Ben").lastName("Scott"));
+        accountService.createAccount(new AccountDTO().firstName("John").lastName("Doe"));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        // the checkpoint stays, so the next test does not replay this one's records
+        while (ledgerService.replayJournal() > 0) {
+        }
+        ledgerEntryRepository.deleteAll();
+        accountRepository.deleteAll();
+        outboxRepository.deleteAll();
+        cacheManager.getCache(CacheConfiguration.ACCOUNTS).clear();
+    }
+
+    @Test
+    public void deposit_acknowledgedBeforeReachingTheLedger() {
+        AccountDTO result = ledgerService.deposit("Scott", new BigDecimal("100.00"));
+
+        assertThat(result.getBalance(), comparesEqualTo(Money.of(new BigDecimal("100.00"))));
+        assertThat(ledgerEntryRepository.count(), is(0L));
+        assertThat(accountService.getAccount("Scott").getBalance(), comparesEqualTo(Money.of(new BigDecimal("100.00"))));
+    }
+
+    @Test
+    public void withdraw_checksFundsAgainstJournaledChanges() {
+        ledgerService.deposit("Scott", new BigDecimal("100.00"));
+        ledgerService.transfer("Scott", "Doe", new BigDecimal("60.00"));
+
+        assertThrows(InsufficientFundsException.class, () -> ledgerService.withdraw("Scott", new BigDecimal("40.01")));
+        assertThat(ledgerService.withdraw("Scott", new BigDecimal("40.00")).getBalance(), comparesEqualTo(Money.ZERO));
+    }
+
+    @Test
+    public void replayJournal_writesChangesToTheLedgerOnce() {
+        ledgerService.deposit("Scott", new BigDecimal("100.00"));
+        ledgerService.transfer("Scott", "Doe", new BigDecimal("30.00"));
+
+        assertThat(ledgerService.replayJournal(), is(2));
+        assertThat(ledgerService.replayJournal(), is(0));
+
+        assertThat(ledgerEntryRepository.count(), is(3L));
+        assertThat(ledgerJournal.pending("Scott"), comparesEqualTo(Money.ZERO));
+        assertThat(accountService.getAccount("Scott").getBalance(), comparesEqualTo(Money.of(new BigDecimal("70.00"))));
+        assertThat(accountService.getAccount("Doe").getBalance(), comparesEqualTo(Money.of(new BigDecimal("30.00"))));
+    }
+
+    @Test
+    public void restart_replaysWhatTheDatabaseMissed() throws IOException {
+        ledgerService.deposit("Scott", new BigDecimal("100.00"));
+        ledgerService.replayJournal();
+        ledgerService.transfer("Scott", "Doe", new BigDecimal("30.00"));
+
+        ledgerJournal.close();
+        ledgerJournal.open();
+
+        assertThat(ledgerJournal.pending("Doe"), comparesEqualTo(Money.of(new BigDecimal("30.00"))));
+        assertThat(accountService.getAccount("Scott").getBalance(), comparesEqualTo(Money.of(new BigDecimal("70.00"))));
+        assertThat(ledgerService.replayJournal(), is(1));
+
+        ledgerJournal.close();
+        ledgerJournal.open();
+
+        assertThat(ledgerService.replayJournal(), is(0));
+        assertThat(ledgerEntryRepository.count(), is(3L));
+        assertThat(accountService.getAccount("Doe").getBalance(), comparesEqualTo(Money.of(new BigDecimal("30.00"))));
+    }
+}
@@ -0,0 +1,282 @@
+package com.ippon.bankapp.service;
+
+import com.ippon.bankapp.config.CacheConfiguration;
+import com.ippon.bankapp.domain.Account;
+import com.ippon.bankapp.domain.LedgerEntry;
+import com.ippon.bankapp.domain.Money;
+import com.ippon.bankapp.repository.AccountRepository;
+import com.ippon.bankapp.repository.LedgerEntryRepository;
+import com.ippon.bankapp.repository.OutboxRepository;
+import com.ippon.bankapp.service.dto.AccountDTO;
+import com.ippon.bankapp.service.dto.TransferResultDTO;
+import com.ippon.bankapp.service.exception.AccountNotFoundException;
+import com.ippon.bankapp.service.exception.InsufficientFundsException;
+import com.ippon.bankapp.service.exception.InvalidAmountException;
+import com.ippon.bankapp.service.exception.SameAccountTransferException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.comparesEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+public class LedgerServiceIntegrationTest {
+
+    @Autowired
+    private LedgerService subject;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private BalanceSnapshotter balanceSnapshotter;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    public void before() {
+        accountService.createAccount(new AccountDTO().firstName("Ben").lastName("Scott"));
+        accountService.createAccount(new AccountDTO().firstName("John").lastName("Doe"));
+        subject.deposit("Scott", new BigDecimal("100.00"));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ledgerEntryRepository.deleteAll();
+        accountRepository.deleteAll();
+        outboxRepository.deleteAll();
+        cacheManager.getCache(CacheConfiguration.ACCOUNTS).clear();
+    }
+
+    @Test
+    public void deposit_addsToTheBalance() {
+        AccountDTO account = subject.deposit("Scott", new BigDecimal("20.50"));
+
+        assertThat(account.getBalance(), comparesEqualTo(Money.of(new BigDecimal("120.50"))));
+        assertThat(balance("Scott"), comparesEqualTo(Money.of(new BigDecimal("120.50"))));
+    }
+
+    @Test
+    public void withdraw_subtractsFromTheBalance() {
+        AccountDTO account = subject.withdraw("Scott", new BigDecimal("100"));
+
+        assertThat(account.getBalance(), comparesEqualTo(Money.ZERO));
+        assertThat(balance("Scott"), comparesEqualTo(Money.ZERO));
+    }
+
+    @Test
+    public void withdraw_insufficientFunds_leavesTheBalance() {
+        assertThrows(InsufficientFundsException.class, () -> subject.withdraw("Scott", new BigDecimal("100.01")));
+
+        assertThat(balance("Scott"), comparesEqualTo(Money.of(new BigDecimal("100.00"))));
+    }
+
+    @Test
+    public void deposit_invalidAmount() {
+        assertThrows(InvalidAmountException.class, () -> subject.deposit("Scott", BigDecimal.ZERO));
+        assertThrows(InvalidAmountException.class, () -> subject.deposit("Scott", new BigDecimal("-1")));
+        assertThrows(InvalidAmountException.class, () -> subject.deposit("Scott", new BigDecimal("0.001")));
+        assertThrows(InvalidAmountException.class, () -> subject.deposit("Scott", null));
+    }
+
+    @Test
+    public void deposit_beyondWhatABalanceHolds_leavesTheBalance() {
+        BigDecimal largest = Money.ofMinor(Long.MAX_VALUE).toBigDecimal();
+
+        assertThrows(InvalidAmountException.class, () -> subject.deposit("Scott", largest));
+
+        assertThat(balance("Scott"), comparesEqualTo(Money.of(new BigDecimal("100.00"))));
+    }
+
+    @Test
+    public void deposit_unknownAccount() {
+        assertThrows(AccountNotFoundException.class, () -> subject.deposit("Nobody", BigDecimal.ONE));
+    }
+
+    @Test
+    public void deposit_evictsCachedAccount() {
+        Cache cache = cacheManager.getCache(CacheConfiguration.ACCOUNTS);
+        accountService.getAccount("Scott");
+
+        subject.deposit("Scott", BigDecimal.TEN);
+
+        assertThat(cache.get("Scott"), nullValue());
+        assertThat(accountService.getAccount("Scott").getBalance(), comparesEqualTo(Money.of(new BigDecimal("110.00"))));
+    }
+
+    @Test
+    public void transfer_movesTheAmount() {
+        TransferResultDTO transfer = subject.transfer("Scott", "Doe", new BigDecimal("30.25"));
+
+        assertThat(transfer.getFrom().getBalance(), comparesEqualTo(Money.of(new BigDecimal("69.75"))));
+        assertThat(transfer.getTo().getBalance(), comparesEqualTo(Money.of(new BigDecimal("30.25"))));
+        assertThat(balance("Scott"), comparesEqualTo(Money.of(new BigDecimal("69.75"))));
+        assertThat(balance("Doe"), comparesEqualTo(Money.of(new BigDecimal("30.25"))));
+    }
+
+    @Test
+    public void transfer_insufficientFunds_changesNeitherAccount() {
+        assertThrows(InsufficientFundsException.class, () -> subject.transfer("Doe", "Scott", BigDecimal.ONE));
+
+        assertThat(balance("Scott"), comparesEqualTo(Money.of(new BigDecimal("100.00"))));
+        assertThat(balance("Doe"), comparesEqualTo(Money.ZERO));
+    }
+
+    @Test
+    public void transfer_sameAccount() {
+        assertThrows(SameAccountTransferException.class, () -> subject.transfer("Scott", "Scott", BigDecimal.ONE));
+    }
+
+    @Test
+    public void transfer_concurrentBothWays_conservesTheTotal() throws Exception {
+        subject.deposit("Doe", new BigDecimal("100.00"));
+        int threads = 8;
+        int transfers = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            // half the threads go one way, half the other: without ordered locking this deadlocks
+            String from = t % 2 == 0 ? "Scott" : "Doe";
+            String to = t % 2 == 0 ? "Doe" : "Scott";
+            results.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < transfers; i++) {
+                    try {
+                        subject.transfer(from, to, BigDecimal.ONE);
+                    } catch (InsufficientFundsException e) {
+                        // the other side drained it for now
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(balance("Scott").plus(balance("Doe")), comparesEqualTo(Money.of(new BigDecimal("200.00"))));
+        assertSequential("Scott");
+        assertSequential("Doe");
+    }
+
+    @Test
+    public void transfer_appendsOneEntryPerAccount() {
+        subject.transfer("Scott", "Doe", new BigDecimal("30.25"));
+
+        List<LedgerEntry> scott = entries("Scott");
+        List<LedgerEntry> doe = entries("Doe");
+        assertThat(scott.size(), is(2));
+        assertThat(scott.get(1).getKind(), is(LedgerEntry.Kind.TRANSFER));
+        assertThat(scott.get(1).getAmount(), comparesEqualTo(Money.of(new BigDecimal("-30.25"))));
+        assertThat(doe.size(), is(1));
+        assertThat(doe.get(0).getAmount(), comparesEqualTo(Money.of(new BigDecimal("30.25"))));
+    }
+
+    @Test
+    public void deposit_leavesTheSnapshot() {
+        subject.deposit("Scott", BigDecimal.ONE);
+
+        Account account = accountRepository.findByLastName("Scott").get();
+        assertThat(account.getBalance(), comparesEqualTo(Money.ZERO));
+        assertThat(account.getBalanceSequence(), is(0L));
+        assertThat(subject.balanceOf(account), comparesEqualTo(Money.of(new BigDecimal("101.00"))));
+    }
+
+    @Test
+    public void versionOf_isTheVersionOfTheAccountRead() {
+        String version = subject.stateOf(accountRepository.findByLastName("Scott").get()).getVersion();
+
+        assertThat(subject.versionOf("Scott"), is(Optional.of(version)));
+        assertThat(accountService.getAccount("Scott").getVersion(), is(version));
+    }
+
+    @Test
+    public void versionOf_changesWithTheBalance() {
+        String before = subject.versionOf("Scott").get();
+
+        subject.deposit("Scott", BigDecimal.ONE);
+
+        String after = subject.versionOf("Scott").get();
+        assertThat(after, not(before));
+        assertThat(subject.stateOf(accountRepository.findByLastName("Scott").get()).getVersion(), is(after));
+    }
+
+    @Test
+    public void versionOf_unchangedBySnapshot() {
+        String before = accountService.getAccount("Scott").getVersion();
+
+        balanceSnapshotter.snapshot();
+
+        assertThat(subject.versionOf("Scott"), is(Optional.of(before)));
+        cacheManager.getCache(CacheConfiguration.ACCOUNTS).clear();
+        assertThat(subject.versionOf("Scott"), is(Optional.of(before)));
+        assertThat(accountService.getAccount("Scott").getVersion(), is(before));
+    }
+
+    @Test
+    public void cached_changeCommittedWhileReading_notCached() {
+        AccountDTO read = subject.cached("Scott", () -> {
+            AccountDTO before = subject.stateOf(accountRepository.findByLastName("Scott").get());
+            // commits and evicts before the reader caches what it read
+            subject.deposit("Scott", BigDecimal.ONE);
+            return before;
+        });
+
+        assertThat(read.getBalance(), comparesEqualTo(Money.of(new BigDecimal("100.00"))));
+        assertThat(accountService.getAccount("Scott").getBalance(), comparesEqualTo(Money.of(new BigDecimal("101.00"))));
+        assertThat(subject.versionOf("Scott"), is(Optional.of(accountService.getAccount("Scott").getVersion())));
+    }
+
+    @Test
+    public void versionOf_unknownAccount() {
+        assertThat(subject.versionOf("Nobody"), is(Optional.empty()));
+    }
+
+    private void assertSequential(String lastName) {
+        List<LedgerEntry> entries = entries(lastName);
+        for (int i = 0; i < entries.size(); i++) {
+            assertThat(entries.get(i).getSequence(), is(i + 1L));
+        }
+    }
+
+    private List<LedgerEntry> entries(String lastName) {
+        return ledgerEntryRepository.findByAccountIdOrderBySequence(accountRepository.findByLastName(lastName).get().getId());
+    }
+
+    private Money balance(String lastName) {
+        return subject.balanceOf(accountRepository.findByLastName(lastName).get());
+    }
+}
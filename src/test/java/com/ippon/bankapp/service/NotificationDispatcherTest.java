@@ -0,0 +1,147 @@
+package com.ippon.bankapp.service;
+
+import com.ippon.bankapp.config.ApplicationProperties;
+import com.ippon.bankapp.service.dto.NotificationMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class NotificationDispatcherTest {
+
+    private ApplicationProperties properties;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private NotificationDispatcher subject;
+
+    @BeforeEach
+    public void before() {
+        properties = new ApplicationProperties();
+        properties.getNotification().setWorkers(1);
+        properties.getNotification().setBatchSize(10);
+        meterRegistry = new SimpleMeterRegistry();
+        subject = new NotificationDispatcher(properties, meterRegistry);
+    }
+
+    @AfterEach
+    public void after() throws InterruptedException {
+        subject.shutdown();
+    }
+
+    @Test
+    public void dispatch_sendsMessagesInBatches() throws Exception {
+        RecordingService service = new RecordingService("email");
+        List<NotificationMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            messages.add(new NotificationMessage("bank", "user" + i, "subject", "message"));
+        }
+
+        subject.dispatchAll(service, messages).get(5, TimeUnit.SECONDS);
+
+        assertThat(service.sent.size(), is(25));
+        for (Integer batchSize : service.batchSizes) {
+            assertThat(batchSize, lessThanOrEqualTo(10));
+        }
+        assertThat(meterRegistry.get("notification.batch.size").tag("channel", "email").summary().totalAmount(), is(25.0));
+        assertThat(meterRegistry.get("notification.dispatch.latency").tag("channel", "email").timer().count(), is(25L));
+    }
+
+    @Test
+    public void dispatch_queueFull_sendsOnCallerThread() throws Exception {
+        properties.getNotification().setQueueCapacity(1);
+        properties.getNotification().setBatchSize(1);
+        properties.getNotification().setOfferTimeout(Duration.ZERO);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingService service = new RecordingService("sms") {
+            @Override
+            public void sendMessages(List<NotificationMessage> messages) {
+                if (!Thread.currentThread().getName().startsWith("notification-")) {
+                    super.sendMessages(messages);
+                    return;
+                }
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.sendMessages(messages);
+            }
+        };
+
+        // the worker blocks on the first message, the second fills the queue
+        CompletableFuture<Void> first = subject.dispatch(service, new NotificationMessage("bank", "a", "s", "m"));
+        waitForQueueDepth("sms", 0);
+        subject.dispatch(service, new NotificationMessage("bank", "b", "s", "m"));
+
+        CompletableFuture<Void> third = subject.dispatch(service, new NotificationMessage("bank", "c", "s", "m"));
+
+        assertThat(third.isDone(), is(true));
+        assertThat(meterRegistry.get("notification.dispatch.overflow").tag("channel", "sms").counter().count(), is(1.0));
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void dispatch_channelFails_completesExceptionally() throws Exception {
+        NotificationService failing = new RecordingService("email") {
+            @Override
+            public void sendMessages(List<NotificationMessage> messages) {
+                throw new IllegalStateException("provider down");
+            }
+        };
+
+        CompletableFuture<Void> result = subject.dispatch(failing, new NotificationMessage("bank", "a", "s", "m"));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertThat(e.getCause().getMessage(), is("provider down"));
+    }
+
+    private void waitForQueueDepth(String channel, int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (subject.getQueueDepth(channel) != depth && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static class RecordingService implements NotificationService {
+
+        private final String name;
+        final List<NotificationMessage> sent = Collections.synchronizedList(new ArrayList<>());
+        final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+
+        RecordingService(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void sendMessage(String source, String destination, String subject, String message) {
+            sent.add(new NotificationMessage(source, destination, subject, message));
+        }
+
+        @Override
+        public void sendMessages(List<NotificationMessage> messages) {
+            batchSizes.add(messages.size());
+            sent.addAll(messages);
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+}
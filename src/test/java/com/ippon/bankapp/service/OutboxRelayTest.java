@@ -0,0 +1,100 @@
+package com.ippon.bankapp.service;
+
+import com.ippon.bankapp.config.ApplicationProperties;
+import com.ippon.bankapp.domain.OutboxMessage;
+import com.ippon.bankapp.repository.OutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class OutboxRelayTest {
+
+    @Mock
+    private OutboxRepository outboxRepository;
+
+    @Mock
+    private NotificationFactory notificationFactory;
+
+    @Mock
+    private NotificationDispatcher notificationDispatcher;
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private EmailService emailService;
+
+    @Mock
+    private SmsService smsService;
+
+    private OutboxRelay subject;
+
+    @BeforeEach
+    public void before() {
+        subject = new OutboxRelay(outboxRepository, notificationFactory, notificationDispatcher, dataSource,
+                new ApplicationProperties(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    public void relayBatch_nothingToClaim_sendsNothing() {
+        given(outboxRepository.claimBatch(anyString(), any(), any(), anyInt())).willReturn(0);
+
+        int relayed = subject.relayBatch();
+
+        assertThat(relayed, is(0));
+        verify(notificationDispatcher, never()).dispatchAll(any(), anyList());
+    }
+
+    @Test
+    public void relayBatch_deletesOnlyRowsOfChannelsThatSucceeded() {
+        OutboxMessage email = row(1L, "email");
+        OutboxMessage sms = row(2L, "sms");
+        given(outboxRepository.claimBatch(anyString(), any(), any(), anyInt())).willReturn(2);
+        given(outboxRepository.findByClaimedByOrderById(anyString())).willReturn(Arrays.asList(email, sms));
+        given(notificationFactory.getPreferredService("email")).willReturn(Optional.of(emailService));
+        given(notificationFactory.getPreferredService("sms")).willReturn(Optional.of(smsService));
+        given(notificationDispatcher.dispatchAll(eq(emailService), anyList()))
+                .willReturn(CompletableFuture.completedFuture(null));
+        CompletableFuture<Void> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("sms provider down"));
+        given(notificationDispatcher.dispatchAll(eq(smsService), anyList())).willReturn(failed);
+
+        int relayed = subject.relayBatch();
+
+        assertThat(relayed, is(1));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Long>> deleted = ArgumentCaptor.forClass(Collection.class);
+        verify(outboxRepository).deleteByIdIn(deleted.capture());
+        assertThat(deleted.getValue(), contains(1L));
+    }
+
+    private static OutboxMessage row(Long id, String channel) {
+        OutboxMessage row = new OutboxMessage(channel, "bank", "user" + id, "Account Created", "Welcome aboard!");
+        ReflectionTestUtils.setField(row, "id", id);
+        return row;
+    }
+}
@@ -0,0 +1,147 @@
+package com.ippon.bankapp.service;
+
+import com.ippon.bankapp.benchmark.SlowDatabase;
+import com.ippon.bankapp.config.CacheConfiguration;
+import com.ippon.bankapp.repository.AccountRepository;
+import com.ippon.bankapp.repository.LedgerEntryRepository;
+import com.ippon.bankapp.repository.OutboxRepository;
+import com.ippon.bankapp.service.dto.AccountDTO;
+import com.ippon.bankapp.service.dto.TransferDTO;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+
+/**
+ * Runs the JDBC and Hibernate path of the account and ledger services on many more virtual threads than the pool
+ * has connections, against a database that takes a round trip per statement like a remote one, and fails on any
+ * virtual thread that blocked while pinned to its carrier, as reported by the {@code jdk.VirtualThreadPinned} event
+ * of JFR with no threshold. A pinned thread blocks its carrier, so a few of them waiting on the pool or the
+ * database would stall every other request.
+ */
+@SpringBootTest(properties = {
+        "bankapp.virtual-threads.enabled=true",
+        // most threads wait for a connection
+        "spring.datasource.hikari.maximum-pool-size=2"
+})
+public class VirtualThreadPinningIntegrationTest {
+
+    @TestConfiguration
+    static class RemoteDatabase {
+
+        @Bean
+        static SlowDatabase slowDatabase() {
+            return new SlowDatabase(Duration.ofMillis(2));
+        }
+    }
+
+    private static final int ACCOUNTS = 10;
+    private static final int TASKS = 500;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    public void before() {
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountService.createAccount(new AccountDTO().firstName("Pin").lastName("Pinned" + i));
+            accountService.deposit("Pinned" + i, new BigDecimal("1000.00"));
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ledgerEntryRepository.deleteAll();
+        accountRepository.deleteAll();
+        outboxRepository.deleteAll();
+        cacheManager.getCache(CacheConfiguration.ACCOUNTS).clear();
+    }
+
+    @Test
+    public void accountsAndLedger_doNotPinVirtualThreads() throws Exception {
+        List<String> pinned = new CopyOnWriteArrayList<>();
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", event -> pinned.add(describe(event)));
+            recording.startAsync();
+
+            List<Future<?>> futures = new ArrayList<>();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < TASKS; i++) {
+                    int task = i;
+                    futures.add(executor.submit(() -> work(task)));
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            recording.stop();
+        }
+
+        assertThat(pinned, empty());
+    }
+
+    private void work(int task) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int account = random.nextInt(ACCOUNTS);
+        String lastName = "Pinned" + account;
+        switch (task % 4) {
+            case 0:
+                accountService.createAccount(new AccountDTO().firstName("Pin").lastName("Created" + task));
+                break;
+            case 1:
+                accountService.getAccount(lastName);
+                break;
+            case 2:
+                accountService.deposit(lastName, new BigDecimal("1.00"));
+                break;
+            default:
+                String to = "Pinned" + (account + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                accountService.transfer(new TransferDTO().from(lastName).to(to).amount(new BigDecimal("1.00")));
+        }
+    }
+
+    private static String describe(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return event.toString();
+        }
+        return event.getStackTrace().getFrames().stream()
+                .limit(12)
+                .map(RecordedFrame::getMethod)
+                .map(method -> method.getType().getName() + "." + method.getName())
+                .collect(Collectors.joining("\n\t", "pinned at\n\t", ""));
+    }
+}
@@ -0,0 +1,122 @@
+package com.ippon.bankapp.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void tryAcquire_beyondTheLimit_rejected() {
+        AdaptiveConcurrencyLimit subject = new AdaptiveConcurrencyLimit(2, 1, 10);
+
+        assertThat(subject.tryAcquire(), is(true));
+        assertThat(subject.tryAcquire(), is(true));
+        assertThat(subject.tryAcquire(), is(false));
+        assertThat(subject.getInFlight(), is(2));
+    }
+
+    @Test
+    public void steadyLatencyAtTheLimit_grows() {
+        AdaptiveConcurrencyLimit subject = new AdaptiveConcurrencyLimit(10, 1, 100);
+
+        runAtTheLimit(subject, 200, 5 * MILLIS);
+
+        assertThat(subject.getLimit(), greaterThan(10));
+    }
+
+    @Test
+    public void risingLatency_shrinks() {
+        AdaptiveConcurrencyLimit subject = new AdaptiveConcurrencyLimit(50, 5, 100);
+        runAtTheLimit(subject, 100, 5 * MILLIS);
+        int before = subject.getLimit();
+
+        // queueing for the connection pool: ten times slower, before that becomes the usual latency
+        runAtTheLimit(subject, 2, 50 * MILLIS);
+
+        assertThat(subject.getLimit(), lessThan(before));
+    }
+
+    @Test
+    public void fewRequestsInProgress_leaveTheLimit() {
+        AdaptiveConcurrencyLimit subject = new AdaptiveConcurrencyLimit(20, 1, 100);
+
+        for (int i = 0; i < 100; i++) {
+            subject.tryAcquire();
+            subject.release(5 * MILLIS, false);
+        }
+
+        assertThat(subject.getLimit(), is(20));
+    }
+
+    @Test
+    public void dropped_backsOffDownToTheMinimum() {
+        AdaptiveConcurrencyLimit subject = new AdaptiveConcurrencyLimit(20, 4, 100);
+
+        subject.tryAcquire();
+        subject.release(MILLIS, true);
+        assertThat(subject.getLimit(), is(18));
+
+        for (int i = 0; i < 100; i++) {
+            subject.tryAcquire();
+            subject.release(MILLIS, true);
+        }
+        assertThat(subject.getLimit(), is(4));
+    }
+
+    @Test
+    public void concurrentSamples_allCounted() throws Exception {
+        AdaptiveConcurrencyLimit subject = new AdaptiveConcurrencyLimit(50, 4, 100);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> running = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            running.add(executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    if (subject.tryAcquire()) {
+                        subject.release(MILLIS, true);
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : running) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // every drop backs off from the limit the previous one left, none is lost to a race
+        assertThat(subject.getLimit(), is(4));
+        assertThat(subject.getInFlight(), is(0));
+    }
+
+    @Test
+    public void invalidLimits_rejected() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimit(10, 0, 20));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimit(30, 1, 20));
+    }
+
+    private static void runAtTheLimit(AdaptiveConcurrencyLimit subject, int rounds, long rttNanos) {
+        for (int round = 0; round < rounds; round++) {
+            int admitted = 0;
+            while (subject.tryAcquire()) {
+                admitted++;
+            }
+            for (int i = 0; i < admitted; i++) {
+                subject.release(rttNanos, false);
+            }
+        }
+    }
+}
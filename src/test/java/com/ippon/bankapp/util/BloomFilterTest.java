@@ -0,0 +1,39 @@
+package com.ippon.bankapp.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+class BloomFilterTest {
+
+    @Test
+    public void mightContain_neverMissesAddedValues() {
+        BloomFilter subject = BloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            subject.put("Last" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(subject.mightContain("Last" + i), is(true));
+        }
+    }
+
+    @Test
+    public void mightContain_falsePositiveRateNearTarget() {
+        BloomFilter subject = BloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            subject.put("Last" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (subject.mightContain("Other" + i)) {
+                falsePositives++;
+            }
+        }
+
+        assertThat(falsePositives / 100_000.0, lessThan(0.02));
+    }
+}
@@ -0,0 +1,132 @@
+package com.ippon.bankapp.util;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CountingDataSourceTest {
+
+    private DataSource subject;
+
+    private Connection keepAlive;
+
+    @BeforeEach
+    public void before() throws SQLException {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:counting");
+        subject = CountingDataSource.wrap(h2);
+        keepAlive = h2.getConnection();
+        try (Statement statement = keepAlive.createStatement()) {
+            statement.execute("create table item (id int primary key)");
+            statement.execute("insert into item values (1), (2), (3)");
+        }
+    }
+
+    @AfterEach
+    public void after() throws SQLException {
+        keepAlive.close();
+    }
+
+    @Test
+    public void statementsAndRows_countedInTheOpenStats() throws SQLException {
+        QueryStats stats = QueryStats.open();
+        try (Connection connection = subject.getConnection();
+             PreparedStatement select = connection.prepareStatement("select id from item where id >= ?")) {
+            select.setInt(1, 2);
+            try (ResultSet rows = select.executeQuery()) {
+                while (rows.next()) {
+                    rows.getInt(1);
+                }
+            }
+            try (Statement update = connection.createStatement()) {
+                update.executeUpdate("update item set id = id + 10 where id = 1");
+            }
+        } finally {
+            stats.close();
+        }
+
+        assertThat(stats.getStatements(), is(2));
+        assertThat(stats.getRows(), is(2L));
+        assertThat(stats.getNanos(), greaterThan(0L));
+    }
+
+    @Test
+    public void batch_countsOnce() throws SQLException {
+        QueryStats stats = QueryStats.open();
+        try (Connection connection = subject.getConnection();
+             PreparedStatement insert = connection.prepareStatement("insert into item values (?)")) {
+            for (int id = 10; id < 15; id++) {
+                insert.setInt(1, id);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        } finally {
+            stats.close();
+        }
+
+        assertThat(stats.getStatements(), is(1));
+    }
+
+    @Test
+    public void nestedStats_countApart() throws SQLException {
+        QueryStats outer = QueryStats.open();
+        QueryStats inner = QueryStats.open();
+        try (Connection connection = subject.getConnection()) {
+            execute(connection);
+            inner.close();
+            execute(connection);
+            execute(connection);
+        } finally {
+            outer.close();
+        }
+
+        assertThat(inner.getStatements(), is(1));
+        assertThat(outer.getStatements(), is(2));
+        assertThat(QueryStats.current() == null, is(true));
+    }
+
+    @Test
+    public void failedStatement_countedAndRethrown() throws SQLException {
+        QueryStats stats = QueryStats.open();
+        try (Connection connection = subject.getConnection();
+             Statement statement = connection.createStatement()) {
+            assertThrows(SQLException.class, () -> statement.execute("select nothing from nowhere"));
+        } finally {
+            stats.close();
+        }
+
+        assertThat(stats.getStatements(), is(1));
+    }
+
+    @Test
+    public void unwrap_reachesThePool() throws SQLException {
+        try (HikariDataSource pool = new HikariDataSource()) {
+            pool.setJdbcUrl("jdbc:h2:mem:counting");
+            DataSource wrapped = CountingDataSource.wrap(pool);
+
+            assertThat(wrapped.isWrapperFor(HikariDataSource.class), is(true));
+            assertThat(wrapped.unwrap(HikariDataSource.class), sameInstance(pool));
+        }
+    }
+
+    private static void execute(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("select 1");
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.ippon.bankapp.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IntLongMapTest {
+
+    @Test
+    public void randomOperations_matchHashMap() {
+        IntLongMap subject = new IntLongMap(4);
+        Map<Integer, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            // a small key range, so removals keep shifting clusters around
+            int key = random.nextInt(2_000) - 1_000;
+            switch (random.nextInt(3)) {
+                case 0:
+                    subject.put(key, i);
+                    expected.put(key, (long) i);
+                    break;
+                case 1:
+                    assertThat(subject.remove(key), is(expected.remove(key) != null));
+                    break;
+                default:
+                    assertThat(subject.get(key, -1), is(expected.getOrDefault(key, -1L)));
+            }
+        }
+        assertThat(subject.size(), is(expected.size()));
+        for (int key = -1_000; key < 1_000; key++) {
+            assertThat(subject.containsKey(key), is(expected.containsKey(key)));
+        }
+    }
+
+    @Test
+    public void clear_removesEverything() {
+        IntLongMap subject = new IntLongMap(16);
+        subject.put(1, 10);
+        subject.put(2, 20);
+
+        subject.clear();
+
+        assertThat(subject.size(), is(0));
+        assertThat(subject.get(1, -1), is(-1L));
+    }
+
+    @Test
+    public void put_minValue_rejected() {
+        assertThrows(IllegalArgumentException.class, () -> new IntLongMap(16).put(Integer.MIN_VALUE, 1));
+        assertThat(new IntLongMap(16).containsKey(Integer.MIN_VALUE), is(false));
+    }
+}
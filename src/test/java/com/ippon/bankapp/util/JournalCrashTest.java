@@ -0,0 +1,102 @@
+package com.ippon.bankapp.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Kills a process appending to a journal from several threads, at an arbitrary point of its writes, and
+ * checks that every record it acknowledged is still there once the journal is reopened.
+ */
+class JournalCrashTest {
+
+    private static final int SEGMENT_SIZE = 128 * 1024;
+    private static final int WRITERS = 4;
+    private static final int CRASHES = 3;
+    private static final int ACKNOWLEDGED_BEFORE_KILL = 2_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void killedMidWrite_keepsEveryAcknowledgedRecord() throws Exception {
+        Map<Long, String> acknowledged = new HashMap<>();
+        for (int crash = 0; crash < CRASHES; crash++) {
+            Process writer = new ProcessBuilder(
+                    Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-cp", System.getProperty("java.class.path"),
+                    Writer.class.getName(), directory.toString())
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+            int acknowledgedNow = 0;
+            try (BufferedReader out = new BufferedReader(new InputStreamReader(writer.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while (acknowledgedNow < ACKNOWLEDGED_BEFORE_KILL && (line = out.readLine()) != null) {
+                    int space = line.indexOf(' ');
+                    acknowledged.put(Long.parseLong(line.substring(0, space)), line.substring(space + 1));
+                    acknowledgedNow++;
+                }
+                writer.destroyForcibly();
+                assertThat(writer.waitFor(1, TimeUnit.MINUTES), is(true));
+            }
+            assertThat("writer died on its own", acknowledgedNow, is(ACKNOWLEDGED_BEFORE_KILL));
+
+            Map<Long, String> recovered = new HashMap<>();
+            try (Journal journal = Journal.open(directory, SEGMENT_SIZE, Duration.ZERO)) {
+                journal.read(0, (sequence, payload) -> recovered.put(sequence, new String(payload, StandardCharsets.UTF_8)));
+                assertThat(journal.getLastSequence(), is((long) recovered.size()));
+            }
+            for (Map.Entry<Long, String> record : acknowledged.entrySet()) {
+                assertThat("record " + record.getKey(), recovered.get(record.getKey()), is(record.getValue()));
+            }
+            assertThat(recovered.size(), greaterThanOrEqualTo(acknowledged.size()));
+        }
+    }
+
+    /**
+     * Appends records of random sizes from several threads until killed, printing each once it is synced.
+     */
+    public static class Writer {
+
+        public static void main(String[] args) throws IOException {
+            Journal journal = Journal.open(Paths.get(args[0]), SEGMENT_SIZE, Duration.ZERO);
+            PrintStream out = new PrintStream(System.out, false, "UTF-8");
+            for (int w = 0; w < WRITERS; w++) {
+                int writer = w;
+                Thread thread = new Thread(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; ; i++) {
+                        StringBuilder payload = new StringBuilder().append(writer).append('-').append(i).append('-');
+                        for (int n = random.nextInt(1, 2_000); n > 0; n--) {
+                            payload.append((char) ('a' + random.nextInt(26)));
+                        }
+                        String value = payload.toString();
+                        long sequence = journal.append(value.getBytes(StandardCharsets.UTF_8));
+                        journal.sync(sequence);
+                        synchronized (out) {
+                            out.println(sequence + " " + value);
+                            out.flush();
+                        }
+                    }
+                });
+                thread.start();
+            }
+        }
+    }
+}
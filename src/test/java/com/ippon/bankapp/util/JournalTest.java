@@ -0,0 +1,138 @@
+package com.ippon.bankapp.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.ByteBuffer;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+class JournalTest {
+
+    private static final int SEGMENT_SIZE = 128 * 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void append_reopen_readsRecordsInOrder() throws IOException {
+        try (Journal journal = open()) {
+            assertThat(journal.append(bytes("first")), is(1L));
+            assertThat(journal.append(bytes("second")), is(2L));
+            assertThat(journal.append(bytes("third")), is(3L));
+        }
+
+        try (Journal journal = open()) {
+            assertThat(journal.getLastSequence(), is(3L));
+            assertThat(read(journal, 1), contains("2:second", "3:third"));
+            assertThat(journal.append(bytes("fourth")), is(4L));
+        }
+    }
+
+    @Test
+    public void append_pastSegmentSize_rollsOverAndDeletesReplayedSegments() throws IOException {
+        byte[] payload = new byte[10_000];
+        try (Journal journal = open()) {
+            for (int i = 0; i < 50; i++) {
+                journal.append(payload);
+            }
+            int segments = journal.getSegmentCount();
+            assertThat(segments, greaterThan(1));
+
+            journal.deleteBefore(40);
+            assertThat(journal.getSegmentCount(), lessThan(segments));
+            assertThat(read(journal, 39).size(), is(11));
+        }
+
+        try (Journal journal = open()) {
+            assertThat(journal.getLastSequence(), is(50L));
+            assertThat(read(journal, 39).size(), is(11));
+        }
+    }
+
+    @Test
+    public void tornRecord_droppedWithEverythingAfterIt() throws IOException {
+        try (Journal journal = open()) {
+            journal.append(bytes("kept"));
+            journal.append(bytes("torn"));
+            journal.append(bytes("lost"));
+        }
+        // flip a byte of the second payload, as a write cut short by a power loss would leave it
+        Path segment = segments().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), 20 + 16 + 1);
+        }
+
+        try (Journal journal = open()) {
+            assertThat(journal.getLastSequence(), is(1L));
+            assertThat(journal.append(bytes("again")), is(2L));
+        }
+        try (Journal journal = open()) {
+            assertThat(read(journal, 0), contains("1:kept", "2:again"));
+        }
+    }
+
+    @Test
+    public void sync_concurrentAppends_shareForces() throws Exception {
+        int threads = 8;
+        int appends = 200;
+        try (Journal journal = open()) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < appends; i++) {
+                        journal.sync(journal.append(bytes("record")));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get(1, TimeUnit.MINUTES);
+            }
+            executor.shutdown();
+
+            assertThat(journal.getDurableSequence(), is((long) threads * appends));
+            assertThat(journal.getSyncs(), lessThan((long) threads * appends));
+        }
+    }
+
+    private Journal open() throws IOException {
+        return Journal.open(directory, SEGMENT_SIZE, Duration.ZERO);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".journal")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static List<String> read(Journal journal, long after) throws IOException {
+        List<String> records = new ArrayList<>();
+        journal.read(after, (sequence, payload) -> records.add(sequence + ":" + new String(payload, StandardCharsets.UTF_8)));
+        return records;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,67 @@
+package com.ippon.bankapp.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+class LineChannelReaderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void readLine_splitsOnAnyLineEndingAcrossBufferRefills() throws Exception {
+        Path file = write("first line\r\nsecond\n\nthird without newline");
+
+        try (LineChannelReader subject = open(file, 0)) {
+            assertThat(line(subject), is("first line"));
+            assertThat(subject.position(), is(12L));
+            assertThat(line(subject), is("second"));
+            assertThat(line(subject), is(""));
+            assertThat(subject.position(), is(20L));
+            assertThat(line(subject), is("third without newline"));
+            assertThat(subject.position(), is(41L));
+            assertThat(subject.readLine(), nullValue());
+            assertThat(subject.readLine(), nullValue());
+        }
+    }
+
+    @Test
+    public void seek_resumesAtAnEarlierPosition() throws Exception {
+        Path file = write("one\ntwo\nthree\n");
+
+        try (LineChannelReader subject = open(file, 4)) {
+            assertThat(line(subject), is("two"));
+            long afterTwo = subject.position();
+            assertThat(line(subject), is("three"));
+            assertThat(subject.readLine(), nullValue());
+
+            subject.seek(afterTwo);
+
+            assertThat(line(subject), is("three"));
+            assertThat(subject.position(), is(14L));
+        }
+    }
+
+    private Path write(String content) throws Exception {
+        return Files.write(directory.resolve("lines.txt"), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static LineChannelReader open(Path file, long position) throws Exception {
+        // a tiny buffer so lines straddle refills
+        return new LineChannelReader(FileChannel.open(file, StandardOpenOption.READ), position, 5);
+    }
+
+    private static String line(LineChannelReader reader) throws Exception {
+        return new String(reader.readLine(), StandardCharsets.UTF_8);
+    }
+}
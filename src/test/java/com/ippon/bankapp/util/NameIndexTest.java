@@ -0,0 +1,131 @@
+package com.ippon.bankapp.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+class NameIndexTest {
+
+    @Test
+    public void search_byPrefixOfEitherName_inTermOrder() {
+        NameIndex subject = index();
+
+        assertThat(lastNames(subject.search("sc", 10)), contains("Scofield", "Scotland", "Scott"));
+        assertThat(lastNames(subject.search("jan", 10)), contains("Doe"));
+        assertThat(lastNames(subject.search("SCOTT", 10)), contains("Scott"));
+    }
+
+    @Test
+    public void search_everyWordMustMatch() {
+        NameIndex subject = index();
+
+        assertThat(lastNames(subject.search("ben sc", 10)), contains("Scott"));
+        assertThat(lastNames(subject.search("sc  ben", 10)), contains("Scott"));
+        assertThat(lastNames(subject.search("nobody sc", 10)), is(empty()));
+    }
+
+    @Test
+    public void search_ignoresCaseAndAccents() {
+        NameIndex subject = index();
+
+        assertThat(lastNames(subject.search("zoe", 10)), contains("Müller-Lüdenscheidt"));
+        assertThat(lastNames(subject.search("ludensch", 10)), contains("Müller-Lüdenscheidt"));
+        assertThat(lastNames(subject.search("MÜLL", 10)), contains("Müller-Lüdenscheidt"));
+    }
+
+    @Test
+    public void search_misspelled_foundAfterThePrefixMatches() {
+        NameIndex subject = index();
+
+        List<NameIndex.Match> matches = subject.search("smtih", 10);
+        assertThat(lastNames(matches), contains("Smith"));
+        assertThat(matches.get(0).isFuzzy(), is(true));
+
+        // "scot" is a prefix of "scott" and "scotland", one edit from "scott" only
+        assertThat(lastNames(subject.search("scot", 10)), contains("Scotland", "Scott"));
+        assertThat(lastNames(subject.search("geohgan", 10)), contains("Geoghan"));
+        assertThat(lastNames(subject.search("ben scot", 10)), contains("Scott"));
+    }
+
+    @Test
+    public void search_shortTerms_notFuzzy() {
+        NameIndex subject = index();
+
+        assertThat(lastNames(subject.search("xo", 10)), is(empty()));
+    }
+
+    @Test
+    public void search_stopsAtTheLimit() {
+        NameIndex subject = index();
+
+        assertThat(lastNames(subject.search("s", 2)), contains("Scofield", "Scotland"));
+        assertThat(lastNames(subject.search("s", 0)), is(empty()));
+        assertThat(lastNames(subject.search(" -", 10)), is(empty()));
+    }
+
+    @Test
+    public void search_namePutTwice_foundOnce() {
+        NameIndex subject = index();
+
+        subject.put("Ben", "Scott");
+
+        assertThat(lastNames(subject.search("scott", 10)), contains("Scott"));
+        assertThat(subject.size(), is(9));
+    }
+
+    @Test
+    public void search_misspelled_closestFirst() {
+        NameIndex subject = index();
+
+        // "smith" is a letter too many away, "smyth" that and a substitution
+        assertThat(lastNames(subject.search("smtih", 10)), contains("Smith"));
+        assertThat(lastNames(subject.search("smitth", 10)), contains("Smith", "Smyth"));
+        // three edits
+        assertThat(lastNames(subject.search("smithsonx", 10)), is(empty()));
+    }
+
+    @Test
+    public void search_misspelledFirstLetter_notFound() {
+        NameIndex subject = index();
+
+        assertThat(lastNames(subject.search("xmith", 10)), is(empty()));
+        assertThat(lastNames(subject.search("ben xcott", 10)), is(empty()));
+    }
+
+    @Test
+    public void estimateBytes_growsWithTheNames() {
+        NameIndex subject = new NameIndex();
+        long empty = subject.estimateBytes();
+
+        for (int i = 0; i < 1000; i++) {
+            subject.put("First" + i, "Last" + i);
+        }
+
+        assertThat(subject.estimateBytes(), greaterThan(empty + 1000 * 16));
+        assertThat(subject.termCount(), is(2000));
+    }
+
+    private static NameIndex index() {
+        NameIndex index = new NameIndex();
+        index.put("Ben", "Scott");
+        index.put("Erin", "Geoghan");
+        index.put("Jane", "Doe");
+        index.put("Katie", "Smith");
+        index.put("Paul", "Smyth");
+        index.put("Anna", "Scotland");
+        index.put("Tom", "Scofield");
+        index.put("Zoë", "Müller-Lüdenscheidt");
+        return index;
+    }
+
+    private static List<String> lastNames(List<NameIndex.Match> matches) {
+        return matches.stream().map(NameIndex.Match::getLastName).collect(Collectors.toList());
+    }
+}
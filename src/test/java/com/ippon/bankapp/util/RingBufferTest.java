@@ -0,0 +1,104 @@
+package com.ippon.bankapp.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RingBufferTest {
+
+    private static final long TIMEOUT = TimeUnit.SECONDS.toNanos(5);
+
+    @Test
+    public void size_roundedUpToPowerOfTwo() {
+        assertThat(new RingBuffer<>(1000, Object::new).size(), is(1024));
+        assertThrows(IllegalArgumentException.class, () -> new RingBuffer<>(0, Object::new));
+    }
+
+    @Test
+    public void awaitPublished_nothingPublished_timesOut() {
+        RingBuffer<long[]> subject = new RingBuffer<>(4, () -> new long[1]);
+        long sequence = subject.next();
+
+        assertThat(subject.awaitPublished(0, TimeUnit.MILLISECONDS.toNanos(10)), is(-1L));
+
+        subject.publish(sequence);
+        assertThat(subject.awaitPublished(0, TIMEOUT), is(0L));
+    }
+
+    @Test
+    public void awaitPublished_stopsAtTheFirstGap() {
+        RingBuffer<long[]> subject = new RingBuffer<>(8, () -> new long[1]);
+        for (int i = 0; i < 4; i++) {
+            subject.next();
+        }
+        subject.publish(0);
+        subject.publish(1);
+        subject.publish(3);
+
+        assertThat(subject.awaitPublished(0, TIMEOUT), is(1L));
+    }
+
+    @Test
+    public void awaitFree_fullRing_waitsForRelease() {
+        RingBuffer<long[]> subject = new RingBuffer<>(2, () -> new long[1]);
+        subject.publish(subject.next());
+        subject.publish(subject.next());
+        long third = subject.next();
+
+        assertThat(subject.awaitFree(third, TimeUnit.MILLISECONDS.toNanos(10)), is(false));
+
+        subject.release(0);
+        assertThat(subject.awaitFree(third, TIMEOUT), is(true));
+    }
+
+    @Test
+    public void producers_eachValueConsumedOnceInOrderPerProducer() throws Exception {
+        int producers = 4;
+        int values = 50_000;
+        RingBuffer<long[]> subject = new RingBuffer<>(64, () -> new long[2]);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        List<Future<?>> results = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            results.add(executor.submit(() -> {
+                for (int i = 0; i < values; i++) {
+                    long sequence = subject.next();
+                    assertThat(subject.awaitFree(sequence, TIMEOUT), is(true));
+                    subject.get(sequence)[0] = producer;
+                    subject.get(sequence)[1] = i;
+                    subject.publish(sequence);
+                }
+                return null;
+            }));
+        }
+
+        long[] nextValue = new long[producers];
+        long next = 0;
+        while (next < (long) producers * values) {
+            long last = subject.awaitPublished(next, TIMEOUT);
+            for (long sequence = next; sequence <= last; sequence++) {
+                long[] slot = subject.get(sequence);
+                assertThat(slot[1], is(nextValue[(int) slot[0]]++));
+            }
+            subject.release(last);
+            next = last + 1;
+        }
+        for (Future<?> result : results) {
+            result.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        for (long count : nextValue) {
+            assertThat(count, is((long) values));
+        }
+        assertThat(subject.getBacklog(), is(0L));
+    }
+}
@@ -0,0 +1,94 @@
+package com.ippon.bankapp.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StripedLockTest {
+
+    @Test
+    public void size_roundedUpToPowerOfTwo() {
+        assertThat(new StripedLock(1).size(), is(1));
+        assertThat(new StripedLock(1000).size(), is(1024));
+        assertThat(new StripedLock(1024).size(), is(1024));
+        assertThat(new StripedLock(0).size(), is(0));
+        assertThrows(IllegalArgumentException.class, () -> new StripedLock(-1));
+    }
+
+    @Test
+    public void lock_sameKey_excludesOtherThreads() throws Exception {
+        StripedLock subject = new StripedLock(16);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (StripedLock.Held held = subject.lock("Scott")) {
+            Future<?> other = executor.submit(() -> subject.lock("Scott").close());
+            assertThrows(TimeoutException.class, () -> other.get(100, TimeUnit.MILLISECONDS));
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS), is(true));
+    }
+
+    @Test
+    public void lock_pairInEitherOrder_doesNotDeadlock() throws Exception {
+        StripedLock subject = new StripedLock(16);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+        Future<?> forward = executor.submit(() -> lockRepeatedly(subject, start, "Scott", "Doe"));
+        Future<?> backward = executor.submit(() -> lockRepeatedly(subject, start, "Doe", "Scott"));
+
+        start.countDown();
+        forward.get(10, TimeUnit.SECONDS);
+        backward.get(10, TimeUnit.SECONDS);
+        executor.shutdown();
+    }
+
+    @Test
+    public void lock_pairOnOneStripe_releasedOnClose() throws Exception {
+        StripedLock subject = new StripedLock(1);
+        subject.lock("Scott", "Doe").close();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.submit(() -> subject.lock("Scott").close()).get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+    }
+
+    @Test
+    public void lock_noStripes_neverBlocks() throws Exception {
+        StripedLock subject = new StripedLock(0);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (StripedLock.Held held = subject.lock("Scott")) {
+            executor.submit(() -> subject.lock("Scott", "Doe").close()).get(5, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    public void lockAll_keysSharingStripes_lockedOnceAndReleased() throws Exception {
+        StripedLock subject = new StripedLock(2);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (StripedLock.Held held = subject.lockAll(Arrays.asList("Scott", "Doe", "Smith", "Scott"))) {
+            Future<?> other = executor.submit(() -> subject.lock("Doe").close());
+            assertThrows(TimeoutException.class, () -> other.get(100, TimeUnit.MILLISECONDS));
+        }
+        executor.submit(() -> subject.lock("Scott", "Smith").close()).get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+    }
+
+    private static Void lockRepeatedly(StripedLock subject, CountDownLatch start, String first, String second)
+            throws InterruptedException {
+        start.await();
+        for (int i = 0; i < 100_000; i++) {
+            subject.lock(first, second).close();
+        }
+        return null;
+    }
+}
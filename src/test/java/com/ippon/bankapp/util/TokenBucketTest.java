@@ -0,0 +1,83 @@
+package com.ippon.bankapp.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void tryAcquire_admitsTheBurstThenTheRate() {
+        TokenBucket subject = new TokenBucket(10, 3, 0);
+
+        assertThat(subject.tryAcquire(0), is(0L));
+        assertThat(subject.tryAcquire(0), is(0L));
+        assertThat(subject.tryAcquire(0), is(0L));
+        assertThat(subject.tryAcquire(0), is(SECOND / 10));
+
+        assertThat(subject.tryAcquire(SECOND / 10), is(0L));
+        assertThat(subject.tryAcquire(SECOND / 10), is(SECOND / 10));
+    }
+
+    @Test
+    public void tryAcquire_idleBucket_holdsNoMoreThanTheBurst() {
+        TokenBucket subject = new TokenBucket(10, 2, 0);
+
+        long later = 60 * SECOND;
+        assertThat(subject.tryAcquire(later), is(0L));
+        assertThat(subject.tryAcquire(later), is(0L));
+        assertThat(subject.tryAcquire(later), is(SECOND / 10));
+    }
+
+    @Test
+    public void tryAcquire_acrossTheClockWrapping() {
+        long start = Long.MAX_VALUE - SECOND / 20;
+        TokenBucket subject = new TokenBucket(10, 1, start);
+
+        assertThat(subject.tryAcquire(start), is(0L));
+        assertThat(subject.tryAcquire(start + SECOND / 20), is(SECOND / 20));
+        assertThat(subject.tryAcquire(start + SECOND / 10), is(0L));
+    }
+
+    @Test
+    public void tryAcquire_concurrent_admitsExactlyTheBurst() throws Exception {
+        TokenBucket subject = new TokenBucket(0.001, 1000, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            results.add(executor.submit(() -> {
+                int admitted = 0;
+                for (int i = 0; i < 1000; i++) {
+                    if (subject.tryAcquire(0) == 0) {
+                        admitted++;
+                    }
+                }
+                return admitted;
+            }));
+        }
+        int admitted = 0;
+        for (Future<Integer> result : results) {
+            admitted += result.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(admitted, is(1000));
+    }
+
+    @Test
+    public void invalidRateOrBurst_rejected() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(1, 0, 0));
+    }
+}